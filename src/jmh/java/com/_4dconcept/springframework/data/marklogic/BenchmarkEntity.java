@@ -0,0 +1,104 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com._4dconcept.springframework.data.marklogic;
+
+import com._4dconcept.springframework.data.marklogic.core.mapping.Collection;
+import com._4dconcept.springframework.data.marklogic.core.mapping.Document;
+import org.springframework.lang.Nullable;
+
+import javax.xml.bind.annotation.XmlRootElement;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Sample domain class shared by the benchmarks.
+ *
+ * @author Stéphane Toussaint
+ */
+@Document(uri = "/content/#{entityClass.getSimpleName()}/#{id}.xml")
+@Collection("#{entityClass.getSimpleName()}")
+@XmlRootElement
+public class BenchmarkEntity {
+
+    @Nullable private String id;
+    private String firstname;
+    private String lastname;
+    private Integer age;
+    private List<String> skills;
+
+    @Collection(prefix = "type")
+    private String type;
+
+    public BenchmarkEntity() {}
+
+    public BenchmarkEntity(@Nullable String id, String firstname, String lastname, Integer age) {
+        this.id = id;
+        this.firstname = firstname;
+        this.lastname = lastname;
+        this.age = age;
+        this.skills = Arrays.asList("xquery", "java");
+        this.type = "sample";
+    }
+
+    @Nullable
+    public String getId() {
+        return id;
+    }
+
+    public void setId(@Nullable String id) {
+        this.id = id;
+    }
+
+    public String getFirstname() {
+        return firstname;
+    }
+
+    public void setFirstname(String firstname) {
+        this.firstname = firstname;
+    }
+
+    public String getLastname() {
+        return lastname;
+    }
+
+    public void setLastname(String lastname) {
+        this.lastname = lastname;
+    }
+
+    public Integer getAge() {
+        return age;
+    }
+
+    public void setAge(Integer age) {
+        this.age = age;
+    }
+
+    public List<String> getSkills() {
+        return skills;
+    }
+
+    public void setSkills(List<String> skills) {
+        this.skills = skills;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+}
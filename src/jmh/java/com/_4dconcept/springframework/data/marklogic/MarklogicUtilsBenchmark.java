@@ -0,0 +1,74 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com._4dconcept.springframework.data.marklogic;
+
+import com._4dconcept.springframework.data.marklogic.core.mapping.MarklogicMappingContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of {@link MarklogicUtils#expandsExpression} and {@link MarklogicCollectionUtils#extractCollections}.
+ *
+ * @author Stéphane Toussaint
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MarklogicUtilsBenchmark {
+
+    private MarklogicMappingContext mappingContext;
+
+    private MarklogicCollectionUtils marklogicCollectionUtils;
+
+    private BenchmarkEntity entity;
+
+    @Setup
+    public void setup() {
+        mappingContext = new MarklogicMappingContext();
+        mappingContext.getPersistentEntity(BenchmarkEntity.class);
+        marklogicCollectionUtils = new MarklogicCollectionUtils() {};
+        entity = new BenchmarkEntity("1", "John", "Doe", 38);
+    }
+
+    @Benchmark
+    public String expandsLiteral() {
+        return MarklogicUtils.expandsExpression("/content/person", BenchmarkEntity.class);
+    }
+
+    @Benchmark
+    public String expandsTypeExpression() {
+        return MarklogicUtils.expandsExpression("#{entityClass.getSimpleName()}", BenchmarkEntity.class);
+    }
+
+    @Benchmark
+    public String expandsEntityExpression() {
+        return MarklogicUtils.expandsExpression("/content/#{entityClass.getSimpleName()}/#{entity.lastname}/#{id}.xml",
+                BenchmarkEntity.class, entity, entity::getId);
+    }
+
+    @Benchmark
+    public List<String> extractCollections() {
+        return marklogicCollectionUtils.extractCollections(entity, mappingContext);
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com._4dconcept.springframework.data.marklogic.core.convert;
+
+import com._4dconcept.springframework.data.marklogic.BenchmarkEntity;
+import com._4dconcept.springframework.data.marklogic.core.mapping.MarklogicMappingContext;
+import com.marklogic.xcc.impl.ResultItemImpl;
+import com.marklogic.xcc.types.impl.ElementImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the JAXB read and write converters registered by {@link MarklogicConverters}.
+ *
+ * @author Stéphane Toussaint
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MarklogicConvertersBenchmark {
+
+    private MappingMarklogicConverter converter;
+
+    private BenchmarkEntity entity;
+
+    private String content;
+
+    @Setup
+    public void setup() {
+        converter = new MappingMarklogicConverter(new MarklogicMappingContext());
+        converter.afterPropertiesSet();
+
+        entity = new BenchmarkEntity("1", "John", "Doe", 38);
+        content = write();
+    }
+
+    @Benchmark
+    public String write() {
+        MarklogicContentHolder holder = new MarklogicContentHolder();
+        converter.write(entity, holder);
+        return (String) holder.getContent();
+    }
+
+    @Benchmark
+    public BenchmarkEntity read() {
+        MarklogicContentHolder holder = new MarklogicContentHolder();
+        holder.setContent(new ResultItemImpl(new ElementImpl(content), 0, null, null));
+        return converter.read(BenchmarkEntity.class, holder);
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com._4dconcept.springframework.data.marklogic.core.cts;
+
+import com._4dconcept.springframework.data.marklogic.BenchmarkEntity;
+import com._4dconcept.springframework.data.marklogic.core.mapping.MarklogicMappingContext;
+import com._4dconcept.springframework.data.marklogic.core.query.Criteria;
+import com._4dconcept.springframework.data.marklogic.core.query.Query;
+import com._4dconcept.springframework.data.marklogic.core.query.QueryBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import javax.xml.namespace.QName;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of {@link CTSQuerySerializer}.
+ *
+ * @author Stéphane Toussaint
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CTSQuerySerializerBenchmark {
+
+    private Query simpleQuery;
+
+    private Query compositeQuery;
+
+    @Setup
+    public void setup() {
+        MarklogicMappingContext mappingContext = new MarklogicMappingContext();
+
+        simpleQuery = new QueryBuilder(mappingContext)
+                .ofType(BenchmarkEntity.class)
+                .with(new Criteria(new QName("lastname"), "Doe"))
+                .build();
+
+        Criteria nameCriteria = new Criteria(Criteria.Operator.OR, Arrays.asList(
+                new Criteria(new QName("lastname"), "Doe"),
+                new Criteria(new QName("lastname"), "Smith")));
+        Criteria skillCriteria = new Criteria(new QName("skills"), "xquery");
+        compositeQuery = new QueryBuilder(mappingContext)
+                .ofType(BenchmarkEntity.class)
+                .with(new Criteria(Criteria.Operator.AND, Arrays.asList(nameCriteria, skillCriteria, new Criteria(Criteria.Operator.NOT, new Criteria(new QName("age"), 38)))))
+                .with(PageRequest.of(2, 20, Sort.by("lastname", "firstname")))
+                .build();
+    }
+
+    @Benchmark
+    public String serializeSimpleQuery() {
+        return new CTSQuerySerializer(simpleQuery).asCtsQuery();
+    }
+
+    @Benchmark
+    public String serializeCompositeQuery() {
+        return new CTSQuerySerializer(compositeQuery).asCtsQuery();
+    }
+}
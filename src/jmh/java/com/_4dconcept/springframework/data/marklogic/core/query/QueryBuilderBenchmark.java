@@ -0,0 +1,64 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com._4dconcept.springframework.data.marklogic.core.query;
+
+import com._4dconcept.springframework.data.marklogic.BenchmarkEntity;
+import com._4dconcept.springframework.data.marklogic.core.mapping.MarklogicMappingContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.domain.Example;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of {@link QueryBuilder} query by example.
+ *
+ * @author Stéphane Toussaint
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class QueryBuilderBenchmark {
+
+    private MarklogicMappingContext mappingContext;
+
+    private Example<BenchmarkEntity> example;
+
+    @Setup
+    public void setup() {
+        mappingContext = new MarklogicMappingContext();
+        mappingContext.getPersistentEntity(BenchmarkEntity.class);
+
+        BenchmarkEntity probe = new BenchmarkEntity(null, "John", "Doe", 38);
+        probe.setSkills(null);
+        example = Example.of(probe);
+    }
+
+    @Benchmark
+    public Query buildByExample() {
+        return new QueryBuilder(mappingContext).alike(example).build();
+    }
+
+    @Benchmark
+    public Query buildByType() {
+        return new QueryBuilder(mappingContext).ofType(BenchmarkEntity.class).build();
+    }
+}
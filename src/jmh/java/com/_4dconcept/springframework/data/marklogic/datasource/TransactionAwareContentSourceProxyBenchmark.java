@@ -0,0 +1,86 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com._4dconcept.springframework.data.marklogic.datasource;
+
+import com.marklogic.xcc.ContentSource;
+import com.marklogic.xcc.Session;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the JDK proxy overhead added by {@link TransactionAwareContentSourceProxy}, compared to the same
+ * calls performed on the target ContentSource.
+ *
+ * @author Stéphane Toussaint
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TransactionAwareContentSourceProxyBenchmark {
+
+    private ContentSource targetContentSource;
+
+    private TransactionAwareContentSourceProxy proxyContentSource;
+
+    @Setup
+    public void setup() {
+        Session targetSession = stub(Session.class, null);
+        targetContentSource = stub(ContentSource.class, targetSession);
+        proxyContentSource = new TransactionAwareContentSourceProxy(targetContentSource);
+    }
+
+    @Benchmark
+    public String targetSession() {
+        Session session = targetContentSource.newSession();
+        String contentBaseName = session.getContentBaseName();
+        session.close();
+        return contentBaseName;
+    }
+
+    @Benchmark
+    public String proxySession() {
+        Session session = proxyContentSource.newSession();
+        String contentBaseName = session.getContentBaseName();
+        session.close();
+        return contentBaseName;
+    }
+
+    /**
+     * Stub returning the given session from methods returning a Session, and null from other methods.
+     */
+    private static <T> T stub(Class<T> type, Session session) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "isClosed":
+                    return false;
+                default:
+                    return Session.class.equals(method.getReturnType()) ? session : null;
+            }
+        }));
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com._4dconcept.springframework.data.marklogic.repository.query;
+
+import com._4dconcept.springframework.data.marklogic.BenchmarkEntity;
+import com._4dconcept.springframework.data.marklogic.core.mapping.MarklogicMappingContext;
+import com._4dconcept.springframework.data.marklogic.core.query.Query;
+import com._4dconcept.springframework.data.marklogic.repository.MarklogicRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.data.repository.core.support.DefaultRepositoryMetadata;
+import org.springframework.data.repository.query.ParametersParameterAccessor;
+import org.springframework.data.repository.query.parser.PartTree;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of {@link MarklogicQueryCreator} query tree building.
+ *
+ * @author Stéphane Toussaint
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MarklogicQueryCreatorBenchmark {
+
+    private MarklogicMappingContext mappingContext;
+
+    private MarklogicQueryMethod method;
+
+    private PartTree tree;
+
+    private ParametersParameterAccessor accessor;
+
+    @Setup
+    public void setup() throws NoSuchMethodException {
+        mappingContext = new MarklogicMappingContext();
+        mappingContext.getPersistentEntity(BenchmarkEntity.class);
+
+        method = new MarklogicQueryMethod(BenchmarkRepository.class.getMethod("findByLastnameAndFirstnameOrAge", String.class, String.class, Integer.class),
+                new DefaultRepositoryMetadata(BenchmarkRepository.class), new SpelAwareProxyProjectionFactory());
+        tree = parseTree();
+        accessor = new ParametersParameterAccessor(method.getParameters(), new Object[] {"Doe", "John", 38});
+    }
+
+    @Benchmark
+    public PartTree parseTree() {
+        return new PartTree(method.getName(), BenchmarkEntity.class);
+    }
+
+    @Benchmark
+    public Query createQuery() {
+        return new MarklogicQueryCreator(tree, accessor, mappingContext, BenchmarkEntity.class).createQuery();
+    }
+
+    @Benchmark
+    public Query parseTreeAndCreateQuery() {
+        return new MarklogicQueryCreator(parseTree(), accessor, mappingContext, BenchmarkEntity.class).createQuery();
+    }
+
+    interface BenchmarkRepository extends MarklogicRepository<BenchmarkEntity, String> {
+
+        List<BenchmarkEntity> findByLastnameAndFirstnameOrAge(String lastname, String firstname, Integer age);
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com._4dconcept.springframework.data.marklogic;
+
+import com._4dconcept.springframework.data.marklogic.core.mapping.Collection;
+import com._4dconcept.springframework.data.marklogic.core.mapping.MarklogicPersistentEntity;
+import com._4dconcept.springframework.data.marklogic.core.mapping.MarklogicPersistentProperty;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.data.mapping.PropertyHandler;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ConcurrentReferenceHashMap;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Precomputed description of where {@link Collection} values are to be found on a given type.
+ * Plans are resolved once per type (methods) and per persistent entity (properties) and cached.
+ *
+ * @author Stéphane Toussaint
+ */
+final class CollectionExtractionPlan {
+
+    private static final Map<Class<?>, List<CollectionMethod>> METHOD_PLANS = new ConcurrentReferenceHashMap<>();
+
+    private static final Map<MarklogicPersistentEntity<?>, CollectionExtractionPlan> PROPERTY_PLANS = new ConcurrentReferenceHashMap<>();
+
+    private final List<CollectionProperty> collectionProperties;
+    private final List<MarklogicPersistentProperty> nestedProperties;
+
+    private CollectionExtractionPlan(List<CollectionProperty> collectionProperties, List<MarklogicPersistentProperty> nestedProperties) {
+        this.collectionProperties = collectionProperties;
+        this.nestedProperties = nestedProperties;
+    }
+
+    /**
+     * @param persistentEntity the persistent entity to inspect
+     * @return the property plan of the given entity
+     */
+    static CollectionExtractionPlan forEntity(MarklogicPersistentEntity<?> persistentEntity) {
+        return PROPERTY_PLANS.computeIfAbsent(persistentEntity, CollectionExtractionPlan::resolvePropertyPlan);
+    }
+
+    /**
+     * @param type the type to inspect
+     * @return the {@link Collection} annotated no-arg methods of the given type
+     */
+    static List<CollectionMethod> methodsOf(Class<?> type) {
+        return METHOD_PLANS.computeIfAbsent(type, CollectionExtractionPlan::resolveMethodPlan);
+    }
+
+    /**
+     * @return the properties holding a {@link Collection} annotation
+     */
+    List<CollectionProperty> getCollectionProperties() {
+        return collectionProperties;
+    }
+
+    /**
+     * @return the properties holding nested entities that may declare their own collections
+     */
+    List<MarklogicPersistentProperty> getNestedProperties() {
+        return nestedProperties;
+    }
+
+    boolean isEmpty() {
+        return collectionProperties.isEmpty() && nestedProperties.isEmpty();
+    }
+
+    private static CollectionExtractionPlan resolvePropertyPlan(MarklogicPersistentEntity<?> persistentEntity) {
+        List<CollectionProperty> collectionProperties = new ArrayList<>();
+        List<MarklogicPersistentProperty> nestedProperties = new ArrayList<>();
+
+        persistentEntity.doWithProperties((PropertyHandler<MarklogicPersistentProperty>) property -> {
+            Collection collection = findCollectionAnnotation(property);
+            if (collection != null) {
+                collectionProperties.add(new CollectionProperty(property, collection));
+            } else if (property.getReadMethod().isPresent() && property.getPersistentEntityTypes().iterator().hasNext()) {
+                nestedProperties.add(property);
+            }
+        });
+
+        return new CollectionExtractionPlan(
+                collectionProperties.isEmpty() ? Collections.emptyList() : Collections.unmodifiableList(collectionProperties),
+                nestedProperties.isEmpty() ? Collections.emptyList() : Collections.unmodifiableList(nestedProperties));
+    }
+
+    private static List<CollectionMethod> resolveMethodPlan(Class<?> type) {
+        List<CollectionMethod> methods = new ArrayList<>();
+
+        for (Method method : type.getMethods()) {
+            if (method.getParameterCount() > 0) {
+                continue;
+            }
+
+            Collection collection = AnnotationUtils.findAnnotation(method, Collection.class);
+            if (collection != null) {
+                methods.add(new CollectionMethod(method, collection));
+            }
+        }
+
+        return methods.isEmpty() ? Collections.emptyList() : Collections.unmodifiableList(methods);
+    }
+
+    @Nullable
+    static Collection findCollectionAnnotation(MarklogicPersistentProperty property) {
+        List<AnnotatedElement> annotatedElements = new ArrayList<>();
+
+        property.getReadMethod().ifPresent(annotatedElements::add);
+
+        if (property.getField() != null) {
+            annotatedElements.add(property.getField());
+        }
+
+        return annotatedElements.stream().map(e -> AnnotationUtils.findAnnotation(e, Collection.class)).filter(Objects::nonNull).findFirst().orElse(null);
+    }
+
+    /**
+     * A persistent property annotated with {@link Collection}.
+     */
+    static final class CollectionProperty {
+
+        private final MarklogicPersistentProperty property;
+        private final Collection collection;
+
+        CollectionProperty(MarklogicPersistentProperty property, Collection collection) {
+            this.property = property;
+            this.collection = collection;
+        }
+
+        MarklogicPersistentProperty getProperty() {
+            return property;
+        }
+
+        Collection getCollection() {
+            return collection;
+        }
+    }
+
+    /**
+     * A no-arg method annotated with {@link Collection}, invoked through a pre-resolved {@link MethodHandle}.
+     */
+    static final class CollectionMethod {
+
+        private final Method method;
+        private final MethodHandle handle;
+        private final Collection collection;
+
+        CollectionMethod(Method method, Collection collection) {
+            this.method = method;
+            this.collection = collection;
+
+            ReflectionUtils.makeAccessible(method);
+            try {
+                this.handle = MethodHandles.lookup().unreflect(method);
+            } catch (IllegalAccessException e) {
+                throw new UnsupportedOperationException(String.format("Unable to read value from %s", method), e);
+            }
+        }
+
+        @Nullable
+        Object invoke(Object entity) {
+            try {
+                return handle.invoke(entity);
+            } catch (Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new UnsupportedOperationException(String.format("Unable to read value from %s", method), t);
+            }
+        }
+
+        Collection getCollection() {
+            return collection;
+        }
+    }
+}
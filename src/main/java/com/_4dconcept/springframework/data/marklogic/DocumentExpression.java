@@ -0,0 +1,220 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com._4dconcept.springframework.data.marklogic;
+
+import org.springframework.expression.Expression;
+import org.springframework.expression.ParserContext;
+import org.springframework.expression.common.CompositeStringExpression;
+import org.springframework.expression.common.LiteralExpression;
+import org.springframework.expression.spel.ast.PropertyOrFieldReference;
+import org.springframework.expression.spel.standard.SpelExpression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.lang.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Compiled form of a document uri or collection template such as {@code /content/person/#{id}.xml}.
+ *
+ * <p>Templates are parsed once. Literal templates are returned as is, templates only made of literal parts and
+ * {@code #{id}} references are expanded by simple concatenation. Any other template falls back to a full SpEL
+ * evaluation against the entity class, the entity and its identifier.</p>
+ *
+ * @author Stéphane Toussaint
+ */
+public abstract class DocumentExpression {
+
+    private static final SpelExpressionParser PARSER = new SpelExpressionParser();
+
+    private static final String ID_REFERENCE = "id";
+
+    private final String template;
+
+    private DocumentExpression(String template) {
+        this.template = template;
+    }
+
+    /**
+     * Compiles the given template.
+     *
+     * @param template the template to compile
+     * @return the compiled expression
+     */
+    public static DocumentExpression compile(String template) {
+        Expression expression = PARSER.parseExpression(template, ParserContext.TEMPLATE_EXPRESSION);
+
+        if (expression instanceof LiteralExpression) {
+            return new LiteralDocumentExpression(template);
+        }
+
+        List<Object> segments = new ArrayList<>();
+        Expression[] parts = expression instanceof CompositeStringExpression
+                ? ((CompositeStringExpression) expression).getExpressions()
+                : new Expression[] {expression};
+
+        for (Expression part : parts) {
+            if (part instanceof LiteralExpression) {
+                segments.add(part.getExpressionString());
+            } else if (isIdReference(part)) {
+                segments.add(IdSegment.INSTANCE);
+            } else {
+                return new SpelDocumentExpression(template, expression);
+            }
+        }
+
+        return new ConcatenationDocumentExpression(template, segments);
+    }
+
+    /**
+     * @return the source template
+     */
+    public String getTemplate() {
+        return template;
+    }
+
+    /**
+     * @return true if the template does not contain any dynamic part
+     */
+    public boolean isLiteral() {
+        return false;
+    }
+
+    /**
+     * Expands the template using the provided type, entity and id as context.
+     *
+     * @param entityType the entityType used as context
+     * @param entity the entity to use as context
+     * @param idSupplier the supplier of the entity identifier, only called if the template references it
+     * @return the expanded template
+     */
+    @Nullable
+    public abstract String expand(@Nullable Class<?> entityType, @Nullable Object entity, @Nullable Supplier<Object> idSupplier);
+
+    @Override
+    public String toString() {
+        return template;
+    }
+
+    private static boolean isIdReference(Expression expression) {
+        return expression instanceof SpelExpression
+                && ((SpelExpression) expression).getAST() instanceof PropertyOrFieldReference
+                && ID_REFERENCE.equals(((PropertyOrFieldReference) ((SpelExpression) expression).getAST()).getName());
+    }
+
+    private static final class LiteralDocumentExpression extends DocumentExpression {
+
+        LiteralDocumentExpression(String template) {
+            super(template);
+        }
+
+        @Override
+        public boolean isLiteral() {
+            return true;
+        }
+
+        @Override
+        public String expand(@Nullable Class<?> entityType, @Nullable Object entity, @Nullable Supplier<Object> idSupplier) {
+            return getTemplate();
+        }
+    }
+
+    private enum IdSegment {
+        INSTANCE
+    }
+
+    private static final class ConcatenationDocumentExpression extends DocumentExpression {
+
+        private final Object[] segments;
+        private final boolean singleIdReference;
+
+        ConcatenationDocumentExpression(String template, List<Object> segments) {
+            super(template);
+            this.segments = segments.toArray();
+            this.singleIdReference = this.segments.length == 1;
+        }
+
+        @Override
+        @Nullable
+        public String expand(@Nullable Class<?> entityType, @Nullable Object entity, @Nullable Supplier<Object> idSupplier) {
+            Object id = idSupplier != null ? idSupplier.get() : null;
+
+            if (singleIdReference) {
+                return id == null ? null : id.toString();
+            }
+
+            StringBuilder sb = new StringBuilder(getTemplate().length() + 32);
+            for (Object segment : segments) {
+                if (segment == IdSegment.INSTANCE) {
+                    if (id != null) {
+                        sb.append(id);
+                    }
+                } else {
+                    sb.append((String) segment);
+                }
+            }
+            return sb.toString();
+        }
+    }
+
+    private static final class SpelDocumentExpression extends DocumentExpression {
+
+        private final Expression expression;
+
+        SpelDocumentExpression(String template, Expression expression) {
+            super(template);
+            this.expression = expression;
+        }
+
+        @Override
+        @Nullable
+        public String expand(@Nullable Class<?> entityType, @Nullable Object entity, @Nullable Supplier<Object> idSupplier) {
+            return expression.getValue(new DocumentExpressionContext(entityType, entity, idSupplier), String.class);
+        }
+    }
+
+    /**
+     * Root object of SpEL evaluated templates.
+     */
+    public static final class DocumentExpressionContext {
+
+        private final @Nullable Class<?> entityClass;
+        private final @Nullable Object entity;
+        private final @Nullable Supplier<Object> idSupplier;
+
+        DocumentExpressionContext(@Nullable Class<?> entityClass, @Nullable Object entity, @Nullable Supplier<Object> idSupplier) {
+            this.entityClass = entityClass;
+            this.entity = entity;
+            this.idSupplier = idSupplier;
+        }
+
+        @Nullable
+        public Class<?> getEntityClass() {
+            return entityClass;
+        }
+
+        @Nullable
+        public Object getEntity() {
+            return entity;
+        }
+
+        @Nullable
+        public Object getId() {
+            return idSupplier != null ? idSupplier.get() : null;
+        }
+    }
+}
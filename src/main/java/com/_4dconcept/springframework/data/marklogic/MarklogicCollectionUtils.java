@@ -4,20 +4,16 @@ import com._4dconcept.springframework.data.marklogic.core.mapping.Collection;
 import com._4dconcept.springframework.data.marklogic.core.mapping.MarklogicPersistentEntity;
 import com._4dconcept.springframework.data.marklogic.core.mapping.MarklogicPersistentProperty;
 import org.springframework.core.annotation.AnnotationUtils;
-import org.springframework.data.mapping.PropertyHandler;
+import org.springframework.data.mapping.PersistentPropertyAccessor;
 import org.springframework.data.mapping.context.MappingContext;
 import org.springframework.util.StringUtils;
 
-import java.lang.reflect.AnnotatedElement;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
 
 public interface MarklogicCollectionUtils {
 
@@ -31,15 +27,7 @@ public interface MarklogicCollectionUtils {
     }
 
     default Optional<Collection> getCollectionAnnotation(MarklogicPersistentProperty property) {
-        ArrayList<AnnotatedElement> annotatedElements = new ArrayList<>();
-
-        property.getReadMethod().ifPresent(annotatedElements::add);
-
-        if (property.getField() != null) {
-            annotatedElements.add(property.getField());
-        }
-
-        return annotatedElements.stream().map(e -> AnnotationUtils.findAnnotation(e, Collection.class)).filter(Objects::nonNull).findFirst();
+        return Optional.ofNullable(CollectionExtractionPlan.findCollectionAnnotation(property));
     }
 
     default Optional<Collection> getCollectionAnnotation(Method method) {
@@ -75,44 +63,45 @@ public interface MarklogicCollectionUtils {
             return Collections.emptyList();
         }
 
+        CollectionExtractionPlan plan = CollectionExtractionPlan.forEntity(persistentEntity);
+
+        if (plan.isEmpty()) {
+            return Collections.emptyList();
+        }
+
         List<String> collections = new ArrayList<>();
-        persistentEntity.doWithProperties((PropertyHandler<MarklogicPersistentProperty>) property -> {
-            Object value = persistentEntity.getPropertyAccessor(entity).getProperty(property);
+        PersistentPropertyAccessor<T> accessor = persistentEntity.getPropertyAccessor(entity);
+
+        for (CollectionExtractionPlan.CollectionProperty collectionProperty : plan.getCollectionProperties()) {
+            Object value = accessor.getProperty(collectionProperty.getProperty());
             if (value != null) {
-                Optional<Collection> collectionAnnotation = getCollectionAnnotation(property);
-                if (collectionAnnotation.isPresent()) {
-                    collections.addAll(doWithCollectionValue(value, collectionAnnotation.get()));
-                } else {
-                    if (property.getReadMethod().isPresent()) {
-                        StreamSupport.stream(property.getPersistentEntityTypes().spliterator(), false)
-                                .findFirst()
-                                .ifPresent(ti -> collections.addAll(extractCollections(value, mappingContext)));
-                    }
-                }
+                collections.addAll(doWithCollectionValue(value, collectionProperty.getCollection()));
+            }
+        }
+
+        for (MarklogicPersistentProperty nestedProperty : plan.getNestedProperties()) {
+            Object value = accessor.getProperty(nestedProperty);
+            if (value != null) {
+                collections.addAll(extractCollections(value, mappingContext));
             }
-        });
+        }
 
         return collections;
     }
 
     default <T> List<String> extractCollectionsFromMethods(T entity) {
-        List<String> collections = new ArrayList<>();
+        List<CollectionExtractionPlan.CollectionMethod> methods = CollectionExtractionPlan.methodsOf(entity.getClass());
 
-        for (Method method : entity.getClass().getMethods()) {
-            if (method.getParameterCount() > 0) {
-                continue;
-            }
+        if (methods.isEmpty()) {
+            return Collections.emptyList();
+        }
 
-            try {
-                Optional<Collection> collectionAnnotation = getCollectionAnnotation(method);
-                if (collectionAnnotation.isPresent()) {
-                    Object value = method.invoke(entity);
-                    if (value != null) {
-                        collections.addAll(doWithCollectionValue(value, collectionAnnotation.get()));
-                    }
-                }
-            } catch (IllegalAccessException | InvocationTargetException e) {
-                throw new UnsupportedOperationException(String.format("Unable to read value from %s", method), e);
+        List<String> collections = new ArrayList<>();
+
+        for (CollectionExtractionPlan.CollectionMethod method : methods) {
+            Object value = method.invoke(entity);
+            if (value != null) {
+                collections.addAll(doWithCollectionValue(value, method.getCollection()));
             }
         }
 
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com._4dconcept.springframework.data.marklogic;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Callback notified of the timings and volumes of the work performed against Marklogic, to be bridged to a metrics
+ * library such as Micrometer (timers and distribution summaries tagged by the given operation, entity class and outcome).
+ *
+ * <p>Every method does nothing by default. Measures are only taken when {@link #isEnabled()} returns true, so that
+ * the {@link #NONE} default recorder costs a single boolean check per operation.
+ *
+ * <p>Operations are named after the {@code MarklogicOperations} method they are issued by : {@code insert},
+ * {@code save}, {@code remove}, {@code removeAll}, {@code findById}, {@code find}, {@code count},
+ * {@code invokeAdhocQuery} and {@code invokeModule}. Only the outermost operation is recorded when one operation
+ * is performed by another.
+ *
+ * @author Stéphane Toussaint
+ */
+public interface MarklogicMetricsRecorder {
+
+    /**
+     * Recorder taking no measure.
+     */
+    MarklogicMetricsRecorder NONE = new MarklogicMetricsRecorder() {
+        @Override
+        public boolean isEnabled() {
+            return false;
+        }
+    };
+
+    /**
+     * @return whether measures should be taken at all
+     */
+    default boolean isEnabled() {
+        return true;
+    }
+
+    /**
+     * @param operation the operation name
+     * @param entityClass the entity or result type the operation was issued for, if any
+     * @param failure the exception the operation failed with, null on success
+     * @param durationNanos the operation duration
+     */
+    default void recordOperation(String operation, @Nullable Class<?> entityClass, @Nullable Throwable failure, long durationNanos) {}
+
+    /**
+     * @param operation the operation name
+     * @param bytes the size of a document sent to the server
+     */
+    default void recordPayloadWritten(String operation, long bytes) {}
+
+    /**
+     * @param operation the operation name
+     * @param bytes the size of an item read from the server, as consumed by its conversion
+     */
+    default void recordPayloadRead(String operation, long bytes) {}
+
+    /**
+     * @param operation the operation name
+     * @param count the number of items returned by one request
+     */
+    default void recordResultItems(String operation, int count) {}
+
+    /**
+     * @param durationNanos the time spent obtaining a Session from the ContentSource
+     */
+    default void recordSessionAcquisition(long durationNanos) {}
+
+    /**
+     * @param type the type read from a server item
+     * @param durationNanos the conversion duration
+     */
+    default void recordRead(Class<?> type, long durationNanos) {}
+
+    /**
+     * @param type the type of the entity written into a document
+     * @param durationNanos the conversion duration
+     */
+    default void recordWrite(Class<?> type, long durationNanos) {}
+}
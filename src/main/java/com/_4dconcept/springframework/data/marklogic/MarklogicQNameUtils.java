@@ -0,0 +1,44 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com._4dconcept.springframework.data.marklogic;
+
+import javax.xml.namespace.QName;
+
+/**
+ * Helper class featuring helper methods for working with {@link QName}.
+ * Mainly intended for internal use within the framework.
+ *
+ * @author Stéphane Toussaint
+ */
+public abstract class MarklogicQNameUtils {
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private MarklogicQNameUtils() {}
+
+    /**
+     * Obtains the xquery {@code fn:QName(...)} constructor of the given name.
+     * Nothing is cached here : mapped properties keep their own fragment, see
+     * {@link com._4dconcept.springframework.data.marklogic.core.mapping.MarklogicPersistentProperty#getQNameFragment()}.
+     *
+     * @param qname the name to serialize
+     * @return the xquery fragment building the given name
+     */
+    public static String toQNameFragment(QName qname) {
+        return String.format("fn:QName('%s', '%s')", qname.getNamespaceURI(), qname.getLocalPart());
+    }
+}
@@ -5,13 +5,11 @@ import com._4dconcept.springframework.data.marklogic.core.mapping.MarklogicPersi
 import org.springframework.dao.InvalidDataAccessApiUsageException;
 import org.springframework.dao.TypeMismatchDataAccessException;
 import org.springframework.data.mapping.context.MappingContext;
-import org.springframework.expression.Expression;
-import org.springframework.expression.ParserContext;
-import org.springframework.expression.common.LiteralExpression;
-import org.springframework.expression.spel.standard.SpelExpressionParser;
 import org.springframework.lang.Nullable;
+import org.springframework.util.ConcurrentReferenceHashMap;
 import org.springframework.util.StringUtils;
 
+import java.util.Map;
 import java.util.function.Supplier;
 
 /**
@@ -23,7 +21,9 @@ import java.util.function.Supplier;
  */
 public final class MarklogicUtils {
 
-    private static final SpelExpressionParser PARSER = new SpelExpressionParser();
+    private static final String EXPRESSION_PREFIX = "#{";
+
+    private static final Map<String, DocumentExpression> EXPRESSION_CACHE = new ConcurrentReferenceHashMap<>();
 
     /**
      * Private constructor to prevent instantiation.
@@ -52,22 +52,22 @@ public final class MarklogicUtils {
      */
     @Nullable
     public static String expandsExpression(@Nullable String expression, @Nullable Class<?> entityType, @Nullable Object entity, @Nullable Supplier<Object> idSupplier) {
-        return expandsExpression(expression, new DocumentExpressionContext() {
-            @Override
-            public Class<?> getEntityClass() {
-                return entityType;
-            }
-
-            @Override
-            public Object getEntity() {
-                return entity;
-            }
-
-            @Override
-            public Object getId() {
-                return idSupplier != null ? idSupplier.get() : null;
-            }
-        });
+        if (!StringUtils.hasText(expression) || !expression.contains(EXPRESSION_PREFIX)) {
+            return expression;
+        }
+
+        return compileExpression(expression).expand(entityType, entity, idSupplier);
+    }
+
+    /**
+     * Returns the compiled form of the given expression. Compiled expressions are softly cached so each distinct template
+     * is usually parsed only once, without retaining dynamically built templates forever.
+     *
+     * @param expression the expression to compile
+     * @return the compiled expression
+     */
+    public static DocumentExpression compileExpression(String expression) {
+        return EXPRESSION_CACHE.computeIfAbsent(expression, DocumentExpression::compile);
     }
 
     @Nullable
@@ -103,47 +103,4 @@ public final class MarklogicUtils {
         return persistentEntity;
     }
 
-    /**
-     * Expands the given expression using the provided context.
-     *
-     * @param expression the collection to expand
-     * @param context the context to use during resolution
-     * @return the expanded expression. If the given expression is a literal or null, it is return as it.
-     */
-    @Nullable
-    private static String expandsExpression(@Nullable String expression, Object context) {
-        Expression spelExpression = detectExpression(expression);
-        return spelExpression == null ? expression : spelExpression.getValue(context, String.class);
-    }
-
-    /**
-     * Returns a SpEL {@link Expression} for the uri pattern expressed if present or {@literal null} otherwise.
-     * Will also return {@literal null} if the uri pattern {@link String} evaluates
-     * to a {@link LiteralExpression} (indicating that no subsequent evaluation is necessary).
-     *
-     * @param urlPattern can be {@literal null}
-     * @return the dynamic Expression if any or {@literal null}
-     */
-    @Nullable
-    private static Expression detectExpression(@Nullable String urlPattern) {
-        if (!StringUtils.hasText(urlPattern)) {
-            return null;
-        }
-
-        Expression expression = PARSER.parseExpression(urlPattern, ParserContext.TEMPLATE_EXPRESSION);
-
-        return expression instanceof LiteralExpression ? null : expression;
-    }
-
-    private interface DocumentExpressionContext {
-        @Nullable
-        Class<?> getEntityClass();
-
-        @Nullable
-        Object getEntity();
-
-        @Nullable
-        Object getId();
-    }
-
 }
@@ -0,0 +1,225 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com._4dconcept.springframework.data.marklogic.core;
+
+import com._4dconcept.springframework.data.marklogic.core.query.Query;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non blocking counterpart of {@link MarklogicOperations}. Every operation is performed on a separate thread
+ * with its own Session, so that independent operations overlap instead of being serialized.
+ * Implemented by {@link AsyncMarklogicTemplate}.
+ *
+ * <p>Operations run on another thread keep the operation deadline and the
+ * {@link MarklogicOperations#executeInSnapshot(java.util.function.Supplier) read snapshot} of the calling thread.
+ * A transaction can't be shared with another thread : operations called while a transaction is active are
+ * performed synchronously, within that transaction, and return an already completed future.
+ *
+ * @author Stéphane Toussaint
+ * @see MarklogicOperations
+ */
+public interface AsyncMarklogicOperations {
+
+    /**
+     * Insert the given object.
+     * @param objectToSave the object to store
+     * @return a future completed once the object is stored
+     * @see MarklogicOperations#insert(Object)
+     */
+    CompletableFuture<Void> insert(Object objectToSave);
+
+    /**
+     * Insert the given object at the specified uri with specified creation options.
+     * @param objectToSave the object to store
+     * @param options content creation options
+     * @return a future completed once the object is stored
+     * @see MarklogicOperations#insert(Object, MarklogicCreateOperationOptions)
+     */
+    CompletableFuture<Void> insert(Object objectToSave, MarklogicCreateOperationOptions options);
+
+    /**
+     * Save the given object.
+     * @param objectToSave the object to store
+     * @return a future completed once the object is stored
+     * @see MarklogicOperations#save(Object)
+     */
+    CompletableFuture<Void> save(Object objectToSave);
+
+    /**
+     * Save the given object.
+     * @param objectToSave the object to store
+     * @param options content creation options
+     * @return a future completed once the object is stored
+     * @see MarklogicOperations#save(Object, MarklogicCreateOperationOptions)
+     */
+    CompletableFuture<Void> save(Object objectToSave, MarklogicCreateOperationOptions options);
+
+    /**
+     * Remove the given Entity
+     * @param entity the entity to remove
+     * @return a future completed once the entity is removed
+     * @see MarklogicOperations#remove(Object)
+     */
+    CompletableFuture<Void> remove(Object entity);
+
+    /**
+     * Remove entity with corresponding identifier
+     * @param id the identifier
+     * @param entityClass the type of the document to remove
+     * @param <T> The entity type
+     * @return a future completed once the entity is removed
+     * @see MarklogicOperations#remove(Object, Class)
+     */
+    <T> CompletableFuture<Void> remove(Object id, Class<T> entityClass);
+
+    /**
+     * Returns the entity with the given id for the specified entity type.
+     * @param id the id of the document to retrieve
+     * @param entityClass the type of the document to retrieve
+     * @param <T> The entity type
+     * @return a future of the found entity, completed with null if no entity found with the given id
+     * @see MarklogicOperations#findById(Object, Class)
+     */
+    <T> CompletableFuture<T> findById(Object id, Class<T> entityClass);
+
+    /**
+     * Returns the document with the given id for the specified entity type within explicit collection.
+     * @param id the id of the document to retrieve
+     * @param entityClass the type of the document to retrieve
+     * @param options the explicit collection the document will be queried
+     * @param <T> The entity type
+     * @return a future of the found entity, completed with null if no entity found with the given id
+     * @see MarklogicOperations#findById(Object, Class, MarklogicOperationOptions)
+     */
+    <T> CompletableFuture<T> findById(Object id, Class<T> entityClass, MarklogicOperationOptions options);
+
+    /**
+     * Returns content matching the given query
+     * @param query the query that specifies criteria used to find contents
+     * @param entityClass the entity class the content will be converted to
+     * @param <T> The entity type
+     * @return a future of the found entity, completed with null if no entity found
+     * @see MarklogicOperations#findOne(Query, Class)
+     */
+    <T> CompletableFuture<T> findOne(Query query, Class<T> entityClass);
+
+    /**
+     * Returns content matching the given query
+     * @param query the query that specifies criteria used to find contents
+     * @param entityClass the entity class the content will be converted to
+     * @param <T> The entity type
+     * @return a future of the found entities
+     * @see MarklogicOperations#find(Query, Class)
+     */
+    <T> CompletableFuture<List<T>> find(Query query, Class<T> entityClass);
+
+    /**
+     * Returns content matching the given query
+     * @param query the query that specifies criteria used to find contents
+     * @param entityClass the entity class the content will be converted to
+     * @param options search options
+     * @param <T> The entity type
+     * @return a future of the found entities
+     * @see MarklogicOperations#find(Query, Class, MarklogicOperationOptions)
+     */
+    <T> CompletableFuture<List<T>> find(Query query, Class<T> entityClass, MarklogicOperationOptions options);
+
+    /**
+     * Returns every contents of the given type
+     * @param entityClass the entity class of the entity to find
+     * @param <T> The entity type
+     * @return a future of the found entities
+     * @see MarklogicOperations#findAll(Class)
+     */
+    <T> CompletableFuture<List<T>> findAll(Class<T> entityClass);
+
+    /**
+     * Returns the number of documents for the given {@link Query}.
+     * @param query the query
+     * @return a future of the number of content matching the query
+     * @see MarklogicOperations#count(Query)
+     */
+    CompletableFuture<Long> count(Query query);
+
+    /**
+     * Execute the given XQuery script.
+     * @param query the query to execute
+     * @param options optional options used for the query execution
+     * @return a future completed once the query is executed
+     * @see MarklogicOperations#invokeAdhocQuery(String, MarklogicInvokeOperationOptions)
+     */
+    CompletableFuture<Void> invokeAdhocQuery(String query, MarklogicInvokeOperationOptions options);
+
+    /**
+     * Execute the given XQuery script.
+     * @param query the query to execute
+     * @param resultClass the expected return content type.
+     * @param options optional options used for the query execution
+     * @param <T> The entity type
+     * @return a future of the result, completed with null if no content returned
+     * @see MarklogicOperations#invokeAdhocQuery(String, Class, MarklogicInvokeOperationOptions)
+     */
+    <T> CompletableFuture<T> invokeAdhocQuery(String query, Class<T> resultClass, MarklogicInvokeOperationOptions options);
+
+    /**
+     * Execute the given XQuery script.
+     * @param query the query to execute
+     * @param resultClass the expected return content type.
+     * @param options optional options used for the query execution
+     * @param <T> The entity type
+     * @return a future of the results
+     * @see MarklogicOperations#invokeAdhocQueryAsList(String, Class, MarklogicInvokeOperationOptions)
+     */
+    <T> CompletableFuture<List<T>> invokeAdhocQueryAsList(String query, Class<T> resultClass, MarklogicInvokeOperationOptions options);
+
+    /**
+     * Execute the remote module script.
+     * @param moduleName the uri of the module to invoke
+     * @param options optional options used for the module execution
+     * @return a future completed once the module is executed
+     * @see MarklogicOperations#invokeModule(String, MarklogicInvokeOperationOptions)
+     */
+    CompletableFuture<Void> invokeModule(String moduleName, MarklogicInvokeOperationOptions options);
+
+    /**
+     * Execute the remote module script.
+     * @param moduleName the uri of the module to invoke
+     * @param resultClass the expected return content type.
+     * @param options optional options used for the query execution
+     * @param <T> The entity type
+     * @return a future of the result, completed with null if no content returned
+     * @see MarklogicOperations#invokeModule(String, Class, MarklogicInvokeOperationOptions)
+     */
+    <T> CompletableFuture<T> invokeModule(String moduleName, Class<T> resultClass, MarklogicInvokeOperationOptions options);
+
+    /**
+     * Execute the remote module script.
+     * @param moduleName the uri of the module to invoke
+     * @param resultClass the expected return content type.
+     * @param options optional options used for the query execution
+     * @param <T> The entity type
+     * @return a future of the results
+     * @see MarklogicOperations#invokeModuleAsList(String, Class, MarklogicInvokeOperationOptions)
+     */
+    <T> CompletableFuture<List<T>> invokeModuleAsList(String moduleName, Class<T> resultClass, MarklogicInvokeOperationOptions options);
+
+    /**
+     * @return the blocking operations this instance delegates to
+     */
+    MarklogicOperations getMarklogicOperations();
+}
@@ -0,0 +1,244 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com._4dconcept.springframework.data.marklogic.core;
+
+import com._4dconcept.springframework.data.marklogic.core.query.Query;
+import com._4dconcept.springframework.data.marklogic.datasource.ReadOnlySessionContextHolder;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.Assert;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Primary implementation of {@link AsyncMarklogicOperations}, running {@link MarklogicOperations} calls on an {@link Executor}.
+ *
+ * <p>Unless an executor is given, a bounded pool of {@link #DEFAULT_MAX_CONCURRENCY} threads with a queue of
+ * {@link #DEFAULT_QUEUE_CAPACITY} pending tasks is created, and shut down on {@link #destroy()}. Once both are
+ * full, returned futures complete exceptionally with a {@link RejectedExecutionException} rather than blocking
+ * the caller. Any executor can be given instead, such as a virtual thread per task executor on runtimes providing them.
+ *
+ * <p>Tasks inherit the deadline, read snapshot and read only context of the calling thread. Calls made within a
+ * transaction are performed synchronously, on the calling thread, and return an already completed future.
+ *
+ * @author Stéphane Toussaint
+ */
+public class AsyncMarklogicTemplate implements AsyncMarklogicOperations, DisposableBean {
+
+    public static final int DEFAULT_MAX_CONCURRENCY = 16;
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+    private final MarklogicOperations marklogicOperations;
+
+    private final Executor executor;
+
+    private final boolean ownExecutor;
+
+    public AsyncMarklogicTemplate(MarklogicOperations marklogicOperations) {
+        this(marklogicOperations, DEFAULT_MAX_CONCURRENCY, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    public AsyncMarklogicTemplate(MarklogicOperations marklogicOperations, int maxConcurrency, int queueCapacity) {
+        this(marklogicOperations, createDefaultExecutor(maxConcurrency, queueCapacity), true);
+    }
+
+    public AsyncMarklogicTemplate(MarklogicOperations marklogicOperations, Executor executor) {
+        this(marklogicOperations, executor, false);
+    }
+
+    private AsyncMarklogicTemplate(MarklogicOperations marklogicOperations, Executor executor, boolean ownExecutor) {
+        Assert.notNull(marklogicOperations, "MarklogicOperations must not be null");
+        Assert.notNull(executor, "Executor must not be null");
+        this.marklogicOperations = marklogicOperations;
+        this.executor = executor;
+        this.ownExecutor = ownExecutor;
+    }
+
+    private static ExecutorService createDefaultExecutor(int maxConcurrency, int queueCapacity) {
+        Assert.isTrue(maxConcurrency > 0, "'maxConcurrency' must be greater than 0");
+        Assert.isTrue(queueCapacity > 0, "'queueCapacity' must be greater than 0");
+
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("marklogic-async-");
+        threadFactory.setDaemon(true);
+
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(maxConcurrency, maxConcurrency, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    @Override
+    public CompletableFuture<Void> insert(Object objectToSave) {
+        return run(() -> marklogicOperations.insert(objectToSave));
+    }
+
+    @Override
+    public CompletableFuture<Void> insert(Object objectToSave, MarklogicCreateOperationOptions options) {
+        return run(() -> marklogicOperations.insert(objectToSave, options));
+    }
+
+    @Override
+    public CompletableFuture<Void> save(Object objectToSave) {
+        return run(() -> marklogicOperations.save(objectToSave));
+    }
+
+    @Override
+    public CompletableFuture<Void> save(Object objectToSave, MarklogicCreateOperationOptions options) {
+        return run(() -> marklogicOperations.save(objectToSave, options));
+    }
+
+    @Override
+    public CompletableFuture<Void> remove(Object entity) {
+        return run(() -> marklogicOperations.remove(entity));
+    }
+
+    @Override
+    public <T> CompletableFuture<Void> remove(Object id, Class<T> entityClass) {
+        return run(() -> marklogicOperations.remove(id, entityClass));
+    }
+
+    @Override
+    public <T> CompletableFuture<T> findById(Object id, Class<T> entityClass) {
+        return supply(() -> marklogicOperations.findById(id, entityClass));
+    }
+
+    @Override
+    public <T> CompletableFuture<T> findById(Object id, Class<T> entityClass, MarklogicOperationOptions options) {
+        return supply(() -> marklogicOperations.findById(id, entityClass, options));
+    }
+
+    @Override
+    public <T> CompletableFuture<T> findOne(Query query, Class<T> entityClass) {
+        return supply(() -> marklogicOperations.findOne(query, entityClass));
+    }
+
+    @Override
+    public <T> CompletableFuture<List<T>> find(Query query, Class<T> entityClass) {
+        return supply(() -> marklogicOperations.find(query, entityClass));
+    }
+
+    @Override
+    public <T> CompletableFuture<List<T>> find(Query query, Class<T> entityClass, MarklogicOperationOptions options) {
+        return supply(() -> marklogicOperations.find(query, entityClass, options));
+    }
+
+    @Override
+    public <T> CompletableFuture<List<T>> findAll(Class<T> entityClass) {
+        return supply(() -> marklogicOperations.findAll(entityClass));
+    }
+
+    @Override
+    public CompletableFuture<Long> count(Query query) {
+        return supply(() -> marklogicOperations.count(query));
+    }
+
+    @Override
+    public CompletableFuture<Void> invokeAdhocQuery(String query, MarklogicInvokeOperationOptions options) {
+        return run(() -> marklogicOperations.invokeAdhocQuery(query, options));
+    }
+
+    @Override
+    public <T> CompletableFuture<T> invokeAdhocQuery(String query, Class<T> resultClass, MarklogicInvokeOperationOptions options) {
+        return supply(() -> marklogicOperations.invokeAdhocQuery(query, resultClass, options));
+    }
+
+    @Override
+    public <T> CompletableFuture<List<T>> invokeAdhocQueryAsList(String query, Class<T> resultClass, MarklogicInvokeOperationOptions options) {
+        return supply(() -> marklogicOperations.invokeAdhocQueryAsList(query, resultClass, options));
+    }
+
+    @Override
+    public CompletableFuture<Void> invokeModule(String moduleName, MarklogicInvokeOperationOptions options) {
+        return run(() -> marklogicOperations.invokeModule(moduleName, options));
+    }
+
+    @Override
+    public <T> CompletableFuture<T> invokeModule(String moduleName, Class<T> resultClass, MarklogicInvokeOperationOptions options) {
+        return supply(() -> marklogicOperations.invokeModule(moduleName, resultClass, options));
+    }
+
+    @Override
+    public <T> CompletableFuture<List<T>> invokeModuleAsList(String moduleName, Class<T> resultClass, MarklogicInvokeOperationOptions options) {
+        return supply(() -> marklogicOperations.invokeModuleAsList(moduleName, resultClass, options));
+    }
+
+    @Override
+    public MarklogicOperations getMarklogicOperations() {
+        return marklogicOperations;
+    }
+
+    /**
+     * Shut down the executor created by this template, if any.
+     */
+    @Override
+    public void destroy() {
+        if (ownExecutor) {
+            ((ExecutorService) executor).shutdown();
+        }
+    }
+
+    private CompletableFuture<Void> run(Runnable task) {
+        return supply(() -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * Run the given task on the executor, bound to the deadline, snapshot and read only context of the caller.
+     * Within a transaction, the task is run synchronously so that it takes part in it.
+     */
+    private <T> CompletableFuture<T> supply(Supplier<T> task) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            try {
+                return CompletableFuture.completedFuture(task.get());
+            } catch (RuntimeException ex) {
+                return failedFuture(ex);
+            }
+        }
+
+        OperationDeadline deadline = OperationDeadline.current();
+        BigInteger pointInTime = ReadSnapshot.current();
+        boolean readOnly = ReadOnlySessionContextHolder.isReadOnly();
+        Supplier<T> boundTask = () -> OperationDeadline.bind(deadline, () -> {
+            Supplier<T> contextualTask = readOnly ? () -> ReadOnlySessionContextHolder.doInReadOnly(task) : task;
+            return pointInTime == null ? contextualTask.get() : ReadSnapshot.at(pointInTime, contextualTask);
+        });
+
+        try {
+            return CompletableFuture.supplyAsync(boundTask, executor);
+        } catch (RejectedExecutionException ex) {
+            return failedFuture(ex);
+        }
+    }
+
+    private static <T> CompletableFuture<T> failedFuture(Throwable ex) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(ex);
+        return future;
+    }
+}
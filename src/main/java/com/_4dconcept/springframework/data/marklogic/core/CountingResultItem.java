@@ -0,0 +1,219 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com._4dconcept.springframework.data.marklogic.core;
+
+import com.marklogic.xcc.ResultItem;
+import com.marklogic.xcc.types.ItemType;
+import com.marklogic.xcc.types.ValueType;
+import com.marklogic.xcc.types.XdmItem;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.FilterReader;
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+
+/**
+ * {@link ResultItem} counting the bytes of its content as they are read, so that the payload size can be measured
+ * without buffering the content once more. Characters are counted as their UTF-8 encoded length.
+ *
+ * @author Stéphane Toussaint
+ */
+final class CountingResultItem implements ResultItem {
+
+    private final ResultItem delegate;
+
+    private long bytes;
+
+    CountingResultItem(ResultItem delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * @return the number of bytes read so far
+     */
+    long getBytes() {
+        return bytes;
+    }
+
+    @Override
+    public String getDocumentURI() {
+        return delegate.getDocumentURI();
+    }
+
+    @Override
+    public String getNodePath() {
+        return delegate.getNodePath();
+    }
+
+    @Override
+    public XdmItem getItem() {
+        return delegate.getItem();
+    }
+
+    @Override
+    public int getIndex() {
+        return delegate.getIndex();
+    }
+
+    @Override
+    public boolean isFetchable() {
+        return delegate.isFetchable();
+    }
+
+    @Override
+    public void cache() {
+        delegate.cache();
+    }
+
+    @Override
+    public ItemType getItemType() {
+        return delegate.getItemType();
+    }
+
+    @Override
+    public boolean isCached() {
+        return delegate.isCached();
+    }
+
+    @Override
+    public ValueType getValueType() {
+        return delegate.getValueType();
+    }
+
+    @Override
+    public String asString() {
+        String content = delegate.asString();
+        if (content != null) {
+            for (int i = 0; i < content.length(); i++) {
+                bytes += utf8Length(content.charAt(i));
+            }
+        }
+        return content;
+    }
+
+    @Override
+    public Reader asReader() {
+        return new FilterReader(delegate.asReader()) {
+            @Override
+            public int read() throws IOException {
+                int c = super.read();
+                if (c >= 0) {
+                    bytes += utf8Length((char) c);
+                }
+                return c;
+            }
+
+            @Override
+            public int read(char[] cbuf, int off, int len) throws IOException {
+                int count = super.read(cbuf, off, len);
+                for (int i = 0; i < count; i++) {
+                    bytes += utf8Length(cbuf[off + i]);
+                }
+                return count;
+            }
+        };
+    }
+
+    @Override
+    public InputStream asInputStream() {
+        return new FilterInputStream(delegate.asInputStream()) {
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b >= 0) {
+                    bytes++;
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int count = super.read(b, off, len);
+                if (count > 0) {
+                    bytes += count;
+                }
+                return count;
+            }
+        };
+    }
+
+    @Override
+    public void writeTo(Writer writer) throws IOException {
+        delegate.writeTo(new FilterWriter(writer) {
+            @Override
+            public void write(int c) throws IOException {
+                bytes += utf8Length((char) c);
+                super.write(c);
+            }
+
+            @Override
+            public void write(char[] cbuf, int off, int len) throws IOException {
+                for (int i = 0; i < len; i++) {
+                    bytes += utf8Length(cbuf[off + i]);
+                }
+                super.write(cbuf, off, len);
+            }
+
+            @Override
+            public void write(String str, int off, int len) throws IOException {
+                for (int i = 0; i < len; i++) {
+                    bytes += utf8Length(str.charAt(off + i));
+                }
+                super.write(str, off, len);
+            }
+        });
+    }
+
+    @Override
+    public void writeTo(OutputStream outputStream) throws IOException {
+        delegate.writeTo(new FilterOutputStream(outputStream) {
+            @Override
+            public void write(int b) throws IOException {
+                bytes++;
+                out.write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                bytes += len;
+                out.write(b, off, len);
+            }
+        });
+    }
+
+    @Override
+    public String toString() {
+        return delegate.toString();
+    }
+
+    /**
+     * @return the UTF-8 encoded length of the given char, each half of a surrogate pair counting for 2 bytes
+     */
+    private static int utf8Length(char c) {
+        if (c < 0x80) {
+            return 1;
+        } else if (c < 0x800 || Character.isSurrogate(c)) {
+            return 2;
+        } else {
+            return 3;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com._4dconcept.springframework.data.marklogic.core;
+
+import org.springframework.lang.Nullable;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Least recently used cache of the entities of a given type, keyed by document uri, bounded by its number of entries
+ * and by their weight, the length of their serialized document.
+ * Every entry records the document timestamp it has been read at, so that it can be revalidated against the server.
+ * Documents are kept serialized, so that every hit may be converted to a new entity instance, or, for immutable
+ * entities, as the converted instance shared by every hit.
+ *
+ * @author Stéphane Toussaint
+ */
+final class EntityCache {
+
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final Map<IdKey, String> uris = new HashMap<>();
+
+    private final int maxSize;
+
+    private final long maxWeight;
+
+    private final boolean copyOnRead;
+
+    private long weight;
+
+    EntityCache(int maxSize, long maxWeight, boolean copyOnRead) {
+        this.maxSize = maxSize;
+        this.maxWeight = maxWeight;
+        this.copyOnRead = copyOnRead;
+    }
+
+    @Nullable
+    synchronized Entry get(Object id, @Nullable String collection) {
+        String uri = uris.get(new IdKey(id, collection));
+        return uri == null ? null : entries.get(uri);
+    }
+
+    /**
+     * Cache a document, either serialized, or as its converted entity when the entity is shared by every hit.
+     * A document heavier than the whole cache is not cached.
+     */
+    synchronized void put(Object id, @Nullable String collection, String uri, String timestamp, String content, Object entity) {
+        int documentWeight = content.length();
+        IdKey key = new IdKey(id, collection);
+        evict(uri);
+        String previousUri = uris.remove(key);
+        if (previousUri != null) {
+            evict(previousUri);
+        }
+
+        if (documentWeight > maxWeight) {
+            return;
+        }
+
+        entries.put(uri, new Entry(key, uri, timestamp, documentWeight, copyOnRead ? content : null, copyOnRead ? null : entity));
+        uris.put(key, uri);
+        weight += documentWeight;
+
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (entries.size() > maxSize || weight > maxWeight) {
+            Entry entry = eldest.next();
+            eldest.remove();
+            uris.remove(entry.key);
+            weight -= entry.weight;
+        }
+    }
+
+    synchronized void evict(String uri) {
+        Entry entry = entries.remove(uri);
+        if (entry != null) {
+            uris.remove(entry.key);
+            weight -= entry.weight;
+        }
+    }
+
+    synchronized void clear() {
+        entries.clear();
+        uris.clear();
+        weight = 0;
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    synchronized long weight() {
+        return weight;
+    }
+
+    static final class Entry {
+
+        private final IdKey key;
+        private final String uri;
+        private final String timestamp;
+        private final int weight;
+        private final @Nullable String content;
+        private final @Nullable Object entity;
+
+        private Entry(IdKey key, String uri, String timestamp, int weight, @Nullable String content, @Nullable Object entity) {
+            this.key = key;
+            this.uri = uri;
+            this.timestamp = timestamp;
+            this.weight = weight;
+            this.content = content;
+            this.entity = entity;
+        }
+
+        String getUri() {
+            return uri;
+        }
+
+        String getTimestamp() {
+            return timestamp;
+        }
+
+        /**
+         * @return the serialized document, null if the converted entity is shared
+         */
+        @Nullable
+        String getContent() {
+            return content;
+        }
+
+        /**
+         * @return the converted entity shared by every hit, null if hits are converted from the serialized document
+         */
+        @Nullable
+        Object getEntity() {
+            return entity;
+        }
+    }
+
+    private static final class IdKey {
+
+        private final Object id;
+        private final @Nullable String collection;
+
+        IdKey(Object id, @Nullable String collection) {
+            this.id = id;
+            this.collection = collection;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            IdKey idKey = (IdKey) o;
+            return id.equals(idKey.id) && Objects.equals(collection, idKey.collection);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(id, collection);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com._4dconcept.springframework.data.marklogic.core;
+
+import com._4dconcept.springframework.data.marklogic.DocumentExpression;
+import com._4dconcept.springframework.data.marklogic.MarklogicUtils;
+import com._4dconcept.springframework.data.marklogic.core.mapping.MarklogicPersistentEntity;
+import com._4dconcept.springframework.data.marklogic.core.mapping.MarklogicPersistentProperty;
+import com._4dconcept.springframework.data.marklogic.core.mapping.MarklogicSimpleTypes;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.data.mapping.PersistentPropertyAccessor;
+import org.springframework.data.mapping.model.ConvertingPropertyAccessor;
+import org.springframework.lang.Nullable;
+
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Immutable, per entity type, description of everything {@link MarklogicTemplate} needs to write or identify an entity :
+ * identifier property, compiled uri and collection templates and property fragment usage.
+ * Plans are resolved once per entity type so that write operations only work against the entity instance.
+ *
+ * @author Stéphane Toussaint
+ */
+final class EntityOperationPlan {
+
+    private final MarklogicPersistentEntity<?> persistentEntity;
+    private final @Nullable MarklogicPersistentProperty idProperty;
+    private final boolean autoGenerableId;
+    private final DocumentExpression uriExpression;
+    private final @Nullable DocumentExpression defaultCollectionExpression;
+    private final boolean idInPropertyFragment;
+    private final ConversionService conversionService;
+
+    EntityOperationPlan(MarklogicPersistentEntity<?> persistentEntity, ConversionService conversionService) {
+        this.persistentEntity = persistentEntity;
+        this.idProperty = persistentEntity.getIdProperty();
+        this.autoGenerableId = idProperty != null && MarklogicSimpleTypes.AUTOGENERATED_ID_TYPES.contains(idProperty.getType());
+        this.uriExpression = persistentEntity.getUriExpression();
+        this.defaultCollectionExpression = persistentEntity.getDefaultCollectionExpression();
+        this.idInPropertyFragment = persistentEntity.idInPropertyFragment();
+        this.conversionService = conversionService;
+    }
+
+    MarklogicPersistentEntity<?> getPersistentEntity() {
+        return persistentEntity;
+    }
+
+    @Nullable
+    MarklogicPersistentProperty getIdProperty() {
+        return idProperty;
+    }
+
+    MarklogicPersistentProperty getRequiredIdProperty() {
+        if (idProperty == null) {
+            throw new InvalidDataAccessApiUsageException("Unable to retrieve expected identifier property !");
+        }
+
+        return idProperty;
+    }
+
+    boolean idInPropertyFragment() {
+        return idInPropertyFragment;
+    }
+
+    /**
+     * @param entity the entity to access
+     * @return a converting property accessor to be shared by every step of a single operation
+     */
+    PersistentPropertyAccessor<Object> getPropertyAccessor(Object entity) {
+        return new ConvertingPropertyAccessor<>(persistentEntity.getPropertyAccessor(entity), conversionService);
+    }
+
+    @Nullable
+    Object getIdentifier(PersistentPropertyAccessor<Object> accessor) {
+        return idProperty == null ? null : accessor.getProperty(idProperty);
+    }
+
+    /**
+     * Ensures the entity holds an identifier, generating one if the id property type allows it.
+     *
+     * @param accessor the accessor of the entity to save
+     */
+    void ensureIdentifier(PersistentPropertyAccessor<Object> accessor) {
+        if (idProperty == null || accessor.getProperty(idProperty) != null) {
+            return;
+        }
+
+        if (!autoGenerableId) {
+            throw new InvalidDataAccessApiUsageException(
+                    String.format("Cannot auto-generate id of type %s for entity of type %s!", idProperty.getType().getName(),
+                            accessor.getBean().getClass().getName()));
+        }
+
+        accessor.setProperty(idProperty, UUID.randomUUID());
+    }
+
+    /**
+     * Expands the given uri template. The entity precompiled template is used when the given template is the entity one.
+     *
+     * @param uri the uri template
+     * @param accessor the accessor of the entity
+     * @return the expanded uri
+     */
+    @Nullable
+    String expandUri(@Nullable String uri, PersistentPropertyAccessor<Object> accessor) {
+        return expand(uri, uriExpression, accessor);
+    }
+
+    /**
+     * Expands the given collection template. The entity precompiled template is used when the given template is the entity one.
+     *
+     * @param collection the collection template
+     * @param accessor the accessor of the entity
+     * @return the expanded collection
+     */
+    @Nullable
+    String expandCollection(@Nullable String collection, PersistentPropertyAccessor<Object> accessor) {
+        return expand(collection, defaultCollectionExpression, accessor);
+    }
+
+    @Nullable
+    private String expand(@Nullable String template, @Nullable DocumentExpression precompiled, PersistentPropertyAccessor<Object> accessor) {
+        Object entity = accessor.getBean();
+        Supplier<Object> idSupplier = () -> accessor.getProperty(getRequiredIdProperty());
+
+        if (precompiled != null && precompiled.getTemplate().equals(template)) {
+            return precompiled.expand(entity.getClass(), entity, idSupplier);
+        }
+
+        return MarklogicUtils.expandsExpression(template, entity.getClass(), entity, idSupplier);
+    }
+}
@@ -0,0 +1,335 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com._4dconcept.springframework.data.marklogic.core;
+
+import com._4dconcept.springframework.data.marklogic.MarklogicTypeUtils;
+import com._4dconcept.springframework.data.marklogic.MarklogicUtils;
+import com._4dconcept.springframework.data.marklogic.core.mapping.MarklogicPersistentEntity;
+import com._4dconcept.springframework.data.marklogic.core.mapping.MarklogicPersistentProperty;
+import com._4dconcept.springframework.data.marklogic.core.query.Criteria;
+import com._4dconcept.springframework.data.marklogic.core.query.Query;
+import com._4dconcept.springframework.data.marklogic.core.query.QueryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.convert.ConversionException;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Batching layer in front of {@link MarklogicOperations#findById(Object, Class)}.
+ *
+ * <p>Concurrent lookups of the same entity share a single in-flight request. Lookups of distinct entities of the same
+ * type issued within {@link #setBatchWindowMillis batchWindowMillis}, up to {@link #setMaxBatchSize maxBatchSize} ids,
+ * are gathered into a single {@code cts:search} whose results are dispatched back to each caller.
+ *
+ * <p>Batched lookups are performed on a dedicated thread, outside of any transaction : lookups issued within a
+ * transaction, as well as lookups of entities with a complex identifier or an identifier stored in the property
+ * fragment, are delegated as is. So are lookups of {@link com._4dconcept.springframework.data.marklogic.core.mapping.Cached}
+ * entities, so that they are served from the entity cache rather than searched for. Delegated lookups are performed
+ * on the calling thread, their failure completing the returned future exceptionally.
+ *
+ * @author Stéphane Toussaint
+ */
+public class FindByIdBatcher implements DisposableBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FindByIdBatcher.class);
+
+    private static final int DEFAULT_DISPATCH_THREADS = 4;
+
+    private final MarklogicOperations marklogicOperations;
+
+    private final ScheduledExecutorService scheduler;
+
+    private final ConcurrentMap<LoadKey, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    private final Map<Class<?>, Batch> pendingBatches = new HashMap<>();
+
+    private final Map<Class<?>, Boolean> batchableTypes = new ConcurrentHashMap<>();
+
+    private long batchWindowMillis = 2;
+
+    private int maxBatchSize = 100;
+
+    private final AtomicLong batchCount = new AtomicLong();
+    private final AtomicLong coalescedCount = new AtomicLong();
+
+    public FindByIdBatcher(MarklogicOperations marklogicOperations) {
+        Assert.notNull(marklogicOperations, "MarklogicOperations must not be null");
+        this.marklogicOperations = marklogicOperations;
+
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("marklogic-batch-");
+        threadFactory.setDaemon(true);
+        this.scheduler = new ScheduledThreadPoolExecutor(DEFAULT_DISPATCH_THREADS, threadFactory);
+    }
+
+    /**
+     * @param batchWindowMillis how long lookups are gathered before being sent. Default is 2 ms.
+     */
+    public void setBatchWindowMillis(long batchWindowMillis) {
+        this.batchWindowMillis = batchWindowMillis;
+    }
+
+    /**
+     * @param maxBatchSize the number of ids sending a batch without waiting for the window to end. Default is 100.
+     */
+    public void setMaxBatchSize(int maxBatchSize) {
+        Assert.isTrue(maxBatchSize > 0, "'maxBatchSize' must be greater than 0");
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * @return the number of searches sent to the server
+     */
+    public long getBatchCount() {
+        return batchCount.get();
+    }
+
+    /**
+     * @return the number of lookups served by an already in-flight lookup of the same entity
+     */
+    public long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+
+    /**
+     * Returns the entity with the given id for the specified entity type, waiting for the batch it belongs to.
+     *
+     * @param id the id of the document to retrieve
+     * @param entityClass the type of the document to retrieve
+     * @param <T> The entity type
+     * @return the found entity or null if no entity found with the given id
+     */
+    @Nullable
+    public <T> T findById(Object id, Class<T> entityClass) {
+        CompletableFuture<T> future = load(id, entityClass);
+        try {
+            return future.get();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new DataRetrievalFailureException("Interrupted while waiting for entity " + id, ie);
+        } catch (ExecutionException ee) {
+            Throwable cause = ee.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new DataRetrievalFailureException("Unable to retrieve entity " + id, cause);
+        }
+    }
+
+    /**
+     * Returns the entity with the given id for the specified entity type, once the batch it belongs to is completed.
+     *
+     * @param id the id of the document to retrieve
+     * @param entityClass the type of the document to retrieve
+     * @param <T> The entity type
+     * @return a future of the found entity, completed with null if no entity found with the given id
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> load(Object id, Class<T> entityClass) {
+        Assert.notNull(id, "Id must not be null");
+        Assert.notNull(entityClass, "EntityClass must not be null");
+
+        if (TransactionSynchronizationManager.isActualTransactionActive() || !isBatchable(entityClass)) {
+            try {
+                return CompletableFuture.completedFuture(marklogicOperations.findById(id, entityClass));
+            } catch (RuntimeException ex) {
+                CompletableFuture<T> future = new CompletableFuture<>();
+                future.completeExceptionally(ex);
+                return future;
+            }
+        }
+
+        LoadKey key = new LoadKey(entityClass, normalizeId(id, entityClass));
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            coalescedCount.incrementAndGet();
+            return (CompletableFuture<T>) existing;
+        }
+
+        Batch fullBatch = null;
+        synchronized (pendingBatches) {
+            Batch batch = pendingBatches.get(entityClass);
+            if (batch == null) {
+                Batch newBatch = new Batch(entityClass);
+                pendingBatches.put(entityClass, newBatch);
+                scheduler.schedule(() -> dispatch(newBatch), batchWindowMillis, TimeUnit.MILLISECONDS);
+                batch = newBatch;
+            }
+
+            batch.lookups.put(key, future);
+            if (batch.lookups.size() >= maxBatchSize) {
+                pendingBatches.remove(entityClass);
+                fullBatch = batch;
+            }
+        }
+
+        if (fullBatch != null) {
+            dispatch(fullBatch);
+        }
+
+        return (CompletableFuture<T>) future;
+    }
+
+    /**
+     * Shut down the dispatching threads.
+     */
+    @Override
+    public void destroy() {
+        scheduler.shutdown();
+    }
+
+    private void dispatch(Batch batch) {
+        if (!batch.dispatched.compareAndSet(false, true)) {
+            return;
+        }
+
+        synchronized (pendingBatches) {
+            pendingBatches.remove(batch.entityClass, batch);
+        }
+
+        Map<LoadKey, CompletableFuture<Object>> lookups = batch.lookups;
+        try {
+            Map<Object, Object> entities = findAll(batch.entityClass, lookups.keySet());
+            lookups.forEach((key, future) -> {
+                inFlight.remove(key, future);
+                future.complete(entities.get(key.id));
+            });
+        } catch (RuntimeException ex) {
+            LOGGER.debug("Batched lookup of {} {} entities failed", lookups.size(), batch.entityClass.getName(), ex);
+            lookups.forEach((key, future) -> {
+                inFlight.remove(key, future);
+                future.completeExceptionally(ex);
+            });
+        }
+    }
+
+    private Map<Object, Object> findAll(Class<?> entityClass, Iterable<LoadKey> keys) {
+        MarklogicPersistentProperty idProperty = getIdProperty(entityClass);
+
+        List<Criteria> criteriaList = new ArrayList<>();
+        for (LoadKey key : keys) {
+            Criteria criteria = new Criteria(idProperty, key.id);
+            criteria.setOptions(Collections.singletonList("exact"));
+            criteriaList.add(criteria);
+        }
+
+        Criteria idCriteria = criteriaList.size() == 1 ? criteriaList.get(0) : new Criteria(Criteria.Operator.OR, criteriaList);
+        Query query = new QueryBuilder(marklogicOperations).ofType(entityClass).with(idCriteria).build();
+
+        batchCount.incrementAndGet();
+        List<?> results = marklogicOperations.find(query, entityClass);
+
+        Map<Object, Object> entities = new LinkedHashMap<>();
+        for (Object entity : results) {
+            Object id = marklogicOperations.resolveContentIdentifier(entity);
+            if (id != null) {
+                entities.putIfAbsent(normalizeId(id, entityClass), entity);
+            }
+        }
+        return entities;
+    }
+
+    private boolean isBatchable(Class<?> entityClass) {
+        return batchableTypes.computeIfAbsent(entityClass, type -> {
+            MarklogicPersistentEntity<?> persistentEntity = marklogicOperations.getConverter().getMappingContext().getPersistentEntity(type);
+            MarklogicPersistentProperty idProperty = persistentEntity == null ? null : persistentEntity.getIdProperty();
+            return idProperty != null && !persistentEntity.idInPropertyFragment() && persistentEntity.getCacheMaxSize() <= 0
+                    && MarklogicTypeUtils.isSimpleType(idProperty.getType());
+        });
+    }
+
+    private MarklogicPersistentProperty getIdProperty(Class<?> entityClass) {
+        MarklogicPersistentProperty idProperty = MarklogicUtils.getIdPropertyFor(entityClass, marklogicOperations.getConverter().getMappingContext());
+        Assert.state(idProperty != null, "Batched entities are expected to have an identifier property");
+        return idProperty;
+    }
+
+    private Object normalizeId(Object id, Class<?> entityClass) {
+        Class<?> idType = getIdProperty(entityClass).getType();
+        ConversionService conversionService = marklogicOperations.getConverter().getConversionService();
+        if (idType.isInstance(id) || !conversionService.canConvert(id.getClass(), idType)) {
+            return id;
+        }
+
+        try {
+            Object converted = conversionService.convert(id, idType);
+            return converted == null ? id : converted;
+        } catch (ConversionException ex) {
+            return id;
+        }
+    }
+
+    /**
+     * Lookups of a single entity type gathered within one window.
+     */
+    private static final class Batch {
+
+        private final Class<?> entityClass;
+        private final Map<LoadKey, CompletableFuture<Object>> lookups = new LinkedHashMap<>();
+        private final AtomicBoolean dispatched = new AtomicBoolean();
+
+        Batch(Class<?> entityClass) {
+            this.entityClass = entityClass;
+        }
+    }
+
+    private static final class LoadKey {
+
+        private final Class<?> entityClass;
+        private final Object id;
+
+        LoadKey(Class<?> entityClass, Object id) {
+            this.entityClass = entityClass;
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            LoadKey loadKey = (LoadKey) o;
+            return entityClass.equals(loadKey.entityClass) && id.equals(loadKey.id);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(entityClass, id);
+        }
+    }
+}
@@ -19,12 +19,14 @@ import org.springframework.dao.DataAccessException;
 import org.springframework.dao.DataAccessResourceFailureException;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.InvalidDataAccessResourceUsageException;
+import org.springframework.dao.TransientDataAccessResourceException;
 import org.springframework.dao.support.PersistenceExceptionTranslator;
 import org.springframework.util.ClassUtils;
 
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.function.Predicate;
 
 /**
  * Simple {@link PersistenceExceptionTranslator} for Marklogic. Convert the given runtime exception to an appropriate
@@ -35,9 +37,14 @@ import java.util.Set;
  */
 public class MarklogicExceptionTranslator implements PersistenceExceptionTranslator {
 
+    private static final String CONNECTION_EXCEPTION = "ServerConnectionException";
+
     private static final Set<String> RESOURCE_FAILURE_EXCEPTIONS = new HashSet<>(
             Arrays.asList("ServerConnectionException", "ServerResponseException", "XccConfigException"));
 
+    private static final Set<String> TRANSIENT_EXCEPTIONS = new HashSet<>(
+            Arrays.asList("RetryableXQueryException", "RetryableJavaScriptException", "RetryableQueryException"));
+
     private static final Set<String> RESOURCE_USAGE_EXCEPTIONS = new HashSet<>(
             Arrays.asList("StreamingResultException", "UnexpectedResponseException", "XccException"));
 
@@ -51,6 +58,10 @@ public class MarklogicExceptionTranslator implements PersistenceExceptionTransla
 
         String exception = ClassUtils.getShortName(ClassUtils.getUserClass(ex.getClass()));
 
+        if (TRANSIENT_EXCEPTIONS.contains(exception)) {
+            return new TransientDataAccessResourceException(ex.getMessage(), ex);
+        }
+
         if (RESOURCE_FAILURE_EXCEPTIONS.contains(exception)) {
             return new DataAccessResourceFailureException(ex.getMessage(), ex);
         }
@@ -65,4 +76,37 @@ public class MarklogicExceptionTranslator implements PersistenceExceptionTransla
 
         return null;
     }
+
+    /**
+     * Determine whether the given exception, or one of its causes, denotes a failure that may not happen
+     * again if the operation is retried : server asked for a retry or connection to the server failed.
+     *
+     * @param ex the exception to classify
+     * @return true if the failed operation may be retried
+     */
+    public boolean isTransient(Throwable ex) {
+        return hasCause(ex, exception -> TRANSIENT_EXCEPTIONS.contains(exception) || CONNECTION_EXCEPTION.equals(exception));
+    }
+
+    /**
+     * Determine whether the given exception, or one of its causes, denotes a failure the server asked to retry.
+     * Unlike a connection failure, such a request is known not to have been committed.
+     *
+     * @param ex the exception to classify
+     * @return true if the failed operation may be retried, even if it updates the database
+     */
+    public boolean isRetryRequested(Throwable ex) {
+        return hasCause(ex, TRANSIENT_EXCEPTIONS::contains);
+    }
+
+    private boolean hasCause(Throwable ex, Predicate<String> exceptionFilter) {
+        Throwable current = ex;
+        while (current != null) {
+            if (exceptionFilter.test(ClassUtils.getShortName(ClassUtils.getUserClass(current.getClass())))) {
+                return true;
+            }
+            current = current.getCause() == current ? null : current.getCause();
+        }
+        return false;
+    }
 }
@@ -33,4 +33,13 @@ public interface MarklogicInvokeOperationOptions extends MarklogicOperationOptio
         return true;
     }
 
+    /**
+     * @return whether the query text never varies, every value being given through {@link #params()}, making it
+     * eligible for installation as a module
+     * @see MarklogicTemplate#setInstallStaticQueries(boolean)
+     */
+    default boolean staticQuery() {
+        return false;
+    }
+
 }
@@ -38,4 +38,11 @@ public interface MarklogicOperationOptions {
         return null;
     }
 
+    /**
+     * @return the time budget of the operation in milliseconds, shared by every request it issues. 0 for no timeout.
+     */
+    default long timeoutMillis() {
+        return 0;
+    }
+
 }
@@ -17,9 +17,11 @@ package com._4dconcept.springframework.data.marklogic.core;
 
 import com._4dconcept.springframework.data.marklogic.core.convert.MarklogicConverter;
 import com._4dconcept.springframework.data.marklogic.core.query.Query;
+import org.springframework.data.util.CloseableIterator;
 import org.springframework.lang.Nullable;
 
 import java.util.List;
+import java.util.function.Supplier;
 
 /**
  * Interface that specifies a basic set of Marklogic operations. It offers more specifics operations than the underlying
@@ -176,6 +178,16 @@ public interface MarklogicOperations {
      */
     <T> List<T> find(Query query, Class<T> entityClass, MarklogicOperationOptions options);
 
+    /**
+     * Returns content matching the given query, lazily read from the server as the iterator is consumed.
+     * The underlying Session is held until the iterator is exhausted or closed, the caller is responsible for closing it.
+     * @param query the query that specifies criteria used to find contents
+     * @param entityClass the entity class the content will be converted to
+     * @param <T> The entity type
+     * @return an iterator over the found entities
+     */
+    <T> CloseableIterator<T> stream(Query query, Class<T> entityClass);
+
     /**
      * Returns every contents of the given type
      *
@@ -276,6 +288,36 @@ public interface MarklogicOperations {
     @Nullable
     <T> Object resolveContentIdentifier(T entity);
 
+    /**
+     * Explain how the server resolves the given {@link Query} : the search is planned with {@code xdmp:plan} and
+     * evaluated both unfiltered and filtered.
+     * @param query the query to explain
+     * @return the query plan report
+     */
+    QueryPlanReport explain(Query query);
+
+    /**
+     * Evaluate the given {@link Query} with {@code prof:eval}, reporting per expression timings.
+     * The App Server must allow profiling.
+     * @param query the query to profile
+     * @return the query profile report
+     */
+    QueryProfileReport profile(Query query);
+
+    /**
+     * Perform the given callback within a read snapshot : the current server timestamp is captured once and every
+     * read request issued by the callback on the current thread is evaluated at that point in time, so that successive
+     * counts, pages or exports see one consistent state of the database without holding a transaction.
+     * Find, count and stream operations are read requests, invocations are when performed through
+     * {@link com._4dconcept.springframework.data.marklogic.datasource.ReadOnlySessionContextHolder#doInReadOnly(Supplier)}.
+     * Other requests, such as inserts or removals, are evaluated against the latest state of the database.
+     * Nested snapshots share the enclosing one.
+     * @param callback the read operations to perform
+     * @param <T> The callback result type
+     * @return the callback result
+     */
+    <T> T executeInSnapshot(Supplier<T> callback);
+
     /**
      * Returns the number of documents for the given {@link Query}.
      *
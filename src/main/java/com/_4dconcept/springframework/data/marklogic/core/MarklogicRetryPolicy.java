@@ -0,0 +1,253 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com._4dconcept.springframework.data.marklogic.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.util.Assert;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Retry policy applied by {@link MarklogicTemplate} to the work it performs against a Session.
+ *
+ * <p>Failures of idempotent work, such as reads, classified as transient by
+ * {@link MarklogicExceptionTranslator#isTransient(Throwable)} are retried up to {@link #setMaxAttempts maxAttempts}
+ * times, waiting an exponential backoff with full jitter between attempts. A connection failure may happen after
+ * the server committed an update : other work is only retried when the server asked for it, as told by
+ * {@link MarklogicExceptionTranslator#isRetryRequested(Throwable)}, unless {@link #setRetryUpdatesOnConnectionFailure}
+ * is enabled.
+ * Retries are bounded by a budget : every operation deposits {@link #setBudgetRatio budgetRatio} retry token,
+ * up to {@link #setBudgetCapacity budgetCapacity} tokens, and every retry withdraws one. This prevents retries
+ * from multiplying the load on a cluster that is already failing.
+ *
+ * <p>Within an operation bound to a deadline, at most half of the remaining time budget is spent waiting, leaving
+ * the other half to the next attempt. Retries stop once the budget is too short to cover another attempt.
+ *
+ * @author Stéphane Toussaint
+ */
+public class MarklogicRetryPolicy {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MarklogicRetryPolicy.class);
+
+    private static final long TOKEN_SCALE = 1000;
+
+    private static final long MIN_ATTEMPT_MILLIS = 2;
+
+    private MarklogicExceptionTranslator exceptionTranslator = new MarklogicExceptionTranslator();
+
+    private int maxAttempts = 3;
+    private boolean retryUpdatesOnConnectionFailure;
+    private long initialBackoffMillis = 50;
+    private long maxBackoffMillis = 1000;
+    private long budgetRatio = TOKEN_SCALE / 10;
+    private long budgetCapacity = 10 * TOKEN_SCALE;
+
+    private final AtomicLong budget = new AtomicLong(budgetCapacity);
+
+    private final AtomicLong retryCount = new AtomicLong();
+    private final AtomicLong exhaustedCount = new AtomicLong();
+    private final AtomicLong budgetRejectedCount = new AtomicLong();
+
+    /**
+     * @return a policy that never retries
+     */
+    public static MarklogicRetryPolicy never() {
+        MarklogicRetryPolicy retryPolicy = new MarklogicRetryPolicy();
+        retryPolicy.setMaxAttempts(1);
+        return retryPolicy;
+    }
+
+    /**
+     * @param maxAttempts the maximum number of attempts, including the first one. Default is 3.
+     */
+    public void setMaxAttempts(int maxAttempts) {
+        Assert.isTrue(maxAttempts > 0, "'maxAttempts' must be greater than 0");
+        this.maxAttempts = maxAttempts;
+    }
+
+    /**
+     * @param retryUpdatesOnConnectionFailure whether work that is not idempotent is also retried on connection failures,
+     *                                        at the risk of replaying an update that was committed. Default is false.
+     */
+    public void setRetryUpdatesOnConnectionFailure(boolean retryUpdatesOnConnectionFailure) {
+        this.retryUpdatesOnConnectionFailure = retryUpdatesOnConnectionFailure;
+    }
+
+    /**
+     * @param initialBackoffMillis the maximum wait before the first retry, doubled on each retry. Default is 50 ms.
+     */
+    public void setInitialBackoffMillis(long initialBackoffMillis) {
+        this.initialBackoffMillis = initialBackoffMillis;
+    }
+
+    /**
+     * @param maxBackoffMillis the upper bound of the wait between two attempts. Default is 1 s.
+     */
+    public void setMaxBackoffMillis(long maxBackoffMillis) {
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    /**
+     * @param budgetRatio the retry tokens earned by every operation. Default is 0.1.
+     */
+    public void setBudgetRatio(double budgetRatio) {
+        this.budgetRatio = (long) (budgetRatio * TOKEN_SCALE);
+    }
+
+    /**
+     * @param budgetCapacity the maximum number of retry tokens. Default is 10.
+     */
+    public void setBudgetCapacity(int budgetCapacity) {
+        this.budgetCapacity = budgetCapacity * TOKEN_SCALE;
+        this.budget.set(this.budgetCapacity);
+    }
+
+    /**
+     * @param exceptionTranslator the translator classifying transient failures
+     */
+    public void setExceptionTranslator(MarklogicExceptionTranslator exceptionTranslator) {
+        this.exceptionTranslator = exceptionTranslator;
+    }
+
+    /**
+     * @return the number of retries performed
+     */
+    public long getRetryCount() {
+        return retryCount.get();
+    }
+
+    /**
+     * @return the number of operations that still failed after their last attempt
+     */
+    public long getExhaustedCount() {
+        return exhaustedCount.get();
+    }
+
+    /**
+     * @return the number of retries refused because the retry budget was empty
+     */
+    public long getBudgetRejectedCount() {
+        return budgetRejectedCount.get();
+    }
+
+    /**
+     * Execute the given task, retrying it on transient failures.
+     *
+     * @param task the task to execute, expected to acquire its own Session
+     * @param retryAllowed false if the task must not be retried, typically when bound to a transaction
+     * @param idempotent whether the task may be replayed safely, even if a previous attempt completed on the server
+     * @param <T> the task result type
+     * @return the task result
+     */
+    public <T> T execute(Supplier<T> task, boolean retryAllowed, boolean idempotent) {
+        deposit();
+
+        int attempt = 1;
+        while (true) {
+            try {
+                return task.get();
+            } catch (RuntimeException ex) {
+                if (!retryAllowed || maxAttempts == 1 || !isRetryable(ex, idempotent)) {
+                    throw ex;
+                }
+
+                if (attempt >= maxAttempts) {
+                    exhaustedCount.incrementAndGet();
+                    throw ex;
+                }
+
+                if (!withdraw()) {
+                    budgetRejectedCount.incrementAndGet();
+                    throw ex;
+                }
+
+                long backoff = computeBackoff(attempt);
+                long remainingMillis = remainingDeadlineMillis();
+                if (remainingMillis >= 0) {
+                    if (remainingMillis < MIN_ATTEMPT_MILLIS) {
+                        exhaustedCount.incrementAndGet();
+                        throw ex;
+                    }
+                    backoff = Math.min(backoff, remainingMillis / 2);
+                }
+
+                LOGGER.debug("Transient failure on attempt {}, retrying in {} ms", attempt, backoff, ex);
+
+                if (!sleep(backoff)) {
+                    throw ex;
+                }
+
+                retryCount.incrementAndGet();
+                attempt++;
+            }
+        }
+    }
+
+    private boolean isRetryable(RuntimeException ex, boolean idempotent) {
+        if (idempotent || retryUpdatesOnConnectionFailure) {
+            return exceptionTranslator.isTransient(ex);
+        }
+        return exceptionTranslator.isRetryRequested(ex);
+    }
+
+    private long computeBackoff(int attempt) {
+        long exponential = initialBackoffMillis << Math.min(attempt - 1, 30);
+        long bound = Math.min(maxBackoffMillis, exponential < 0 ? maxBackoffMillis : exponential);
+        return bound <= 0 ? 0 : ThreadLocalRandom.current().nextLong(bound + 1);
+    }
+
+    /**
+     * @return the remaining time budget of the current operation, -1 if not time bound, 0 if already exhausted
+     */
+    private long remainingDeadlineMillis() {
+        try {
+            long remainingMillis = OperationDeadline.remainingMillis();
+            return remainingMillis == 0 ? -1 : remainingMillis;
+        } catch (DataAccessException ex) {
+            return 0;
+        }
+    }
+
+    private void deposit() {
+        budget.accumulateAndGet(budgetRatio, (current, ratio) -> Math.min(budgetCapacity, current + ratio));
+    }
+
+    private boolean withdraw() {
+        while (true) {
+            long current = budget.get();
+            if (current < TOKEN_SCALE) {
+                return false;
+            }
+            if (budget.compareAndSet(current, current - TOKEN_SCALE)) {
+                return true;
+            }
+        }
+    }
+
+    private boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -16,6 +16,7 @@
 package com._4dconcept.springframework.data.marklogic.core;
 
 import com._4dconcept.springframework.data.marklogic.MarklogicCollectionUtils;
+import com._4dconcept.springframework.data.marklogic.MarklogicMetricsRecorder;
 import com._4dconcept.springframework.data.marklogic.MarklogicSupportedType;
 import com._4dconcept.springframework.data.marklogic.MarklogicTypeUtils;
 import com._4dconcept.springframework.data.marklogic.MarklogicUtils;
@@ -29,21 +30,26 @@ import com._4dconcept.springframework.data.marklogic.core.mapping.MarklogicIdent
 import com._4dconcept.springframework.data.marklogic.core.mapping.MarklogicMappingContext;
 import com._4dconcept.springframework.data.marklogic.core.mapping.MarklogicPersistentEntity;
 import com._4dconcept.springframework.data.marklogic.core.mapping.MarklogicPersistentProperty;
-import com._4dconcept.springframework.data.marklogic.core.mapping.MarklogicSimpleTypes;
 import com._4dconcept.springframework.data.marklogic.core.mapping.event.*;
 import com._4dconcept.springframework.data.marklogic.core.query.Query;
 import com._4dconcept.springframework.data.marklogic.core.query.QueryBuilder;
 import com._4dconcept.springframework.data.marklogic.datasource.ContentSourceUtils;
+import com._4dconcept.springframework.data.marklogic.datasource.ReadOnlySessionContextHolder;
 import com._4dconcept.springframework.data.marklogic.repository.support.MappingMarklogicEntityInformation;
 import com.marklogic.xcc.Content;
 import com.marklogic.xcc.ContentSource;
 import com.marklogic.xcc.Request;
+import com.marklogic.xcc.RequestOptions;
 import com.marklogic.xcc.ResultItem;
 import com.marklogic.xcc.ResultSequence;
 import com.marklogic.xcc.Session;
 import com.marklogic.xcc.ValueFactory;
+import com.marklogic.xcc.exceptions.QueryException;
 import com.marklogic.xcc.exceptions.RequestException;
+import com.marklogic.xcc.impl.ResultItemImpl;
+import com.marklogic.xcc.types.ValueType;
 import com.marklogic.xcc.types.XName;
+import com.marklogic.xcc.types.XdmNode;
 import com.marklogic.xcc.types.XdmValue;
 import com.marklogic.xcc.types.XdmVariable;
 import org.slf4j.Logger;
@@ -51,25 +57,32 @@ import org.slf4j.LoggerFactory;
 import org.springframework.context.ApplicationEvent;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.ApplicationEventPublisherAware;
-import org.springframework.core.convert.ConversionService;
+import org.springframework.dao.DataAccessException;
 import org.springframework.dao.DataAccessResourceFailureException;
 import org.springframework.dao.DataRetrievalFailureException;
 import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.dao.QueryTimeoutException;
 import org.springframework.data.mapping.MappingException;
 import org.springframework.data.mapping.PersistentPropertyAccessor;
 import org.springframework.data.mapping.context.MappingContext;
-import org.springframework.data.mapping.model.ConvertingPropertyAccessor;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.lang.Nullable;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.Assert;
 import org.springframework.util.CollectionUtils;
 
 import javax.xml.namespace.QName;
 import java.io.IOException;
+import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.UUID;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
@@ -87,13 +100,81 @@ public class MarklogicTemplate implements MarklogicOperations, ApplicationEventP
     private final MarklogicConverter marklogicConverter;
     private final MappingContext<? extends MarklogicPersistentEntity<?>, MarklogicPersistentProperty> mappingContext;
 
+    private final Map<Class<?>, EntityOperationPlan> operationPlans = new ConcurrentHashMap<>();
+
+    private final Map<Class<?>, EntityCache> entityCaches = new ConcurrentHashMap<>();
+
     private MarklogicCollectionUtils marklogicCollectionUtils = new MarklogicCollectionUtils() {
     };
 
     private static final String SUBMISSION_ERROR_MSG = "Unable to submit request";
+    private static final String TIME_LIMIT_EXCEEDED_CODE = "XDMP-EXTIME";
+
+    private static final String SNAPSHOT_TIMESTAMP_QUERY = "fn:string((xdmp:request-timestamp(), xdmp:wallclock-to-timestamp(fn:current-dateTime()))[1])";
+
+    private static final String DOCUMENT_DELETE_QUERY = "declare variable $uri as xs:string external;\n" +
+            "xdmp:document-delete($uri)";
+
+    private static final String COLLECTION_DELETE_QUERY = "declare variable $collection as xs:string external;\n" +
+            "xdmp:collection-delete($collection)";
+
+    private static final String SET_IDENTIFIER_PROPERTY_QUERY = "declare variable $uri as xs:string external;\n" +
+            "declare variable $identifier as xs:string external;\n" +
+            "xdmp:document-set-property($uri, xdmp:unquote($identifier)/*)";
+
+    private static final String TIMESTAMPED_SEARCH_QUERY = "for $doc in %s return ((xdmp:document-timestamp(xdmp:node-uri($doc)), 0)[1], $doc)";
+
+    private static final String TIMESTAMP_REVALIDATION_QUERY = "declare variable $uri as xs:string external;\n" +
+            "declare variable $timestamp as xs:string external;\n" +
+            "let $current := xdmp:document-timestamp($uri)\n" +
+            "return if (fn:empty($current)) then () else if (fn:string($current) eq $timestamp) then $current else ($current, fn:doc($uri))";
+
+    private static final String EXPLAIN_QUERY = "declare namespace qry = \"http://marklogic.com/cts/query\";\n" +
+            "declare variable $query as xs:string external;\n" +
+            "let $plan := xdmp:plan(%1$s)\n" +
+            "return <queryPlanReport>\n" +
+            "  <query>{$query}</query>\n" +
+            "  <unfilteredEstimate>{xdmp:estimate(%2$s)}</unfilteredEstimate>\n" +
+            "  <filteredCount>{fn:count(%2$s)}</filteredCount>\n" +
+            "  <indexResolution>{for $trace in $plan//qry:info-trace return <step>{fn:string($trace)}</step>}</indexResolution>\n" +
+            "  <plan>{xdmp:quote($plan)}</plan>\n" +
+            "</queryPlanReport>";
+
+    private static final String PROFILE_QUERY = "declare namespace prof = \"http://marklogic.com/xdmp/profile\";\n" +
+            "declare variable $query as xs:string external;\n" +
+            "let $result := prof:eval($query)\n" +
+            "let $report := $result[1]\n" +
+            "return <queryProfileReport>\n" +
+            "  <query>{$query}</query>\n" +
+            "  <elapsedTime>{fn:string($report/prof:metadata/prof:overall-elapsed)}</elapsedTime>\n" +
+            "  <resultCount>{fn:count($result) - 1}</resultCount>\n" +
+            "  <expressions>{\n" +
+            "    for $expression in $report/prof:histogram/prof:expression\n" +
+            "    order by xs:dayTimeDuration($expression/prof:shallow-time) descending\n" +
+            "    return <expression>\n" +
+            "      <source>{fn:string($expression/prof:expr-source)}</source>\n" +
+            "      <location>{fn:concat($expression/prof:line, ':', $expression/prof:column)}</location>\n" +
+            "      <count>{fn:string($expression/prof:count)}</count>\n" +
+            "      <shallowTime>{fn:string($expression/prof:shallow-time)}</shallowTime>\n" +
+            "      <deepTime>{fn:string($expression/prof:deep-time)}</deepTime>\n" +
+            "    </expression>\n" +
+            "  }</expressions>\n" +
+            "</queryProfileReport>";
 
     private ApplicationEventPublisher eventPublisher;
 
+    private MarklogicRetryPolicy retryPolicy = new MarklogicRetryPolicy();
+
+    private MarklogicMetricsRecorder metricsRecorder = MarklogicMetricsRecorder.NONE;
+
+    private final ThreadLocal<String> currentOperation = new ThreadLocal<>();
+
+    private @Nullable SlowOperationLog slowOperationLog;
+
+    private @Nullable StaticQueryModules staticQueryModules;
+
+    private Executor staticQueryInstaller = createStaticQueryInstaller();
+
     public MarklogicTemplate(ContentSource contentSource) {
         this(contentSource, null);
     }
@@ -104,12 +185,76 @@ public class MarklogicTemplate implements MarklogicOperations, ApplicationEventP
         this.mappingContext = this.marklogicConverter.getMappingContext();
     }
 
+    private static Executor createStaticQueryInstaller() {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("marklogic-static-query-");
+        executor.setDaemon(true);
+        return executor;
+    }
+
     private static MarklogicConverter getDefaultMarklogicConverter() {
         MappingMarklogicConverter mappingMarklogicConverter = new MappingMarklogicConverter(new MarklogicMappingContext());
         mappingMarklogicConverter.afterPropertiesSet();
         return mappingMarklogicConverter;
     }
 
+    /**
+     * @param retryPolicy the policy applied to transient failures of work performed outside of a transaction.
+     *                    Only reads are considered idempotent : updates are retried when the server asks for it.
+     */
+    public void setRetryPolicy(MarklogicRetryPolicy retryPolicy) {
+        Assert.notNull(retryPolicy, "RetryPolicy must not be null");
+        this.retryPolicy = retryPolicy;
+    }
+
+    /**
+     * @return the policy applied to transient failures of work performed outside of a transaction
+     */
+    public MarklogicRetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    /**
+     * Set the recorder notified of operation timings and volumes, also notified of conversion durations when the
+     * converter is a {@link MappingMarklogicConverter}.
+     * @param metricsRecorder the recorder to notify
+     */
+    public void setMetricsRecorder(MarklogicMetricsRecorder metricsRecorder) {
+        Assert.notNull(metricsRecorder, "MetricsRecorder must not be null");
+        this.metricsRecorder = metricsRecorder;
+        if (marklogicConverter instanceof MappingMarklogicConverter) {
+            ((MappingMarklogicConverter) marklogicConverter).setMetricsRecorder(metricsRecorder);
+        }
+    }
+
+    /**
+     * @param slowOperationLog the log of slow operations, null to disable it
+     */
+    public void setSlowOperationLog(@Nullable SlowOperationLog slowOperationLog) {
+        this.slowOperationLog = slowOperationLog;
+    }
+
+    /**
+     * Install static ad hoc queries, the ones of this template and the ones flagged by
+     * {@link MarklogicInvokeOperationOptions#staticQuery()}, as main modules into the modules database, and invoke
+     * them as modules from then on. Only their variables are sent and the server compiles each of them once.
+     * Queries are sent as is whenever their module is missing or cannot be installed. Disabled by default.
+     * @param installStaticQueries whether static queries are installed as modules
+     */
+    public void setInstallStaticQueries(boolean installStaticQueries) {
+        this.staticQueryModules = installStaticQueries ? new StaticQueryModules(StaticQueryModules.DEFAULT_MODULE_ROOT) : null;
+    }
+
+    /**
+     * Set the executor installing static queries, out of the request that first submitted them.
+     * Defaults to a daemon thread per installation, each query being installed once.
+     * @param staticQueryInstaller the executor installing static queries
+     * @see #setInstallStaticQueries(boolean)
+     */
+    public void setStaticQueryInstaller(Executor staticQueryInstaller) {
+        Assert.notNull(staticQueryInstaller, "Executor must not be null");
+        this.staticQueryInstaller = staticQueryInstaller;
+    }
+
     @Override
     public void setApplicationEventPublisher(ApplicationEventPublisher applicationEventPublisher) {
         this.eventPublisher = applicationEventPublisher;
@@ -117,20 +262,24 @@ public class MarklogicTemplate implements MarklogicOperations, ApplicationEventP
 
     @Override
     public long count(Query query) {
+        return measure("count", null, () -> doCount(query));
+    }
+
+    private long doCount(Query query) {
         String ctsQuery = new CTSQuerySerializer(query).disablePagination().asCtsQuery();
-        String countQuery = String.format("xdmp:estimate(%s)", ctsQuery);
-        Long count = invokeAdhocQuery(countQuery, Long.TYPE, new MarklogicInvokeOperationOptions() {
+        String countQuery = withServerElapsedTime(String.format("xdmp:estimate(%s)", ctsQuery));
+        Long count = ReadOnlySessionContextHolder.doInReadOnly(() -> invokeAdhocQuery(countQuery, Long.TYPE, new MarklogicInvokeOperationOptions() {
             @Override
             public boolean useCacheResult() {
                 return false;
             }
-        });
+        }));
         return count == null ? 0 : count;
     }
 
     @Override
     public void insert(Object objectToSave) {
-        MarklogicPersistentEntity<?> persistentEntity = MarklogicUtils.retrievePersistentEntity(objectToSave.getClass(), mappingContext);
+        MarklogicPersistentEntity<?> persistentEntity = getOperationPlan(objectToSave.getClass()).getPersistentEntity();
 
         insert(objectToSave, new MarklogicCreateOperationOptions() {
             @Override
@@ -152,82 +301,101 @@ public class MarklogicTemplate implements MarklogicOperations, ApplicationEventP
 
     @Override
     public void insert(Object objectToSave, MarklogicCreateOperationOptions options) {
-        assertAutoGenerableIdIfNotSet(objectToSave);
+        measure("insert", objectToSave.getClass(), () -> {
+            EntityOperationPlan plan = getOperationPlan(objectToSave.getClass());
+            PersistentPropertyAccessor<Object> accessor = plan.getPropertyAccessor(objectToSave);
 
-        generateIdIfNecessary(objectToSave);
+            plan.ensureIdentifier(accessor);
 
-        doInsert(objectToSave, options, this.marklogicConverter);
+            OperationDeadline.within(options.timeoutMillis(), () -> doInsert(objectToSave, options, this.marklogicConverter, plan, accessor));
+        });
     }
 
     @Override
     public void save(Object objectToSave) {
-        if (isUnidentifiedObject(objectToSave)) {
-            LOGGER.debug("Save operation issued with unidentified object. Fallback to insert operation.");
-            insert(objectToSave);
-        } else {
-            MarklogicPersistentEntity<?> persistentEntity = MarklogicUtils.retrievePersistentEntity(objectToSave.getClass(), mappingContext);
-
-            final String uri = retrieveUri(objectToSave);
-            final String defaultCollection = persistentEntity.getDefaultCollection();
-
-            save(objectToSave, new MarklogicCreateOperationOptions() {
-                @Override
-                public String uri() {
-                    return uri;
-                }
-
-                @Override
-                public String[] extraCollections() {
-                    return new String[0];
-                }
-
-                @Override
-                public String defaultCollection() {
-                    return defaultCollection;
-                }
-            });
-        }
+        measure("save", objectToSave.getClass(), () -> {
+            EntityOperationPlan plan = getOperationPlan(objectToSave.getClass());
+            PersistentPropertyAccessor<Object> accessor = plan.getPropertyAccessor(objectToSave);
+
+            if (plan.getIdentifier(accessor) == null) {
+                LOGGER.debug("Save operation issued with unidentified object. Fallback to insert operation.");
+                insert(objectToSave);
+            } else {
+                final String defaultCollection = plan.getPersistentEntity().getDefaultCollection();
+
+                doSave(objectToSave, new MarklogicCreateOperationOptions() {
+                    @Override
+                    public String uri() {
+                        return plan.getPersistentEntity().getUri();
+                    }
+
+                    @Override
+                    public String[] extraCollections() {
+                        return new String[0];
+                    }
+
+                    @Override
+                    public String defaultCollection() {
+                        return defaultCollection;
+                    }
+                }, plan, accessor);
+            }
+        });
     }
 
     @Override
     public void save(Object objectToSave, MarklogicCreateOperationOptions options) {
-        if (isUnidentifiedObject(objectToSave)) {
-            LOGGER.debug("Save operation issued with unidentified object. Fallback to insert operation.");
-            insert(objectToSave, options);
-        } else {
-            final String uri = retrieveUri(objectToSave);
-            doInsert(objectToSave, new MarklogicCreateOperationOptions() {
-                @Override
-                public String uri() {
-                    return uri;
-                }
+        measure("save", objectToSave.getClass(), () -> {
+            EntityOperationPlan plan = getOperationPlan(objectToSave.getClass());
+            PersistentPropertyAccessor<Object> accessor = plan.getPropertyAccessor(objectToSave);
+
+            if (plan.getIdentifier(accessor) == null) {
+                LOGGER.debug("Save operation issued with unidentified object. Fallback to insert operation.");
+                insert(objectToSave, options);
+            } else {
+                OperationDeadline.within(options.timeoutMillis(), () -> doSave(objectToSave, options, plan, accessor));
+            }
+        });
+    }
 
-                @Override
-                public String[] extraCollections() {
-                    return options.extraCollections();
-                }
+    private void doSave(Object objectToSave, MarklogicCreateOperationOptions options, EntityOperationPlan plan, PersistentPropertyAccessor<Object> accessor) {
+        final String uri = retrieveUri(plan, accessor);
+        doInsert(objectToSave, new MarklogicCreateOperationOptions() {
+            @Override
+            public String uri() {
+                return uri;
+            }
 
-                @Override
-                public String defaultCollection() {
-                    return options.defaultCollection();
-                }
+            @Override
+            public String[] extraCollections() {
+                return options.extraCollections();
+            }
 
-                @Override
-                public boolean idInPropertyFragment() {
-                    return options.idInPropertyFragment();
-                }
+            @Override
+            public String defaultCollection() {
+                return options.defaultCollection();
+            }
 
-                @Override
-                public Class<?> entityClass() {
-                    return options.entityClass();
-                }
-            }, marklogicConverter);
-        }
+            @Override
+            public boolean idInPropertyFragment() {
+                return options.idInPropertyFragment();
+            }
+
+            @Override
+            public Class<?> entityClass() {
+                return options.entityClass();
+            }
+
+            @Override
+            public long timeoutMillis() {
+                return options.timeoutMillis();
+            }
+        }, marklogicConverter, plan, accessor);
     }
 
     @Override
     public void remove(Object entity) {
-        doRemove(entity);
+        measure("remove", entity.getClass(), () -> doRemove(entity));
     }
 
     @Override
@@ -242,11 +410,13 @@ public class MarklogicTemplate implements MarklogicOperations, ApplicationEventP
 
     @Override
     public <T> void remove(Object id, Class<T> entityClass, MarklogicOperationOptions options) {
-        T entity = findById(id, entityClass, options);
+        measure("remove", entityClass, () -> OperationDeadline.within(options.timeoutMillis(), () -> {
+            T entity = findById(id, entityClass, options);
 
-        if (entity != null) {
-            doRemove(entity);
-        }
+            if (entity != null) {
+                doRemove(entity);
+            }
+        }));
     }
 
     @Override
@@ -267,7 +437,7 @@ public class MarklogicTemplate implements MarklogicOperations, ApplicationEventP
         String collection = MarklogicUtils.expandsExpression(options.defaultCollection(), entityClass);
 
         if (collection != null) {
-            doRemoveAll(collection);
+            measure("removeAll", entityClass, () -> OperationDeadline.within(options.timeoutMillis(), () -> doRemoveAll(collection)));
         }
     }
 
@@ -286,6 +456,11 @@ public class MarklogicTemplate implements MarklogicOperations, ApplicationEventP
     @Override
     public <T> T findById(Object id, Class<T> entityClass, MarklogicOperationOptions options) {
         Assert.notNull(entityClass, "EntityClass can not be null");
+        return measure("findById", entityClass, () -> doFindById(id, entityClass, options));
+    }
+
+    @Nullable
+    private <T> T doFindById(Object id, Class<T> entityClass, MarklogicOperationOptions options) {
 
         final Class<?> targetEntityClass = retrieveTargetEntityClass(entityClass, options);
         MarklogicPersistentProperty idProperty = MarklogicUtils.getIdPropertyFor(targetEntityClass, mappingContext);
@@ -303,16 +478,150 @@ public class MarklogicTemplate implements MarklogicOperations, ApplicationEventP
 
         LOGGER.trace("{}", ctsQuery);
 
-        return invokeAdhocQuery(ctsQuery, entityClass, new MarklogicInvokeOperationOptions() {
+        MarklogicInvokeOperationOptions invokeOptions = new MarklogicInvokeOperationOptions() {
             @Override
             public Map<Object, Object> params() {
                 Map<Object, Object> params = new HashMap<>();
                 params.put("id", id);
                 return params;
             }
+
+            @Override
+            public long timeoutMillis() {
+                return options.timeoutMillis();
+            }
+        };
+
+        EntityCache entityCache = targetEntityClass == entityClass && !isTransactionBound() && ReadSnapshot.current() == null ? getEntityCache(entityClass) : null;
+        if (entityCache != null) {
+            return ReadOnlySessionContextHolder.doInReadOnly(() -> findCachedById(id, entityClass, ctsQuery, options.defaultCollection(), invokeOptions, entityCache));
+        }
+
+        return ReadOnlySessionContextHolder.doInReadOnly(() -> invokeAdhocQuery(ctsQuery, entityClass, invokeOptions));
+    }
+
+    /**
+     * Lookup the entity in the given cache, revalidating a cached entity against the current document timestamp.
+     */
+    @Nullable
+    private <T> T findCachedById(Object id, Class<T> entityClass, String ctsQuery, @Nullable String collection,
+                                 MarklogicInvokeOperationOptions options, EntityCache entityCache) {
+        EntityCache.Entry entry = entityCache.get(id, collection);
+        if (entry != null) {
+            Map<Object, Object> params = options.params();
+            params.put("uri", entry.getUri());
+            params.put("timestamp", entry.getTimestamp());
+
+            List<TimestampedDocument<T>> documents = invokeTimestampedQuery(TIMESTAMP_REVALIDATION_QUERY, entityClass, new MarklogicInvokeOperationOptions() {
+                @Override
+                public Map<Object, Object> params() {
+                    return params;
+                }
+
+                @Override
+                public long timeoutMillis() {
+                    return options.timeoutMillis();
+                }
+
+                @Override
+                public boolean staticQuery() {
+                    return true;
+                }
+            });
+
+            if (!documents.isEmpty()) {
+                TimestampedDocument<T> document = documents.get(0);
+                if (document.entity == null) {
+                    LOGGER.trace("Cached document '{}' is up to date", entry.getUri());
+                    return readCachedDocument(entry, entityClass, options);
+                }
+                cacheDocument(id, collection, document, entityCache);
+                return document.entity;
+            }
+
+            entityCache.evict(entry.getUri());
+        }
+
+        List<TimestampedDocument<T>> documents = invokeTimestampedQuery(String.format(TIMESTAMPED_SEARCH_QUERY, ctsQuery), entityClass, options);
+        if (documents.isEmpty()) {
+            return null;
+        } else if (documents.size() > 1) {
+            throw new DataRetrievalFailureException("Only one result expected. You should probably call invokeAdhocQueryAsList instead");
+        }
+
+        TimestampedDocument<T> document = documents.get(0);
+        cacheDocument(id, collection, document, entityCache);
+        return document.entity;
+    }
+
+    private <T> void cacheDocument(Object id, @Nullable String collection, TimestampedDocument<T> document, EntityCache entityCache) {
+        if (document.content != null && document.uri != null && document.entity != null && !"0".equals(document.timestamp)) {
+            entityCache.put(id, collection, document.uri, document.timestamp, document.content, document.entity);
+        }
+    }
+
+    /**
+     * Return the shared entity of the cached document, else convert the cached document to a new entity instance, as if
+     * it had just been read from the server.
+     */
+    @Nullable
+    private <T> T readCachedDocument(EntityCache.Entry entry, Class<T> entityClass, MarklogicInvokeOperationOptions options) {
+        if (entry.getContent() == null) {
+            return entityClass.cast(entry.getEntity());
+        }
+        ResultItem resultItem = new ResultItemImpl(ValueFactory.newDocumentNode(entry.getContent()), 0, entry.getUri(), null);
+        return prepareResultItem(resultItem, entityClass, options, marklogicConverter);
+    }
+
+    /**
+     * Invoke a query returning, for every document, its timestamp optionally followed by the document itself.
+     */
+    private <T> List<TimestampedDocument<T>> invokeTimestampedQuery(String query, Class<T> entityClass, MarklogicInvokeOperationOptions options) {
+        return returnInSession(session -> {
+            try {
+                ResultSequence resultSequence = submitAdhocQuery(session, query, options);
+                List<TimestampedDocument<T>> documents = new ArrayList<>();
+                try {
+                    TimestampedDocument<T> current = null;
+                    while (resultSequence.hasNext()) {
+                        ResultItem resultItem = resultSequence.next();
+                        if (current != null && current.entity == null && resultItem.getItem() instanceof XdmNode) {
+                            current.uri = resultItem.getDocumentURI();
+                            resultItem.cache();
+                            current.entity = prepareResultItem(resultItem, entityClass, options, marklogicConverter);
+                            current.content = resultItem.asString();
+                        } else {
+                            current = new TimestampedDocument<>(resultItem.getItem().asString());
+                            documents.add(current);
+                        }
+                    }
+                } finally {
+                    if (!resultSequence.isClosed()) {
+                        resultSequence.close();
+                    }
+                }
+                return documents;
+            } catch (RequestException re) {
+                throw translateSubmissionException(re);
+            }
         });
     }
 
+    @Nullable
+    private EntityCache getEntityCache(Class<?> entityClass) {
+        MarklogicPersistentEntity<?> persistentEntity = mappingContext.getPersistentEntity(entityClass);
+        if (persistentEntity == null || persistentEntity.getCacheMaxSize() <= 0) {
+            return null;
+        }
+        return entityCaches.computeIfAbsent(entityClass, type -> new EntityCache(persistentEntity.getCacheMaxSize(), persistentEntity.getCacheMaxWeight(), persistentEntity.isCacheCopyOnRead()));
+    }
+
+    private void evictCachedDocument(String uri) {
+        for (EntityCache entityCache : entityCaches.values()) {
+            entityCache.evict(uri);
+        }
+    }
+
     private <T> Class<?> retrieveTargetEntityClass(Class<T> entityClass, MarklogicOperationOptions options) {
         Class<?> optionEntityClass = options.entityClass();
         return optionEntityClass == null ? entityClass : optionEntityClass;
@@ -326,12 +635,45 @@ public class MarklogicTemplate implements MarklogicOperations, ApplicationEventP
 
     @Override
     public <T> List<T> find(Query query, Class<T> entityClass, MarklogicOperationOptions options) {
-        return invokeAdhocQueryAsList(new CTSQuerySerializer(query).asCtsQuery(), entityClass, new MarklogicInvokeOperationOptions() {
+        return measure("find", entityClass, () -> doFind(query, entityClass, options));
+    }
+
+    private <T> List<T> doFind(Query query, Class<T> entityClass, MarklogicOperationOptions options) {
+        String ctsQuery = withServerElapsedTime(new CTSQuerySerializer(query).asCtsQuery());
+        return ReadOnlySessionContextHolder.doInReadOnly(() -> invokeAdhocQueryAsList(ctsQuery, entityClass, new MarklogicInvokeOperationOptions() {
             @Override
             public boolean useCacheResult() {
                 return false;
             }
-        });
+
+            @Override
+            public long timeoutMillis() {
+                return options.timeoutMillis();
+            }
+        }));
+    }
+
+    @Override
+    public <T> CloseableIterator<T> stream(Query query, Class<T> entityClass) {
+        String ctsQuery = new CTSQuerySerializer(query).asCtsQuery();
+        MarklogicInvokeOperationOptions options = new MarklogicInvokeOperationOptions() {
+            @Override
+            public boolean useCacheResult() {
+                return false;
+            }
+        };
+
+        Session session = ReadOnlySessionContextHolder.doInReadOnly(() -> ContentSourceUtils.getSession(contentSource, metricsRecorder));
+        try {
+            ResultSequence resultSequence = submit(session, buildAdhocRequest(ctsQuery, options, session));
+            return new ResultSequenceIterator<>(resultSequence, session, entityClass, options);
+        } catch (RequestException re) {
+            ContentSourceUtils.releaseSession(session, contentSource);
+            throw translateSubmissionException(re);
+        } catch (RuntimeException ex) {
+            ContentSourceUtils.releaseSession(session, contentSource);
+            throw ex;
+        }
     }
 
     @Nullable
@@ -367,95 +709,157 @@ public class MarklogicTemplate implements MarklogicOperations, ApplicationEventP
 
     @Override
     public <T> List<T> invokeModuleAsList(String moduleName, Class<T> resultClass, MarklogicInvokeOperationOptions options) {
-        return returnInSession(session -> {
+        return measure("invokeModule", resultClass, () -> OperationDeadline.within(options.timeoutMillis(), () -> returnInSession(session -> {
             try {
-                ResultSequence resultSequence = session.submitRequest(buildModuleRequest(moduleName, options, session));
+                ResultSequence resultSequence = submit(session, buildModuleRequest(moduleName, options, session));
                 return prepareResultList(resultSequence, resultClass, options, marklogicConverter);
             } catch (RequestException re) {
-                throw new DataRetrievalFailureException(SUBMISSION_ERROR_MSG, re);
+                throw translateSubmissionException(re);
             }
-        });
+        })));
     }
 
     @Nullable
     @Override
     public <T> T invokeModule(String moduleName, Class<T> resultClass, MarklogicInvokeOperationOptions options) {
-        List<T> resultList = invokeModuleAsList(moduleName, resultClass, options);
+        return measure("invokeModule", resultClass, () -> singleResult(invokeModuleAsList(moduleName, resultClass, options),
+                "Only one result expected. You should probably call invokeModuleAsList instead"));
+    }
 
+    @Nullable
+    private <T> T singleResult(List<T> resultList, String errorMessage) {
         if (CollectionUtils.isEmpty(resultList)) {
             return null;
         } else if (resultList.size() == 1) {
             return resultList.get(0);
         } else {
-            throw new DataRetrievalFailureException("Only one result expected. You should probably call invokeModuleAsList instead");
+            throw new DataRetrievalFailureException(errorMessage);
         }
     }
 
     @Override
     public void invokeModule(String moduleName, MarklogicInvokeOperationOptions options) {
-        doInSession(session -> {
+        measure("invokeModule", null, () -> OperationDeadline.within(options.timeoutMillis(), () -> doInSession(session -> {
             try {
-                ResultSequence resultSequence = session.submitRequest(buildModuleRequest(moduleName, options, session));
+                ResultSequence resultSequence = submit(session, buildModuleRequest(moduleName, options, session));
                 if (!resultSequence.isClosed()) {
                     resultSequence.close();
                 }
             } catch (RequestException re) {
-                throw new DataRetrievalFailureException(SUBMISSION_ERROR_MSG, re);
+                throw translateSubmissionException(re);
             }
-        });
+        })));
     }
 
     @Override
     public <T> List<T> invokeAdhocQueryAsList(String query, Class<T> resultClass, MarklogicInvokeOperationOptions options) {
-        return returnInSession(session -> {
+        return measure("invokeAdhocQuery", resultClass, () -> OperationDeadline.within(options.timeoutMillis(), () -> returnInSession(session -> {
             try {
-                ResultSequence resultSequence = session.submitRequest(buildAdhocRequest(query, options, session));
+                ResultSequence resultSequence = submitAdhocQuery(session, query, options);
                 return prepareResultList(resultSequence, resultClass, options, this.marklogicConverter);
             } catch (RequestException re) {
-                throw new DataRetrievalFailureException(SUBMISSION_ERROR_MSG, re);
+                throw translateSubmissionException(re);
             }
-        });
+        })));
     }
 
     @Override
     public <T> T invokeAdhocQuery(String query, Class<T> resultClass, MarklogicInvokeOperationOptions options) {
-        List<T> resultList = invokeAdhocQueryAsList(query, resultClass, options);
-
-        if (CollectionUtils.isEmpty(resultList)) {
-            return null;
-        } else if (resultList.size() == 1) {
-            return resultList.get(0);
-        } else {
-            throw new DataRetrievalFailureException("Only one result expected. You should probably call invokeAdhocQueryAsList instead");
-        }
+        return measure("invokeAdhocQuery", resultClass, () -> singleResult(invokeAdhocQueryAsList(query, resultClass, options),
+                "Only one result expected. You should probably call invokeAdhocQueryAsList instead"));
     }
 
     @Override
     public void invokeAdhocQuery(String query, MarklogicInvokeOperationOptions options) {
-        doInSession(session -> {
+        measure("invokeAdhocQuery", null, () -> OperationDeadline.within(options.timeoutMillis(), () -> doInSession(session -> {
             try {
-                ResultSequence resultSequence = session.submitRequest(buildAdhocRequest(query, options, session));
+                ResultSequence resultSequence = submitAdhocQuery(session, query, options);
                 if (!resultSequence.isClosed()) {
                     resultSequence.close();
                 }
             } catch (RequestException re) {
-                throw new DataRetrievalFailureException(SUBMISSION_ERROR_MSG, re);
+                throw translateSubmissionException(re);
+            }
+        })));
+    }
+
+    @Override
+    public QueryPlanReport explain(Query query) {
+        String ctsQuery = new CTSQuerySerializer(query).asCtsQuery();
+        String unpaginatedCtsQuery = new CTSQuerySerializer(query).disablePagination().asCtsQuery();
+        return invokeReportQuery(String.format(EXPLAIN_QUERY, ctsQuery, unpaginatedCtsQuery), ctsQuery, QueryPlanReport.class);
+    }
+
+    @Override
+    public QueryProfileReport profile(Query query) {
+        String ctsQuery = new CTSQuerySerializer(query).asCtsQuery();
+        return invokeReportQuery(PROFILE_QUERY, ctsQuery, QueryProfileReport.class);
+    }
+
+    private <T> T invokeReportQuery(String reportQuery, String ctsQuery, Class<T> reportClass) {
+        T report = ReadOnlySessionContextHolder.doInReadOnly(() -> invokeAdhocQuery(reportQuery, reportClass, new MarklogicInvokeOperationOptions() {
+            @Override
+            public Map<Object, Object> params() {
+                Map<Object, Object> params = new HashMap<>();
+                params.put("query", ctsQuery);
+                return params;
+            }
+
+            @Override
+            public boolean useCacheResult() {
+                return false;
+            }
+        }));
+
+        if (report == null) {
+            throw new DataRetrievalFailureException("No report returned for query " + ctsQuery);
+        }
+        return report;
+    }
+
+    @Override
+    public <T> T executeInSnapshot(Supplier<T> callback) {
+        if (ReadSnapshot.current() != null) {
+            return callback.get();
+        }
+
+        if (isTransactionBound()) {
+            throw new InvalidDataAccessApiUsageException("A read snapshot can't be opened within a transaction");
+        }
+
+        String timestamp = invokeAdhocQuery(SNAPSHOT_TIMESTAMP_QUERY, String.class, new MarklogicInvokeOperationOptions() {
+            @Override
+            public boolean useCacheResult() {
+                return false;
+            }
+
+            @Override
+            public boolean staticQuery() {
+                return true;
             }
         });
+
+        if (timestamp == null) {
+            throw new DataRetrievalFailureException("Unable to retrieve the server timestamp");
+        }
+
+        LOGGER.debug("Open read snapshot at timestamp {}", timestamp);
+        return ReadSnapshot.at(new BigInteger(timestamp), callback);
     }
 
     @Nullable
     @Override
     public <T> String resolveDefaultCollection(T entity, MarklogicOperationOptions options) {
-        MarklogicPersistentEntity<?> persistentEntity = MarklogicUtils.retrievePersistentEntity(entity.getClass(), mappingContext);
-        String defaultCollection = options.defaultCollection() == null ? persistentEntity.getDefaultCollection() : options.defaultCollection();
-        return MarklogicUtils.expandsExpression(defaultCollection, entity.getClass(), entity, () -> MarklogicUtils.retrieveIdentifier(entity, mappingContext));
+        EntityOperationPlan plan = getOperationPlan(entity.getClass());
+        String defaultCollection = options.defaultCollection() == null ? plan.getPersistentEntity().getDefaultCollection() : options.defaultCollection();
+        return plan.expandCollection(defaultCollection, plan.getPropertyAccessor(entity));
     }
 
     @Nullable
     @Override
     public <T> Object resolveContentIdentifier(T entity) {
-        return MarklogicUtils.retrieveIdentifier(entity, mappingContext);
+        EntityOperationPlan plan = getOperationPlan(entity.getClass());
+        return plan.getPropertyAccessor(entity).getProperty(plan.getRequiredIdProperty());
     }
 
     @Override
@@ -471,12 +875,25 @@ public class MarklogicTemplate implements MarklogicOperations, ApplicationEventP
     private void doRemoveAll(String collection) {
         LOGGER.debug("Remove all entities stored in '{}' default collection", collection);
 
-        String query = "xdmp:collection-delete(\"" + collection + "\")";
+        entityCaches.values().forEach(EntityCache::clear);
+
+        MarklogicInvokeOperationOptions options = new MarklogicInvokeOperationOptions() {
+            @Override
+            public Map<Object, Object> params() {
+                Map<Object, Object> params = new HashMap<>();
+                params.put("collection", collection);
+                return params;
+            }
+
+            @Override
+            public boolean staticQuery() {
+                return true;
+            }
+        };
 
         doInSession(session -> {
-            Request request = session.newAdhocQuery(query);
             try {
-                ResultSequence resultSequence = session.submitRequest(request);
+                ResultSequence resultSequence = submitAdhocQuery(session, COLLECTION_DELETE_QUERY, options);
                 if (!resultSequence.isClosed()) {
                     resultSequence.close();
                 }
@@ -487,25 +904,41 @@ public class MarklogicTemplate implements MarklogicOperations, ApplicationEventP
     }
 
     private void doRemove(Object entity) {
-        String uri = retrieveUri(entity);
+        EntityOperationPlan plan = getOperationPlan(entity.getClass());
+        PersistentPropertyAccessor<Object> accessor = plan.getPropertyAccessor(entity);
+
+        String uri = retrieveUri(plan, accessor);
         LOGGER.debug("Remove '{}' from '{}'", entity, uri);
 
-        Object id = resolveMarklogicIdentifier(entity).value();
+        Object id = resolveMarklogicIdentifier(plan, accessor).value();
 
         maybeEmitEvent(new BeforeDeleteEvent<>(entity, id, uri));
-        invokeAdhocQuery("xdmp:document-delete('" + uri .replace("'", "''") + "')", new MarklogicInvokeOperationOptions() {
+        evictCachedDocument(uri);
+        invokeAdhocQuery(DOCUMENT_DELETE_QUERY, new MarklogicInvokeOperationOptions() {
+            @Override
+            public Map<Object, Object> params() {
+                Map<Object, Object> params = new HashMap<>();
+                params.put("uri", uri);
+                return params;
+            }
+
             @Override
             public boolean useCacheResult() {
                 return false;
             }
+
+            @Override
+            public boolean staticQuery() {
+                return true;
+            }
         });
         maybeEmitEvent(new AfterDeleteEvent<>(entity, id, uri));
     }
 
-    private void doInsert(Object objectToSave, MarklogicCreateOperationOptions options, MarklogicWriter<Object> writer) {
-        Supplier<Object> supplier = () -> MarklogicUtils.retrieveIdentifier(objectToSave, mappingContext);
-        String uri = MarklogicUtils.expandsExpression(options.uri(), objectToSave.getClass(), objectToSave, supplier);
-        String collection = MarklogicUtils.expandsExpression(options.defaultCollection(), objectToSave.getClass(), objectToSave, supplier);
+    private void doInsert(Object objectToSave, MarklogicCreateOperationOptions options, MarklogicWriter<Object> writer,
+                          EntityOperationPlan plan, PersistentPropertyAccessor<Object> accessor) {
+        String uri = plan.expandUri(options.uri(), accessor);
+        String collection = plan.expandCollection(options.defaultCollection(), accessor);
 
         Assert.notNull(uri, "A uri should be computable for entity insertion");
 
@@ -517,9 +950,10 @@ public class MarklogicTemplate implements MarklogicOperations, ApplicationEventP
 
         maybeEmitEvent(new BeforeSaveEvent<>(objectToSave, content, uri));
 
+        evictCachedDocument(uri);
         doInsertContent(content);
 
-        doPostInsert(uri, objectToSave);
+        doPostInsert(uri, plan, accessor);
 
         maybeEmitEvent(new AfterSaveEvent<>(objectToSave, content, uri));
     }
@@ -530,49 +964,14 @@ public class MarklogicTemplate implements MarklogicOperations, ApplicationEventP
         }
     }
 
-    /**
-     * Populates the id property of the saved object, if it's not set already.
-     *
-     * @param objectToSave The object currently saved
-     */
-    private void generateIdIfNecessary(Object objectToSave) {
-        MarklogicPersistentProperty property = MarklogicUtils.getIdPropertyFor(objectToSave.getClass(), mappingContext);
-
-        if (property == null) {
-            return;
-        }
-
-        MarklogicPersistentEntity<?> entity = MarklogicUtils.retrievePersistentEntity(objectToSave.getClass(), mappingContext);
-        PersistentPropertyAccessor<Object> accessor = entity.getPropertyAccessor(objectToSave);
-
-        if (accessor.getProperty(property) != null) {
-            return;
-        }
-
-        ConversionService conversionService = marklogicConverter.getConversionService();
-        ConvertingPropertyAccessor<Object> propertyAccessor = new ConvertingPropertyAccessor<>(accessor, conversionService);
-        propertyAccessor.setProperty(property, UUID.randomUUID());
-    }
-
-    private boolean isUnidentifiedObject(Object objectToSave) {
-        MarklogicPersistentProperty property = MarklogicUtils.getIdPropertyFor(objectToSave.getClass(), mappingContext);
-
-        if (property == null) {
-            return true;
-        }
-
-        MarklogicPersistentEntity<?> entity = MarklogicUtils.retrievePersistentEntity(objectToSave.getClass(), mappingContext);
-        return entity.getPropertyAccessor(objectToSave).getProperty(property) == null;
-    }
-
-    private String retrieveUri(Object objectToSave) {
-        MarklogicPersistentEntity<?> persistentEntity = MarklogicUtils.retrievePersistentEntity(objectToSave.getClass(), mappingContext);
+    private String retrieveUri(EntityOperationPlan plan, PersistentPropertyAccessor<Object> accessor) {
+        MarklogicPersistentEntity<?> persistentEntity = plan.getPersistentEntity();
 
         MappingMarklogicEntityInformation<?, ?> informations = new MappingMarklogicEntityInformation<>(persistentEntity);
 
         Query query = new QueryBuilder(this)
-                .ofType(objectToSave.getClass())
-                .identifiedBy(resolveMarklogicIdentifier(objectToSave))
+                .ofType(persistentEntity.getType())
+                .identifiedBy(resolveMarklogicIdentifier(plan, accessor))
                 .options(new EntityInformationOperationOptions(informations))
                 .build();
 
@@ -589,24 +988,108 @@ public class MarklogicTemplate implements MarklogicOperations, ApplicationEventP
         }
     }
 
-    private <T> T returnInSession(Function<Session, T> sessionTask) {
-        Session session = ContentSourceUtils.getSession(contentSource);
+    /**
+     * Perform the given task, recording its duration and outcome under the given operation name unless
+     * performed by an enclosing operation.
+     */
+    private <T> T measure(String operation, @Nullable Class<?> entityClass, Supplier<T> task) {
+        if ((!metricsRecorder.isEnabled() && slowOperationLog == null) || currentOperation.get() != null) {
+            return task.get();
+        }
+
+        OperationTrace trace = slowOperationLog == null ? null : slowOperationLog.startTrace(operation, entityClass);
+        currentOperation.set(operation);
+        long start = System.nanoTime();
+        Throwable failure = null;
         try {
-            return sessionTask.apply(session);
+            return trace == null ? task.get() : OperationTrace.record(trace, task);
+        } catch (RuntimeException | Error ex) {
+            failure = ex;
+            throw ex;
         } finally {
-            ContentSourceUtils.releaseSession(session, contentSource);
+            currentOperation.remove();
+            if (metricsRecorder.isEnabled()) {
+                metricsRecorder.recordOperation(operation, entityClass, failure, System.nanoTime() - start);
+            }
+            if (trace != null) {
+                slowOperationLog.complete(trace, failure);
+            }
         }
     }
 
-    private void doInSession(Consumer<Session> sessionTask) {
-        Session session = ContentSourceUtils.getSession(contentSource);
+    private void measure(String operation, @Nullable Class<?> entityClass, Runnable task) {
+        measure(operation, entityClass, () -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * @return the name of the operation being performed on the current thread, "stream" when consuming a stream
+     */
+    private String currentOperationName() {
+        String operation = currentOperation.get();
+        return operation == null ? "stream" : operation;
+    }
+
+    private <T> T returnInSession(Function<Session, T> sessionTask) {
+        return retryPolicy.execute(() -> {
+            OperationTrace trace = OperationTrace.current();
+            long start = trace == null ? 0 : System.nanoTime();
+            Session session = ContentSourceUtils.getSession(contentSource, metricsRecorder);
+            if (trace != null) {
+                trace.addSession(System.nanoTime() - start);
+            }
+            try {
+                return sessionTask.apply(session);
+            } finally {
+                ContentSourceUtils.releaseSession(session, contentSource);
+            }
+        }, !isTransactionBound(), ReadOnlySessionContextHolder.isReadOnly());
+    }
+
+    private ResultSequence submit(Session session, Request request) throws RequestException {
+        OperationTrace trace = OperationTrace.current();
+        if (trace == null) {
+            return session.submitRequest(request);
+        }
+
+        long start = System.nanoTime();
         try {
-            sessionTask.accept(session);
+            return session.submitRequest(request);
         } finally {
-            ContentSourceUtils.releaseSession(session, contentSource);
+            trace.addSubmit(request, System.nanoTime() - start);
         }
     }
 
+    /**
+     * Have the given search expression also return the server elapsed time, as its last item, when the current
+     * operation is traced. The elapsed time is removed from the results by {@link #prepareResultList}.
+     */
+    private String withServerElapsedTime(String query) {
+        OperationTrace trace = OperationTrace.current();
+        if (trace == null) {
+            return query;
+        }
+
+        trace.awaitServerElapsedTime();
+        return String.format("(%s, xdmp:elapsed-time())", query);
+    }
+
+    private void doInSession(Consumer<Session> sessionTask) {
+        returnInSession(session -> {
+            sessionTask.accept(session);
+            return null;
+        });
+    }
+
+    /**
+     * @return whether the Session used by this template is bound to an ongoing transaction, in which case failed work can't be replayed.
+     */
+    private boolean isTransactionBound() {
+        return TransactionSynchronizationManager.isActualTransactionActive() || TransactionSynchronizationManager.hasResource(contentSource);
+    }
+
     private Content toContentObject(String uri, Object entity, @Nullable String collection, MarklogicWriter<Object> writer) {
         Content content;
         boolean supportedClass = MarklogicTypeUtils.isSupportedType(entity.getClass());
@@ -648,31 +1131,32 @@ public class MarklogicTemplate implements MarklogicOperations, ApplicationEventP
 
     private void doInsertContent(Content content) {
         doInSession(session -> {
+            long timeoutMillis = OperationDeadline.remainingMillis();
+            RequestOptions defaultOptions = session.getDefaultRequestOptions();
+            if (timeoutMillis > 0) {
+                // Content insertion has no request options of its own : bound the Session ones for the time of the insert.
+                RequestOptions insertOptions = new RequestOptions();
+                if (defaultOptions != null) {
+                    insertOptions.applyEffectiveValues(new RequestOptions[] {defaultOptions});
+                }
+                ContentSourceUtils.applyTimeout(insertOptions, contentSource, timeoutMillis);
+                session.setDefaultRequestOptions(insertOptions);
+            }
+            if (metricsRecorder.isEnabled() && content.size() >= 0) {
+                metricsRecorder.recordPayloadWritten(currentOperationName(), content.size());
+            }
             try {
                 session.insertContent(content);
             } catch (RequestException re) {
                 throw new DataAccessResourceFailureException("Unable to execute request", re);
+            } finally {
+                if (timeoutMillis > 0) {
+                    session.setDefaultRequestOptions(defaultOptions);
+                }
             }
         });
     }
 
-    private void assertAutoGenerableIdIfNotSet(Object entity) {
-        MarklogicPersistentEntity<?> persistentEntity = MarklogicUtils.retrievePersistentEntity(entity.getClass(), mappingContext);
-        MarklogicPersistentProperty idProperty = persistentEntity.getIdProperty();
-
-        if (idProperty == null) {
-            return;
-        }
-
-        Object idValue = persistentEntity.getPropertyAccessor(entity).getProperty(idProperty);
-
-        if (idValue == null && !MarklogicSimpleTypes.AUTOGENERATED_ID_TYPES.contains(idProperty.getType())) {
-            throw new InvalidDataAccessApiUsageException(
-                    String.format("Cannot auto-generate id of type %s for entity of type %s!", idProperty.getType().getName(),
-                            entity.getClass().getName()));
-        }
-    }
-
     private String determineCollectionName(Class<?> entityClass) {
         return MarklogicUtils.retrievePersistentEntity(entityClass, mappingContext).getDefaultCollection();
     }
@@ -680,16 +1164,93 @@ public class MarklogicTemplate implements MarklogicOperations, ApplicationEventP
     private Request buildAdhocRequest(String query, MarklogicInvokeOperationOptions options, Session session) {
         Request request = session.newAdhocQuery(query);
         request.getOptions().setCacheResult(options.useCacheResult());
+        prepareRequestOptions(request.getOptions());
         addVariablesToRequest(options.params(), request);
         return request;
     }
 
+    /**
+     * Submit the given ad hoc query, through its installed module when it is a static one.
+     */
+    private ResultSequence submitAdhocQuery(Session session, String query, MarklogicInvokeOperationOptions options) throws RequestException {
+        if (staticQueryModules == null || !options.staticQuery()) {
+            return submit(session, buildAdhocRequest(query, options, session));
+        }
+
+        String moduleUri = staticQueryModules.getModuleUri(query);
+        if (staticQueryModules.isInstalled(moduleUri)) {
+            try {
+                return submit(session, buildModuleRequest(moduleUri, options, session));
+            } catch (RequestException re) {
+                if (!StaticQueryModules.isModuleNotFound(re)) {
+                    throw re;
+                }
+                LOGGER.debug("Static query module '{}' is missing, submitting the query instead", moduleUri);
+                staticQueryModules.missing(moduleUri);
+            }
+        }
+
+        ResultSequence resultSequence = submit(session, buildAdhocRequest(query, options, session));
+        if (staticQueryModules.claimInstallation(moduleUri)) {
+            StaticQueryModules modules = staticQueryModules;
+            try {
+                staticQueryInstaller.execute(() -> installStaticQuery(modules, moduleUri, query));
+            } catch (RejectedExecutionException ex) {
+                LOGGER.debug("Installation of static query module '{}' rejected, it will be attempted on next use", moduleUri);
+                modules.release(moduleUri);
+            }
+        }
+        return resultSequence;
+    }
+
+    /**
+     * Install the given query as a module, in a session of its own to stay out of any ongoing transaction.
+     * Performed by the static query installer, without delaying the request that submitted the query.
+     */
+    private void installStaticQuery(StaticQueryModules modules, String moduleUri, String query) {
+        Session session = contentSource.newSession();
+        try {
+            submit(session, StaticQueryModules.buildInstallRequest(session, moduleUri, query)).close();
+            modules.installed(moduleUri);
+            LOGGER.debug("Static query installed as module '{}'", moduleUri);
+        } catch (RequestException | RuntimeException ex) {
+            LOGGER.debug("Unable to install static query module '{}', the query will be submitted as is", moduleUri, ex);
+        } finally {
+            session.close();
+        }
+    }
+
     private Request buildModuleRequest(String moduleName, MarklogicInvokeOperationOptions options, Session session) {
         Request request = session.newModuleInvoke(moduleName);
+        request.getOptions().setCacheResult(options.useCacheResult());
+        prepareRequestOptions(request.getOptions());
         addVariablesToRequest(options.params(), request);
         return request;
     }
 
+    /**
+     * Bound the given request to what remains of the current operation time budget, if any, and evaluate read only
+     * requests at the current read snapshot point in time, if any. Updates are rejected by the server at a fixed
+     * point in time, they are therefore evaluated against the latest state.
+     * Fails without issuing the request once the budget is exhausted or the calling thread interrupted.
+     */
+    private void prepareRequestOptions(RequestOptions requestOptions) {
+        long timeoutMillis = OperationDeadline.remainingMillis();
+        ContentSourceUtils.applyTimeout(requestOptions, contentSource, timeoutMillis);
+
+        BigInteger pointInTime = ReadSnapshot.current();
+        if (pointInTime != null && ReadOnlySessionContextHolder.isReadOnly()) {
+            requestOptions.setEffectivePointInTime(pointInTime);
+        }
+    }
+
+    private DataAccessException translateSubmissionException(RequestException re) {
+        if (re instanceof QueryException && TIME_LIMIT_EXCEEDED_CODE.equals(((QueryException) re).getCode())) {
+            return new QueryTimeoutException("Request time limit exceeded", re);
+        }
+        return new DataRetrievalFailureException(SUBMISSION_ERROR_MSG, re);
+    }
+
     private void addVariablesToRequest(Map<Object, Object> params, Request request) {
         for (Map.Entry<Object, Object> entry : params.entrySet()) {
             request.setVariable(buildVariable(entry.getKey(), entry.getValue()));
@@ -697,7 +1258,12 @@ public class MarklogicTemplate implements MarklogicOperations, ApplicationEventP
     }
 
     private XdmVariable buildVariable(Object key, Object value) {
-        XName xname = isFullQualifiedName(key) ? buildVariableName((QName) key) : new XName((String) key);
+        XName xname;
+        if (key instanceof XName) {
+            xname = (XName) key;
+        } else {
+            xname = isFullQualifiedName(key) ? buildVariableName((QName) key) : new XName((String) key);
+        }
         return ValueFactory.newVariable(xname, buildVariableValue(value));
     }
 
@@ -715,42 +1281,84 @@ public class MarklogicTemplate implements MarklogicOperations, ApplicationEventP
             return ValueFactory.newXSString("");
         }
 
+        if (value instanceof XdmValue) {
+            return (XdmValue) value;
+        }
+
         XdmValue converted = marklogicConverter.getConversionService().convert(value, XdmValue.class);
         return converted == null ? ValueFactory.newXSString("") : converted;
     }
 
     private <T> List<T> prepareResultList(ResultSequence resultSequence, Class<T> returnType, MarklogicInvokeOperationOptions options, MarklogicReader<Object> reader) {
         List<T> resultList = new ArrayList<>();
+        OperationTrace trace = OperationTrace.current();
         try {
-            while (resultSequence.hasNext()) {
-                resultList.add(prepareResultItem(resultSequence.next(), returnType, options, reader));
+            long start = trace == null ? 0 : System.nanoTime();
+            boolean hasNext = resultSequence.hasNext();
+            if (trace != null) {
+                trace.addFirstByte(System.nanoTime() - start);
+            }
+            if (trace != null && trace.isAwaitingServerElapsedTime()) {
+                // The server elapsed time is the last item : every item is held back, cached, until another one follows.
+                ResultItem pendingItem = null;
+                while (hasNext) {
+                    ResultItem resultItem = resultSequence.next();
+                    resultItem.cache();
+                    if (pendingItem != null) {
+                        resultList.add(prepareResultItem(pendingItem, returnType, options, reader));
+                    }
+                    pendingItem = resultItem;
+                    hasNext = resultSequence.hasNext();
+                }
+                if (pendingItem != null && ValueType.XS_DAY_TIME_DURATION.equals(pendingItem.getItemType())) {
+                    trace.setServerElapsedTime(pendingItem.asString());
+                } else if (pendingItem != null) {
+                    resultList.add(prepareResultItem(pendingItem, returnType, options, reader));
+                }
+            }
+            while (hasNext) {
+                ResultItem resultItem = resultSequence.next();
+                resultList.add(prepareResultItem(resultItem, returnType, options, reader));
+                hasNext = resultSequence.hasNext();
             }
         } finally {
             if (!resultSequence.isClosed()) {
                 resultSequence.close();
             }
         }
+        if (metricsRecorder.isEnabled()) {
+            metricsRecorder.recordResultItems(currentOperationName(), resultList.size());
+        }
         return resultList;
     }
 
     private <T> T prepareResultItem(ResultItem resultItem, Class<T> returnType, MarklogicInvokeOperationOptions options, MarklogicReader<Object> reader) {
+        // Items are measured as the reader consumes them, streamed items are therefore never buffered to be measured.
+        CountingResultItem countingItem = metricsRecorder.isEnabled() ? new CountingResultItem(resultItem) : null;
         MarklogicContentHolder holder = new MarklogicContentHolder();
-        holder.setContent(resultItem);
+        holder.setContent(countingItem == null ? resultItem : countingItem);
 
+        OperationTrace trace = OperationTrace.current();
+        long start = trace == null ? 0 : System.nanoTime();
         T item = reader.read(returnType, holder);
+        if (trace != null) {
+            trace.addConversion(System.nanoTime() - start);
+        }
+
+        if (countingItem != null) {
+            metricsRecorder.recordPayloadRead(currentOperationName(), countingItem.getBytes());
+        }
+
         AfterRetrieveEvent<T> event = new AfterRetrieveEvent<>(item, resultItem.getDocumentURI());
         event.setParams(options.params());
         maybeEmitEvent(event);
         return item;
     }
 
-    private MarklogicIdentifier resolveMarklogicIdentifier(Object object) {
-        MarklogicPersistentProperty idProperty = MarklogicUtils.getIdPropertyFor(object.getClass(), mappingContext);
+    private MarklogicIdentifier resolveMarklogicIdentifier(EntityOperationPlan plan, PersistentPropertyAccessor<Object> accessor) {
+        MarklogicPersistentProperty idProperty = plan.getRequiredIdProperty();
 
-        if (idProperty == null)
-            throw new InvalidDataAccessApiUsageException("Unable to retrieve expected identifier property !");
-
-        Object id = MarklogicUtils.retrieveIdentifier(object, mappingContext);
+        Object id = accessor.getProperty(idProperty);
 
         if (id == null) {
             throw new NullPointerException("Id is not expected to be null");
@@ -773,23 +1381,23 @@ public class MarklogicTemplate implements MarklogicOperations, ApplicationEventP
         };
     }
 
-    private <T> void doPostInsert(String uri, T objectToSave) {
-        MarklogicPersistentEntity persistentEntity = MarklogicUtils.retrievePersistentEntity(objectToSave.getClass(), mappingContext);
-        if (persistentEntity.idInPropertyFragment()) {
-            MarklogicIdentifier identifier = resolveMarklogicIdentifier(objectToSave);
-            invokeAdhocQuery(
-                    "declare variable $uri as xs:string external;\n" +
-                            "declare variable $identifier as xs:string external;\n" +
-                            "xdmp:document-set-property($uri, xdmp:unquote($identifier)/*)"
-                    , new MarklogicInvokeOperationOptions() {
-                        @Override
-                        public Map<Object, Object> params() {
-                            Map<Object, Object> params = new HashMap<>();
-                            params.put("uri", uri);
-                            params.put("identifier", buildIdentifier(identifier));
-                            return params;
-                        }
-                    });
+    private void doPostInsert(String uri, EntityOperationPlan plan, PersistentPropertyAccessor<Object> accessor) {
+        if (plan.idInPropertyFragment()) {
+            MarklogicIdentifier identifier = resolveMarklogicIdentifier(plan, accessor);
+            invokeAdhocQuery(SET_IDENTIFIER_PROPERTY_QUERY, new MarklogicInvokeOperationOptions() {
+                @Override
+                public Map<Object, Object> params() {
+                    Map<Object, Object> params = new HashMap<>();
+                    params.put("uri", uri);
+                    params.put("identifier", buildIdentifier(identifier));
+                    return params;
+                }
+
+                @Override
+                public boolean staticQuery() {
+                    return true;
+                }
+            });
         }
     }
 
@@ -801,7 +1409,84 @@ public class MarklogicTemplate implements MarklogicOperations, ApplicationEventP
         }
     }
 
+    private EntityOperationPlan getOperationPlan(Class<?> entityClass) {
+        return operationPlans.computeIfAbsent(entityClass, type ->
+                new EntityOperationPlan(MarklogicUtils.retrievePersistentEntity(type, mappingContext), marklogicConverter.getConversionService()));
+    }
+
     void setMarklogicCollectionUtils(MarklogicCollectionUtils marklogicCollectionUtils) {
         this.marklogicCollectionUtils = marklogicCollectionUtils;
     }
+
+    /**
+     * A document timestamp, along with the document read if it had to be.
+     */
+    private static class TimestampedDocument<T> {
+
+        private final String timestamp;
+        private @Nullable String uri;
+        private @Nullable String content;
+        private @Nullable T entity;
+
+        TimestampedDocument(String timestamp) {
+            this.timestamp = timestamp;
+        }
+    }
+
+    /**
+     * Iterator converting items of a non cached ResultSequence as they are read, releasing the Session once done.
+     */
+    private class ResultSequenceIterator<T> implements CloseableIterator<T> {
+
+        private final ResultSequence resultSequence;
+        private final Session session;
+        private final Class<T> returnType;
+        private final MarklogicInvokeOperationOptions options;
+
+        private boolean closed;
+
+        ResultSequenceIterator(ResultSequence resultSequence, Session session, Class<T> returnType, MarklogicInvokeOperationOptions options) {
+            this.resultSequence = resultSequence;
+            this.session = session;
+            this.returnType = returnType;
+            this.options = options;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (closed) {
+                return false;
+            }
+
+            boolean hasNext = resultSequence.hasNext();
+            if (!hasNext) {
+                close();
+            }
+            return hasNext;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return prepareResultItem(resultSequence.next(), returnType, options, marklogicConverter);
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+
+            closed = true;
+            try {
+                if (!resultSequence.isClosed()) {
+                    resultSequence.close();
+                }
+            } finally {
+                ContentSourceUtils.releaseSession(session, contentSource);
+            }
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com._4dconcept.springframework.data.marklogic.core;
+
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.lang.Nullable;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Time budget of a {@link MarklogicTemplate} operation, bound to the current thread.
+ *
+ * <p>Every request issued while the deadline is bound shares the same budget, so that an operation
+ * performing several round trips (uri lookup, insert and property fragment update for a save) can't
+ * exceed the timeout it was given. Nested operations never extend the budget of the enclosing one.
+ *
+ * @author Stéphane Toussaint
+ */
+final class OperationDeadline {
+
+    private static final ThreadLocal<OperationDeadline> CURRENT = new ThreadLocal<>();
+
+    private final long deadlineNanos;
+
+    private OperationDeadline(long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    /**
+     * Perform the given task within the given time budget.
+     *
+     * @param timeoutMillis the time budget, 0 or less for no other limit than the enclosing operation one
+     * @param task the task to perform
+     * @param <T> the task result type
+     * @return the task result
+     */
+    static <T> T within(long timeoutMillis, Supplier<T> task) {
+        if (timeoutMillis <= 0) {
+            return task.get();
+        }
+
+        OperationDeadline previous = CURRENT.get();
+        long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        if (previous != null && previous.deadlineNanos - deadlineNanos < 0) {
+            return task.get();
+        }
+
+        CURRENT.set(new OperationDeadline(deadlineNanos));
+        try {
+            return task.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    /**
+     * @return the deadline bound to the current thread, null if the current operation is not time bound
+     */
+    @Nullable
+    static OperationDeadline current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Perform the given task within a deadline captured on another thread, so that work handed over to an
+     * executor keeps the budget of the operation that submitted it.
+     *
+     * @param deadline the captured deadline, null for no time limit
+     * @param task the task to perform
+     * @param <T> the task result type
+     * @return the task result
+     */
+    static <T> T bind(@Nullable OperationDeadline deadline, Supplier<T> task) {
+        if (deadline == null) {
+            return task.get();
+        }
+
+        OperationDeadline previous = CURRENT.get();
+        CURRENT.set(deadline);
+        try {
+            return task.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    /**
+     * Perform the given task within the given time budget.
+     *
+     * @param timeoutMillis the time budget, 0 or less for no other limit than the enclosing operation one
+     * @param task the task to perform
+     */
+    static void within(long timeoutMillis, Runnable task) {
+        within(timeoutMillis, () -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * Check that the current operation may go on with a new request.
+     *
+     * @return the remaining time budget in milliseconds, or 0 if the current operation is not time bound
+     * @throws QueryTimeoutException if the time budget is exhausted
+     * @throws DataAccessResourceFailureException if the current thread has been interrupted
+     */
+    static long remainingMillis() {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new DataAccessResourceFailureException("Operation cancelled : thread has been interrupted");
+        }
+
+        OperationDeadline current = CURRENT.get();
+        if (current == null) {
+            return 0;
+        }
+
+        long remainingNanos = current.deadlineNanos - System.nanoTime();
+        if (remainingNanos <= 0) {
+            throw new QueryTimeoutException("Operation deadline exceeded");
+        }
+        return Math.max(1, TimeUnit.NANOSECONDS.toMillis(remainingNanos));
+    }
+}
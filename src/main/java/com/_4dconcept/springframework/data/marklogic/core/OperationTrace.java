@@ -0,0 +1,157 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com._4dconcept.springframework.data.marklogic.core;
+
+import com.marklogic.xcc.AdhocQuery;
+import com.marklogic.xcc.ModuleInvoke;
+import com.marklogic.xcc.Request;
+import com.marklogic.xcc.types.XdmVariable;
+import org.springframework.lang.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Phases of one {@link MarklogicTemplate} operation traced by a {@link SlowOperationLog}.
+ *
+ * @author Stéphane Toussaint
+ */
+final class OperationTrace {
+
+    private static final ThreadLocal<OperationTrace> CURRENT = new ThreadLocal<>();
+
+    private final String operation;
+    private final @Nullable Class<?> entityClass;
+    private final boolean logVariables;
+    private final long start = System.nanoTime();
+
+    private final List<String> requests = new ArrayList<>();
+    private long sessionNanos;
+    private long submitNanos;
+    private long firstByteNanos;
+    private long conversionNanos;
+    private boolean awaitingServerElapsedTime;
+    private @Nullable String serverElapsedTime;
+
+    OperationTrace(String operation, @Nullable Class<?> entityClass, boolean logVariables) {
+        this.operation = operation;
+        this.entityClass = entityClass;
+        this.logVariables = logVariables;
+    }
+
+    /**
+     * @return the trace of the operation performed on the current thread, null if not traced
+     */
+    @Nullable
+    static OperationTrace current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Perform the given task, phases being recorded in the given trace.
+     */
+    static <T> T record(OperationTrace trace, Supplier<T> task) {
+        CURRENT.set(trace);
+        try {
+            return task.get();
+        } finally {
+            CURRENT.remove();
+        }
+    }
+
+    String getOperation() {
+        return operation;
+    }
+
+    long getElapsedNanos() {
+        return System.nanoTime() - start;
+    }
+
+    void addSession(long nanos) {
+        sessionNanos += nanos;
+    }
+
+    void addSubmit(Request request, long nanos) {
+        submitNanos += nanos;
+        requests.add(describe(request));
+    }
+
+    void addFirstByte(long nanos) {
+        firstByteNanos += nanos;
+    }
+
+    void addConversion(long nanos) {
+        conversionNanos += nanos;
+    }
+
+    /**
+     * Mark the next result list as ending with the server elapsed time.
+     */
+    void awaitServerElapsedTime() {
+        awaitingServerElapsedTime = true;
+    }
+
+    boolean isAwaitingServerElapsedTime() {
+        return awaitingServerElapsedTime;
+    }
+
+    void setServerElapsedTime(String serverElapsedTime) {
+        this.awaitingServerElapsedTime = false;
+        this.serverElapsedTime = serverElapsedTime;
+    }
+
+    String describe() {
+        StringBuilder description = new StringBuilder();
+        if (entityClass != null) {
+            description.append("on ").append(entityClass.getName()).append(' ');
+        }
+        description.append("[session ").append(toMillis(sessionNanos))
+                .append(" ms, submit ").append(toMillis(submitNanos))
+                .append(" ms, first byte ").append(toMillis(firstByteNanos))
+                .append(" ms, conversion ").append(toMillis(conversionNanos))
+                .append(" ms, server ").append(serverElapsedTime == null ? "n/a" : serverElapsedTime)
+                .append(']');
+        for (String request : requests) {
+            description.append('\n').append(request);
+        }
+        return description.toString();
+    }
+
+    private String describe(Request request) {
+        StringBuilder description = new StringBuilder();
+        if (request instanceof AdhocQuery) {
+            description.append(((AdhocQuery) request).getQuery());
+        } else if (request instanceof ModuleInvoke) {
+            description.append("module ").append(((ModuleInvoke) request).getModuleUri());
+        }
+
+        XdmVariable[] variables = request.getVariables();
+        if (variables != null && variables.length > 0) {
+            description.append("\nwith variables");
+            for (XdmVariable variable : variables) {
+                description.append(' ').append(variable.getName()).append('=')
+                        .append(logVariables ? variable.getValue().asString() : "?");
+            }
+        }
+        return description.toString();
+    }
+
+    private static long toMillis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com._4dconcept.springframework.data.marklogic.core;
+
+import com._4dconcept.springframework.data.marklogic.core.query.Query;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlElementWrapper;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Report of how the server resolves a {@link Query}, as returned by {@link MarklogicOperations#explain(Query)}.
+ *
+ * @author Stéphane Toussaint
+ */
+@XmlRootElement(name = "queryPlanReport")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class QueryPlanReport {
+
+    private String query;
+
+    private long unfilteredEstimate;
+
+    private long filteredCount;
+
+    @XmlElementWrapper(name = "indexResolution")
+    @XmlElement(name = "step")
+    private List<String> indexResolution = new ArrayList<>();
+
+    private String plan;
+
+    /**
+     * @return the explained search expression
+     */
+    public String getQuery() {
+        return query;
+    }
+
+    /**
+     * @return the number of candidate fragments resolved from the indexes alone
+     */
+    public long getUnfilteredEstimate() {
+        return unfilteredEstimate;
+    }
+
+    /**
+     * @return the number of documents actually matching once candidates are filtered
+     */
+    public long getFilteredCount() {
+        return filteredCount;
+    }
+
+    /**
+     * @return the index resolution steps traced by {@code xdmp:plan}
+     */
+    public List<String> getIndexResolution() {
+        return indexResolution;
+    }
+
+    /**
+     * @return the serialized {@code xdmp:plan} output
+     */
+    public String getPlan() {
+        return plan;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s : %d unfiltered candidates, %d filtered results%n%s", query, unfilteredEstimate, filteredCount,
+                String.join(System.lineSeparator(), indexResolution));
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com._4dconcept.springframework.data.marklogic.core;
+
+import com._4dconcept.springframework.data.marklogic.core.query.Query;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlElementWrapper;
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.datatype.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Server side profile of a {@link Query} evaluation, as returned by {@link MarklogicOperations#profile(Query)}.
+ *
+ * @author Stéphane Toussaint
+ */
+@XmlRootElement(name = "queryProfileReport")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class QueryProfileReport {
+
+    private String query;
+
+    private Duration elapsedTime;
+
+    private long resultCount;
+
+    @XmlElementWrapper(name = "expressions")
+    @XmlElement(name = "expression")
+    private List<ExpressionTiming> expressions = new ArrayList<>();
+
+    /**
+     * @return the profiled search expression
+     */
+    public String getQuery() {
+        return query;
+    }
+
+    /**
+     * @return the overall evaluation time
+     */
+    public Duration getElapsedTime() {
+        return elapsedTime;
+    }
+
+    /**
+     * @return the number of items returned by the evaluation
+     */
+    public long getResultCount() {
+        return resultCount;
+    }
+
+    /**
+     * @return the timings of the evaluated expressions, the most expensive first
+     */
+    public List<ExpressionTiming> getExpressions() {
+        return expressions;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(String.format("%s : %d results in %s", query, resultCount, elapsedTime));
+        for (ExpressionTiming expression : expressions) {
+            builder.append(System.lineSeparator()).append(expression);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Timing of one expression of the profiled evaluation.
+     */
+    @XmlAccessorType(XmlAccessType.FIELD)
+    public static class ExpressionTiming {
+
+        private String source;
+
+        private String location;
+
+        private long count;
+
+        private Duration shallowTime;
+
+        private Duration deepTime;
+
+        /**
+         * @return the expression source
+         */
+        public String getSource() {
+            return source;
+        }
+
+        /**
+         * @return the expression location, as line:column
+         */
+        public String getLocation() {
+            return location;
+        }
+
+        /**
+         * @return the number of times the expression was evaluated
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * @return the time spent in the expression itself
+         */
+        public Duration getShallowTime() {
+            return shallowTime;
+        }
+
+        /**
+         * @return the time spent in the expression and the expressions it called
+         */
+        public Duration getDeepTime() {
+            return deepTime;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s %s x%d shallow %s deep %s", location, source, count, shallowTime, deepTime);
+        }
+    }
+}
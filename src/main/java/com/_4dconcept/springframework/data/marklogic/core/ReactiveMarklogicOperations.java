@@ -0,0 +1,212 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com._4dconcept.springframework.data.marklogic.core;
+
+import com._4dconcept.springframework.data.marklogic.core.query.Query;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Reactive counterpart of {@link MarklogicOperations}. Implemented by {@link ReactiveMarklogicTemplate}.
+ *
+ * <p>Nothing happens until subscription. Results are pulled from the server as they are requested, so that a slow
+ * subscriber does not cause the whole result sequence to be buffered. As operations run on another thread, they never
+ * take part in a transaction of the calling thread.
+ *
+ * @author Stéphane Toussaint
+ * @see MarklogicOperations
+ */
+public interface ReactiveMarklogicOperations {
+
+    /**
+     * Insert the given object.
+     * @param objectToSave the object to store
+     * @return a mono completed once the object is stored
+     * @see MarklogicOperations#insert(Object)
+     */
+    Mono<Void> insert(Object objectToSave);
+
+    /**
+     * Insert the given object at the specified uri with specified creation options.
+     * @param objectToSave the object to store
+     * @param options content creation options
+     * @return a mono completed once the object is stored
+     * @see MarklogicOperations#insert(Object, MarklogicCreateOperationOptions)
+     */
+    Mono<Void> insert(Object objectToSave, MarklogicCreateOperationOptions options);
+
+    /**
+     * Insert the given objects. Objects are gathered in batches, each batch being stored by a single task.
+     * @param objectsToSave the objects to store
+     * @param <T> The entity type
+     * @return the stored objects, emitted as their batch is stored
+     * @see MarklogicOperations#insert(Object)
+     */
+    <T> Flux<T> insertAll(Publisher<T> objectsToSave);
+
+    /**
+     * Insert the given objects with specified creation options. Objects are gathered in batches, each batch being
+     * stored by a single task.
+     * @param objectsToSave the objects to store
+     * @param options content creation options
+     * @param <T> The entity type
+     * @return the stored objects, emitted as their batch is stored
+     * @see MarklogicOperations#insert(Object, MarklogicCreateOperationOptions)
+     */
+    <T> Flux<T> insertAll(Publisher<T> objectsToSave, MarklogicCreateOperationOptions options);
+
+    /**
+     * Save the given object.
+     * @param objectToSave the object to store
+     * @return a mono completed once the object is stored
+     * @see MarklogicOperations#save(Object)
+     */
+    Mono<Void> save(Object objectToSave);
+
+    /**
+     * Save the given object.
+     * @param objectToSave the object to store
+     * @param options content creation options
+     * @return a mono completed once the object is stored
+     * @see MarklogicOperations#save(Object, MarklogicCreateOperationOptions)
+     */
+    Mono<Void> save(Object objectToSave, MarklogicCreateOperationOptions options);
+
+    /**
+     * Save the given objects. Objects are gathered in batches, each batch being stored by a single task.
+     * @param objectsToSave the objects to store
+     * @param options content creation options
+     * @param <T> The entity type
+     * @return the stored objects, emitted as their batch is stored
+     * @see MarklogicOperations#save(Object, MarklogicCreateOperationOptions)
+     */
+    <T> Flux<T> saveAll(Publisher<T> objectsToSave, MarklogicCreateOperationOptions options);
+
+    /**
+     * Remove the given Entity
+     * @param entity the entity to remove
+     * @return a mono completed once the entity is removed
+     * @see MarklogicOperations#remove(Object)
+     */
+    Mono<Void> remove(Object entity);
+
+    /**
+     * Remove entity with corresponding identifier
+     * @param id the identifier
+     * @param entityClass the type of the document to remove
+     * @param options the explicit collection the document will be queried
+     * @param <T> The entity type
+     * @return a mono completed once the entity is removed
+     * @see MarklogicOperations#remove(Object, Class, MarklogicOperationOptions)
+     */
+    <T> Mono<Void> remove(Object id, Class<T> entityClass, MarklogicOperationOptions options);
+
+    /**
+     * Remove every entity of the given type
+     * @param entityClass the type of the documents to remove
+     * @param options the explicit collection the documents will be queried
+     * @param <T> The entity type
+     * @return a mono completed once the entities are removed
+     * @see MarklogicOperations#removeAll(Class, MarklogicOperationOptions)
+     */
+    <T> Mono<Void> removeAll(Class<T> entityClass, MarklogicOperationOptions options);
+
+    /**
+     * Returns the entity with the given id for the specified entity type.
+     * @param id the id of the document to retrieve
+     * @param entityClass the type of the document to retrieve
+     * @param <T> The entity type
+     * @return a mono of the found entity, empty if no entity found with the given id
+     * @see MarklogicOperations#findById(Object, Class)
+     */
+    <T> Mono<T> findById(Object id, Class<T> entityClass);
+
+    /**
+     * Returns the document with the given id for the specified entity type within explicit collection.
+     * @param id the id of the document to retrieve
+     * @param entityClass the type of the document to retrieve
+     * @param options the explicit collection the document will be queried
+     * @param <T> The entity type
+     * @return a mono of the found entity, empty if no entity found with the given id
+     * @see MarklogicOperations#findById(Object, Class, MarklogicOperationOptions)
+     */
+    <T> Mono<T> findById(Object id, Class<T> entityClass, MarklogicOperationOptions options);
+
+    /**
+     * Returns content matching the given query
+     * @param query the query that specifies criteria used to find contents
+     * @param entityClass the entity class the content will be converted to
+     * @param <T> The entity type
+     * @return a mono of the found entity, empty if no entity found
+     * @see MarklogicOperations#findOne(Query, Class)
+     */
+    <T> Mono<T> findOne(Query query, Class<T> entityClass);
+
+    /**
+     * Returns content matching the given query, read from the server as the subscriber requests it.
+     * The underlying Session is held until the flux completes, fails or is cancelled.
+     * @param query the query that specifies criteria used to find contents
+     * @param entityClass the entity class the content will be converted to
+     * @param <T> The entity type
+     * @return a flux of the found entities
+     * @see MarklogicOperations#stream(Query, Class)
+     */
+    <T> Flux<T> find(Query query, Class<T> entityClass);
+
+    /**
+     * Returns every contents of the given type, read from the server as the subscriber requests it.
+     * @param entityClass the entity class of the entity to find
+     * @param options search options
+     * @param <T> The entity type
+     * @return a flux of the found entities
+     * @see MarklogicOperations#findAll(Class, MarklogicOperationOptions)
+     */
+    <T> Flux<T> findAll(Class<T> entityClass, MarklogicOperationOptions options);
+
+    /**
+     * Returns the number of documents for the given {@link Query}.
+     * @param query the query
+     * @return a mono of the number of content matching the query
+     * @see MarklogicOperations#count(Query)
+     */
+    Mono<Long> count(Query query);
+
+    /**
+     * Run the given blocking callback against the underlying {@link MarklogicOperations}.
+     * @param action the callback to run
+     * @param <T> The result type
+     * @return a mono of the callback result, empty if the callback returns null
+     */
+    <T> Mono<T> execute(Function<MarklogicOperations, T> action);
+
+    /**
+     * Run the given blocking callback against the underlying {@link MarklogicOperations}, emitting the elements of the
+     * returned stream as they are requested. The stream is closed once the flux completes, fails or is cancelled.
+     * @param action the callback to run
+     * @param <T> The element type
+     * @return a flux of the stream elements
+     */
+    <T> Flux<T> executeStream(Function<MarklogicOperations, Stream<T>> action);
+
+    /**
+     * @return the blocking operations this instance delegates to
+     */
+    MarklogicOperations getMarklogicOperations();
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com._4dconcept.springframework.data.marklogic.core;
+
+import com._4dconcept.springframework.data.marklogic.core.query.Query;
+import com._4dconcept.springframework.data.marklogic.core.query.QueryBuilder;
+import org.reactivestreams.Publisher;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.util.Assert;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Primary implementation of {@link ReactiveMarklogicOperations}, running {@link MarklogicOperations} calls on a
+ * {@link Scheduler}.
+ *
+ * <p>Unless a scheduler is given, {@link Schedulers#boundedElastic()} is used. Query results are emitted from the
+ * {@link CloseableIterator} returned by {@link MarklogicOperations#stream(Query, Class)} : each request of the subscriber
+ * pulls the matching number of items from the result sequence. Multiple objects are stored in batches of
+ * {@link #DEFAULT_BATCH_SIZE} objects, one batch after the other.
+ *
+ * @author Stéphane Toussaint
+ */
+public class ReactiveMarklogicTemplate implements ReactiveMarklogicOperations {
+
+    public static final int DEFAULT_BATCH_SIZE = 100;
+
+    private final MarklogicOperations marklogicOperations;
+
+    private final Scheduler scheduler;
+
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
+    public ReactiveMarklogicTemplate(MarklogicOperations marklogicOperations) {
+        this(marklogicOperations, Schedulers.boundedElastic());
+    }
+
+    public ReactiveMarklogicTemplate(MarklogicOperations marklogicOperations, Scheduler scheduler) {
+        Assert.notNull(marklogicOperations, "MarklogicOperations must not be null");
+        Assert.notNull(scheduler, "Scheduler must not be null");
+        this.marklogicOperations = marklogicOperations;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Set the number of objects stored by a single task of {@link #insertAll(Publisher)} and
+     * {@link #saveAll(Publisher, MarklogicCreateOperationOptions)}. Defaults to {@link #DEFAULT_BATCH_SIZE}.
+     * @param batchSize the batch size
+     */
+    public void setBatchSize(int batchSize) {
+        Assert.isTrue(batchSize > 0, "'batchSize' must be greater than 0");
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public Mono<Void> insert(Object objectToSave) {
+        return run(() -> marklogicOperations.insert(objectToSave));
+    }
+
+    @Override
+    public Mono<Void> insert(Object objectToSave, MarklogicCreateOperationOptions options) {
+        return run(() -> marklogicOperations.insert(objectToSave, options));
+    }
+
+    @Override
+    public <T> Flux<T> insertAll(Publisher<T> objectsToSave) {
+        return inBatches(objectsToSave, marklogicOperations::insert);
+    }
+
+    @Override
+    public <T> Flux<T> insertAll(Publisher<T> objectsToSave, MarklogicCreateOperationOptions options) {
+        return inBatches(objectsToSave, objectToSave -> marklogicOperations.insert(objectToSave, options));
+    }
+
+    @Override
+    public Mono<Void> save(Object objectToSave) {
+        return run(() -> marklogicOperations.save(objectToSave));
+    }
+
+    @Override
+    public Mono<Void> save(Object objectToSave, MarklogicCreateOperationOptions options) {
+        return run(() -> marklogicOperations.save(objectToSave, options));
+    }
+
+    @Override
+    public <T> Flux<T> saveAll(Publisher<T> objectsToSave, MarklogicCreateOperationOptions options) {
+        return inBatches(objectsToSave, objectToSave -> marklogicOperations.save(objectToSave, options));
+    }
+
+    @Override
+    public Mono<Void> remove(Object entity) {
+        return run(() -> marklogicOperations.remove(entity));
+    }
+
+    @Override
+    public <T> Mono<Void> remove(Object id, Class<T> entityClass, MarklogicOperationOptions options) {
+        return run(() -> marklogicOperations.remove(id, entityClass, options));
+    }
+
+    @Override
+    public <T> Mono<Void> removeAll(Class<T> entityClass, MarklogicOperationOptions options) {
+        return run(() -> marklogicOperations.removeAll(entityClass, options));
+    }
+
+    @Override
+    public <T> Mono<T> findById(Object id, Class<T> entityClass) {
+        return execute(operations -> operations.findById(id, entityClass));
+    }
+
+    @Override
+    public <T> Mono<T> findById(Object id, Class<T> entityClass, MarklogicOperationOptions options) {
+        return execute(operations -> operations.findById(id, entityClass, options));
+    }
+
+    @Override
+    public <T> Mono<T> findOne(Query query, Class<T> entityClass) {
+        return execute(operations -> operations.findOne(query, entityClass));
+    }
+
+    @Override
+    public <T> Flux<T> find(Query query, Class<T> entityClass) {
+        return Flux.using(() -> marklogicOperations.stream(query, entityClass),
+                iterator -> Flux.fromIterable(() -> iterator),
+                CloseableIterator::close)
+                .subscribeOn(scheduler);
+    }
+
+    @Override
+    public <T> Flux<T> findAll(Class<T> entityClass, MarklogicOperationOptions options) {
+        return Flux.defer(() -> find(new QueryBuilder(marklogicOperations).ofType(entityClass).options(options).build(), entityClass));
+    }
+
+    @Override
+    public Mono<Long> count(Query query) {
+        return execute(operations -> operations.count(query));
+    }
+
+    @Override
+    public <T> Mono<T> execute(Function<MarklogicOperations, T> action) {
+        return Mono.fromCallable(() -> action.apply(marklogicOperations)).subscribeOn(scheduler);
+    }
+
+    @Override
+    public <T> Flux<T> executeStream(Function<MarklogicOperations, Stream<T>> action) {
+        return Flux.using(() -> action.apply(marklogicOperations), Flux::fromStream, Stream::close).subscribeOn(scheduler);
+    }
+
+    @Override
+    public MarklogicOperations getMarklogicOperations() {
+        return marklogicOperations;
+    }
+
+    private Mono<Void> run(Runnable task) {
+        return Mono.<Void>fromRunnable(task).subscribeOn(scheduler);
+    }
+
+    private <T> Flux<T> inBatches(Publisher<T> objectsToSave, Consumer<T> store) {
+        return Flux.from(objectsToSave)
+                .buffer(batchSize)
+                .concatMap(batch -> storeBatch(batch, store));
+    }
+
+    private <T> Flux<T> storeBatch(List<T> batch, Consumer<T> store) {
+        return Mono.fromCallable(() -> {
+            batch.forEach(store);
+            return batch;
+        }).subscribeOn(scheduler).flatMapIterable(Function.identity());
+    }
+}
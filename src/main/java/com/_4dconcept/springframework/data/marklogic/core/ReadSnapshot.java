@@ -0,0 +1,59 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com._4dconcept.springframework.data.marklogic.core;
+
+import org.springframework.lang.Nullable;
+
+import java.math.BigInteger;
+import java.util.function.Supplier;
+
+/**
+ * Point in time every read issued by {@link MarklogicTemplate} on the current thread is performed at.
+ *
+ * @author Stéphane Toussaint
+ * @see MarklogicOperations#executeInSnapshot(Supplier)
+ */
+final class ReadSnapshot {
+
+    private static final ThreadLocal<BigInteger> CURRENT = new ThreadLocal<>();
+
+    private ReadSnapshot() {}
+
+    /**
+     * @return the point in time of the current snapshot, null outside of any snapshot
+     */
+    @Nullable
+    static BigInteger current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Perform the given task at the given point in time.
+     *
+     * @param pointInTime the point in time, as returned by {@code xdmp:request-timestamp()}
+     * @param task the task to perform
+     * @param <T> the task result type
+     * @return the task result
+     */
+    static <T> T at(BigInteger pointInTime, Supplier<T> task) {
+        CURRENT.set(pointInTime);
+        try {
+            return task.get();
+        } finally {
+            CURRENT.remove();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com._4dconcept.springframework.data.marklogic.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Log of the {@link MarklogicTemplate} operations exceeding a given duration.
+ *
+ * <p>A sample of the operations is traced : the submitted queries with their bound variables, and the time spent
+ * obtaining a Session, submitting requests, waiting for the first result and converting results. Searches also
+ * return the server {@code xdmp:elapsed-time()} alongside their results. Traced operations lasting at least
+ * {@link #setThresholdMillis thresholdMillis} are logged at WARN level.
+ *
+ * @author Stéphane Toussaint
+ */
+public class SlowOperationLog {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SlowOperationLog.class);
+
+    private long thresholdMillis = 1000;
+
+    private double sampleRate = 1;
+
+    private boolean logVariables = true;
+
+    /**
+     * @param thresholdMillis the duration from which a traced operation is logged. Default is 1000 ms.
+     */
+    public void setThresholdMillis(long thresholdMillis) {
+        Assert.isTrue(thresholdMillis >= 0, "'thresholdMillis' must not be negative");
+        this.thresholdMillis = thresholdMillis;
+    }
+
+    /**
+     * @param sampleRate the ratio of operations to trace, between 0 and 1. Default is 1 : every operation is traced.
+     */
+    public void setSampleRate(double sampleRate) {
+        Assert.isTrue(sampleRate >= 0 && sampleRate <= 1, "'sampleRate' must be between 0 and 1");
+        this.sampleRate = sampleRate;
+    }
+
+    /**
+     * @param logVariables whether bound variable values are logged. Default is true.
+     */
+    public void setLogVariables(boolean logVariables) {
+        this.logVariables = logVariables;
+    }
+
+    /**
+     * @return a trace of the given operation, null when the operation is not sampled or slow operations are not logged
+     */
+    @Nullable
+    OperationTrace startTrace(String operation, @Nullable Class<?> entityClass) {
+        if (!LOGGER.isWarnEnabled() || sampleRate == 0 || (sampleRate < 1 && ThreadLocalRandom.current().nextDouble() >= sampleRate)) {
+            return null;
+        }
+        return new OperationTrace(operation, entityClass, logVariables);
+    }
+
+    void complete(OperationTrace trace, @Nullable Throwable failure) {
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(trace.getElapsedNanos());
+        if (elapsedMillis >= thresholdMillis) {
+            LOGGER.warn("Slow {} operation{} ({} ms) {}", trace.getOperation(), failure == null ? "" : " failed", elapsedMillis, trace.describe());
+        }
+    }
+}
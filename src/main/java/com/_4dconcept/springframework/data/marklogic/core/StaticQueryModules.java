@@ -0,0 +1,106 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com._4dconcept.springframework.data.marklogic.core;
+
+import com.marklogic.xcc.AdhocQuery;
+import com.marklogic.xcc.Session;
+import com.marklogic.xcc.exceptions.QueryException;
+import com.marklogic.xcc.exceptions.RequestException;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Registry of the static ad hoc queries installed as main modules into the modules database.
+ *
+ * <p>Each query is installed once under a uri derived from the hash of its text. A query whose installation failed,
+ * for instance because modules are read from the file system, is never installed again. A module found missing is
+ * installed again on next use.
+ *
+ * @author Stéphane Toussaint
+ */
+final class StaticQueryModules {
+
+    static final String DEFAULT_MODULE_ROOT = "/spring-data-marklogic/queries/";
+
+    private static final String MODULE_NOT_FOUND_CODE = "XDMP-MODNOTFOUND";
+
+    private static final String INSTALL_QUERY = "declare variable $uri as xs:string external;\n" +
+            "declare variable $module as xs:string external;\n" +
+            "xdmp:eval('declare variable $uri as xs:string external; declare variable $module as xs:string external; " +
+            "xdmp:document-insert($uri, text {$module})', " +
+            "(xs:QName('uri'), $uri, xs:QName('module'), $module), " +
+            "<options xmlns=\"xdmp:eval\"><database>{xdmp:modules-database()}</database></options>)";
+
+    private final String moduleRoot;
+
+    private final ConcurrentMap<String, String> moduleUris = new ConcurrentHashMap<>();
+
+    /**
+     * Installation state per module uri : absent when unknown or missing, false while installing or once failed.
+     */
+    private final ConcurrentMap<String, Boolean> installedModules = new ConcurrentHashMap<>();
+
+    StaticQueryModules(String moduleRoot) {
+        this.moduleRoot = moduleRoot.endsWith("/") ? moduleRoot : moduleRoot + "/";
+    }
+
+    String getModuleUri(String query) {
+        return moduleUris.computeIfAbsent(query, q -> moduleRoot + DigestUtils.md5DigestAsHex(q.getBytes(StandardCharsets.UTF_8)) + ".xqy");
+    }
+
+    boolean isInstalled(String moduleUri) {
+        return Boolean.TRUE.equals(installedModules.get(moduleUri));
+    }
+
+    /**
+     * @return whether the caller is in charge of installing the given module
+     */
+    boolean claimInstallation(String moduleUri) {
+        return installedModules.putIfAbsent(moduleUri, Boolean.FALSE) == null;
+    }
+
+    /**
+     * Give up the installation of the given module, so that it is claimed again on next use.
+     */
+    void release(String moduleUri) {
+        installedModules.remove(moduleUri, Boolean.FALSE);
+    }
+
+    void installed(String moduleUri) {
+        installedModules.put(moduleUri, Boolean.TRUE);
+    }
+
+    /**
+     * Forget the given module, found missing, so that it is installed again on next use.
+     */
+    void missing(String moduleUri) {
+        installedModules.remove(moduleUri, Boolean.TRUE);
+    }
+
+    static boolean isModuleNotFound(RequestException re) {
+        return re instanceof QueryException && MODULE_NOT_FOUND_CODE.equals(((QueryException) re).getCode());
+    }
+
+    static AdhocQuery buildInstallRequest(Session session, String moduleUri, String query) {
+        AdhocQuery request = session.newAdhocQuery(INSTALL_QUERY);
+        request.setNewStringVariable("uri", moduleUri);
+        request.setNewStringVariable("module", query);
+        return request;
+    }
+}
@@ -15,6 +15,7 @@
  */
 package com._4dconcept.springframework.data.marklogic.core.convert;
 
+import com._4dconcept.springframework.data.marklogic.MarklogicMetricsRecorder;
 import com._4dconcept.springframework.data.marklogic.MarklogicTypeUtils;
 import com._4dconcept.springframework.data.marklogic.core.mapping.MarklogicMappingContext;
 import com.marklogic.xcc.ResultItem;
@@ -25,6 +26,7 @@ import org.springframework.core.convert.TypeDescriptor;
 import org.springframework.core.convert.support.GenericConversionService;
 import org.springframework.data.mapping.context.MappingContext;
 import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
 
 /**
  * {@link MarklogicConverter} that uses a {@link MappingContext} to compute extra
@@ -36,6 +38,8 @@ public class MappingMarklogicConverter extends AbstractMarklogicConverter  {
 
     protected final MarklogicMappingContext mappingContext;
 
+    private MarklogicMetricsRecorder metricsRecorder = MarklogicMetricsRecorder.NONE;
+
     public MappingMarklogicConverter(MarklogicMappingContext mappingContext) {
         this(mappingContext, null);
     }
@@ -45,8 +49,44 @@ public class MappingMarklogicConverter extends AbstractMarklogicConverter  {
         this.mappingContext = mappingContext;
     }
 
+    /**
+     * @param metricsRecorder the recorder notified of conversion durations
+     */
+    public void setMetricsRecorder(MarklogicMetricsRecorder metricsRecorder) {
+        Assert.notNull(metricsRecorder, "MetricsRecorder must not be null");
+        this.metricsRecorder = metricsRecorder;
+    }
+
     @Override
     public <R> R read(Class<R> returnType, MarklogicContentHolder holder) {
+        if (!metricsRecorder.isEnabled()) {
+            return doRead(returnType, holder);
+        }
+
+        long start = System.nanoTime();
+        try {
+            return doRead(returnType, holder);
+        } finally {
+            metricsRecorder.recordRead(returnType, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void write(Object source, MarklogicContentHolder holder) {
+        if (!metricsRecorder.isEnabled()) {
+            doWrite(source, holder);
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            doWrite(source, holder);
+        } finally {
+            metricsRecorder.recordWrite(source.getClass(), System.nanoTime() - start);
+        }
+    }
+
+    private <R> R doRead(Class<R> returnType, MarklogicContentHolder holder) {
         ResultItem resultItem = (ResultItem) holder.getContent();
         if (String.class.equals(returnType)) {
             return returnType.cast(resultItem.asString());
@@ -76,8 +116,7 @@ public class MappingMarklogicConverter extends AbstractMarklogicConverter  {
         }
     }
 
-    @Override
-    public void write(Object source, MarklogicContentHolder holder) {
+    private void doWrite(Object source, MarklogicContentHolder holder) {
         TypeDescriptor sourceDescriptor = TypeDescriptor.forObject(source);
         TypeDescriptor targetDescriptor = TypeDescriptor.valueOf(String.class);
 
@@ -15,9 +15,18 @@
  */
 package com._4dconcept.springframework.data.marklogic.core.cts;
 
+import com._4dconcept.springframework.data.marklogic.MarklogicQNameUtils;
 import com._4dconcept.springframework.data.marklogic.core.query.Criteria;
+import com._4dconcept.springframework.data.marklogic.core.query.GeospatialCriteria;
 import com._4dconcept.springframework.data.marklogic.core.query.Query;
 import com._4dconcept.springframework.data.marklogic.core.query.SortCriteria;
+import org.springframework.data.geo.Box;
+import org.springframework.data.geo.Circle;
+import org.springframework.data.geo.Distance;
+import org.springframework.data.geo.Metrics;
+import org.springframework.data.geo.Point;
+import org.springframework.data.geo.Polygon;
+import org.springframework.data.geo.Shape;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.CollectionUtils;
@@ -60,6 +69,17 @@ public class CTSQuerySerializer {
         return String.format("cts:search(%s, %s, %s)%s", collection, serializeCriteria(query.getCriteria()), buildOptions(), limitPredicate);
     }
 
+    /**
+     * Serialize a search of the given serialized cts query within the query collection, ordered by the query sort
+     * criteria. The query criteria and pagination are ignored.
+     *
+     * @param ctsQuery a serialized cts query
+     * @return the cts:search expression
+     */
+    public String asCtsSearch(String ctsQuery) {
+        return String.format("cts:search(%s, %s, %s)", retrieveTargetCollection(), ctsQuery, buildOptions());
+    }
+
     public String asCtsUris() {
         String collectionQuery = retrieveCollectionQuery();
 
@@ -87,19 +107,32 @@ public class CTSQuerySerializer {
         return String.format("cts:collection-query('%s')", query.getCollection());
     }
 
-    private String handleSimpleValue(Criteria criteria) {
+    private String handleSimpleValue(String ctsQuery, Criteria criteria) {
         QName qname = criteria.getQname();
         Object criteriaObject = criteria.getCriteriaObject();
 
         Assert.notNull(qname, "A criteria QName is expected");
         Assert.notNull(criteriaObject, "A criteria value is expected");
 
+        return String.format("%s(%s, '%s'%s)", ctsQuery, serializeQName(criteria), serializeValue(criteriaObject), buildCriteriaOptions(criteria));
+    }
+
+    private String handleWordValue(Criteria criteria) {
+        if (criteria.getQname() != null) {
+            return handleSimpleValue("cts:element-word-query", criteria);
+        }
+
+        Object criteriaObject = criteria.getCriteriaObject();
+        Assert.notNull(criteriaObject, "A criteria value is expected");
+
+        return String.format("cts:word-query('%s'%s)", serializeValue(criteriaObject), buildCriteriaOptions(criteria));
+    }
+
+    private Object serializeValue(Object criteriaObject) {
         if (criteriaObject instanceof String) {
-            String escapedValue = ((String) criteriaObject).replaceAll("'", "''").replaceAll("&","&amp;");
-            return String.format("cts:element-value-query(%s, '%s'%s)", serializeQName(qname), escapedValue, buildCriteriaOptions(criteria));
-        } else {
-            return String.format("cts:element-value-query(%s, '%s'%s)", serializeQName(qname), criteriaObject, buildCriteriaOptions(criteria));
+            return ((String) criteriaObject).replaceAll("'", "''").replaceAll("&","&amp;");
         }
+        return criteriaObject;
     }
 
     private String buildCriteriaOptions(Criteria criteria) {
@@ -113,7 +146,7 @@ public class CTSQuerySerializer {
     private String serializeCriteria(@Nullable Criteria criteria) {
         if (criteria != null) {
             if (criteria.getOperator() == null) {
-                return handleSimpleValue(criteria);
+                return handleSimpleValue("cts:element-value-query", criteria);
             } else if (criteria.getOperator() == Criteria.Operator.NOT) {
                 return String.format("cts:not-query(%s)", serializeCriteria((Criteria) criteria.getCriteriaObject()));
             } else if (criteria.getOperator() == Criteria.Operator.COLLECTION) {
@@ -122,10 +155,14 @@ public class CTSQuerySerializer {
                 return String.format("cts:properties-fragment-query(%s)", serializeCriteria((Criteria) criteria.getCriteriaObject()));
             } else if (criteria.getOperator() == Criteria.Operator.EXISTS) {
                 Criteria criteriaObject = Objects.requireNonNull((Criteria) criteria.getCriteriaObject());
-                return String.format("cts:element-query(%s, cts:true-query())", serializeQName(Objects.requireNonNull(criteriaObject.getQname())));
+                return String.format("cts:element-query(%s, cts:true-query())", serializeQName(criteriaObject));
+            } else if (criteria.getOperator() == Criteria.Operator.WORD) {
+                return handleWordValue(Objects.requireNonNull((Criteria) criteria.getCriteriaObject()));
+            } else if (criteria.getOperator() == Criteria.Operator.GEOSPATIAL) {
+                return serializeGeospatialCriteria((GeospatialCriteria) criteria);
             } else if (criteria.getOperator() == Criteria.Operator.EMPTY) {
                 Criteria criteriaObject = Objects.requireNonNull((Criteria) criteria.getCriteriaObject());
-                return String.format("cts:not-query(cts:element-query(%s, cts:true-query()))", serializeQName(Objects.requireNonNull(criteriaObject.getQname())));
+                return String.format("cts:not-query(cts:element-query(%s, cts:true-query()))", serializeQName(criteriaObject));
             } else {
                 List<Criteria> criteriaList = retrieveCriteriaList(criteria);
                 String ctsQueries = criteriaList.stream().map(this::serializeCriteria).collect(Collectors.joining(", "));
@@ -141,6 +178,49 @@ public class CTSQuerySerializer {
         return "()";
     }
 
+    private String serializeGeospatialCriteria(GeospatialCriteria criteria) {
+        String qname = serializeQName(criteria);
+        String region = serializeRegion(criteria.getRegion());
+
+        if (criteria.isPair()) {
+            return String.format("cts:element-pair-geospatial-query(%s, %s, %s, %s%s)", qname,
+                    serializeQName(Objects.requireNonNull(criteria.getLatitude())), serializeQName(Objects.requireNonNull(criteria.getLongitude())),
+                    region, buildCriteriaOptions(criteria));
+        }
+
+        return String.format("cts:element-geospatial-query(%s, %s%s)", qname, region, buildCriteriaOptions(criteria));
+    }
+
+    private String serializeRegion(Shape region) {
+        if (region instanceof Circle) {
+            Circle circle = (Circle) region;
+            return String.format("cts:circle(%s, %s)", toMiles(circle.getRadius()), serializePoint(circle.getCenter()));
+        } else if (region instanceof Box) {
+            Box box = (Box) region;
+            Point first = box.getFirst();
+            Point second = box.getSecond();
+            return String.format("cts:box(%s, %s, %s, %s)", Math.min(first.getY(), second.getY()), Math.min(first.getX(), second.getX()),
+                    Math.max(first.getY(), second.getY()), Math.max(first.getX(), second.getX()));
+        } else if (region instanceof Polygon) {
+            return String.format("cts:polygon((%s))", ((Polygon) region).getPoints().stream().map(this::serializePoint).collect(joining(", ")));
+        } else if (region instanceof Point) {
+            return serializePoint((Point) region);
+        }
+
+        throw new IllegalArgumentException(String.format("Unsupported geospatial region %s", region.getClass().getSimpleName()));
+    }
+
+    private String serializePoint(Point point) {
+        return String.format("cts:point(%s, %s)", point.getY(), point.getX());
+    }
+
+    /**
+     * Distances are given in miles, the default unit of geospatial queries. Neutral distances are taken as miles as is.
+     */
+    private double toMiles(Distance distance) {
+        return distance.getMetric() == Metrics.NEUTRAL ? distance.getValue() : distance.in(Metrics.MILES).getValue();
+    }
+
     private List<Criteria> retrieveCriteriaList(Criteria criteria) {
         Object criteriaObject = criteria.getCriteriaObject();
 
@@ -151,8 +231,13 @@ public class CTSQuerySerializer {
         throw new IllegalArgumentException(String.format("Unexpected criteria type %s", criteria.getClass()));
     }
 
+    private String serializeQName(Criteria criteria) {
+        String qnameFragment = criteria.getQnameFragment();
+        return qnameFragment != null ? qnameFragment : serializeQName(Objects.requireNonNull(criteria.getQname()));
+    }
+
     private String serializeQName(QName qname) {
-        return String.format("fn:QName('%s', '%s')", qname.getNamespaceURI(), qname.getLocalPart());
+        return MarklogicQNameUtils.toQNameFragment(qname);
     }
 
     private String serializeSortCriteriaList(List<SortCriteria> sortCriteriaList) {
@@ -160,7 +245,7 @@ public class CTSQuerySerializer {
     }
 
     private String asCtsOrder(SortCriteria sortCriteria) {
-        return String.format("cts:index-order(cts:element-reference(%s), ('%s'))", serializeQName(sortCriteria.getQname()), sortCriteria.isDescending() ? "descending" : "ascending");
+        return String.format("cts:index-order(cts:element-reference(%s), ('%s'))", sortCriteria.getQnameFragment() != null ? sortCriteria.getQnameFragment() : serializeQName(sortCriteria.getQname()), sortCriteria.isDescending() ? "descending" : "ascending");
     }
 
 }
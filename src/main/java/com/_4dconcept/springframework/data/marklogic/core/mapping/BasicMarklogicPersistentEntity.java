@@ -15,7 +15,9 @@
  */
 package com._4dconcept.springframework.data.marklogic.core.mapping;
 
+import com._4dconcept.springframework.data.marklogic.DocumentExpression;
 import com._4dconcept.springframework.data.marklogic.MarklogicUrlUtils;
+import com._4dconcept.springframework.data.marklogic.MarklogicUtils;
 import org.springframework.data.mapping.MappingException;
 import org.springframework.data.mapping.model.BasicPersistentEntity;
 import org.springframework.data.util.TypeInformation;
@@ -26,7 +28,7 @@ import java.util.Comparator;
 
 /**
  * Specialized value object to capture information of {@link MarklogicPersistentEntity}s.
- * It provide access to entity 'uri', 'defaultCollection'
+ * It provide access to entity 'uri', 'defaultCollection' and their compiled {@link DocumentExpression}s
  *
  * @author Stéphane Toussaint
  */
@@ -35,6 +37,11 @@ public class BasicMarklogicPersistentEntity<T> extends BasicPersistentEntity<T,
     private final String uri;
     private @Nullable final String defaultCollection;
     private final boolean idInPropertyFragment;
+    private final int cacheMaxSize;
+    private final long cacheMaxWeight;
+    private final boolean cacheCopyOnRead;
+    private final DocumentExpression uriExpression;
+    private @Nullable final DocumentExpression defaultCollectionExpression;
 
     BasicMarklogicPersistentEntity(TypeInformation<T> information) {
         this(information, null);
@@ -48,6 +55,7 @@ public class BasicMarklogicPersistentEntity<T> extends BasicPersistentEntity<T,
 
         Document document = this.findAnnotation(Document.class);
         Collection collection = this.findAnnotation(Collection.class);
+        Cached cached = this.findAnnotation(Cached.class);
 
         if (document != null) {
             this.uri = StringUtils.hasText(document.uri()) ? document.uri() : fallback;
@@ -62,6 +70,13 @@ public class BasicMarklogicPersistentEntity<T> extends BasicPersistentEntity<T,
         } else {
             this.defaultCollection = null;
         }
+
+        this.cacheMaxSize = cached == null ? 0 : Math.max(0, cached.maxSize());
+        this.cacheMaxWeight = cached == null ? 0 : Math.max(0, cached.maxWeight());
+        this.cacheCopyOnRead = cached == null || cached.copyOnRead();
+
+        this.uriExpression = MarklogicUtils.compileExpression(this.uri);
+        this.defaultCollectionExpression = this.defaultCollection == null ? null : MarklogicUtils.compileExpression(this.defaultCollection);
     }
 
     @Nullable
@@ -93,11 +108,43 @@ public class BasicMarklogicPersistentEntity<T> extends BasicPersistentEntity<T,
         return defaultCollection;
     }
 
+    /**
+     * @return the compiled form of the Class level defined uri
+     */
+    @Override
+    public DocumentExpression getUriExpression() {
+        return uriExpression;
+    }
+
+    /**
+     * @return the compiled form of the Class level defined defaultCollection
+     */
+    @Nullable
+    @Override
+    public DocumentExpression getDefaultCollectionExpression() {
+        return defaultCollectionExpression;
+    }
+
     @Override
     public boolean idInPropertyFragment() {
         return idInPropertyFragment;
     }
 
+    @Override
+    public int getCacheMaxSize() {
+        return cacheMaxSize;
+    }
+
+    @Override
+    public long getCacheMaxWeight() {
+        return cacheMaxWeight;
+    }
+
+    @Override
+    public boolean isCacheCopyOnRead() {
+        return cacheCopyOnRead;
+    }
+
     @Override
     protected MarklogicPersistentProperty returnPropertyIfBetterIdPropertyCandidateOrNull(MarklogicPersistentProperty property) {
         if (!property.isIdProperty()) {
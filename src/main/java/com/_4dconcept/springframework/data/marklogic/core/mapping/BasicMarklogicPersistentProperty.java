@@ -15,11 +15,13 @@
  */
 package com._4dconcept.springframework.data.marklogic.core.mapping;
 
+import com._4dconcept.springframework.data.marklogic.MarklogicQNameUtils;
 import com._4dconcept.springframework.data.marklogic.MarklogicTypeUtils;
 import org.springframework.data.mapping.Association;
 import org.springframework.data.mapping.model.AnnotationBasedPersistentProperty;
 import org.springframework.data.mapping.model.Property;
 import org.springframework.data.mapping.model.SimpleTypeHolder;
+import org.springframework.data.util.Lazy;
 import org.springframework.lang.Nullable;
 
 import javax.xml.bind.annotation.*;
@@ -45,6 +47,9 @@ public class BasicMarklogicPersistentProperty extends AnnotationBasedPersistentP
 
     private static final String XML_DEFAULT = "##default";
 
+    private final Lazy<QName> qName = Lazy.of(this::resolveQName);
+    private final Lazy<String> qNameFragment = Lazy.of(() -> MarklogicQNameUtils.toQNameFragment(getQName()));
+
     BasicMarklogicPersistentProperty(Property property, MarklogicPersistentEntity<?> owner, SimpleTypeHolder simpleTypeHolder) {
         super(property, owner, simpleTypeHolder);
     }
@@ -65,6 +70,15 @@ public class BasicMarklogicPersistentProperty extends AnnotationBasedPersistentP
 
     @Override
     public QName getQName() {
+        return qName.get();
+    }
+
+    @Override
+    public String getQNameFragment() {
+        return qNameFragment.get();
+    }
+
+    private QName resolveQName() {
         String namespaceUri = null;
         String localName = null;
 
@@ -101,7 +115,8 @@ public class BasicMarklogicPersistentProperty extends AnnotationBasedPersistentP
     private String resolvesNamespaceUriFromEnclosingType(Class<?> type) {
         Class<?> xmlType = MarklogicTypeUtils.resolveXmlType(type, this.getOwner().getType());
 
-        XmlSchema xmlSchema = xmlType.getPackage().getAnnotation(XmlSchema.class);
+        Package xmlPackage = xmlType.getPackage();
+        XmlSchema xmlSchema = xmlPackage == null ? null : xmlPackage.getAnnotation(XmlSchema.class);
         if (xmlSchema != null && xmlSchema.elementFormDefault().equals(XmlNsForm.QUALIFIED)) {
             XmlRootElement xmlRootElement = xmlType.getAnnotation(XmlRootElement.class);
             if (xmlRootElement != null && !xmlRootElement.namespace().equals(XML_DEFAULT)) {
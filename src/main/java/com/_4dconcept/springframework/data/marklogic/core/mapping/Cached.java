@@ -0,0 +1,53 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com._4dconcept.springframework.data.marklogic.core.mapping;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Annotation marker for entities whose lookups by identifier are served from a second level cache.
+ * Cached documents are revalidated against the document timestamp on every lookup and kept serialized : every lookup
+ * returns a new instance, so that changes made by a caller are never seen by others. Immutable entities may disable
+ * {@link #copyOnRead()} so that the converted instance itself is cached and shared, sparing its unmarshalling.
+ *
+ * @author Stéphane Toussaint
+ */
+@Inherited
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ ElementType.TYPE })
+public @interface Cached {
+
+    /**
+     * @return the maximum number of cached documents of the annotated type
+     */
+    int maxSize() default 1000;
+
+    /**
+     * @return the maximum total weight, in characters of serialized documents, of the cached documents of the
+     * annotated type
+     */
+    long maxWeight() default 16 * 1024 * 1024;
+
+    /**
+     * @return whether every lookup returns a new instance, false to share the cached instance of an immutable entity
+     */
+    boolean copyOnRead() default true;
+
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com._4dconcept.springframework.data.marklogic.core.mapping;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a property backed by a geospatial index, allowing {@code Near} and {@code Within} derived queries on it.
+ * The index must be configured on the database : such queries are resolved from the index only.
+ *
+ * @author Stéphane Toussaint
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ ElementType.FIELD, ElementType.METHOD })
+public @interface GeospatialIndexed {
+
+    /**
+     * @return how coordinates are stored under the property element
+     */
+    Type type() default Type.POINT;
+
+    /**
+     * @return the local name of the latitude child element, for {@link Type#PAIR} indexes
+     */
+    String latitude() default "latitude";
+
+    /**
+     * @return the local name of the longitude child element, for {@link Type#PAIR} indexes
+     */
+    String longitude() default "longitude";
+
+    /**
+     * @return the geospatial query options matching the index configuration, such as {@code coordinate-system=wgs84}
+     */
+    String[] options() default {};
+
+    enum Type {
+
+        /**
+         * The element value is a point, queried through an element geospatial index.
+         */
+        POINT,
+
+        /**
+         * The element holds latitude and longitude child elements, queried through an element pair geospatial index.
+         */
+        PAIR
+    }
+
+}
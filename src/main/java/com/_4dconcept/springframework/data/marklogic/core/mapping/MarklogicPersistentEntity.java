@@ -15,7 +15,9 @@
  */
 package com._4dconcept.springframework.data.marklogic.core.mapping;
 
+import com._4dconcept.springframework.data.marklogic.DocumentExpression;
 import org.springframework.data.mapping.PersistentEntity;
+import org.springframework.lang.Nullable;
 
 /**
  * Marklogic specific {@link PersistentEntity} abstraction.
@@ -34,9 +36,38 @@ public interface MarklogicPersistentEntity<T> extends PersistentEntity<T, Marklo
      */
     String getDefaultCollection();
 
+    /**
+     * @return the compiled form of {@link #getUri()}
+     */
+    DocumentExpression getUriExpression();
+
+    /**
+     * @return the compiled form of {@link #getDefaultCollection()} if any
+     */
+    @Nullable
+    DocumentExpression getDefaultCollectionExpression();
+
     /**
      * @return true if the id is to be found in property fragment
      */
     boolean idInPropertyFragment();
 
+    /**
+     * @return the maximum number of entities to keep in the second level cache, 0 if the entity is not cached
+     * @see Cached
+     */
+    int getCacheMaxSize();
+
+    /**
+     * @return the maximum total weight, in characters of serialized documents, of the second level cache
+     * @see Cached#maxWeight()
+     */
+    long getCacheMaxWeight();
+
+    /**
+     * @return whether cache hits are converted to a new instance rather than sharing the cached one
+     * @see Cached#copyOnRead()
+     */
+    boolean isCacheCopyOnRead();
+
 }
@@ -39,6 +39,11 @@ public interface MarklogicPersistentProperty extends PersistentProperty<Marklogi
      */
     QName getQName();
 
+    /**
+     * @return the xquery {@code fn:QName(...)} constructor of the property name
+     */
+    String getQNameFragment();
+
     Optional<Method> getReadMethod();
 
 }
\ No newline at end of file
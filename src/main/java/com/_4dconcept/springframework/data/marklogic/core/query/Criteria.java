@@ -15,6 +15,7 @@
  */
 package com._4dconcept.springframework.data.marklogic.core.query;
 
+import com._4dconcept.springframework.data.marklogic.core.mapping.MarklogicPersistentProperty;
 import org.springframework.lang.Nullable;
 
 import javax.xml.namespace.QName;
@@ -24,6 +25,7 @@ import java.util.List;
 /**
  * Representation of a {@link Query} criteria.
  * Note that operators doesn't have provided QName
+ * A {@link Operator#WORD} criteria wrapping a criteria without QName matches words anywhere in the document.
  *
  * @author stoussaint
  * @since 2017-07-31
@@ -31,10 +33,11 @@ import java.util.List;
 public class Criteria implements CriteriaDefinition {
 
     public enum Operator {
-        AND, OR, NOT, COLLECTION, PROPERTIES, EXISTS, EMPTY
+        AND, OR, NOT, COLLECTION, PROPERTIES, EXISTS, EMPTY, WORD, GEOSPATIAL
     }
 
     private @Nullable QName qname;
+    private @Nullable String qnameFragment;
     private @Nullable Object criteriaObject;
     private @Nullable Operator operator;
     private @Nullable List<String> options;
@@ -47,6 +50,17 @@ public class Criteria implements CriteriaDefinition {
         this.criteriaObject = criteriaObject;
     }
 
+    /**
+     * Creates a criteria on the given property, reusing the {@code fn:QName(...)} fragment it resolved once.
+     *
+     * @param property the mapped property
+     * @param criteriaObject the expected value
+     */
+    public Criteria(MarklogicPersistentProperty property, @Nullable Object criteriaObject) {
+        this(property.getQName(), criteriaObject);
+        this.qnameFragment = property.getQNameFragment();
+    }
+
     public Criteria(Operator operator, @Nullable Object criteriaObject) {
         this.operator = operator;
         this.criteriaObject = criteriaObject;
@@ -65,6 +79,15 @@ public class Criteria implements CriteriaDefinition {
      */
     public void setQname(QName qname) {
         this.qname = qname;
+        this.qnameFragment = null;
+    }
+
+    /**
+     * @return the precomputed {@code fn:QName(...)} fragment of the qname, if any
+     */
+    @Nullable
+    public String getQnameFragment() {
+        return qnameFragment;
     }
 
     /**
@@ -0,0 +1,280 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com._4dconcept.springframework.data.marklogic.core.query;
+
+import com._4dconcept.springframework.data.marklogic.MarklogicCollectionUtils;
+import com._4dconcept.springframework.data.marklogic.MarklogicUtils;
+import com._4dconcept.springframework.data.marklogic.core.mapping.MarklogicPersistentEntity;
+import com._4dconcept.springframework.data.marklogic.core.mapping.MarklogicPersistentProperty;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.data.domain.ExampleMatcher;
+import org.springframework.data.mapping.PersistentPropertyAccessor;
+import org.springframework.data.mapping.PropertyHandler;
+import org.springframework.data.mapping.context.MappingContext;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ConcurrentReferenceHashMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Precomputed translation of an {@link ExampleMatcher} applied to a given persistent entity.
+ * Plans are resolved once per (entity, matcher, path, collection helper) and only hold the properties relevant to the
+ * matcher, with their string matching and null handling already resolved.
+ *
+ * @author Stéphane Toussaint
+ */
+final class ExampleCriteriaPlan {
+
+    private static final Map<PlanKey, ExampleCriteriaPlan> PLANS = new ConcurrentReferenceHashMap<>();
+
+    private static final List<String> CASE_INSENSITIVE = Collections.singletonList("case-insensitive");
+    private static final List<String> WILDCARDED = Collections.singletonList("wildcarded");
+    private static final List<String> WILDCARDED_CASE_INSENSITIVE = Collections.unmodifiableList(Arrays.asList("wildcarded", "case-insensitive"));
+
+    private final ExampleMatcher matcher;
+    private final String path;
+    private final List<PropertyStep> steps;
+
+    private ExampleCriteriaPlan(ExampleMatcher matcher, String path, List<PropertyStep> steps) {
+        this.matcher = matcher;
+        this.path = path;
+        this.steps = steps;
+    }
+
+    /**
+     * @param persistentEntity the probe persistent entity
+     * @param matcher the matcher to apply
+     * @param marklogicCollectionUtils the collection helper used to resolve collection annotations
+     * @return the plan of the given entity for the given matcher
+     */
+    static ExampleCriteriaPlan of(MarklogicPersistentEntity<?> persistentEntity, ExampleMatcher matcher, MarklogicCollectionUtils marklogicCollectionUtils) {
+        return of(persistentEntity, matcher, "", marklogicCollectionUtils);
+    }
+
+    private static ExampleCriteriaPlan of(MarklogicPersistentEntity<?> persistentEntity, ExampleMatcher matcher, String path,
+                                          MarklogicCollectionUtils marklogicCollectionUtils) {
+        return PLANS.computeIfAbsent(new PlanKey(persistentEntity, matcher, path, marklogicCollectionUtils),
+                key -> resolvePlan(persistentEntity, matcher, path, marklogicCollectionUtils));
+    }
+
+    /**
+     * Builds the criteria matching the given probe.
+     *
+     * @param probe the probe to match
+     * @param mappingContext the mapping context used to resolve nested entities
+     * @param marklogicCollectionUtils the collection helper used to resolve collection values
+     * @return the example criteria or null if the probe does not hold any value to match
+     */
+    @Nullable
+    Criteria buildCriteria(Object probe, MappingContext<? extends MarklogicPersistentEntity<?>, MarklogicPersistentProperty> mappingContext,
+                           MarklogicCollectionUtils marklogicCollectionUtils) {
+        if (steps.isEmpty()) {
+            return null;
+        }
+
+        MarklogicPersistentEntity<?> persistentEntity = MarklogicUtils.retrievePersistentEntity(probe.getClass(), mappingContext);
+        PersistentPropertyAccessor<Object> accessor = persistentEntity.getPropertyAccessor(probe);
+
+        List<Criteria> criteriaList = new ArrayList<>();
+        for (PropertyStep step : steps) {
+            Criteria criteria = step.buildCriteria(accessor.getProperty(step.property), mappingContext, marklogicCollectionUtils);
+            if (criteria != null) {
+                criteriaList.add(criteria);
+            }
+        }
+
+        if (criteriaList.isEmpty()) {
+            return null;
+        } else if (criteriaList.size() == 1) {
+            return criteriaList.get(0);
+        }
+
+        return new Criteria(matcher.isAllMatching() ? Criteria.Operator.AND : Criteria.Operator.OR, criteriaList);
+    }
+
+    private static ExampleCriteriaPlan resolvePlan(MarklogicPersistentEntity<?> persistentEntity, ExampleMatcher matcher, String path,
+                                                   MarklogicCollectionUtils marklogicCollectionUtils) {
+        List<PropertyStep> steps = new ArrayList<>();
+
+        persistentEntity.doWithProperties((PropertyHandler<MarklogicPersistentProperty>) property -> {
+            String propertyPath = path.isEmpty() ? property.getName() : path + "." + property.getName();
+            if (!matcher.isIgnoredPath(propertyPath)) {
+                steps.add(new PropertyStep(property, propertyPath, matcher, marklogicCollectionUtils));
+            }
+        });
+
+        return new ExampleCriteriaPlan(matcher, path, steps.isEmpty() ? Collections.emptyList() : Collections.unmodifiableList(steps));
+    }
+
+    @Override
+    public String toString() {
+        return "ExampleCriteriaPlan{" +
+                "path='" + path + '\'' +
+                ", steps=" + steps.size() +
+                '}';
+    }
+
+    /**
+     * Resolved matching settings of a single probe property.
+     */
+    private static final class PropertyStep {
+
+        private final MarklogicPersistentProperty property;
+        private final String path;
+        private final ExampleMatcher matcher;
+        private final boolean nestedEntity;
+        private final boolean includeNull;
+        private final @Nullable com._4dconcept.springframework.data.marklogic.core.mapping.Collection collection;
+        private final ExampleMatcher.StringMatcher stringMatcher;
+        private final boolean ignoreCase;
+        private final @Nullable ExampleMatcher.PropertyValueTransformer transformer;
+
+        PropertyStep(MarklogicPersistentProperty property, String path, ExampleMatcher matcher, MarklogicCollectionUtils marklogicCollectionUtils) {
+            this.property = property;
+            this.path = path;
+            this.matcher = matcher;
+            this.nestedEntity = property.getPersistentEntityTypes().iterator().hasNext();
+            this.includeNull = matcher.getNullHandler() == ExampleMatcher.NullHandler.INCLUDE;
+            this.collection = marklogicCollectionUtils.getCollectionAnnotation(property).orElse(null);
+
+            ExampleMatcher.PropertySpecifier specifier = matcher.getPropertySpecifiers().getForPath(path);
+            this.stringMatcher = specifier != null && specifier.getStringMatcher() != null ? specifier.getStringMatcher() : matcher.getDefaultStringMatcher();
+            this.ignoreCase = specifier != null && specifier.getIgnoreCase() != null ? specifier.getIgnoreCase() : matcher.isIgnoreCaseEnabled();
+            this.transformer = specifier != null ? specifier.getPropertyValueTransformer() : null;
+        }
+
+        @Nullable
+        Criteria buildCriteria(@Nullable Object value, MappingContext<? extends MarklogicPersistentEntity<?>, MarklogicPersistentProperty> mappingContext,
+                               MarklogicCollectionUtils marklogicCollectionUtils) {
+            if (transformer != null) {
+                value = transformer.apply(Optional.ofNullable(value)).orElse(null);
+            }
+
+            if (value == null) {
+                return includeNull && collection == null ? new Criteria(Criteria.Operator.EMPTY, new Criteria(property, null)) : null;
+            }
+
+            if (value instanceof Collection) {
+                Collection<?> values = (Collection<?>) value;
+                if (values.isEmpty()) {
+                    return null;
+                }
+
+                List<Criteria> criteriaList = new ArrayList<>();
+                for (Object o : values) {
+                    Criteria criteria = buildValueCriteria(o, mappingContext, marklogicCollectionUtils);
+                    if (criteria != null) {
+                        criteriaList.add(criteria);
+                    }
+                }
+                return new Criteria(Criteria.Operator.OR, criteriaList);
+            }
+
+            return buildValueCriteria(value, mappingContext, marklogicCollectionUtils);
+        }
+
+        @Nullable
+        private Criteria buildValueCriteria(Object value, MappingContext<? extends MarklogicPersistentEntity<?>, MarklogicPersistentProperty> mappingContext,
+                                            MarklogicCollectionUtils marklogicCollectionUtils) {
+            if (nestedEntity) {
+                MarklogicPersistentEntity<?> nestedPersistentEntity = MarklogicUtils.retrievePersistentEntity(value.getClass(), mappingContext);
+                return ExampleCriteriaPlan.of(nestedPersistentEntity, matcher, path, marklogicCollectionUtils).buildCriteria(value, mappingContext, marklogicCollectionUtils);
+            }
+
+            if (collection != null) {
+                return new Criteria(Criteria.Operator.COLLECTION, marklogicCollectionUtils.doWithCollectionValue(value, collection).get(0));
+            }
+
+            if (value instanceof String) {
+                return buildStringCriteria((String) value);
+            }
+
+            return new Criteria(property, value);
+        }
+
+        private Criteria buildStringCriteria(String value) {
+            switch (stringMatcher) {
+                case STARTING:
+                    return wordCriteria(literal(value) + "*");
+                case ENDING:
+                    return wordCriteria("*" + literal(value));
+                case CONTAINING:
+                    return wordCriteria("*" + literal(value) + "*");
+                case REGEX:
+                    throw new InvalidDataAccessApiUsageException(String.format("Unsupported string matcher %s for property %s", stringMatcher, path));
+                default:
+                    Criteria criteria = new Criteria(property, value);
+                    if (ignoreCase) {
+                        criteria.setOptions(CASE_INSENSITIVE);
+                    }
+                    return criteria;
+            }
+        }
+
+        /**
+         * MarkLogic word queries have no way to escape the {@code *} and {@code ?} wildcards : a probe value holding
+         * one of them is rejected rather than matched loosely.
+         */
+        private String literal(String value) {
+            if (value.indexOf('*') >= 0 || value.indexOf('?') >= 0) {
+                throw new InvalidDataAccessApiUsageException(String.format("String matcher %s does not support the '*' and '?' wildcard characters in property %s, got %s", stringMatcher, path, value));
+            }
+            return value;
+        }
+
+        private Criteria wordCriteria(String pattern) {
+            Criteria criteria = new Criteria(property, pattern);
+            criteria.setOptions(ignoreCase ? WILDCARDED_CASE_INSENSITIVE : WILDCARDED);
+            return new Criteria(Criteria.Operator.WORD, criteria);
+        }
+    }
+
+    private static final class PlanKey {
+
+        private final MarklogicPersistentEntity<?> persistentEntity;
+        private final ExampleMatcher matcher;
+        private final String path;
+        private final MarklogicCollectionUtils marklogicCollectionUtils;
+
+        PlanKey(MarklogicPersistentEntity<?> persistentEntity, ExampleMatcher matcher, String path, MarklogicCollectionUtils marklogicCollectionUtils) {
+            this.persistentEntity = persistentEntity;
+            this.matcher = matcher;
+            this.path = path;
+            this.marklogicCollectionUtils = marklogicCollectionUtils;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            PlanKey planKey = (PlanKey) o;
+            return persistentEntity.equals(planKey.persistentEntity) && matcher.equals(planKey.matcher) && path.equals(planKey.path)
+                    && marklogicCollectionUtils == planKey.marklogicCollectionUtils;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(persistentEntity, matcher, path, System.identityHashCode(marklogicCollectionUtils));
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com._4dconcept.springframework.data.marklogic.core.query;
+
+import org.springframework.data.geo.Box;
+import org.springframework.data.geo.Circle;
+import org.springframework.data.geo.Point;
+import org.springframework.data.geo.Polygon;
+import org.springframework.data.geo.Shape;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+import javax.xml.namespace.QName;
+
+/**
+ * A {@link Criteria.Operator#GEOSPATIAL} criteria matching the elements whose coordinates fall within a region.
+ * The region is either a {@link Point}, a {@link Circle}, a {@link Box} or a {@link Polygon}, points having the
+ * longitude as {@code x} and the latitude as {@code y}.
+ *
+ * @author Stéphane Toussaint
+ */
+public class GeospatialCriteria extends Criteria {
+
+    private @Nullable QName latitude;
+    private @Nullable QName longitude;
+
+    /**
+     * Creates a criteria on an element whose value is a point.
+     *
+     * @param qname the point element name
+     * @param region the region to match
+     */
+    public GeospatialCriteria(QName qname, Shape region) {
+        super(Operator.GEOSPATIAL, region);
+        Assert.isTrue(region instanceof Point || region instanceof Circle || region instanceof Box || region instanceof Polygon,
+                () -> String.format("Unsupported geospatial region %s", region.getClass().getSimpleName()));
+        setQname(qname);
+    }
+
+    /**
+     * Creates a criteria on an element holding the latitude and longitude as child elements.
+     *
+     * @param qname the parent element name
+     * @param latitude the latitude child element name
+     * @param longitude the longitude child element name
+     * @param region the region to match
+     */
+    public GeospatialCriteria(QName qname, QName latitude, QName longitude, Shape region) {
+        this(qname, region);
+        this.latitude = latitude;
+        this.longitude = longitude;
+    }
+
+    /**
+     * @return whether coordinates are held by latitude and longitude child elements
+     */
+    public boolean isPair() {
+        return latitude != null && longitude != null;
+    }
+
+    @Nullable
+    public QName getLatitude() {
+        return latitude;
+    }
+
+    @Nullable
+    public QName getLongitude() {
+        return longitude;
+    }
+
+    public Shape getRegion() {
+        return (Shape) getCriteriaObject();
+    }
+}
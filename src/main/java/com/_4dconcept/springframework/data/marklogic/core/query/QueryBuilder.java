@@ -26,25 +26,17 @@ import com._4dconcept.springframework.data.marklogic.core.mapping.MarklogicPersi
 import com._4dconcept.springframework.data.marklogic.core.mapping.MarklogicPersistentProperty;
 import org.springframework.dao.InvalidDataAccessApiUsageException;
 import org.springframework.data.domain.Example;
+import org.springframework.data.domain.ExampleMatcher;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
-import org.springframework.data.mapping.PersistentPropertyAccessor;
-import org.springframework.data.mapping.PropertyHandler;
 import org.springframework.data.mapping.context.MappingContext;
-import org.springframework.data.util.TypeInformation;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 
-import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collection;
 import java.util.Collections;
-import java.util.Deque;
 import java.util.List;
-import java.util.Optional;
-import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
 
 /**
  * Default {@link Query} builder
@@ -54,6 +46,10 @@ import java.util.stream.StreamSupport;
  */
 public class QueryBuilder {
 
+    private static final ExampleMatcher IDENTIFIER_MATCHER = ExampleMatcher.matching();
+
+    private static final MarklogicCollectionUtils DEFAULT_COLLECTION_UTILS = new MarklogicCollectionUtils() {};
+
     private Criteria criteria;
 
     @Nullable
@@ -75,7 +71,7 @@ public class QueryBuilder {
 
     private MarklogicOperationOptions options = new MarklogicOperationOptions() {};
 
-    private MarklogicCollectionUtils marklogicCollectionUtils = new MarklogicCollectionUtils() {};
+    private MarklogicCollectionUtils marklogicCollectionUtils = DEFAULT_COLLECTION_UTILS;
 
     @SuppressWarnings("WeakerAccess") // Authorize client to use a default mapping context
     public QueryBuilder() {
@@ -171,8 +167,8 @@ public class QueryBuilder {
         }
     }
 
-    private void setCriteriaFromExample(Query query, Example example) {
-        Criteria exampleCriteria = buildCriteriaFromEntityProperties(example.getProbe());
+    private void setCriteriaFromExample(Query query, Example<?> example) {
+        Criteria exampleCriteria = buildCriteriaFromEntityProperties(example.getProbe(), example.getMatcher());
         if (exampleCriteria != null) {
             query.setCriteria(exampleCriteria);
         }
@@ -185,7 +181,7 @@ public class QueryBuilder {
             identifierCriteria.setQname(identifier.qname());
             identifierCriteria.setCriteriaObject(identifier.value());
         } else {
-            identifierCriteria = buildCriteriaFromEntityProperties(identifier.value());
+            identifierCriteria = buildCriteriaFromEntityProperties(identifier.value(), IDENTIFIER_MATCHER);
 
             if (identifierCriteria == null) {
                 throw new InvalidDataAccessApiUsageException("Unable to compile identifier criteria");
@@ -218,76 +214,9 @@ public class QueryBuilder {
     }
 
     @Nullable
-    private Criteria buildCriteriaFromEntityProperties(Object bean) {
-        Deque<Criteria> stack = new ArrayDeque<>();
-
+    private Criteria buildCriteriaFromEntityProperties(Object bean, ExampleMatcher matcher) {
         MarklogicPersistentEntity<?> entity = MarklogicUtils.retrievePersistentEntity(bean.getClass(), mappingContext);
-        PersistentPropertyAccessor<Object> propertyAccessor = entity.getPropertyAccessor(bean);
-
-        entity.doWithProperties((PropertyHandler<MarklogicPersistentProperty>) property -> {
-            Object value = propertyAccessor.getProperty(property);
-            if (hasContent(value)) {
-                Criteria newCriteria = buildCriteriaFromProperty(property, value);
-                if (newCriteria != null) {
-                    stackNewCriteria(stack, newCriteria);
-                }
-            }
-        });
-
-        return stack.isEmpty() ? null : stack.peek();
-    }
-
-    @Nullable
-    private Criteria buildCriteriaFromProperty(MarklogicPersistentProperty property, Object value) {
-        Optional<? extends TypeInformation<?>> typeInformation = StreamSupport.stream(property.getPersistentEntityTypes().spliterator(), false).findFirst();
-        if (typeInformation.isPresent()) {
-            return buildCriteriaFromEntityProperties(value);
-        } else {
-            Criteria propertyCriteria = new Criteria();
-
-            if (value instanceof Collection) {
-                propertyCriteria.setOperator(Criteria.Operator.OR);
-                Collection<?> collection = (Collection<?>) value;
-                propertyCriteria.setCriteriaObject(collection.stream()
-                        .map(o -> buildCriteriaFromProperty(property, o))
-                        .collect(Collectors.toList())
-                );
-            } else {
-                Optional<com._4dconcept.springframework.data.marklogic.core.mapping.Collection> collection = marklogicCollectionUtils.getCollectionAnnotation(property);
-                if (collection.isPresent()) {
-                    propertyCriteria.setOperator(Criteria.Operator.COLLECTION);
-                    propertyCriteria.setCriteriaObject(marklogicCollectionUtils.doWithCollectionValue(value, collection.get()).get(0));
-                } else {
-                    propertyCriteria.setQname(property.getQName());
-                    propertyCriteria.setCriteriaObject(value);
-                }
-            }
-
-            return propertyCriteria;
-        }
-    }
-
-    private void stackNewCriteria(Deque<Criteria> stack, Criteria newCriteria) {
-        Criteria lastCriteria = stack.peek();
-        if (lastCriteria != null) {
-            if (Criteria.Operator.AND == lastCriteria.getOperator()) {
-                lastCriteria.add(newCriteria);
-            } else {
-                wrapInAndCriteria(stack, newCriteria, lastCriteria);
-            }
-        } else {
-            stack.push(newCriteria);
-        }
-    }
-
-    private void wrapInAndCriteria(Deque<Criteria> stack, Criteria newCriteria, Criteria criteria) {
-        Criteria andCriteria = new Criteria(Criteria.Operator.AND, new ArrayList<>(Arrays.asList(criteria, newCriteria)));
-        stack.pop();
-        stack.push(andCriteria);
-    }
-
-    private boolean hasContent(@Nullable Object value) {
-        return value != null && (!(value instanceof Collection) || !((Collection) value).isEmpty());
+        return ExampleCriteriaPlan.of(entity, matcher, marklogicCollectionUtils).buildCriteria(bean, mappingContext, marklogicCollectionUtils);
     }
 
     private List<SortCriteria> prepareSortCriteria(Sort sort) {
@@ -308,7 +237,7 @@ public class QueryBuilder {
                 continue;
             }
 
-            SortCriteria sortCriteria = new SortCriteria(persistentProperty.getQName());
+            SortCriteria sortCriteria = new SortCriteria(persistentProperty);
             if (!order.isAscending()) {
                 sortCriteria.setDescending(true);
             }
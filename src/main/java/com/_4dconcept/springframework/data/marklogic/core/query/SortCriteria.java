@@ -15,6 +15,9 @@
  */
 package com._4dconcept.springframework.data.marklogic.core.query;
 
+import com._4dconcept.springframework.data.marklogic.core.mapping.MarklogicPersistentProperty;
+import org.springframework.lang.Nullable;
+
 import javax.xml.namespace.QName;
 
 /**
@@ -26,6 +29,7 @@ import javax.xml.namespace.QName;
 public class SortCriteria {
 
     private QName qname;
+    private @Nullable String qnameFragment;
     private boolean descending;
 
     public SortCriteria(QName qname) {
@@ -37,6 +41,16 @@ public class SortCriteria {
         this.descending = descending;
     }
 
+    /**
+     * Creates a sort criteria on the given property, reusing the {@code fn:QName(...)} fragment it resolved once.
+     *
+     * @param property the mapped property
+     */
+    public SortCriteria(MarklogicPersistentProperty property) {
+        this(property.getQName());
+        this.qnameFragment = property.getQNameFragment();
+    }
+
     /**
      * @return the qname
      */
@@ -49,6 +63,15 @@ public class SortCriteria {
      */
     public void setQname(QName qname) {
         this.qname = qname;
+        this.qnameFragment = null;
+    }
+
+    /**
+     * @return the precomputed {@code fn:QName(...)} fragment of the qname, if any
+     */
+    @Nullable
+    public String getQnameFragment() {
+        return qnameFragment;
     }
 
     /**
@@ -27,6 +27,14 @@ import org.springframework.dao.DataAccessResourceFailureException;
 @SuppressWarnings("serial")
 class CannotGetXdbcSessionException extends DataAccessResourceFailureException {
 
+    /**
+     * Constructor for CannotGetXdbcSessionException.
+     * @param msg the detail message
+     */
+    CannotGetXdbcSessionException(String msg) {
+        super(msg);
+    }
+
     /**
      * Constructor for CannotGetXdbcSessionException.
      * @param msg the detail message
@@ -15,7 +15,9 @@
  */
 package com._4dconcept.springframework.data.marklogic.datasource;
 
+import com._4dconcept.springframework.data.marklogic.MarklogicMetricsRecorder;
 import com.marklogic.xcc.ContentSource;
+import com.marklogic.xcc.RequestOptions;
 import com.marklogic.xcc.Session;
 import com.marklogic.xcc.exceptions.XccException;
 import org.apache.commons.logging.Log;
@@ -73,6 +75,27 @@ public abstract class ContentSourceUtils {
         }
     }
 
+    /**
+     * Same as {@link #getSession(ContentSource)}, recording the time spent obtaining the Session.
+     * @param contentSource the ContentSource to obtain Sessions from
+     * @param metricsRecorder the recorder to notify
+     * @return a XDBC Session from the given ContentSource
+     * @throws CannotGetXdbcSessionException
+     * if the attempt to get a Session failed
+     */
+    public static Session getSession(ContentSource contentSource, MarklogicMetricsRecorder metricsRecorder) throws CannotGetXdbcSessionException {
+        if (!metricsRecorder.isEnabled()) {
+            return getSession(contentSource);
+        }
+
+        long start = System.nanoTime();
+        try {
+            return getSession(contentSource);
+        } finally {
+            metricsRecorder.recordSessionAcquisition(System.nanoTime() - start);
+        }
+    }
+
     /**
      * Actually obtain a XDBC Session from the given ContentSource.
      * Same as {@link #getSession}, but throwing the original XccException.
@@ -235,6 +258,35 @@ public abstract class ContentSourceUtils {
         }
     }
 
+    /**
+     * Apply the specified timeout - capped by the current transaction timeout,
+     * if any - to the given XDBC RequestOptions, both as client side response
+     * timeout and as server side request time limit, so that MarkLogic cancels
+     * the request itself rather than keep on running it once the caller gave up.
+     * @param options the XDBC RequestOptions object
+     * @param contentSource the ContentSource that the Session was obtained from
+     * @param timeoutMillis the timeout to apply in milliseconds (or 0 for no timeout outside of a transaction)
+     * @see RequestOptions#setTimeoutMillis(int)
+     * @see RequestOptions#setRequestTimeLimit(int)
+     */
+    public static void applyTimeout(RequestOptions options, ContentSource contentSource, long timeoutMillis) {
+        Assert.notNull(options, "No RequestOptions specified");
+        Assert.notNull(contentSource, "No ContentSource specified");
+        long effectiveTimeout = timeoutMillis;
+        SessionHolder holder = (SessionHolder) TransactionSynchronizationManager.getResource(contentSource);
+        if (holder != null && holder.hasTimeout()) {
+            // Remaining transaction timeout caps specified value.
+            long timeToLive = holder.getTimeToLiveInMillis();
+            effectiveTimeout = effectiveTimeout > 0 ? Math.min(effectiveTimeout, timeToLive) : timeToLive;
+        }
+        if (effectiveTimeout > 0) {
+            int timeoutInMillis = (int) Math.min(Integer.MAX_VALUE, effectiveTimeout);
+            options.setTimeoutMillis(timeoutInMillis);
+            // xdmp:set-request-time-limit granularity is the second.
+            options.setRequestTimeLimit((int) Math.max(1, (timeoutInMillis + 999L) / 1000));
+        }
+    }
+
     /**
      * Close the given Session, obtained from the given ContentSource,
      * if it is not managed externally (that is, not bound to the thread).
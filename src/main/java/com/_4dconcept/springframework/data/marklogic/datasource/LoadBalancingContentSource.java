@@ -0,0 +1,383 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com._4dconcept.springframework.data.marklogic.datasource;
+
+import com.marklogic.xcc.ContentSource;
+import com.marklogic.xcc.ResultSequence;
+import com.marklogic.xcc.Session;
+import com.marklogic.xcc.exceptions.ServerConnectionException;
+import org.springframework.lang.Nullable;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.Assert;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * {@link ContentSource} implementation that spreads new Sessions across several
+ * target ContentSources, typically one per e-node of a cluster.
+ *
+ * <p>The target is selected according to the configured {@link Strategy}. Returned
+ * Sessions are handles implementing {@link SessionProxy}, tracking the outstanding
+ * requests and the latency of each target. A request returning a streamed {@link ResultSequence}
+ * stays outstanding until the sequence is closed, another request is submitted or the Session is closed. A target failing {@link #setFailureThreshold
+ * failureThreshold} consecutive times with a {@link ServerConnectionException} is ejected
+ * for {@link #setEjectionDurationMillis ejectionDurationMillis} and then given a new chance.
+ * If every target is ejected, the one to be restored first is used.
+ *
+ * <p>When transaction synchronization is active, every Session requested within the
+ * current transaction is pinned to the first selected target.
+ *
+ * @author Stéphane Toussaint
+ */
+public class LoadBalancingContentSource extends AbstractContentSource {
+
+    /**
+     * Target selection strategies.
+     */
+    public enum Strategy {
+        /** Select targets in turn. */
+        ROUND_ROBIN,
+        /** Select the target with the fewest requests in progress. */
+        LEAST_OUTSTANDING,
+        /** Select targets randomly, weighted by the inverse of their average latency. */
+        LATENCY_WEIGHTED
+    }
+
+    private static final double LATENCY_SMOOTHING = 0.2;
+
+    private final List<Host> hosts;
+
+    private final Object transactionPinKey = new Object();
+
+    private final AtomicInteger roundRobinIndex = new AtomicInteger();
+
+    private Strategy strategy = Strategy.ROUND_ROBIN;
+
+    private int failureThreshold = 3;
+
+    private long ejectionDurationMillis = 30000;
+
+    /**
+     * Create a new LoadBalancingContentSource.
+     * @param targetContentSources the target ContentSources to balance Sessions on
+     */
+    public LoadBalancingContentSource(List<? extends ContentSource> targetContentSources) {
+        Assert.notEmpty(targetContentSources, "At least one target ContentSource is required");
+
+        List<Host> hosts = new ArrayList<>();
+        for (ContentSource contentSource : targetContentSources) {
+            hosts.add(new Host(contentSource));
+        }
+        this.hosts = Collections.unmodifiableList(hosts);
+    }
+
+    /**
+     * @param strategy the target selection strategy. Default is {@link Strategy#ROUND_ROBIN}.
+     */
+    public void setStrategy(Strategy strategy) {
+        Assert.notNull(strategy, "'strategy' must not be null");
+        this.strategy = strategy;
+    }
+
+    /**
+     * @param failureThreshold the number of consecutive connection failures ejecting a target. Default is 3.
+     */
+    public void setFailureThreshold(int failureThreshold) {
+        Assert.isTrue(failureThreshold > 0, "'failureThreshold' must be greater than 0");
+        this.failureThreshold = failureThreshold;
+    }
+
+    /**
+     * @param ejectionDurationMillis how long an ejected target is left aside. Default is 30 seconds.
+     */
+    public void setEjectionDurationMillis(long ejectionDurationMillis) {
+        this.ejectionDurationMillis = ejectionDurationMillis;
+    }
+
+    /**
+     * @return the number of targets currently eligible for new Sessions
+     */
+    public int getAvailableHostCount() {
+        long now = System.currentTimeMillis();
+        return (int) hosts.stream().filter(h -> h.isAvailable(now)).count();
+    }
+
+    @Override
+    public Session newSession() {
+        return newSession(ContentSource::newSession);
+    }
+
+    @Override
+    public Session newSession(String contentbaseId) {
+        return newSession(cs -> cs.newSession(contentbaseId));
+    }
+
+    @Override
+    public Session newSession(String userName, String password) {
+        return newSession(cs -> cs.newSession(userName, password));
+    }
+
+    @Override
+    public Session newSession(String userName, char[] password) {
+        return newSession(cs -> cs.newSession(userName, password));
+    }
+
+    @Override
+    public Session newSession(String userName, String password, String contentbaseId) {
+        return newSession(cs -> cs.newSession(userName, password, contentbaseId));
+    }
+
+    @Override
+    public Session newSession(String userName, char[] password, String contentbaseId) {
+        return newSession(cs -> cs.newSession(userName, password, contentbaseId));
+    }
+
+    private Session newSession(Function<ContentSource, Session> sessionFactory) {
+        Host host = determineHost();
+        Session session = sessionFactory.apply(host.contentSource);
+
+        return (Session) Proxy.newProxyInstance(
+                SessionProxy.class.getClassLoader(),
+                new Class<?>[] {SessionProxy.class},
+                new LoadBalancedSessionInvocationHandler(host, session));
+    }
+
+    private Host determineHost() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return selectHost();
+        }
+
+        Host pinnedHost = (Host) TransactionSynchronizationManager.getResource(transactionPinKey);
+        if (pinnedHost == null) {
+            pinnedHost = selectHost();
+            TransactionSynchronizationManager.bindResource(transactionPinKey, pinnedHost);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(transactionPinKey);
+                }
+            });
+        }
+        return pinnedHost;
+    }
+
+    private Host selectHost() {
+        long now = System.currentTimeMillis();
+        List<Host> candidates = new ArrayList<>(hosts.size());
+        for (Host host : hosts) {
+            if (host.isAvailable(now)) {
+                candidates.add(host);
+            }
+        }
+
+        if (candidates.isEmpty()) {
+            logger.debug("Every target ContentSource is ejected, using the one to be restored first");
+            return hosts.stream().min((h1, h2) -> Long.compare(h1.ejectedUntil, h2.ejectedUntil)).orElse(hosts.get(0));
+        }
+
+        switch (strategy) {
+            case LEAST_OUTSTANDING:
+                return selectLeastOutstanding(candidates);
+            case LATENCY_WEIGHTED:
+                return selectLatencyWeighted(candidates);
+            default:
+                return candidates.get(Math.floorMod(roundRobinIndex.getAndIncrement(), candidates.size()));
+        }
+    }
+
+    private Host selectLeastOutstanding(List<Host> candidates) {
+        Host selected = candidates.get(0);
+        for (Host host : candidates) {
+            if (host.outstanding.get() < selected.outstanding.get()) {
+                selected = host;
+            }
+        }
+        return selected;
+    }
+
+    private Host selectLatencyWeighted(List<Host> candidates) {
+        double[] weights = new double[candidates.size()];
+        double total = 0;
+        for (int i = 0; i < weights.length; i++) {
+            double latency = candidates.get(i).averageLatencyNanos;
+            if (latency == 0) {
+                // Not measured yet: select it so that it gets measured.
+                return candidates.get(i);
+            }
+            weights[i] = 1 / latency;
+            total += weights[i];
+        }
+
+        double random = ThreadLocalRandom.current().nextDouble(total);
+        for (int i = 0; i < weights.length; i++) {
+            random -= weights[i];
+            if (random < 0) {
+                return candidates.get(i);
+            }
+        }
+        return candidates.get(candidates.size() - 1);
+    }
+
+    /**
+     * Runtime state of a single target.
+     */
+    private final class Host {
+
+        private final ContentSource contentSource;
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+        private volatile double averageLatencyNanos;
+        private volatile long ejectedUntil;
+
+        Host(ContentSource contentSource) {
+            this.contentSource = contentSource;
+        }
+
+        boolean isAvailable(long now) {
+            return ejectedUntil <= now;
+        }
+
+        void recordSuccess(long latencyNanos) {
+            consecutiveFailures.set(0);
+            double average = averageLatencyNanos;
+            averageLatencyNanos = average == 0 ? latencyNanos : average + LATENCY_SMOOTHING * (latencyNanos - average);
+        }
+
+        void recordFailure() {
+            if (consecutiveFailures.incrementAndGet() >= failureThreshold) {
+                if (logger.isWarnEnabled()) {
+                    logger.warn("Ejecting target ContentSource [" + contentSource + "] for " + ejectionDurationMillis + " ms");
+                }
+                consecutiveFailures.set(0);
+                ejectedUntil = System.currentTimeMillis() + ejectionDurationMillis;
+            }
+        }
+    }
+
+    /**
+     * Invocation handler tracking requests submitted to the target Session.
+     */
+    private static class LoadBalancedSessionInvocationHandler implements InvocationHandler {
+
+        private final Host host;
+
+        private final Session target;
+
+        /** Whether the streamed result of the last request is still counted as outstanding */
+        private @Nullable AtomicBoolean openResult;
+
+        LoadBalancedSessionInvocationHandler(Host host, Session target) {
+            this.host = host;
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            // Invocation on SessionProxy interface coming in...
+
+            if (method.getName().equals("equals")) {
+                // Only consider equal when proxies are identical.
+                return (proxy == args[0]);
+            } else if (method.getName().equals("hashCode")) {
+                // Use hashCode of Session proxy.
+                return System.identityHashCode(proxy);
+            } else if (method.getName().equals("toString")) {
+                return "Load balanced Session proxy for target Session [" + this.target + "]";
+            } else if (method.getName().equals("getTargetSession")) {
+                // Handle getTargetSession method: return underlying Session.
+                return this.target;
+            } else if (method.getName().equals("close")) {
+                releaseOpenResult();
+                return invokeTarget(method, args);
+            }
+
+            boolean request = method.getName().equals("submitRequest") || method.getName().startsWith("insertContent");
+            if (!request) {
+                return invokeTarget(method, args);
+            }
+
+            // Submitting a new request closes the streamed result of the previous one
+            releaseOpenResult();
+            this.host.outstanding.incrementAndGet();
+            boolean streamed = false;
+            long start = System.nanoTime();
+            try {
+                Object result = invokeTarget(method, args);
+                this.host.recordSuccess(System.nanoTime() - start);
+                if (result instanceof ResultSequence && !((ResultSequence) result).isCached() && !((ResultSequence) result).isClosed()) {
+                    streamed = true;
+                    return holdUntilClosed((ResultSequence) result);
+                }
+                return result;
+            } catch (ServerConnectionException ex) {
+                this.host.recordFailure();
+                throw ex;
+            } finally {
+                if (!streamed) {
+                    this.host.outstanding.decrementAndGet();
+                }
+            }
+        }
+
+        /**
+         * Keep the request outstanding while its result is streamed from the target host.
+         */
+        private ResultSequence holdUntilClosed(ResultSequence resultSequence) {
+            AtomicBoolean counted = new AtomicBoolean(true);
+            this.openResult = counted;
+            return (ResultSequence) Proxy.newProxyInstance(ResultSequence.class.getClassLoader(), new Class<?>[] {ResultSequence.class}, (proxy, method, args) -> {
+                try {
+                    return method.invoke(resultSequence, args);
+                } catch (InvocationTargetException ex) {
+                    throw ex.getTargetException();
+                } finally {
+                    if (method.getName().equals("close") && counted.compareAndSet(true, false)) {
+                        this.host.outstanding.decrementAndGet();
+                    }
+                }
+            });
+        }
+
+        private void releaseOpenResult() {
+            AtomicBoolean counted = this.openResult;
+            this.openResult = null;
+            if (counted != null && counted.compareAndSet(true, false)) {
+                this.host.outstanding.decrementAndGet();
+            }
+        }
+
+        private Object invokeTarget(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(this.target, args);
+            } catch (InvocationTargetException ex) {
+                throw ex.getTargetException();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com._4dconcept.springframework.data.marklogic.datasource;
+
+import java.util.function.Supplier;
+
+/**
+ * Holder exposing, for the current thread, whether the XDBC Sessions about to be
+ * requested are only used to read data outside of any transaction.
+ *
+ * <p>Data access code marks its non transactional reads through {@link #doInReadOnly(Supplier)},
+ * routing ContentSources query {@link #isReadOnly()} to select their target.
+ *
+ * @author Stéphane Toussaint
+ * @see com._4dconcept.springframework.data.marklogic.datasource.lookup.ReadWriteContentSourceRouter
+ */
+public abstract class ReadOnlySessionContextHolder {
+
+    private static final ThreadLocal<Boolean> READ_ONLY = new ThreadLocal<>();
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private ReadOnlySessionContextHolder() {}
+
+    /**
+     * @return whether the current thread is performing a read only operation
+     */
+    public static boolean isReadOnly() {
+        return Boolean.TRUE.equals(READ_ONLY.get());
+    }
+
+    /**
+     * Perform the given task as a read only operation.
+     * @param task the read only task
+     * @param <T> the task result type
+     * @return the task result
+     */
+    public static <T> T doInReadOnly(Supplier<T> task) {
+        Boolean previous = READ_ONLY.get();
+        READ_ONLY.set(Boolean.TRUE);
+        try {
+            return task.get();
+        } finally {
+            if (previous == null) {
+                READ_ONLY.remove();
+            } else {
+                READ_ONLY.set(previous);
+            }
+        }
+    }
+}
@@ -0,0 +1,417 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com._4dconcept.springframework.data.marklogic.datasource;
+
+import com.marklogic.xcc.ContentSource;
+import com.marklogic.xcc.RequestOptions;
+import com.marklogic.xcc.ResultItem;
+import com.marklogic.xcc.ResultSequence;
+import com.marklogic.xcc.Session;
+import com.marklogic.xcc.exceptions.ServerConnectionException;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.util.Assert;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Proxy for a target ContentSource, keeping a bounded pool of idle XDBC Sessions
+ * so that consecutive non-transactional operations do not each pay for a new Session.
+ *
+ * <p>At most {@link #setMaxActive maxActive} Session handles are in use at once. Once reached,
+ * {@link #newSession()} waits up to {@link #setMaxWaitMillis maxWaitMillis} for a handle to be
+ * closed, then fails with a {@link org.springframework.dao.DataAccessResourceFailureException}.
+ *
+ * <p>Sessions returned by {@link #newSession()} are handles implementing {@link SessionProxy}.
+ * Closing a handle returns the target Session to the pool after having rolled back any
+ * transaction left open by a multi-statement transaction mode, and reset its transaction
+ * mode, transaction timeout and default request options to the values it had when first
+ * created. Sessions that failed with a {@link ServerConnectionException}, including while
+ * reading a returned {@link ResultSequence}, or that cannot be rolled back or reset, are
+ * evicted and closed instead. When the pool is full,
+ * returned Sessions are simply closed.
+ *
+ * <p>Only {@link #newSession()} is pooled: Sessions requested for explicit credentials
+ * or content base are delegated unpooled to the target ContentSource.
+ *
+ * <p><b>If you configure both a SessionPoolingContentSourceProxy and a
+ * TransactionAwareContentSourceProxy, make sure that the latter is the outermost
+ * ContentSource.</b> Transactional Sessions are then held for the whole transaction
+ * and returned to the pool on transaction completion.
+ *
+ * @author Stéphane Toussaint
+ * @see ContentSourceUtils#doReleaseSession
+ */
+public class SessionPoolingContentSourceProxy extends DelegatingContentSource implements DisposableBean {
+
+    private static final Log logger = LogFactory.getLog(SessionPoolingContentSourceProxy.class);
+
+    private static final int DEFAULT_MAX_IDLE = 8;
+
+    private static final int DEFAULT_MAX_ACTIVE = 64;
+
+    private static final long DEFAULT_MAX_WAIT_MILLIS = 30000;
+
+    private volatile BlockingDeque<PooledSession> idleSessions = new LinkedBlockingDeque<>(DEFAULT_MAX_IDLE);
+
+    private final Object activeMonitor = new Object();
+
+    private int maxActive = DEFAULT_MAX_ACTIVE;
+
+    private long maxWaitMillis = DEFAULT_MAX_WAIT_MILLIS;
+
+    private final AtomicInteger activeCount = new AtomicInteger();
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong reusedCount = new AtomicLong();
+    private final AtomicLong evictedCount = new AtomicLong();
+
+    /**
+     * Create a new SessionPoolingContentSourceProxy.
+     * @see #setTargetContentSource
+     */
+    public SessionPoolingContentSourceProxy() {
+    }
+
+    /**
+     * Create a new SessionPoolingContentSourceProxy.
+     * @param targetContentSource the target ContentSource
+     */
+    public SessionPoolingContentSourceProxy(ContentSource targetContentSource) {
+        super(targetContentSource);
+    }
+
+    /**
+     * Set the maximum number of idle Sessions kept in the pool. Default is 8.
+     * <p>Sessions already idle are moved to the resized pool, the ones exceeding
+     * the new maximum being closed.
+     * @param maxIdle the maximum number of idle Sessions
+     */
+    public synchronized void setMaxIdle(int maxIdle) {
+        Assert.isTrue(maxIdle > 0, "'maxIdle' must be greater than 0");
+        BlockingDeque<PooledSession> previousSessions = this.idleSessions;
+        BlockingDeque<PooledSession> resizedSessions = new LinkedBlockingDeque<>(maxIdle);
+        this.idleSessions = resizedSessions;
+
+        PooledSession pooledSession;
+        while ((pooledSession = previousSessions.pollFirst()) != null) {
+            if (!resizedSessions.offerLast(pooledSession)) {
+                closeQuietly(pooledSession.target);
+            }
+        }
+    }
+
+    /**
+     * Set the maximum number of Session handles in use at once. Default is 64.
+     * @param maxActive the maximum number of active Sessions
+     */
+    public void setMaxActive(int maxActive) {
+        Assert.isTrue(maxActive > 0, "'maxActive' must be greater than 0");
+        synchronized (this.activeMonitor) {
+            this.maxActive = maxActive;
+            this.activeMonitor.notifyAll();
+        }
+    }
+
+    /**
+     * Set how long {@link #newSession()} waits for a Session handle to be closed once
+     * {@link #setMaxActive maxActive} handles are in use. Default is 30 seconds, 0 to fail at once.
+     * @param maxWaitMillis the maximum wait in milliseconds
+     */
+    public void setMaxWaitMillis(long maxWaitMillis) {
+        Assert.isTrue(maxWaitMillis >= 0, "'maxWaitMillis' must not be negative");
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    /**
+     * Return a pooled Session handle. An idle Session is reused if any, a new one is
+     * requested from the target ContentSource otherwise.
+     * <p>The returned Session handle implements the SessionProxy interface,
+     * allowing to retrieve the underlying target Session.
+     * @return a pooled Session handle
+     * @throws org.springframework.dao.DataAccessResourceFailureException if no Session handle
+     * is made available within {@link #setMaxWaitMillis maxWaitMillis}
+     * @see SessionProxy#getTargetSession()
+     */
+    @Override
+    public Session newSession() {
+        acquireActive();
+
+        PooledSession pooledSession;
+        try {
+            pooledSession = idleSessions.pollFirst();
+
+            if (pooledSession != null) {
+                reusedCount.incrementAndGet();
+            } else {
+                logger.debug("No idle XDBC Session available, fetching a new one from target ContentSource");
+                pooledSession = new PooledSession(getTargetContentSource().newSession());
+                createdCount.incrementAndGet();
+            }
+        } catch (RuntimeException | Error ex) {
+            releaseActive();
+            throw ex;
+        }
+
+        return (Session) Proxy.newProxyInstance(
+                SessionProxy.class.getClassLoader(),
+                new Class<?>[] {SessionProxy.class},
+                new PooledSessionInvocationHandler(pooledSession));
+    }
+
+    /**
+     * Close all idle Sessions.
+     */
+    @Override
+    public void destroy() {
+        PooledSession pooledSession;
+        while ((pooledSession = idleSessions.pollFirst()) != null) {
+            closeQuietly(pooledSession.target);
+        }
+    }
+
+    /**
+     * @return the number of idle Sessions currently held by the pool
+     */
+    public int getIdleCount() {
+        return idleSessions.size();
+    }
+
+    /**
+     * @return the number of Session handles currently in use
+     */
+    public int getActiveCount() {
+        return activeCount.get();
+    }
+
+    /**
+     * @return the number of Sessions requested from the target ContentSource
+     */
+    public long getCreatedCount() {
+        return createdCount.get();
+    }
+
+    /**
+     * @return the number of Session handles served by an idle pooled Session
+     */
+    public long getReusedCount() {
+        return reusedCount.get();
+    }
+
+    /**
+     * @return the number of Sessions evicted because of a connection failure or an unsuccessful reset
+     */
+    public long getEvictedCount() {
+        return evictedCount.get();
+    }
+
+    private void acquireActive() {
+        synchronized (this.activeMonitor) {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(this.maxWaitMillis);
+            while (this.activeCount.get() >= this.maxActive) {
+                long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remainingMillis <= 0) {
+                    throw new CannotGetXdbcSessionException(String.format("No XDBC Session available : %d Sessions already in use", this.maxActive));
+                }
+                try {
+                    this.activeMonitor.wait(remainingMillis);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new CannotGetXdbcSessionException("Interrupted while waiting for an XDBC Session");
+                }
+            }
+            this.activeCount.incrementAndGet();
+        }
+    }
+
+    private void releaseActive() {
+        synchronized (this.activeMonitor) {
+            this.activeCount.decrementAndGet();
+            this.activeMonitor.notify();
+        }
+    }
+
+    private void release(PooledSession pooledSession) {
+        try {
+            if (pooledSession.broken || pooledSession.target.isClosed() || !pooledSession.reset()) {
+                evictedCount.incrementAndGet();
+                closeQuietly(pooledSession.target);
+                return;
+            }
+
+            if (!idleSessions.offerFirst(pooledSession)) {
+                closeQuietly(pooledSession.target);
+            }
+        } finally {
+            // Only once the Session is back in the pool, so that a waiting borrower reuses it
+            releaseActive();
+        }
+    }
+
+    private static void closeQuietly(Session session) {
+        try {
+            session.close();
+        } catch (Throwable ex) {
+            logger.debug("Could not close XDBC Session", ex);
+        }
+    }
+
+    /**
+     * A target Session along with the state it has to be reset to on release.
+     */
+    private static final class PooledSession {
+
+        private final Session target;
+        private final Session.TransactionMode initialTransactionMode;
+        private final int initialTransactionTimeout;
+        private final RequestOptions initialRequestOptions;
+
+        private volatile boolean broken;
+
+        PooledSession(Session target) {
+            this.target = target;
+            this.initialTransactionMode = target.getTransactionMode();
+            this.initialTransactionTimeout = target.getCachedTxnTimeout();
+            this.initialRequestOptions = target.getDefaultRequestOptions();
+        }
+
+        boolean reset() {
+            try {
+                Session.TransactionMode transactionMode = target.getTransactionMode();
+                if (isMultiStatement(transactionMode)) {
+                    // The next borrower must not inherit an uncommitted transaction, nor the locks it holds.
+                    target.rollback();
+                }
+                if (transactionMode != initialTransactionMode) {
+                    target.setTransactionMode(initialTransactionMode);
+                }
+                if (target.getCachedTxnTimeout() != initialTransactionTimeout) {
+                    target.setTransactionTimeout(initialTransactionTimeout);
+                }
+                target.setDefaultRequestOptions(initialRequestOptions);
+                target.setUserObject(null);
+                return true;
+            } catch (Throwable ex) {
+                logger.debug("Could not reset XDBC Session, evicting it from the pool", ex);
+                return false;
+            }
+        }
+
+        private static boolean isMultiStatement(Session.TransactionMode transactionMode) {
+            return transactionMode != Session.TransactionMode.AUTO
+                    && transactionMode != Session.TransactionMode.UPDATE_AUTO_COMMIT
+                    && transactionMode != Session.TransactionMode.QUERY_SINGLE_STATEMENT;
+        }
+    }
+
+    private static boolean isConnectionFailure(Throwable ex) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ServerConnectionException || cause instanceof IOException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Wrap result sequences and items read from a pooled Session, so that a connection failure
+     * raised while reading them marks the Session as broken as well.
+     */
+    private static Object trackConnectionFailures(Object result, PooledSession pooledSession) {
+        Class<?> resultInterface = result instanceof ResultSequence ? ResultSequence.class : result instanceof ResultItem ? ResultItem.class : null;
+        if (resultInterface == null) {
+            return result;
+        }
+
+        return Proxy.newProxyInstance(resultInterface.getClassLoader(), new Class<?>[] {resultInterface}, (proxy, method, args) -> {
+            try {
+                Object value = method.invoke(result, args);
+                return value == null ? null : trackConnectionFailures(value, pooledSession);
+            } catch (InvocationTargetException ex) {
+                if (isConnectionFailure(ex.getTargetException())) {
+                    pooledSession.broken = true;
+                }
+                throw ex.getTargetException();
+            }
+        });
+    }
+
+    /**
+     * Invocation handler that returns the target Session to the pool on close
+     * and marks it as broken on connection failure.
+     */
+    private class PooledSessionInvocationHandler implements InvocationHandler {
+
+        private final PooledSession pooledSession;
+
+        private boolean closed = false;
+
+        PooledSessionInvocationHandler(PooledSession pooledSession) {
+            this.pooledSession = pooledSession;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            // Invocation on SessionProxy interface coming in...
+
+            if (method.getName().equals("equals")) {
+                // Only consider equal when proxies are identical.
+                return (proxy == args[0]);
+            } else if (method.getName().equals("hashCode")) {
+                // Use hashCode of Session proxy.
+                return System.identityHashCode(proxy);
+            } else if (method.getName().equals("toString")) {
+                return "Pooled Session proxy for target Session [" + this.pooledSession.target + "]";
+            } else if (method.getName().equals("getTargetSession")) {
+                // Handle getTargetSession method: return underlying Session.
+                return this.pooledSession.target;
+            } else if (method.getName().equals("isClosed")) {
+                return this.closed;
+            } else if (method.getName().equals("close")) {
+                // Handle close method: return target Session to the pool, only once.
+                if (!this.closed) {
+                    this.closed = true;
+                    release(this.pooledSession);
+                }
+                return null;
+            }
+
+            if (this.closed) {
+                throw new IllegalStateException("Session handle already closed");
+            }
+
+            try {
+                Object result = method.invoke(this.pooledSession.target, args);
+                return result == null ? null : trackConnectionFailures(result, this.pooledSession);
+            } catch (InvocationTargetException ex) {
+                if (ex.getTargetException() instanceof ServerConnectionException) {
+                    this.pooledSession.broken = true;
+                }
+                throw ex.getTargetException();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com._4dconcept.springframework.data.marklogic.datasource.lookup;
+
+import com._4dconcept.springframework.data.marklogic.datasource.ReadOnlySessionContextHolder;
+import com.marklogic.xcc.ContentSource;
+import com.marklogic.xcc.Session;
+import org.springframework.lang.Nullable;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collections;
+import java.util.function.Supplier;
+
+/**
+ * ContentSource that routes read only work to a read optimized target ContentSource
+ * (replica cluster, dedicated e-nodes...) and everything else to the primary one.
+ *
+ * <p>Work is considered read only when running within a read-only transaction, or
+ * outside of any transaction when marked through {@link ReadOnlySessionContextHolder},
+ * which {@link com._4dconcept.springframework.data.marklogic.core.MarklogicTemplate}
+ * does for its find and count operations. Sessions obtained from the read target are
+ * switched to {@link Session.TransactionMode#QUERY} so that they run lock free at
+ * a timestamp.
+ *
+ * <p>As the transaction read-only flag is only exposed once the transaction has begun,
+ * transaction managers should work with a {@link com._4dconcept.springframework.data.marklogic.datasource.LazySessionContentSourceProxy}
+ * wrapping this router, so that the actual Session is fetched on first use.
+ *
+ * <pre class="code">
+ * ReadWriteContentSourceRouter router = new ReadWriteContentSourceRouter(primaryContentSource, replicaContentSource);
+ * router.afterPropertiesSet();</pre>
+ *
+ * @author Stéphane Toussaint
+ * @see ReadOnlySessionContextHolder
+ */
+public class ReadWriteContentSourceRouter extends AbstractRoutingContentSource {
+
+    /**
+     * Lookup keys of the routed ContentSources.
+     */
+    public enum Route {
+        READ, WRITE
+    }
+
+    /**
+     * Create a new ReadWriteContentSourceRouter.
+     * @see #setTargetContentSources
+     * @see #setDefaultTargetContentSource
+     */
+    public ReadWriteContentSourceRouter() {
+    }
+
+    /**
+     * Create a new ReadWriteContentSourceRouter.
+     * @param writeContentSource the primary ContentSource, used for any non read only work
+     * @param readContentSource the read optimized ContentSource
+     */
+    public ReadWriteContentSourceRouter(ContentSource writeContentSource, ContentSource readContentSource) {
+        setTargetContentSources(Collections.singletonMap(Route.READ, readContentSource));
+        setDefaultTargetContentSource(writeContentSource);
+    }
+
+    /**
+     * Supports {@link Route} values as well as route names.
+     */
+    @Override
+    protected Object resolveSpecifiedLookupKey(Object lookupKey) {
+        if (lookupKey instanceof Route) {
+            return lookupKey;
+        } else if (lookupKey instanceof String) {
+            return Route.valueOf((String) lookupKey);
+        } else {
+            throw new IllegalArgumentException("Invalid lookup key - needs to be a Route or a Route name String: " + lookupKey);
+        }
+    }
+
+    @Override
+    @Nullable
+    protected Object determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return TransactionSynchronizationManager.isCurrentTransactionReadOnly() ? Route.READ : Route.WRITE;
+        }
+        return ReadOnlySessionContextHolder.isReadOnly() ? Route.READ : Route.WRITE;
+    }
+
+    @Override
+    public Session newSession() {
+        return prepareSession(super::newSession);
+    }
+
+    @Override
+    public Session newSession(String contentbaseId) {
+        return prepareSession(() -> super.newSession(contentbaseId));
+    }
+
+    @Override
+    public Session newSession(String username, String password) {
+        return prepareSession(() -> super.newSession(username, password));
+    }
+
+    @Override
+    public Session newSession(String username, String password, String contentbaseId) {
+        return prepareSession(() -> super.newSession(username, password, contentbaseId));
+    }
+
+    @Override
+    public Session newSession(String userName, char[] password) {
+        return prepareSession(() -> super.newSession(userName, password));
+    }
+
+    @Override
+    public Session newSession(String userName, char[] password, String contentbaseId) {
+        return prepareSession(() -> super.newSession(userName, password, contentbaseId));
+    }
+
+    private Session prepareSession(Supplier<Session> sessionSupplier) {
+        boolean readOnly = determineCurrentLookupKey() == Route.READ;
+        Session session = sessionSupplier.get();
+        if (readOnly) {
+            session.setTransactionMode(Session.TransactionMode.QUERY);
+        }
+        return session;
+    }
+
+}
@@ -16,12 +16,15 @@
 package com._4dconcept.springframework.data.marklogic.repository;
 
 import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.repository.NoRepositoryBean;
 import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.data.repository.query.QueryByExampleExecutor;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Marklogic specific {@link org.springframework.data.repository.Repository} interface.
@@ -44,6 +47,14 @@ public interface MarklogicRepository<T, ID>
      */
     List<T> findAll();
 
+    /**
+     * Returns all instances of the type, lazily read from the server as the stream is consumed.
+     * The stream holds a Session until it is closed and should therefore be used within a try-with-resources block.
+     *
+     * @return a stream of all entities
+     */
+    Stream<T> streamAll();
+
     /*
      * (non-Javadoc)
      * @see org.springframework.data.repository.PagingAndSortingRepository#findAll(org.springframework.data.domain.Sort)
@@ -56,6 +67,25 @@ public interface MarklogicRepository<T, ID>
      */
     List<T> findAllById(Iterable<ID> ids);
 
+    /**
+     * Returns all instances of the type containing the given words, from the most to the least relevant.
+     * Words are matched stemmed and case insensitive through the universal index.
+     *
+     * @param text the words to search for
+     * @return the matching entities ordered by relevance
+     */
+    List<T> search(String text);
+
+    /**
+     * Returns a {@link Page} of instances of the type containing the given words. Unless the pageable is sorted,
+     * the entities are ordered from the most to the least relevant.
+     *
+     * @param text the words to search for
+     * @param pageable the page request
+     * @return a page of matching entities
+     */
+    Page<T> search(String text, Pageable pageable);
+
     /* (non-Javadoc)
          * @see org.springframework.data.repository.query.QueryByExampleExecutor#findAll(org.springframework.data.domain.Example)
          */
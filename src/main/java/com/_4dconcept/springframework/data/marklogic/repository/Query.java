@@ -0,0 +1,52 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com._4dconcept.springframework.data.marklogic.repository;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Annotation to declare the query executed by a repository method, inline.
+ *
+ * <p>Named method parameters are bound by name as external variables. The query is checked and prepared once, when
+ * the repository is created.
+ *
+ * @author Stéphane Toussaint
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ ElementType.METHOD, ElementType.ANNOTATION_TYPE })
+public @interface Query {
+
+    /**
+     * @return an XQuery main module declaring each named parameter as an external variable, or a serialized
+     * cts:query referencing them when {@link #cts()} is set
+     */
+    String value();
+
+    /**
+     * A cts:query is searched within the default collection of the repository entity, sorted and paged according
+     * to the method {@link org.springframework.data.domain.Sort} and {@link org.springframework.data.domain.Pageable}
+     * parameters. An XQuery main module is only paged : its results are expected to be ordered by the query itself.
+     *
+     * @return whether {@link #value()} is a serialized cts:query
+     */
+    boolean cts() default false;
+
+}
@@ -0,0 +1,30 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com._4dconcept.springframework.data.marklogic.repository;
+
+import org.springframework.data.repository.NoRepositoryBean;
+import org.springframework.data.repository.reactive.ReactiveSortingRepository;
+
+/**
+ * Marklogic specific {@link org.springframework.data.repository.Repository} interface with reactive support.
+ * Query methods may return a {@link reactor.core.publisher.Flux} or a {@link reactor.core.publisher.Mono}.
+ *
+ * @author Stéphane Toussaint
+ */
+@NoRepositoryBean
+public interface ReactiveMarklogicRepository<T, ID> extends ReactiveSortingRepository<T, ID> {
+
+}
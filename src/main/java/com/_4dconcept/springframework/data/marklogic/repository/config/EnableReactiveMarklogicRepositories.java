@@ -0,0 +1,137 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com._4dconcept.springframework.data.marklogic.repository.config;
+
+import com._4dconcept.springframework.data.marklogic.core.ReactiveMarklogicTemplate;
+import com._4dconcept.springframework.data.marklogic.repository.support.ReactiveMarklogicRepositoryFactoryBean;
+import org.springframework.beans.factory.FactoryBean;
+import org.springframework.context.annotation.ComponentScan.Filter;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.repository.config.DefaultRepositoryBaseClass;
+import org.springframework.data.repository.query.QueryLookupStrategy;
+import org.springframework.data.repository.query.QueryLookupStrategy.Key;
+
+import java.lang.annotation.*;
+
+/**
+ * Annotation to enable reactive Marklogic repositories.
+ *
+ * @author Stéphane Toussaint
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Inherited
+@Import(ReactiveMarklogicRepositoriesRegistrar.class)
+public @interface EnableReactiveMarklogicRepositories {
+
+    /**
+     * Alias for the {@link #basePackages()} attribute. Allows for more concise annotation declarations e.g.:
+     * {@code @EnableReactiveMarklogicRepositories("org.my.pkg")} instead of
+     * {@code @EnableReactiveMarklogicRepositories(basePackages="org.my.pkg")}.
+     *
+     * @return the packages to be scanned for repositories discovery
+     */
+    String[] value() default {};
+
+    /**
+     * Base packages to scan for annotated components. {@link #value()} is an alias for (and mutually exclusive with) this
+     * attribute. Use {@link #basePackageClasses()} for a type-safe alternative to String-based package names.
+     *
+     * @return the packages to be scanned for repositories discovery
+     */
+    String[] basePackages() default {};
+
+    /**
+     * Type-safe alternative to {@link #basePackages()} for specifying the packages to scan for annotated components. The
+     * package of each class specified will be scanned. Consider creating a special no-op marker class or interface in
+     * each package that serves no purpose other than being referenced by this attribute.
+     *
+     * @return the classes the packages will be scanned for repositories discovery
+     */
+    Class<?>[] basePackageClasses() default {};
+
+    /**
+     * Specifies which types are eligible for component scanning. Further narrows the set of candidate components from
+     * everything in {@link #basePackages()} to everything in the base packages that matches the given filter or filters.
+     *
+     * @return include filters used for component scanning
+     */
+    Filter[] includeFilters() default {};
+
+    /**
+     * Specifies which types are not eligible for component scanning.
+     *
+     * @return exclude filters used for component scanning
+     */
+    Filter[] excludeFilters() default {};
+
+    /**
+     * Returns the postfix to be used when looking up custom repository implementations. Defaults to {@literal Impl}. So
+     * for a repository named {@code UserRepository} the corresponding implementation class will be looked up scanning for
+     * {@code UserRepositoryImpl}.
+     *
+     * @return the repository implementation postfix
+     */
+    String repositoryImplementationPostfix() default "Impl";
+
+    /**
+     * Configures the location of where to find the Spring Data named queries properties file. Will default to
+     * {@code META-INF/marklogic-named-queries.properties}.
+     *
+     * @return the named queries resource location
+     */
+    String namedQueriesLocation() default "classpath*:META-INF/marklogic-named-queries.properties";
+
+    /**
+     * Returns the key of the {@link QueryLookupStrategy} to be used for lookup queries for query methods. Defaults to
+     * {@link Key#CREATE_IF_NOT_FOUND}.
+     *
+     * @return the query lookup strategy ()
+     */
+    Key queryLookupStrategy() default Key.CREATE_IF_NOT_FOUND;
+
+    /**
+     * Returns the {@link FactoryBean} class to be used for each repository instance. Defaults to
+     * {@link ReactiveMarklogicRepositoryFactoryBean}.
+     *
+     * @return the repository factory bean
+     */
+    Class<?> repositoryFactoryBeanClass() default ReactiveMarklogicRepositoryFactoryBean.class;
+
+    /**
+     * Configure the repository base class to be used to create repository proxies for this particular configuration.
+     *
+     * @return the repository base class
+     */
+    Class<?> repositoryBaseClass() default DefaultRepositoryBaseClass.class;
+
+    /**
+     * Configures the name of the {@link ReactiveMarklogicTemplate} bean to be used with the repositories detected.
+     *
+     * @return the reactive marklogic template implementation name
+     */
+    String reactiveMarklogicTemplateRef() default "reactiveMarklogicTemplate";
+
+    /**
+     * Configures whether nested repository-interfaces (e.g. defined as inner classes) should be discovered by the
+     * repositories infrastructure.
+     *
+     * @return whether to consider nested repository interface
+     */
+    boolean considerNestedRepositories() default false;
+
+}
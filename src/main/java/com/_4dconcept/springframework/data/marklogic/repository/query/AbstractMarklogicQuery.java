@@ -21,6 +21,7 @@ import org.springframework.data.repository.query.ParameterAccessor;
 import org.springframework.data.repository.query.ParametersParameterAccessor;
 import org.springframework.data.repository.query.RepositoryQuery;
 import org.springframework.data.repository.query.ResultProcessor;
+import org.springframework.data.util.StreamUtils;
 import org.springframework.util.Assert;
 
 /**
@@ -60,6 +61,8 @@ public abstract class AbstractMarklogicQuery implements RepositoryQuery {
         if (isDeleteQuery()) {
 //            operations.remove(query);
             return null;
+        } else if (method.isStreamQuery()) {
+            return StreamUtils.createStreamFromIterator(operations.stream(query, processor.getReturnedType().getDomainType()));
         } else if (method.isCollectionQuery()) {
             return operations.find(query, processor.getReturnedType().getDomainType());
         } else {
@@ -16,16 +16,24 @@
 package com._4dconcept.springframework.data.marklogic.repository.query;
 
 import com._4dconcept.springframework.data.marklogic.MarklogicCollectionUtils;
+import com._4dconcept.springframework.data.marklogic.core.mapping.GeospatialIndexed;
 import com._4dconcept.springframework.data.marklogic.core.mapping.MarklogicMappingContext;
 import com._4dconcept.springframework.data.marklogic.core.mapping.MarklogicPersistentProperty;
 import com._4dconcept.springframework.data.marklogic.core.query.Criteria;
 import com._4dconcept.springframework.data.marklogic.core.query.CriteriaDefinition;
+import com._4dconcept.springframework.data.marklogic.core.query.GeospatialCriteria;
 import com._4dconcept.springframework.data.marklogic.core.query.Query;
 import com._4dconcept.springframework.data.marklogic.core.query.QueryBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.dao.TypeMismatchDataAccessException;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.geo.Box;
+import org.springframework.data.geo.Circle;
+import org.springframework.data.geo.Distance;
+import org.springframework.data.geo.Point;
+import org.springframework.data.geo.Polygon;
+import org.springframework.data.geo.Shape;
 import org.springframework.data.mapping.PersistentPropertyPath;
 import org.springframework.data.repository.query.ParameterAccessor;
 import org.springframework.data.repository.query.parser.AbstractQueryCreator;
@@ -33,8 +41,11 @@ import org.springframework.data.repository.query.parser.Part;
 import org.springframework.data.repository.query.parser.PartTree;
 import org.springframework.lang.Nullable;
 
+import javax.xml.namespace.QName;
+
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -49,6 +60,11 @@ public class MarklogicQueryCreator extends AbstractQueryCreator<Query, Criteria>
 
     private static final Logger LOGGER = LoggerFactory.getLogger(MarklogicQueryCreator.class);
 
+    private static final List<String> WILDCARDED = Collections.singletonList("wildcarded");
+    private static final List<String> WILDCARDED_CASE_INSENSITIVE = Collections.unmodifiableList(Arrays.asList("wildcarded", "case-insensitive"));
+
+    private static final String REGEX_METACHARACTERS = "\\[](){}|*+?^$";
+
     private MarklogicMappingContext context;
 
     private Class<?> returnedType;
@@ -129,16 +145,27 @@ public class MarklogicQueryCreator extends AbstractQueryCreator<Query, Criteria>
 //            case LESS_THAN_EQUAL:
 //            case BETWEEN:
 //            case NOT_IN:
-//            case NOT_LIKE
-//            case LIKE:
-//            case STARTING_WITH:
-//            case ENDING_WITH:
-//            case NEAR:
-//            case WITHIN:
-//            case REGEX:
 //            case NOT_CONTAINING:
-            case IN:
+            case NEAR:
+            case WITHIN:
+                return computeGeospatialCriteria(part, property, parameters);
+            case LIKE:
+                return computeWordCriteria(part, property, toWildcardPattern(part, parameters.next()));
+            case NOT_LIKE:
+                return new Criteria(Criteria.Operator.NOT, computeWordCriteria(part, property, toWildcardPattern(part, parameters.next())));
+            case STARTING_WITH:
+                return computeWordCriteria(part, property, literal(part, parameters.next()) + "*");
+            case ENDING_WITH:
+                return computeWordCriteria(part, property, "*" + literal(part, parameters.next()));
+            case REGEX:
+                return computeWordCriteria(part, property, regexToWildcardPattern(String.valueOf(parameters.next())));
             case CONTAINING:
+                Object parameter = parameters.next();
+                if (!property.isCollectionLike() && parameter instanceof String) {
+                    return computeWordCriteria(part, property, "*" + literal(part, parameter) + "*");
+                }
+                return computeContainingCriteria(property, parameter);
+            case IN:
                 return computeContainingCriteria(property, parameters.next());
             case IS_NULL:
             case IS_EMPTY:
@@ -160,6 +187,137 @@ public class MarklogicQueryCreator extends AbstractQueryCreator<Query, Criteria>
         }
     }
 
+    /**
+     * Build a wildcarded {@code cts:element-word-query} on the given property, resolved from the word lexicon and
+     * wildcard indexes rather than by filtering documents. Matching is done per word, so a pattern matches any word
+     * of the element value.
+     *
+     * @param part the current method part
+     * @param property the resolve entity property
+     * @param pattern the wildcard pattern, using {@code *} and {@code ?}
+     * @return the build criteria
+     */
+    private Criteria computeWordCriteria(Part part, MarklogicPersistentProperty property, String pattern) {
+        if (marklogicCollectionUtils.getCollectionAnnotation(property).isPresent()) {
+            throw new IllegalArgumentException(String.format("Unsupported keyword %s on collection property %s", part.getType(), property.getName()));
+        }
+
+        Criteria criteria = new Criteria(property, pattern);
+        criteria.setOptions(part.shouldIgnoreCase() == Part.IgnoreCaseType.NEVER ? WILDCARDED : WILDCARDED_CASE_INSENSITIVE);
+        return new Criteria(Criteria.Operator.WORD, criteria);
+    }
+
+    /**
+     * Build a geospatial criteria on a {@link GeospatialIndexed} property. The region is given either as a {@link Circle},
+     * a {@link Box} or a {@link Polygon} parameter, or as a {@link Point} parameter followed by a {@link Distance} one.
+     *
+     * @param part the current method part
+     * @param property the resolve entity property
+     * @param parameters the method parameters iterator
+     * @return the build criteria
+     */
+    private Criteria computeGeospatialCriteria(Part part, MarklogicPersistentProperty property, Iterator<Object> parameters) {
+        GeospatialIndexed geospatialIndexed = property.findAnnotation(GeospatialIndexed.class);
+        if (geospatialIndexed == null) {
+            throw new IllegalArgumentException(String.format("Unsupported keyword %s on property %s not annotated with @%s",
+                    part.getType(), property.getName(), GeospatialIndexed.class.getSimpleName()));
+        }
+
+        Shape region = computeRegion(part, parameters);
+
+        GeospatialCriteria criteria;
+        if (geospatialIndexed.type() == GeospatialIndexed.Type.PAIR) {
+            String namespaceUri = property.getQName().getNamespaceURI();
+            criteria = new GeospatialCriteria(property.getQName(), new QName(namespaceUri, geospatialIndexed.latitude()),
+                    new QName(namespaceUri, geospatialIndexed.longitude()), region);
+        } else {
+            criteria = new GeospatialCriteria(property.getQName(), region);
+        }
+
+        if (geospatialIndexed.options().length > 0) {
+            criteria.setOptions(Arrays.asList(geospatialIndexed.options()));
+        }
+
+        return criteria;
+    }
+
+    private Shape computeRegion(Part part, Iterator<Object> parameters) {
+        Object parameter = parameters.next();
+
+        if (parameter instanceof Point) {
+            Object distance = parameters.hasNext() ? parameters.next() : null;
+            if (!(distance instanceof Distance)) {
+                throw new IllegalArgumentException(String.format("Keyword %s expects a Point parameter to be followed by a Distance parameter", part.getType()));
+            }
+            return new Circle((Point) parameter, (Distance) distance);
+        } else if (parameter instanceof Circle || parameter instanceof Box || parameter instanceof Polygon) {
+            return (Shape) parameter;
+        }
+
+        throw new IllegalArgumentException(String.format("Keyword %s expects a Point, Circle, Box or Polygon parameter, got %s", part.getType(), parameter));
+    }
+
+    private static String toWildcardPattern(Part part, Object parameter) {
+        return literal(part, parameter).replace('%', '*').replace('_', '?');
+    }
+
+    /**
+     * Ensure the given parameter may be embedded in a wildcard pattern. MarkLogic word queries have no way to escape
+     * the {@code *} and {@code ?} wildcards, a value holding one of them is then rejected rather than matched loosely.
+     *
+     * @param part the current method part
+     * @param parameter the bound parameter
+     * @return the parameter as a string
+     */
+    private static String literal(Part part, Object parameter) {
+        String value = String.valueOf(parameter);
+        if (value.indexOf('*') >= 0 || value.indexOf('?') >= 0) {
+            throw new IllegalArgumentException(String.format("Keyword %s does not support the '*' and '?' wildcard characters in its parameter, got %s", part.getType(), value));
+        }
+        return value;
+    }
+
+    /**
+     * Translate a regular expression into a wildcard pattern. Only {@code .}, {@code .*}, {@code .+}, escaped literals
+     * and the {@code ^} and {@code $} anchors have a wildcard counterpart : any other construct is rejected.
+     *
+     * @param regex the regular expression
+     * @return the equivalent wildcard pattern
+     */
+    static String regexToWildcardPattern(String regex) {
+        boolean startAnchored = regex.startsWith("^");
+        boolean endAnchored = regex.endsWith("$") && !regex.endsWith("\\$");
+        String body = regex.substring(startAnchored ? 1 : 0, endAnchored ? regex.length() - 1 : regex.length());
+
+        StringBuilder pattern = new StringBuilder(startAnchored ? "" : "*");
+        for (int i = 0; i < body.length(); i++) {
+            char c = body.charAt(i);
+            char next = i + 1 < body.length() ? body.charAt(i + 1) : 0;
+            if (c == '\\' && next != 0 && !Character.isLetterOrDigit(next) && next != '*' && next != '?') {
+                pattern.append(next);
+                i++;
+            } else if (c == '.' && next == '*') {
+                pattern.append('*');
+                i++;
+            } else if (c == '.' && next == '+') {
+                pattern.append("?*");
+                i++;
+            } else if (c == '.') {
+                pattern.append('?');
+            } else if (REGEX_METACHARACTERS.indexOf(c) >= 0) {
+                throw new IllegalArgumentException(String.format("Unsupported regular expression %s : only '.', '.*', '.+', '^' and '$' have a wildcard counterpart", regex));
+            } else {
+                pattern.append(c);
+            }
+        }
+
+        if (!endAnchored) {
+            pattern.append('*');
+        }
+
+        return pattern.toString().replaceAll("\\*+", "*");
+    }
+
     private Criteria computeContainingCriteria(MarklogicPersistentProperty property, Object parameter) {
         return buildSimpleCriteria(property, parameter, Criteria.Operator.OR);
     }
@@ -191,7 +349,7 @@ public class MarklogicQueryCreator extends AbstractQueryCreator<Query, Criteria>
         if (marklogicCollectionUtils.getCollectionAnnotation(property).isPresent()) {
             return new Criteria(Criteria.Operator.COLLECTION, value);
         } else {
-            return new Criteria(property.getQName(), value);
+            return new Criteria(property, value);
         }
     }
 
@@ -15,9 +15,12 @@
  */
 package com._4dconcept.springframework.data.marklogic.repository.query;
 
+import com._4dconcept.springframework.data.marklogic.repository.Query;
+import org.springframework.core.annotation.AnnotatedElementUtils;
 import org.springframework.data.projection.ProjectionFactory;
 import org.springframework.data.repository.core.RepositoryMetadata;
 import org.springframework.data.repository.query.QueryMethod;
+import org.springframework.lang.Nullable;
 
 import java.lang.reflect.Method;
 
@@ -28,6 +31,8 @@ import java.lang.reflect.Method;
  */
 public class MarklogicQueryMethod extends QueryMethod {
 
+    private final @Nullable Query queryAnnotation;
+
     /**
      * Creates a new {@link MarklogicQueryMethod} from the given {@link Method}.
      *
@@ -37,6 +42,23 @@ public class MarklogicQueryMethod extends QueryMethod {
      */
     public MarklogicQueryMethod(Method method, RepositoryMetadata metadata, ProjectionFactory projectionFactory) {
         super(method, metadata, projectionFactory);
+
+        this.queryAnnotation = AnnotatedElementUtils.findMergedAnnotation(method, Query.class);
+    }
+
+    /**
+     * @return whether the method declares its query through a {@link Query} annotation
+     */
+    public boolean hasAnnotatedQuery() {
+        return queryAnnotation != null;
+    }
+
+    /**
+     * @return the {@link Query} annotation of the method, null if none
+     */
+    @Nullable
+    public Query getQueryAnnotation() {
+        return queryAnnotation;
     }
 
 }
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com._4dconcept.springframework.data.marklogic.repository.query;
+
+import com._4dconcept.springframework.data.marklogic.core.MarklogicInvokeOperationOptions;
+import com.marklogic.xcc.ValueFactory;
+import com.marklogic.xcc.types.XName;
+import com.marklogic.xcc.types.XdmValue;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.data.repository.query.Parameter;
+import org.springframework.data.repository.query.QueryMethod;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Binder of the named parameters of a query method to XQuery external variables, computed once per method : the
+ * variable name and the XDM binder of each named parameter.
+ *
+ * <p>Variables are handed to the template as {@link XName} keys and {@link XdmValue} values, used as is. Values of
+ * types without a dedicated binder go through the {@link ConversionService} on each call, as the template would do.
+ *
+ * @author Stéphane Toussaint
+ */
+public final class QueryMethodVariableBinder {
+
+    private static final XdmValue EMPTY_STRING = ValueFactory.newXSString("");
+
+    private final int[] parameterIndexes;
+    private final XName[] variableNames;
+    private final List<Function<Object, XdmValue>> binders;
+
+    public QueryMethodVariableBinder(QueryMethod queryMethod, ConversionService conversionService) {
+        List<Integer> indexes = new ArrayList<>();
+        List<XName> names = new ArrayList<>();
+        List<Function<Object, XdmValue>> parameterBinders = new ArrayList<>();
+
+        for (Parameter parameter : queryMethod.getParameters().getBindableParameters()) {
+            parameter.getName().ifPresent(name -> {
+                indexes.add(parameter.getIndex());
+                names.add(new XName(name));
+                parameterBinders.add(binderFor(parameter.getType(), conversionService));
+            });
+        }
+
+        this.parameterIndexes = indexes.stream().mapToInt(Integer::intValue).toArray();
+        this.variableNames = names.toArray(new XName[0]);
+        this.binders = parameterBinders;
+    }
+
+    private static Function<Object, XdmValue> binderFor(Class<?> type, ConversionService conversionService) {
+        Class<?> parameterType = ClassUtils.resolvePrimitiveIfNecessary(type);
+        if (String.class.equals(parameterType)) {
+            return value -> ValueFactory.newXSString((String) value);
+        } else if (Boolean.class.equals(parameterType)) {
+            return value -> ValueFactory.newXSBoolean((Boolean) value);
+        } else if (Integer.class.equals(parameterType)) {
+            return value -> ValueFactory.newXSInteger((Integer) value);
+        } else if (Long.class.equals(parameterType)) {
+            return value -> ValueFactory.newXSInteger((Long) value);
+        }
+        return value -> {
+            XdmValue converted = conversionService.convert(value, XdmValue.class);
+            return converted == null ? EMPTY_STRING : converted;
+        };
+    }
+
+    /**
+     * @return the local names of the bound variables
+     */
+    public List<String> getVariableNames() {
+        List<String> localNames = new ArrayList<>(variableNames.length);
+        for (XName variableName : variableNames) {
+            localNames.add(variableName.getLocalname());
+        }
+        return Collections.unmodifiableList(localNames);
+    }
+
+    /**
+     * @param parameters the query method invocation arguments
+     * @param capacity the number of variables the caller is about to add
+     * @return a mutable map of the bound variables
+     */
+    public Map<Object, Object> bindVariables(Object[] parameters, int capacity) {
+        Map<Object, Object> params = new HashMap<>((int) ((variableNames.length + capacity) / 0.75f) + 1);
+        for (int i = 0; i < variableNames.length; i++) {
+            params.put(variableNames[i], bind(i, parameters[parameterIndexes[i]]));
+        }
+        return params;
+    }
+
+    /**
+     * @param parameters the query method invocation arguments
+     * @return the invoke options carrying the bound variables
+     */
+    public MarklogicInvokeOperationOptions bind(Object[] parameters) {
+        return options(bindVariables(parameters, 0), false);
+    }
+
+    /**
+     * @param params the variables to carry
+     * @param staticQuery whether the invoked query is a static one
+     * @return invoke options carrying the given variables
+     */
+    public static MarklogicInvokeOperationOptions options(Map<Object, Object> params, boolean staticQuery) {
+        return new BoundOptions(params, staticQuery);
+    }
+
+    private XdmValue bind(int variable, @Nullable Object value) {
+        return value == null ? EMPTY_STRING : binders.get(variable).apply(value);
+    }
+
+    private static final class BoundOptions implements MarklogicInvokeOperationOptions {
+
+        private final Map<Object, Object> params;
+        private final boolean staticQuery;
+
+        BoundOptions(Map<Object, Object> params, boolean staticQuery) {
+            this.params = params;
+            this.staticQuery = staticQuery;
+        }
+
+        @Override
+        public Map<Object, Object> params() {
+            return params;
+        }
+
+        @Override
+        public boolean staticQuery() {
+            return staticQuery;
+        }
+    }
+}
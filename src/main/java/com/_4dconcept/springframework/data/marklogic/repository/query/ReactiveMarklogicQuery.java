@@ -0,0 +1,73 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com._4dconcept.springframework.data.marklogic.repository.query;
+
+import com._4dconcept.springframework.data.marklogic.core.ReactiveMarklogicOperations;
+import org.springframework.data.repository.query.RepositoryQuery;
+import org.springframework.util.Assert;
+
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * {@link RepositoryQuery} running a blocking query of a {@link ReactiveMarklogicQueryMethod} through
+ * {@link ReactiveMarklogicOperations}. Stream queries are emitted as a {@link reactor.core.publisher.Flux}, the other
+ * ones as a {@link reactor.core.publisher.Mono}.
+ *
+ * @author Stéphane Toussaint
+ */
+public class ReactiveMarklogicQuery implements RepositoryQuery {
+
+    private final RepositoryQuery delegate;
+    private final ReactiveMarklogicOperations operations;
+
+    public ReactiveMarklogicQuery(RepositoryQuery delegate, ReactiveMarklogicOperations operations) {
+        Assert.notNull(delegate, "RepositoryQuery must not be null!");
+        Assert.notNull(operations, "ReactiveMarklogicOperations must not be null!");
+        Assert.isInstanceOf(ReactiveMarklogicQueryMethod.class, delegate.getQueryMethod(), "A reactive query method is expected");
+
+        this.delegate = delegate;
+        this.operations = operations;
+    }
+
+    @Override
+    public Object execute(Object[] parameters) {
+        if (getQueryMethod().isStreamQuery()) {
+            return operations.executeStream(marklogicOperations -> toStream(delegate.execute(parameters)));
+        } else {
+            return operations.execute(marklogicOperations -> delegate.execute(parameters));
+        }
+    }
+
+    @Override
+    public ReactiveMarklogicQueryMethod getQueryMethod() {
+        return (ReactiveMarklogicQueryMethod) delegate.getQueryMethod();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Stream<Object> toStream(Object result) {
+        if (result == null) {
+            return Stream.empty();
+        } else if (result instanceof Stream) {
+            return (Stream<Object>) result;
+        } else if (result instanceof Iterable) {
+            return StreamSupport.stream(((Iterable<Object>) result).spliterator(), false);
+        } else {
+            return Stream.of(result);
+        }
+    }
+
+}
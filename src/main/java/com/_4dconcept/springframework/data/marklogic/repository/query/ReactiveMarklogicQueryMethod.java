@@ -0,0 +1,73 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com._4dconcept.springframework.data.marklogic.repository.query;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.repository.core.RepositoryMetadata;
+import org.springframework.data.repository.util.ReactiveWrappers;
+
+import java.lang.reflect.Method;
+
+/**
+ * {@link MarklogicQueryMethod} of a reactive repository. Methods returning a multi value type, such as a
+ * {@link reactor.core.publisher.Flux}, are executed as stream queries so that results are read on demand.
+ *
+ * @author Stéphane Toussaint
+ */
+public class ReactiveMarklogicQueryMethod extends MarklogicQueryMethod {
+
+    private final boolean multiValue;
+
+    /**
+     * Creates a new {@link ReactiveMarklogicQueryMethod} from the given {@link Method}.
+     *
+     * @param method must not be {@literal null}.
+     * @param metadata must not be {@literal null}.
+     * @param projectionFactory must not be {@literal null}.
+     */
+    public ReactiveMarklogicQueryMethod(Method method, RepositoryMetadata metadata, ProjectionFactory projectionFactory) {
+        super(method, metadata, projectionFactory);
+
+        if (!ReactiveWrappers.supports(method.getReturnType())) {
+            throw new IllegalStateException(String.format("Method %s of a reactive repository must return a reactive type", method.getName()));
+        }
+        for (int i = 0; i < method.getParameterCount(); i++) {
+            if (ReactiveWrappers.supports(new MethodParameter(method, i).getParameterType())) {
+                throw new IllegalStateException(String.format("Method %s cannot declare reactive parameters", method.getName()));
+            }
+        }
+
+        this.multiValue = ReactiveWrappers.isMultiValueType(method.getReturnType());
+    }
+
+    /**
+     * @return whether the method emits multiple values
+     */
+    @Override
+    public boolean isStreamQuery() {
+        return multiValue;
+    }
+
+    /**
+     * @return whether the method emits multiple values, a {@link reactor.core.publisher.Mono} never being a collection
+     */
+    @Override
+    public boolean isCollectionQuery() {
+        return multiValue;
+    }
+
+}
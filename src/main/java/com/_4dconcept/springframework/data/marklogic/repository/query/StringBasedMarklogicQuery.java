@@ -0,0 +1,267 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com._4dconcept.springframework.data.marklogic.repository.query;
+
+import com._4dconcept.springframework.data.marklogic.core.MarklogicInvokeOperationOptions;
+import com._4dconcept.springframework.data.marklogic.core.MarklogicOperations;
+import com._4dconcept.springframework.data.marklogic.core.cts.CTSQuerySerializer;
+import com._4dconcept.springframework.data.marklogic.core.query.QueryBuilder;
+import com._4dconcept.springframework.data.marklogic.repository.Query;
+import com.marklogic.xcc.ValueFactory;
+import com.marklogic.xcc.types.XName;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.repository.query.ParameterAccessor;
+import org.springframework.data.repository.query.ParametersParameterAccessor;
+import org.springframework.data.repository.query.RepositoryQuery;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * {@link RepositoryQuery} executing the inline query declared by a {@link Query} annotation.
+ *
+ * <p>The query is checked and prepared when created : an XQuery main module must declare every named parameter as an
+ * external variable, a cts:query must only reference named parameters. Prepared queries only vary with the requested
+ * sort, paging being bound through the {@code $__start} and {@code $__end} variables, and are flagged as static ones.
+ *
+ * @author Stéphane Toussaint
+ */
+public class StringBasedMarklogicQuery implements RepositoryQuery {
+
+    private static final String START_VARIABLE = "__start";
+    private static final String END_VARIABLE = "__end";
+    private static final XName START_NAME = new XName(START_VARIABLE);
+    private static final XName END_NAME = new XName(END_VARIABLE);
+
+    private static final String PAGING_DECLARATIONS = "declare variable $" + START_VARIABLE + " as xs:integer external;\n" +
+            "declare variable $" + END_VARIABLE + " as xs:integer external;\n";
+    private static final String PAGING_PREDICATE = "[$" + START_VARIABLE + " to $" + END_VARIABLE + "]";
+
+    private static final String NAME = "[\\p{L}_][\\p{L}\\p{N}_.-]*";
+    private static final Pattern VARIABLE_REFERENCE = Pattern.compile("\\$(" + NAME + ")");
+    private static final Pattern EXTERNAL_DECLARATION = Pattern.compile("declare\\s+variable\\s+\\$(" + NAME + ")[^;]*\\bexternal\\b");
+    private static final Pattern PROLOG_STATEMENT = Pattern.compile("\\s*(xquery\\s+version|declare|import)\\b");
+    private static final Pattern LITERAL_OR_COMMENT = Pattern.compile("'(?:[^']|'')*'|\"(?:[^\"]|\"\")*\"|\\(:.*?:\\)", Pattern.DOTALL);
+
+    private final MarklogicQueryMethod method;
+    private final MarklogicOperations operations;
+    private final QueryMethodVariableBinder variableBinder;
+    private final Class<?> domainType;
+    private final boolean cts;
+    private final boolean paged;
+
+    private final String prolog;
+    private final String body;
+    private final String countQuery;
+
+    private final Map<Sort, String> searchQueries = new ConcurrentHashMap<>();
+
+    public StringBasedMarklogicQuery(MarklogicQueryMethod method, MarklogicOperations operations) {
+        Assert.notNull(method, "MarklogicQueryMethod must not be null!");
+        Assert.notNull(operations, "MarklogicOperations must not be null!");
+
+        Query queryAnnotation = method.getQueryAnnotation();
+        Assert.notNull(queryAnnotation, "A @Query annotated method is expected");
+
+        this.method = method;
+        this.operations = operations;
+        this.variableBinder = new QueryMethodVariableBinder(method, operations.getConverter().getConversionService());
+        this.domainType = method.getResultProcessor().getReturnedType().getDomainType();
+        this.cts = queryAnnotation.cts();
+        this.paged = method.getParameters().hasPageableParameter();
+
+        String text = queryAnnotation.value();
+        String masked = mask(text);
+        checkSyntax(masked);
+
+        if (cts) {
+            checkCtsQuery(masked);
+            this.prolog = declareParameters();
+            this.body = text.trim();
+            this.countQuery = prolog + String.format("xdmp:estimate(%s)", ctsSearch(Sort.unsorted()));
+        } else {
+            checkMainModule(masked);
+            int bodyStart = prologEnd(masked);
+            this.prolog = text.substring(0, bodyStart) + "\n" + (paged ? PAGING_DECLARATIONS : "");
+            this.body = text.substring(bodyStart).trim();
+            this.countQuery = prolog + String.format("fn:count((%s))", body);
+        }
+
+        searchQueries.put(Sort.unsorted(), prepareSearchQuery(Sort.unsorted()));
+    }
+
+    @Override
+    public Object execute(Object[] parameters) {
+        ParameterAccessor accessor = new ParametersParameterAccessor(method.getParameters(), parameters);
+        Pageable pageable = accessor.getPageable();
+        Sort sort = accessor.getSort();
+
+        if (!cts && sort.isSorted()) {
+            throw new InvalidDataAccessApiUsageException(String.format("Method %s only supports sorting within its XQuery", method.getName()));
+        }
+
+        String query = searchQueries.computeIfAbsent(cts ? sort : Sort.unsorted(), this::prepareSearchQuery);
+        Map<Object, Object> params = variableBinder.bindVariables(parameters, paged ? 2 : 0);
+        if (paged) {
+            long start = pageable.isPaged() ? pageable.getOffset() + 1 : 1;
+            long end = pageable.isPaged() ? pageable.getOffset() + pageable.getPageSize() : Long.MAX_VALUE;
+            params.put(START_NAME, ValueFactory.newXSInteger(start));
+            params.put(END_NAME, ValueFactory.newXSInteger(end));
+        }
+        MarklogicInvokeOperationOptions options = QueryMethodVariableBinder.options(params, true);
+
+        Class<?> returnedType = method.getReturnedObjectType();
+        if (method.isPageQuery() || method.isSliceQuery()) {
+            List<?> content = operations.invokeAdhocQueryAsList(query, returnedType, options);
+            Long total = operations.invokeAdhocQuery(countQuery, Long.TYPE, options);
+            return new PageImpl<>(content, pageable, total == null ? 0 : total);
+        } else if (method.isStreamQuery()) {
+            return operations.invokeAdhocQueryAsList(query, returnedType, options).stream();
+        } else if (method.isCollectionQuery()) {
+            return operations.invokeAdhocQueryAsList(query, returnedType, options);
+        } else {
+            return operations.invokeAdhocQuery(query, returnedType, options);
+        }
+    }
+
+    @Override
+    public MarklogicQueryMethod getQueryMethod() {
+        return method;
+    }
+
+    private String prepareSearchQuery(Sort sort) {
+        String search = cts ? ctsSearch(sort) : String.format("(%s)", body);
+        return prolog + (paged ? search + PAGING_PREDICATE : search);
+    }
+
+    private String ctsSearch(Sort sort) {
+        com._4dconcept.springframework.data.marklogic.core.query.Query query = new QueryBuilder(operations).ofType(domainType).with(sort).build();
+        return new CTSQuerySerializer(query).disablePagination().asCtsSearch(body);
+    }
+
+    private String declareParameters() {
+        StringBuilder declarations = new StringBuilder();
+        for (String variableName : variableBinder.getVariableNames()) {
+            declarations.append("declare variable $").append(variableName).append(" external;\n");
+        }
+        return declarations.append(paged ? PAGING_DECLARATIONS : "").toString();
+    }
+
+    private void checkCtsQuery(String masked) {
+        if (PROLOG_STATEMENT.matcher(masked).lookingAt()) {
+            throw invalidQuery("a cts:query cannot declare a prolog");
+        }
+
+        Set<String> references = matches(VARIABLE_REFERENCE, masked);
+        references.removeAll(variableBinder.getVariableNames());
+        if (!references.isEmpty()) {
+            throw invalidQuery("no named parameter matches the variables " + references);
+        }
+    }
+
+    private void checkMainModule(String masked) {
+        if (method.getParameters().hasSortParameter()) {
+            throw invalidQuery("sorting is only supported for cts queries");
+        }
+
+        Set<String> declared = matches(EXTERNAL_DECLARATION, masked);
+        for (String variableName : variableBinder.getVariableNames()) {
+            if (!declared.remove(variableName)) {
+                throw invalidQuery(String.format("the parameter '%s' is not declared as an external variable", variableName));
+            }
+        }
+        if (!declared.isEmpty()) {
+            throw invalidQuery("no named parameter matches the external variables " + declared);
+        }
+        if (!StringUtils.hasText(masked.substring(prologEnd(masked)))) {
+            throw invalidQuery("the query body is empty");
+        }
+    }
+
+    private void checkSyntax(String masked) {
+        if (!StringUtils.hasText(masked)) {
+            throw invalidQuery("the query is empty");
+        }
+
+        Deque<Character> expected = new ArrayDeque<>();
+        for (char c : masked.toCharArray()) {
+            if (c == '(' || c == '[' || c == '{') {
+                expected.push(c == '(' ? ')' : c == '[' ? ']' : '}');
+            } else if (c == ')' || c == ']' || c == '}') {
+                if (expected.isEmpty() || expected.pop() != c) {
+                    throw invalidQuery("unbalanced '" + c + "'");
+                }
+            } else if (c == '\'' || c == '"') {
+                throw invalidQuery("unterminated string literal");
+            }
+        }
+        if (!expected.isEmpty()) {
+            throw invalidQuery("'" + expected.peek() + "' expected");
+        }
+    }
+
+    private IllegalStateException invalidQuery(String reason) {
+        return new IllegalStateException(String.format("Invalid @Query on method %s : %s", method.getName(), reason));
+    }
+
+    /**
+     * @return the given query where string literals and comments are blanked, preserving positions
+     */
+    private static String mask(String query) {
+        StringBuilder masked = new StringBuilder(query);
+        Matcher matcher = LITERAL_OR_COMMENT.matcher(query);
+        while (matcher.find()) {
+            for (int i = matcher.start(); i < matcher.end(); i++) {
+                masked.setCharAt(i, ' ');
+            }
+        }
+        return masked.toString();
+    }
+
+    private static int prologEnd(String masked) {
+        int end = 0;
+        Matcher statement = PROLOG_STATEMENT.matcher(masked);
+        while (statement.region(end, masked.length()).lookingAt()) {
+            int separator = masked.indexOf(';', statement.end());
+            if (separator < 0) {
+                return end;
+            }
+            end = separator + 1;
+        }
+        return end;
+    }
+
+    private static Set<String> matches(Pattern pattern, String masked) {
+        Set<String> names = new LinkedHashSet<>();
+        Matcher matcher = pattern.matcher(masked);
+        while (matcher.find()) {
+            names.add(matcher.group(1));
+        }
+        return names;
+    }
+}
@@ -23,6 +23,8 @@ import com._4dconcept.springframework.data.marklogic.repository.MarklogicReposit
 import com._4dconcept.springframework.data.marklogic.repository.query.MarklogicEntityInformation;
 import com._4dconcept.springframework.data.marklogic.repository.query.MarklogicQueryMethod;
 import com._4dconcept.springframework.data.marklogic.repository.query.PartTreeMarklogicQuery;
+import com._4dconcept.springframework.data.marklogic.repository.query.QueryMethodVariableBinder;
+import com._4dconcept.springframework.data.marklogic.repository.query.StringBasedMarklogicQuery;
 import org.springframework.dao.TypeMismatchDataAccessException;
 import org.springframework.data.mapping.context.MappingContext;
 import org.springframework.data.projection.ProjectionFactory;
@@ -39,8 +41,6 @@ import org.springframework.util.Assert;
 
 import java.io.Serializable;
 import java.lang.reflect.Method;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -125,44 +125,44 @@ public class MarklogicRepositoryFactory extends RepositoryFactorySupport {
         public RepositoryQuery resolveQuery(Method method, RepositoryMetadata metadata, ProjectionFactory factory,
                                             NamedQueries namedQueries) {
 
-            MarklogicQueryMethod queryMethod = new MarklogicQueryMethod(method, metadata, factory);
-            String namedQueryName = queryMethod.getNamedQueryName();
+            return createQuery(new MarklogicQueryMethod(method, metadata, factory), namedQueries, operations);
+        }
+    }
 
-            if (namedQueries.hasQuery(namedQueryName)) {
-                String moduleQueryUri = namedQueries.getQuery(namedQueryName);
-                return new ModuleInvokeDelegateQuery(moduleQueryUri, queryMethod, operations);
-            } else {
-                return new PartTreeMarklogicQuery(queryMethod, operations);
-            }
+    /**
+     * Create the {@link RepositoryQuery} of the given query method : the annotated query if any, else the named one,
+     * else the query derived from the method name.
+     */
+    static RepositoryQuery createQuery(MarklogicQueryMethod queryMethod, NamedQueries namedQueries, MarklogicOperations operations) {
+        String namedQueryName = queryMethod.getNamedQueryName();
+
+        if (queryMethod.hasAnnotatedQuery()) {
+            return new StringBasedMarklogicQuery(queryMethod, operations);
+        } else if (namedQueries.hasQuery(namedQueryName)) {
+            String moduleQueryUri = namedQueries.getQuery(namedQueryName);
+            return new ModuleInvokeDelegateQuery(moduleQueryUri, queryMethod, operations);
+        } else {
+            return new PartTreeMarklogicQuery(queryMethod, operations);
         }
     }
 
     private static class ModuleInvokeDelegateQuery implements RepositoryQuery {
 
-        private String moduleQueryUri;
-        private QueryMethod queryMethod;
-        private MarklogicOperations operations;
+        private final String moduleQueryUri;
+        private final QueryMethod queryMethod;
+        private final MarklogicOperations operations;
+        private final QueryMethodVariableBinder variableBinder;
 
         ModuleInvokeDelegateQuery(String moduleQueryUri, QueryMethod queryMethod, MarklogicOperations operations) {
             this.moduleQueryUri = moduleQueryUri;
             this.queryMethod = queryMethod;
             this.operations = operations;
+            this.variableBinder = new QueryMethodVariableBinder(queryMethod, operations.getConverter().getConversionService());
         }
 
         @Override
         public Object execute(Object[] parameters) {
-            HashMap<Object, Object> params = new HashMap<>();
-            for (int i = 0; i < parameters.length; i++) {
-                Object parameter = parameters[i];
-                queryMethod.getParameters().getParameter(i).getName().ifPresent(name -> params.put(name, parameter));
-            }
-
-            MarklogicInvokeOperationOptions invokeOperationOptions = new MarklogicInvokeOperationOptions() {
-                @Override
-                public Map<Object, Object> params() {
-                    return params;
-                }
-            };
+            MarklogicInvokeOperationOptions invokeOperationOptions = variableBinder.bind(parameters);
 
             if (queryMethod.isCollectionQuery()) {
                 return operations.invokeModuleAsList(moduleQueryUri, queryMethod.getReturnedObjectType(), invokeOperationOptions);
@@ -178,4 +178,4 @@ public class MarklogicRepositoryFactory extends RepositoryFactorySupport {
         }
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com._4dconcept.springframework.data.marklogic.repository.support;
+
+import com._4dconcept.springframework.data.marklogic.core.ReactiveMarklogicOperations;
+import com._4dconcept.springframework.data.marklogic.core.mapping.MarklogicPersistentEntity;
+import com._4dconcept.springframework.data.marklogic.core.mapping.MarklogicPersistentProperty;
+import com._4dconcept.springframework.data.marklogic.repository.ReactiveMarklogicRepository;
+import com._4dconcept.springframework.data.marklogic.repository.query.MarklogicEntityInformation;
+import com._4dconcept.springframework.data.marklogic.repository.query.ReactiveMarklogicQuery;
+import com._4dconcept.springframework.data.marklogic.repository.query.ReactiveMarklogicQueryMethod;
+import org.springframework.dao.TypeMismatchDataAccessException;
+import org.springframework.data.mapping.context.MappingContext;
+import org.springframework.data.repository.core.RepositoryInformation;
+import org.springframework.data.repository.core.RepositoryMetadata;
+import org.springframework.data.repository.core.support.ReactiveRepositoryFactorySupport;
+import org.springframework.data.repository.query.QueryLookupStrategy;
+import org.springframework.data.repository.query.QueryMethodEvaluationContextProvider;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+import java.io.Serializable;
+import java.util.Optional;
+
+/**
+ * Factory to create {@link ReactiveMarklogicRepository} instances.
+ *
+ * <p>Query methods are resolved as for {@link MarklogicRepositoryFactory}, and must return a reactive type :
+ * multi value types such as {@link reactor.core.publisher.Flux} emit the results as they are read from the server,
+ * single value types such as {@link reactor.core.publisher.Mono} emit the single result.
+ *
+ * @author Stéphane Toussaint
+ */
+public class ReactiveMarklogicRepositoryFactory extends ReactiveRepositoryFactorySupport {
+
+    private final MappingContext<? extends MarklogicPersistentEntity<?>, MarklogicPersistentProperty> mappingContext;
+    private final ReactiveMarklogicOperations marklogicOperations;
+
+    ReactiveMarklogicRepositoryFactory(ReactiveMarklogicOperations marklogicOperations) {
+
+        Assert.notNull(marklogicOperations, "marklogicOperations must not be null");
+
+        this.marklogicOperations = marklogicOperations;
+        this.mappingContext = marklogicOperations.getMarklogicOperations().getConverter().getMappingContext();
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.springframework.data.repository.core.support.RepositoryFactorySupport#getRepositoryBaseClass(org.springframework.data.repository.core.RepositoryMetadata)
+     */
+    @Override
+    protected Class<?> getRepositoryBaseClass(RepositoryMetadata metadata) {
+        return SimpleReactiveMarklogicRepository.class;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.springframework.data.repository.core.support.RepositoryFactorySupport#getTargetRepository(org.springframework.data.repository.core.RepositoryInformation)
+     */
+    @Override
+    protected Object getTargetRepository(RepositoryInformation metadata) {
+        MarklogicEntityInformation<?, Serializable> entityInformation = getEntityInformation(metadata.getDomainType());
+        return getTargetRepositoryViaReflection(metadata, entityInformation, marklogicOperations);
+    }
+
+    @Override
+    protected Optional<QueryLookupStrategy> getQueryLookupStrategy(@Nullable QueryLookupStrategy.Key key, QueryMethodEvaluationContextProvider evaluationContextProvider) {
+        return Optional.of((method, metadata, factory, namedQueries) -> new ReactiveMarklogicQuery(
+                MarklogicRepositoryFactory.createQuery(new ReactiveMarklogicQueryMethod(method, metadata, factory), namedQueries, marklogicOperations.getMarklogicOperations()),
+                marklogicOperations));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T, ID> MarklogicEntityInformation<T, ID> getEntityInformation(Class<T> domainClass) {
+        MarklogicPersistentEntity<?> persistentEntity = mappingContext.getPersistentEntity(domainClass);
+
+        if (persistentEntity == null) {
+            throw new TypeMismatchDataAccessException(String.format("No Persistent Entity information found for the class %s", domainClass));
+        }
+
+        return new MappingMarklogicEntityInformation<>((MarklogicPersistentEntity<T>) persistentEntity);
+    }
+
+}
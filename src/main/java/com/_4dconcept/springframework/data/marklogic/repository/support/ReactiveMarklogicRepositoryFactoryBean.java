@@ -0,0 +1,72 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com._4dconcept.springframework.data.marklogic.repository.support;
+
+import com._4dconcept.springframework.data.marklogic.core.ReactiveMarklogicOperations;
+import com._4dconcept.springframework.data.marklogic.repository.ReactiveMarklogicRepository;
+import org.springframework.data.mapping.context.MappingContext;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.data.repository.core.support.RepositoryFactorySupport;
+import org.springframework.util.Assert;
+
+/**
+ * {@link org.springframework.beans.factory.FactoryBean} to create {@link ReactiveMarklogicRepository} instances.
+ *
+ * @author Stéphane Toussaint
+ */
+public class ReactiveMarklogicRepositoryFactoryBean<T extends Repository<S, ID>, S, ID> extends
+        RepositoryFactoryBeanSupport<T, S, ID> {
+
+    private ReactiveMarklogicOperations reactiveMarklogicOperations;
+    private boolean mappingContextConfigured = false;
+
+    public ReactiveMarklogicRepositoryFactoryBean(Class<? extends T> repositoryInterface) {
+        super(repositoryInterface);
+    }
+
+    @Override
+    protected RepositoryFactorySupport createRepositoryFactory() {
+        return new ReactiveMarklogicRepositoryFactory(reactiveMarklogicOperations);
+    }
+
+    /**
+     * Configures the {@link ReactiveMarklogicOperations} used for Marklogic data access operations.
+     *
+     * @param reactiveMarklogicOperations {@link ReactiveMarklogicOperations} used to perform CRUD, Query and general data
+     * access operations on Marklogic.
+     */
+    public void setReactiveMarklogicOperations(ReactiveMarklogicOperations reactiveMarklogicOperations) {
+        this.reactiveMarklogicOperations = reactiveMarklogicOperations;
+    }
+
+    @Override
+    protected void setMappingContext(MappingContext<?, ?> mappingContext) {
+        super.setMappingContext(mappingContext);
+        this.mappingContextConfigured = true;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        super.afterPropertiesSet();
+        Assert.notNull(reactiveMarklogicOperations, "ReactiveMarklogicOperations must not be null!");
+
+        if (!mappingContextConfigured) {
+            setMappingContext(reactiveMarklogicOperations.getMarklogicOperations().getConverter().getMappingContext());
+        }
+    }
+
+}
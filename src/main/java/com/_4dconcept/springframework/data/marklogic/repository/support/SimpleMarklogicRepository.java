@@ -19,6 +19,7 @@ import com._4dconcept.springframework.data.marklogic.core.EntityInformationOpera
 import com._4dconcept.springframework.data.marklogic.core.MarklogicOperationOptions;
 import com._4dconcept.springframework.data.marklogic.core.MarklogicOperations;
 import com._4dconcept.springframework.data.marklogic.core.MarklogicTemplate;
+import com._4dconcept.springframework.data.marklogic.core.query.Criteria;
 import com._4dconcept.springframework.data.marklogic.core.query.Query;
 import com._4dconcept.springframework.data.marklogic.core.query.QueryBuilder;
 import com._4dconcept.springframework.data.marklogic.repository.MarklogicRepository;
@@ -31,15 +32,18 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.util.StreamUtils;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.Assert;
 import org.springframework.util.CollectionUtils;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 /**
@@ -53,6 +57,12 @@ public class SimpleMarklogicRepository<T, ID> implements MarklogicRepository<T,
 
     protected static final Logger LOGGER = LoggerFactory.getLogger(MarklogicRepository.class);
 
+    /**
+     * Options of the {@code cts:word-query} backing {@link #search(String)}. As no order is given to the search,
+     * results come in relevance order.
+     */
+    private static final List<String> SEARCH_OPTIONS = Collections.unmodifiableList(Arrays.asList("stemmed", "case-insensitive"));
+
     protected final MarklogicOperations marklogicOperations;
     protected final MarklogicEntityInformation<T, ID> entityInformation;
 
@@ -126,6 +136,13 @@ public class SimpleMarklogicRepository<T, ID> implements MarklogicRepository<T,
         return marklogicOperations.findAll(entityInformation.getJavaType(), new EntityInformationOperationOptions(entityInformation));
     }
 
+    @Override
+    public Stream<T> streamAll() {
+        Query query = newQueryBuilderInstance().ofType(entityInformation.getJavaType())
+                .options(new EntityInformationOperationOptions(entityInformation)).build();
+        return StreamUtils.createStreamFromIterator(marklogicOperations.stream(query, entityInformation.getJavaType()));
+    }
+
     @Override
     public List<T> findAllById(Iterable<ID> ids) {
         return StreamSupport.stream(ids.spliterator(), false)
@@ -164,6 +181,24 @@ public class SimpleMarklogicRepository<T, ID> implements MarklogicRepository<T,
         return new PageImpl<>(marklogicOperations.find(query, entityInformation.getJavaType()), pageable, count);
     }
 
+    @Override
+    public List<T> search(String text) {
+        return marklogicOperations.find(buildSearchQuery(text).build(), entityInformation.getJavaType());
+    }
+
+    @Override
+    public Page<T> search(String text, Pageable pageable) {
+        Query query = buildSearchQuery(text).with(pageable).build();
+
+        long count = marklogicOperations.count(query);
+
+        if (count == 0) {
+            return new PageImpl<>(Collections.emptyList());
+        }
+
+        return new PageImpl<>(marklogicOperations.find(query, entityInformation.getJavaType()), pageable, count);
+    }
+
     @Override
     public <S extends T> List<S> findAll(Example<S> example) {
         Query query = newQueryBuilderInstance().alike(example).build();
@@ -235,6 +270,18 @@ public class SimpleMarklogicRepository<T, ID> implements MarklogicRepository<T,
         marklogicOperations.removeAll(entityInformation.getJavaType(), new EntityInformationOperationOptions(entityInformation));
     }
 
+    private QueryBuilder buildSearchQuery(String text) {
+        Assert.hasText(text, "Search text must not be empty");
+
+        Criteria wordCriteria = new Criteria();
+        wordCriteria.setCriteriaObject(text);
+        wordCriteria.setOptions(SEARCH_OPTIONS);
+
+        return newQueryBuilderInstance().ofType(entityInformation.getJavaType())
+                .options(new EntityInformationOperationOptions(entityInformation))
+                .with(new Criteria(Criteria.Operator.WORD, wordCriteria));
+    }
+
     private QueryBuilder newQueryBuilderInstance() {
         return new QueryBuilder(marklogicOperations);
     }
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com._4dconcept.springframework.data.marklogic.repository.support;
+
+import com._4dconcept.springframework.data.marklogic.core.EntityInformationOperationOptions;
+import com._4dconcept.springframework.data.marklogic.core.ReactiveMarklogicOperations;
+import com._4dconcept.springframework.data.marklogic.core.ReactiveMarklogicTemplate;
+import com._4dconcept.springframework.data.marklogic.core.query.QueryBuilder;
+import com._4dconcept.springframework.data.marklogic.repository.ReactiveMarklogicRepository;
+import com._4dconcept.springframework.data.marklogic.repository.query.MarklogicEntityInformation;
+import org.reactivestreams.Publisher;
+import org.springframework.data.domain.Sort;
+import org.springframework.util.Assert;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive repository base implementation for Marklogic.
+ *
+ * @author Stéphane Toussaint
+ */
+public class SimpleReactiveMarklogicRepository<T, ID> implements ReactiveMarklogicRepository<T, ID> {
+
+    protected final ReactiveMarklogicOperations marklogicOperations;
+    protected final MarklogicEntityInformation<T, ID> entityInformation;
+
+    /**
+     * Creates a new {@link SimpleReactiveMarklogicRepository} for the given {@link MarklogicEntityInformation} and {@link ReactiveMarklogicTemplate}.
+     *
+     * @param metadata must not be {@literal null}.
+     * @param marklogicOperations must not be {@literal null}.
+     */
+    public SimpleReactiveMarklogicRepository(MarklogicEntityInformation<T, ID> metadata, ReactiveMarklogicOperations marklogicOperations) {
+
+        Assert.notNull(marklogicOperations, "marklogicOperations must not be null");
+        Assert.notNull(metadata, "marklogic entity information must not be null");
+
+        this.entityInformation = metadata;
+        this.marklogicOperations = marklogicOperations;
+    }
+
+    // READ ONLY Operations
+
+    @Override
+    public Mono<Long> count() {
+        return marklogicOperations.count(newQueryBuilderInstance().build());
+    }
+
+    @Override
+    public Mono<Boolean> existsById(ID id) {
+        return findById(id).hasElement();
+    }
+
+    @Override
+    public Mono<Boolean> existsById(Publisher<ID> id) {
+        return findById(id).hasElement();
+    }
+
+    @Override
+    public Mono<T> findById(ID id) {
+        Assert.notNull(id, "The given id must not be null");
+        return marklogicOperations.findById(id, entityInformation.getJavaType(), new EntityInformationOperationOptions(entityInformation));
+    }
+
+    @Override
+    public Mono<T> findById(Publisher<ID> id) {
+        Assert.notNull(id, "The given id must not be null");
+        return Mono.from(id).flatMap(this::findById);
+    }
+
+    @Override
+    public Flux<T> findAll() {
+        return marklogicOperations.findAll(entityInformation.getJavaType(), new EntityInformationOperationOptions(entityInformation));
+    }
+
+    @Override
+    public Flux<T> findAll(Sort sort) {
+        return marklogicOperations.find(newQueryBuilderInstance().with(sort).build(), entityInformation.getJavaType());
+    }
+
+    @Override
+    public Flux<T> findAllById(Iterable<ID> ids) {
+        Assert.notNull(ids, "ids must not be null");
+        return Flux.fromIterable(ids).concatMap(this::findById);
+    }
+
+    @Override
+    public Flux<T> findAllById(Publisher<ID> ids) {
+        Assert.notNull(ids, "ids must not be null");
+        return Flux.from(ids).concatMap(this::findById);
+    }
+
+    // WRITE Operations
+
+    @Override
+    public <S extends T> Mono<S> save(S entity) {
+        Assert.notNull(entity, "entity must not be null");
+
+        if (entityInformation.isNew(entity)) {
+            return marklogicOperations.insert(entity, new EntityInformationOperationOptions(entityInformation)).thenReturn(entity);
+        } else {
+            return marklogicOperations.save(entity, new EntityInformationOperationOptions(entityInformation)).thenReturn(entity);
+        }
+    }
+
+    @Override
+    public <S extends T> Flux<S> saveAll(Iterable<S> entities) {
+        Assert.notNull(entities, "entities must not be null");
+        return saveAll(Flux.fromIterable(entities));
+    }
+
+    @Override
+    public <S extends T> Flux<S> saveAll(Publisher<S> entityStream) {
+        Assert.notNull(entityStream, "entities must not be null");
+        return marklogicOperations.saveAll(entityStream, new EntityInformationOperationOptions(entityInformation));
+    }
+
+    @Override
+    public Mono<Void> deleteById(ID id) {
+        Assert.notNull(id, "The given id must not be null");
+        return marklogicOperations.remove(id, entityInformation.getJavaType(), new EntityInformationOperationOptions(entityInformation));
+    }
+
+    @Override
+    public Mono<Void> deleteById(Publisher<ID> id) {
+        Assert.notNull(id, "The given id must not be null");
+        return Mono.from(id).flatMap(this::deleteById);
+    }
+
+    @Override
+    public Mono<Void> delete(T entity) {
+        Assert.notNull(entity, "entity must not be null");
+        return marklogicOperations.remove(entity);
+    }
+
+    @Override
+    public Mono<Void> deleteAll(Iterable<? extends T> entities) {
+        Assert.notNull(entities, "entities must not be null");
+        return Flux.fromIterable(entities).concatMap(this::delete).then();
+    }
+
+    @Override
+    public Mono<Void> deleteAll(Publisher<? extends T> entityStream) {
+        Assert.notNull(entityStream, "entities must not be null");
+        return Flux.from(entityStream).concatMap(this::delete).then();
+    }
+
+    @Override
+    public Mono<Void> deleteAll() {
+        return marklogicOperations.removeAll(entityInformation.getJavaType(), new EntityInformationOperationOptions(entityInformation));
+    }
+
+    private QueryBuilder newQueryBuilderInstance() {
+        return new QueryBuilder(marklogicOperations.getMarklogicOperations()).ofType(entityInformation.getJavaType())
+                .options(new EntityInformationOperationOptions(entityInformation));
+    }
+
+}
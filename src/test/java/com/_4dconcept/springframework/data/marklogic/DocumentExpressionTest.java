@@ -0,0 +1,61 @@
+package com._4dconcept.springframework.data.marklogic;
+
+import com._4dconcept.springframework.data.marklogic.repository.Person;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class DocumentExpressionTest {
+
+    @Test
+    public void literalTemplate() {
+        DocumentExpression expression = DocumentExpression.compile("/content/test.xml");
+        assertThat(expression.isLiteral(), is(true));
+        assertThat(expression.expand(null, null, null), is("/content/test.xml"));
+    }
+
+    @Test
+    public void concatenationTemplate() {
+        DocumentExpression expression = DocumentExpression.compile("/content/person/#{id}.xml");
+        assertThat(expression.isLiteral(), is(false));
+        assertThat(expression.expand(Person.class, null, () -> 12), is("/content/person/12.xml"));
+        assertThat(expression.expand(Person.class, null, () -> null), is("/content/person/.xml"));
+    }
+
+    @Test
+    public void singleIdReferenceTemplate() {
+        DocumentExpression expression = DocumentExpression.compile("#{id}");
+        assertThat(expression.expand(null, null, () -> "12"), is("12"));
+        assertThat(expression.expand(null, null, null), nullValue());
+    }
+
+    @Test
+    public void idSupplierIsOnlyCalledWhenReferenced() {
+        AtomicInteger calls = new AtomicInteger();
+        DocumentExpression.compile("/content/test.xml").expand(null, null, () -> calls.incrementAndGet());
+        assertThat(calls.get(), is(0));
+
+        DocumentExpression.compile("/content/#{id}/#{id}.xml").expand(null, null, () -> calls.incrementAndGet());
+        assertThat(calls.get(), is(1));
+    }
+
+    @Test
+    public void dynamicTemplate() {
+        Person person = new Person();
+        person.setLastname("Test");
+
+        DocumentExpression expression = DocumentExpression.compile("/content/#{entityClass.getSimpleName()}/#{entity.lastname}/#{id}.xml");
+        assertThat(expression.expand(Person.class, person, () -> "1"), is("/content/Person/Test/1.xml"));
+    }
+
+    @Test
+    public void compiledExpressionsAreCached() {
+        assertThat(MarklogicUtils.compileExpression("/content/#{id}.xml"), sameInstance(MarklogicUtils.compileExpression("/content/#{id}.xml")));
+    }
+
+}
@@ -7,6 +7,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.Assert.assertThat;
 
 public class MarklogicCollectionUtilsTest {
@@ -24,6 +25,14 @@ public class MarklogicCollectionUtilsTest {
         assertThat(marklogicCollectionUtils.extractCollections(new SampleWithLoggerEntity("test1", "test2"), new MarklogicMappingContext()), containsInAnyOrder("test1", "field:test2", "computed:TEST1"));
     }
 
+    @Test
+    public void extractCollections_reusesCachedPlan() {
+        MarklogicMappingContext mappingContext = new MarklogicMappingContext();
+        assertThat(marklogicCollectionUtils.extractCollections(new SampleEntity("test1", "test2"), mappingContext), containsInAnyOrder("test1", "field:test2", "computed:TEST1"));
+        assertThat(marklogicCollectionUtils.extractCollections(new SampleEntity("test3", null), mappingContext), containsInAnyOrder("test3", "computed:TEST3"));
+        assertThat(CollectionExtractionPlan.methodsOf(SampleEntity.class), sameInstance(CollectionExtractionPlan.methodsOf(SampleEntity.class)));
+    }
+
     private class SampleEntity extends BaseSampleEntity {
 
         SampleEntity(String field1, String field2) {
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com._4dconcept.springframework.data.marklogic.core;
+
+import com._4dconcept.springframework.data.marklogic.datasource.ReadOnlySessionContextHolder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigInteger;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.mock;
+import static org.mockito.BDDMockito.willAnswer;
+
+/**
+ * Unit test for {@link AsyncMarklogicTemplate}.
+ *
+ * @author Stéphane Toussaint
+ */
+public class AsyncMarklogicTemplateTest {
+
+    private MarklogicOperations marklogicOperations;
+    private AsyncMarklogicTemplate asyncTemplate;
+
+    @Before
+    public void setup() {
+        marklogicOperations = mock(MarklogicOperations.class);
+    }
+
+    @After
+    public void tearDown() {
+        if (asyncTemplate != null) {
+            asyncTemplate.destroy();
+        }
+    }
+
+    @Test
+    public void completeWithResult() throws Exception {
+        given(marklogicOperations.findById("1", String.class)).willReturn("content");
+        asyncTemplate = new AsyncMarklogicTemplate(marklogicOperations);
+
+        assertThat(asyncTemplate.findById("1", String.class).get(1, TimeUnit.SECONDS), is("content"));
+    }
+
+    @Test
+    public void completeExceptionallyOnFailure() throws Exception {
+        given(marklogicOperations.findById("1", String.class)).willThrow(new DataRetrievalFailureException("failure"));
+        asyncTemplate = new AsyncMarklogicTemplate(marklogicOperations, Runnable::run);
+
+        try {
+            asyncTemplate.findById("1", String.class).get();
+            fail("ExecutionException expected");
+        } catch (ExecutionException ex) {
+            assertThat(ex.getCause(), instanceOf(DataRetrievalFailureException.class));
+        }
+    }
+
+    @Test
+    public void runSynchronouslyWithinTransaction() throws Exception {
+        Thread caller = Thread.currentThread();
+        willAnswer(invocation -> Thread.currentThread() == caller ? "content" : null).given(marklogicOperations).findById("1", String.class);
+        asyncTemplate = new AsyncMarklogicTemplate(marklogicOperations);
+
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            CompletableFuture<String> result = asyncTemplate.findById("1", String.class);
+            assertTrue(result.isDone());
+            assertThat(result.get(), is("content"));
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+    }
+
+    @Test
+    public void propagateCallerContextToTask() throws Exception {
+        willAnswer(invocation -> ReadSnapshot.current() + "/" + ReadOnlySessionContextHolder.isReadOnly() + "/" + (OperationDeadline.remainingMillis() > 0))
+                .given(marklogicOperations).findById("1", String.class);
+        asyncTemplate = new AsyncMarklogicTemplate(marklogicOperations);
+
+        CompletableFuture<String> result = OperationDeadline.within(10000, () -> ReadSnapshot.at(BigInteger.TEN,
+                () -> ReadOnlySessionContextHolder.doInReadOnly(() -> asyncTemplate.findById("1", String.class))));
+
+        assertThat(result.get(1, TimeUnit.SECONDS), is("10/true/true"));
+    }
+
+    @Test
+    public void rejectWhenSaturated() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        willAnswer(invocation -> {
+            release.await();
+            return null;
+        }).given(marklogicOperations).save("content");
+        asyncTemplate = new AsyncMarklogicTemplate(marklogicOperations, 1, 1);
+
+        CompletableFuture<Void> running = asyncTemplate.save("content");
+        CompletableFuture<Void> queued = asyncTemplate.save("content");
+        CompletableFuture<Void> rejected = asyncTemplate.save("content");
+
+        assertTrue(rejected.isCompletedExceptionally());
+        try {
+            rejected.get();
+        } catch (ExecutionException ex) {
+            assertThat(ex.getCause(), instanceOf(RejectedExecutionException.class));
+        }
+
+        release.countDown();
+        running.get(1, TimeUnit.SECONDS);
+        queued.get(1, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com._4dconcept.springframework.data.marklogic.core;
+
+import com.marklogic.xcc.impl.ResultItemImpl;
+import com.marklogic.xcc.types.impl.ElementImpl;
+import org.junit.Test;
+import org.springframework.util.FileCopyUtils;
+import org.springframework.util.StreamUtils;
+
+import java.io.InputStream;
+import java.io.Reader;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Unit test for {@link CountingResultItem}.
+ *
+ * @author Stéphane Toussaint
+ */
+public class CountingResultItemTest {
+
+    private static final String CONTENT = "<person><name>Zoé</name></person>";
+
+    @Test
+    public void countBytesReadFromStream() throws Exception {
+        CountingResultItem item = new CountingResultItem(new ResultItemImpl(new ElementImpl(CONTENT), 0, null, null));
+
+        assertThat(item.getBytes(), is(0L));
+        try (InputStream inputStream = item.asInputStream()) {
+            StreamUtils.drain(inputStream);
+        }
+
+        assertThat(item.getBytes(), is(34L));
+    }
+
+    @Test
+    public void countCharactersReadAsUtf8Bytes() throws Exception {
+        CountingResultItem item = new CountingResultItem(new ResultItemImpl(new ElementImpl(CONTENT), 0, null, null));
+
+        try (Reader reader = item.asReader()) {
+            assertThat(FileCopyUtils.copyToString(reader), is(CONTENT));
+        }
+
+        assertThat(item.getBytes(), is(34L));
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com._4dconcept.springframework.data.marklogic.core;
+
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Unit test for {@link EntityCache}.
+ *
+ * @author Stéphane Toussaint
+ */
+public class EntityCacheTest {
+
+    @Test
+    public void evictLeastRecentlyUsedEntriesBeyondMaxWeight() {
+        EntityCache cache = new EntityCache(10, 15, true);
+        cache.put("1", null, "/1.xml", "1", "<a>1</a>", new Object());
+        cache.put("2", null, "/2.xml", "1", "<b/>", new Object());
+        cache.get("1", null);
+        cache.put("3", null, "/3.xml", "1", "<c/>", new Object());
+
+        assertThat(cache.get("1", null), notNullValue());
+        assertThat(cache.get("2", null), nullValue());
+        assertThat(cache.get("3", null), notNullValue());
+        assertThat(cache.weight(), is(12L));
+    }
+
+    @Test
+    public void skipDocumentsHeavierThanTheCache() {
+        EntityCache cache = new EntityCache(10, 4, true);
+        cache.put("1", null, "/1.xml", "1", "<a>1</a>", new Object());
+
+        assertThat(cache.size(), is(0));
+        assertThat(cache.weight(), is(0L));
+    }
+
+    @Test
+    public void releaseWeightOfReplacedEntries() {
+        EntityCache cache = new EntityCache(10, 100, true);
+        cache.put("1", null, "/1.xml", "1", "<a>1</a>", new Object());
+        cache.put("1", null, "/1.xml", "2", "<a/>", new Object());
+
+        assertThat(cache.size(), is(1));
+        assertThat(cache.weight(), is(4L));
+        assertThat(cache.get("1", null).getTimestamp(), is("2"));
+    }
+
+    @Test
+    public void keepEntityInsteadOfContentWhenShared() {
+        Object entity = new Object();
+        EntityCache cache = new EntityCache(10, 100, false);
+        cache.put("1", null, "/1.xml", "1", "<a>1</a>", entity);
+
+        EntityCache.Entry entry = cache.get("1", null);
+        assertThat(entry.getContent(), nullValue());
+        assertThat(entry.getEntity(), is(entity));
+        assertThat(cache.weight(), is(8L));
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com._4dconcept.springframework.data.marklogic.core;
+
+import com._4dconcept.springframework.data.marklogic.core.convert.MappingMarklogicConverter;
+import com._4dconcept.springframework.data.marklogic.core.mapping.Cached;
+import com._4dconcept.springframework.data.marklogic.core.mapping.MarklogicMappingContext;
+import com._4dconcept.springframework.data.marklogic.core.query.Criteria;
+import com._4dconcept.springframework.data.marklogic.core.query.Query;
+import com._4dconcept.springframework.data.marklogic.repository.Person;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.data.annotation.Id;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Unit test for {@link FindByIdBatcher}.
+ *
+ * @author Stéphane Toussaint
+ */
+public class FindByIdBatcherTest {
+
+    private MarklogicOperations marklogicOperations;
+    private FindByIdBatcher batcher;
+
+    @Before
+    public void setup() {
+        MappingMarklogicConverter converter = new MappingMarklogicConverter(new MarklogicMappingContext());
+        converter.afterPropertiesSet();
+
+        marklogicOperations = mock(MarklogicOperations.class);
+        given(marklogicOperations.getConverter()).willReturn(converter);
+
+        batcher = new FindByIdBatcher(marklogicOperations);
+        batcher.setBatchWindowMillis(50);
+    }
+
+    @After
+    public void tearDown() {
+        batcher.destroy();
+    }
+
+    @Test
+    public void gatherDistinctIdsInOneSearch() throws Exception {
+        Person person1 = new Person("1", "John", "Doe", 20, "FR");
+        Person person2 = new Person("2", "Jane", "Doe", 20, "FR");
+        given(marklogicOperations.find(any(Query.class), eq(Person.class))).willReturn(Arrays.asList(person2, person1));
+        given(marklogicOperations.resolveContentIdentifier(person1)).willReturn("1");
+        given(marklogicOperations.resolveContentIdentifier(person2)).willReturn("2");
+
+        CompletableFuture<Person> future1 = batcher.load("1", Person.class);
+        CompletableFuture<Person> future2 = batcher.load("2", Person.class);
+        CompletableFuture<Person> future3 = batcher.load("3", Person.class);
+
+        assertThat(future1.get(1, TimeUnit.SECONDS), sameInstance(person1));
+        assertThat(future2.get(1, TimeUnit.SECONDS), sameInstance(person2));
+        assertThat(future3.get(1, TimeUnit.SECONDS), nullValue());
+
+        ArgumentCaptor<Query> queryCaptor = ArgumentCaptor.forClass(Query.class);
+        verify(marklogicOperations, times(1)).find(queryCaptor.capture(), eq(Person.class));
+        assertThat(queryCaptor.getValue().getCriteria().getOperator(), is(Criteria.Operator.OR));
+        assertThat(batcher.getBatchCount(), is(1L));
+    }
+
+    @Test
+    public void coalesceIdenticalLookups() throws Exception {
+        given(marklogicOperations.find(any(Query.class), eq(Person.class))).willReturn(Arrays.asList());
+
+        CompletableFuture<Person> future1 = batcher.load("1", Person.class);
+        CompletableFuture<Person> future2 = batcher.load("1", Person.class);
+
+        assertThat(future2, sameInstance(future1));
+        assertThat(future1.get(1, TimeUnit.SECONDS), nullValue());
+        assertThat(batcher.getCoalescedCount(), is(1L));
+    }
+
+    @Test
+    public void dispatchFullBatchImmediately() throws Exception {
+        given(marklogicOperations.find(any(Query.class), eq(Person.class))).willReturn(Arrays.asList());
+        batcher.setBatchWindowMillis(60000);
+        batcher.setMaxBatchSize(2);
+
+        batcher.load("1", Person.class);
+        CompletableFuture<Person> future = batcher.load("2", Person.class);
+
+        assertThat(future.isDone(), is(true));
+        assertThat(batcher.getBatchCount(), is(1L));
+    }
+
+    @Test
+    public void delegateCachedEntities() throws Exception {
+        CachedPerson person = new CachedPerson();
+        given(marklogicOperations.findById("1", CachedPerson.class)).willReturn(person);
+
+        assertThat(batcher.load("1", CachedPerson.class).get(1, TimeUnit.SECONDS), sameInstance(person));
+        verify(marklogicOperations, never()).find(any(Query.class), any());
+    }
+
+    @Test
+    public void completeDelegatedLookupExceptionally() throws Exception {
+        given(marklogicOperations.findById("1", CachedPerson.class)).willThrow(new DataRetrievalFailureException("failure"));
+
+        CompletableFuture<CachedPerson> future = batcher.load("1", CachedPerson.class);
+
+        assertThat(future.isCompletedExceptionally(), is(true));
+        try {
+            future.get();
+            fail("ExecutionException expected");
+        } catch (ExecutionException ex) {
+            assertThat(ex.getCause(), instanceOf(DataRetrievalFailureException.class));
+        }
+    }
+
+    @Cached
+    static class CachedPerson {
+
+        @Id
+        String id;
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com._4dconcept.springframework.data.marklogic.core;
+
+import com.marklogic.xcc.exceptions.QueryStackFrame;
+import com.marklogic.xcc.exceptions.RequestException;
+import com.marklogic.xcc.exceptions.RetryableXQueryException;
+import com.marklogic.xcc.exceptions.ServerConnectionException;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.dao.DataRetrievalFailureException;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * Unit test for {@link MarklogicRetryPolicy}.
+ *
+ * @author Stéphane Toussaint
+ */
+public class MarklogicRetryPolicyTest {
+
+    private MarklogicRetryPolicy retryPolicy;
+
+    @Before
+    public void setup() {
+        retryPolicy = new MarklogicRetryPolicy();
+        retryPolicy.setInitialBackoffMillis(0);
+    }
+
+    @Test
+    public void retryTransientFailure() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = retryPolicy.execute(() -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw connectionFailure();
+            }
+            return "done";
+        }, true, true);
+
+        assertThat(result, is("done"));
+        assertThat(retryPolicy.getRetryCount(), is(2L));
+    }
+
+    @Test
+    public void doNotRetryNonTransientFailure() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        try {
+            retryPolicy.execute(() -> {
+                attempts.incrementAndGet();
+                throw new DataRetrievalFailureException("failure", new RequestException("bad request", null));
+            }, true, true);
+            fail("DataRetrievalFailureException expected");
+        } catch (DataRetrievalFailureException e) {
+            assertThat(attempts.get(), is(1));
+        }
+    }
+
+    @Test
+    public void doNotRetryWhenNotAllowed() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        try {
+            retryPolicy.execute(() -> {
+                attempts.incrementAndGet();
+                throw connectionFailure();
+            }, false, true);
+            fail("DataRetrievalFailureException expected");
+        } catch (DataRetrievalFailureException e) {
+            assertThat(attempts.get(), is(1));
+        }
+    }
+
+    @Test
+    public void stopRetryingOnceAttemptsAreExhausted() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        try {
+            retryPolicy.execute(() -> {
+                attempts.incrementAndGet();
+                throw connectionFailure();
+            }, true, true);
+            fail("DataRetrievalFailureException expected");
+        } catch (DataRetrievalFailureException e) {
+            assertThat(attempts.get(), is(3));
+            assertThat(retryPolicy.getExhaustedCount(), is(1L));
+        }
+    }
+
+    @Test
+    public void stopRetryingOnceBudgetIsSpent() {
+        retryPolicy.setBudgetCapacity(1);
+        retryPolicy.setBudgetRatio(0);
+        AtomicInteger attempts = new AtomicInteger();
+
+        try {
+            retryPolicy.execute(() -> {
+                attempts.incrementAndGet();
+                throw connectionFailure();
+            }, true, true);
+            fail("DataRetrievalFailureException expected");
+        } catch (DataRetrievalFailureException e) {
+            assertThat(attempts.get(), is(2));
+            assertThat(retryPolicy.getBudgetRejectedCount(), is(1L));
+        }
+    }
+
+    @Test
+    public void doNotReplayUpdateOnConnectionFailure() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        try {
+            retryPolicy.execute(() -> {
+                attempts.incrementAndGet();
+                throw connectionFailure();
+            }, true, false);
+            fail("DataRetrievalFailureException expected");
+        } catch (DataRetrievalFailureException e) {
+            assertThat(attempts.get(), is(1));
+        }
+    }
+
+    @Test
+    public void retryUpdateWhenRequestedByServer() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = retryPolicy.execute(() -> {
+            if (attempts.incrementAndGet() < 2) {
+                throw new DataRetrievalFailureException("failure", new RetryableXQueryException(null, "XDMP-DEADLOCK", null, null,
+                        "Deadlock detected", null, null, true, new String[0], new QueryStackFrame[0]));
+            }
+            return "done";
+        }, true, false);
+
+        assertThat(result, is("done"));
+        assertThat(retryPolicy.getRetryCount(), is(1L));
+    }
+
+    @Test
+    public void retryUpdateOnConnectionFailureWhenEnabled() {
+        retryPolicy.setRetryUpdatesOnConnectionFailure(true);
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = retryPolicy.execute(() -> {
+            if (attempts.incrementAndGet() < 2) {
+                throw connectionFailure();
+            }
+            return "done";
+        }, true, false);
+
+        assertThat(result, is("done"));
+    }
+
+    @Test
+    public void capBackoffToOperationDeadline() {
+        retryPolicy.setInitialBackoffMillis(10000);
+        retryPolicy.setMaxBackoffMillis(10000);
+        AtomicInteger attempts = new AtomicInteger();
+        long start = System.nanoTime();
+
+        try {
+            OperationDeadline.within(200, () -> retryPolicy.execute(() -> {
+                attempts.incrementAndGet();
+                throw connectionFailure();
+            }, true, true));
+            fail("DataRetrievalFailureException expected");
+        } catch (DataRetrievalFailureException e) {
+            assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000, is(true));
+            assertThat(retryPolicy.getExhaustedCount(), is(1L));
+        }
+    }
+
+    private DataRetrievalFailureException connectionFailure() {
+        return new DataRetrievalFailureException("failure", new ServerConnectionException("Connection refused", null));
+    }
+}
@@ -16,10 +16,12 @@
 package com._4dconcept.springframework.data.marklogic.core;
 
 import com._4dconcept.springframework.data.marklogic.MarklogicCollectionUtils;
+import com._4dconcept.springframework.data.marklogic.MarklogicMetricsRecorder;
 import com._4dconcept.springframework.data.marklogic.core.convert.MappingMarklogicConverter;
 import com._4dconcept.springframework.data.marklogic.core.convert.MarklogicContentHolder;
 import com._4dconcept.springframework.data.marklogic.core.convert.MarklogicConverter;
 import com._4dconcept.springframework.data.marklogic.core.mapping.BasicMarklogicPersistentEntity;
+import com._4dconcept.springframework.data.marklogic.core.mapping.Cached;
 import com._4dconcept.springframework.data.marklogic.core.mapping.MarklogicMappingContext;
 import com._4dconcept.springframework.data.marklogic.core.mapping.MarklogicPersistentProperty;
 import com._4dconcept.springframework.data.marklogic.core.mapping.event.AfterDeleteEvent;
@@ -27,9 +29,16 @@ import com._4dconcept.springframework.data.marklogic.core.mapping.event.AfterRet
 import com._4dconcept.springframework.data.marklogic.core.mapping.event.BeforeDeleteEvent;
 import com._4dconcept.springframework.data.marklogic.core.query.Criteria;
 import com._4dconcept.springframework.data.marklogic.core.query.Query;
+import com._4dconcept.springframework.data.marklogic.datasource.ReadOnlySessionContextHolder;
 import com.marklogic.xcc.*;
+import com.marklogic.xcc.exceptions.QueryStackFrame;
+import com.marklogic.xcc.exceptions.ServerConnectionException;
+import com.marklogic.xcc.exceptions.XQueryException;
 import com.marklogic.xcc.impl.AdhocImpl;
+import com.marklogic.xcc.impl.ModuleImpl;
 import com.marklogic.xcc.impl.ResultItemImpl;
+import com.marklogic.xcc.types.impl.ElementImpl;
+import com.marklogic.xcc.types.impl.XsDayTimeDurationImpl;
 import com.marklogic.xcc.types.impl.XsStringImpl;
 import org.hamcrest.CoreMatchers;
 import org.junit.Before;
@@ -44,20 +53,31 @@ import org.springframework.context.ApplicationEvent;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.core.convert.ConversionService;
 import org.springframework.core.convert.ConverterNotFoundException;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataAccessResourceFailureException;
 import org.springframework.data.mapping.context.MappingContext;
+import org.springframework.data.util.CloseableIterator;
 import org.springframework.lang.Nullable;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import javax.xml.namespace.QName;
 import java.io.InputStream;
+import java.math.BigInteger;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Scanner;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.hamcrest.core.Is.is;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.Mockito.*;
 
 /**
@@ -197,6 +217,31 @@ public class MarklogicTemplateTest {
         assertThat(toString(contentArgumentCaptor.getValue().openDataStream()), CoreMatchers.equalTo(SAMPLE_CONTENT));
     }
 
+    @Test
+    public void recordSaveOperationMetrics() throws Exception {
+        when(session.newAdhocQuery(anyString())).thenReturn(new AdhocImpl(session, null, new RequestOptions()));
+        doAnswer(invocationOnMock -> {
+            MarklogicContentHolder holder = invocationOnMock.getArgument(1);
+            holder.setContent("<simpleEntity><id>1</id><name>entity</name></simpleEntity>");
+            return null;
+        }).when(marklogicConverter).write(Mockito.any(SimpleEntity.class), Mockito.any(MarklogicContentHolder.class));
+
+        List<String> operations = new ArrayList<>();
+
+        MarklogicTemplate template = new MarklogicTemplate(contentSource, marklogicConverter);
+        template.setMarklogicCollectionUtils(marklogicCollectionUtils);
+        template.setMetricsRecorder(new MarklogicMetricsRecorder() {
+            @Override
+            public void recordOperation(String operation, @Nullable Class<?> entityClass, @Nullable Throwable failure, long durationNanos) {
+                operations.add(operation + (failure == null ? ":success" : ":failure"));
+            }
+        });
+        template.save(new SimpleEntity("1", "entity"));
+
+        assertThat(operations, CoreMatchers.hasItems("save:success"));
+        assertThat(operations.size(), is(1));
+    }
+
     @Test
     public void removeEntity() {
         final String contentUri = "/test/entity/1.xml";
@@ -262,6 +307,356 @@ public class MarklogicTemplateTest {
         assertThat(queryArgumentCaptor.getValue(), is("cts:search(fn:collection(), cts:element-value-query(fn:QName('', 'id'), '1', ('exact')), ())"));
     }
 
+    @Test
+    public void streamReleasesSessionOnceConsumed() throws Exception {
+        AdhocImpl request = new AdhocImpl(null, null, new RequestOptions());
+        when(session.newAdhocQuery(anyString())).thenReturn(request);
+        when(resultSequence.hasNext()).thenReturn(true, true, false);
+        when(resultSequence.next()).thenReturn(new ResultItemImpl(new XsStringImpl("1"), 0, null, null), new ResultItemImpl(new XsStringImpl("2"), 1, null, null));
+        when(marklogicConverter.read(eq(String.class), any(MarklogicContentHolder.class))).thenReturn("1", "2");
+
+        MarklogicTemplate template = new MarklogicTemplate(contentSource, marklogicConverter);
+        Query query = new Query();
+        query.setCriteria(new Criteria(new QName("", "name"), "test"));
+
+        CloseableIterator<String> iterator = template.stream(query, String.class);
+        verify(session, never()).close();
+        assertThat(request.getOptions().getCacheResult(), is(false));
+
+        assertThat(iterator.next(), is("1"));
+        assertThat(iterator.next(), is("2"));
+        assertThat(iterator.hasNext(), is(false));
+
+        verify(resultSequence).close();
+        verify(session).close();
+    }
+
+    @Test
+    public void findByIdServesUpToDateCachedEntity() throws Exception {
+        CachedEntity entity = new CachedEntity("1");
+        when(session.newAdhocQuery(anyString())).thenAnswer(invocation -> new AdhocImpl(null, null, new RequestOptions()));
+        when(resultSequence.hasNext()).thenReturn(true, true, false, true, false);
+        when(resultSequence.next()).thenReturn(
+                new ResultItemImpl(new XsStringImpl("1234"), 0, null, null),
+                new ResultItemImpl(new ElementImpl("<cachedEntity><id>1</id></cachedEntity>"), 1, "/content/cachedentity/1.xml", null),
+                new ResultItemImpl(new XsStringImpl("1234"), 0, null, null));
+        CachedEntity copy = new CachedEntity("1");
+        when(marklogicConverter.read(eq(CachedEntity.class), any(MarklogicContentHolder.class))).thenReturn(entity, copy);
+
+        MarklogicTemplate template = new MarklogicTemplate(contentSource, marklogicConverter);
+
+        assertThat(template.findById("1", CachedEntity.class), is(entity));
+        assertThat(template.findById("1", CachedEntity.class), is(copy));
+
+        ArgumentCaptor<MarklogicContentHolder> holderCaptor = ArgumentCaptor.forClass(MarklogicContentHolder.class);
+        verify(marklogicConverter, times(2)).read(eq(CachedEntity.class), holderCaptor.capture());
+        ResultItem cachedItem = (ResultItem) holderCaptor.getAllValues().get(1).getContent();
+        assertThat(cachedItem.asString(), is("<cachedEntity><id>1</id></cachedEntity>"));
+        verify(session, times(2)).newAdhocQuery(queryArgumentCaptor.capture());
+        assertThat(queryArgumentCaptor.getAllValues().get(1), CoreMatchers.containsString("xdmp:document-timestamp($uri)"));
+    }
+
+    @Test
+    public void findByIdSharesCachedImmutableEntity() throws Exception {
+        ImmutableCachedEntity entity = new ImmutableCachedEntity("1");
+        when(session.newAdhocQuery(anyString())).thenAnswer(invocation -> new AdhocImpl(null, null, new RequestOptions()));
+        when(resultSequence.hasNext()).thenReturn(true, true, false, true, false);
+        when(resultSequence.next()).thenReturn(
+                new ResultItemImpl(new XsStringImpl("1234"), 0, null, null),
+                new ResultItemImpl(new ElementImpl("<immutableCachedEntity><id>1</id></immutableCachedEntity>"), 1, "/content/immutablecachedentity/1.xml", null),
+                new ResultItemImpl(new XsStringImpl("1234"), 0, null, null));
+        when(marklogicConverter.read(eq(ImmutableCachedEntity.class), any(MarklogicContentHolder.class))).thenReturn(entity);
+
+        MarklogicTemplate template = new MarklogicTemplate(contentSource, marklogicConverter);
+
+        assertThat(template.findById("1", ImmutableCachedEntity.class), is(entity));
+        assertThat(template.findById("1", ImmutableCachedEntity.class), sameInstance(entity));
+
+        verify(marklogicConverter, times(1)).read(eq(ImmutableCachedEntity.class), any(MarklogicContentHolder.class));
+    }
+
+    @Test
+    public void doNotReplayUpdateOnConnectionFailure() throws Exception {
+        when(session.newAdhocQuery(anyString())).thenAnswer(invocation -> new AdhocImpl(null, null, new RequestOptions()));
+        when(session.submitRequest(any(Request.class))).thenThrow(new ServerConnectionException("Connection reset", null));
+        MarklogicTemplate template = new MarklogicTemplate(contentSource);
+
+        try {
+            template.invokeAdhocQuery("xdmp:document-insert('/test.xml', <test/>)", new MarklogicInvokeOperationOptions() {});
+            fail("DataAccessException expected");
+        } catch (DataAccessException dae) {
+            verify(session, times(1)).submitRequest(any(Request.class));
+        }
+    }
+
+    @Test
+    public void invokeAdhocQueryWithTimeout() throws Exception {
+        AdhocImpl request = new AdhocImpl(null, null, new RequestOptions());
+        when(session.newAdhocQuery(anyString())).thenReturn(request);
+        MarklogicTemplate template = new MarklogicTemplate(contentSource);
+
+        template.invokeAdhocQuery("xdmp:sleep(10000)", new MarklogicInvokeOperationOptions() {
+            @Override
+            public long timeoutMillis() {
+                return 5000;
+            }
+        });
+
+        verify(session).submitRequest(request);
+        assertTrue(request.getOptions().getTimeoutMillis() > 0 && request.getOptions().getTimeoutMillis() <= 5000);
+        assertThat(request.getOptions().getRequestTimeLimit(), is(5));
+    }
+
+    @Test
+    public void interruptedThreadDoesNotSubmitRequest() throws Exception {
+        when(session.newAdhocQuery(anyString())).thenReturn(new AdhocImpl(null, null, new RequestOptions()));
+        MarklogicTemplate template = new MarklogicTemplate(contentSource);
+
+        Thread.currentThread().interrupt();
+        try {
+            template.invokeAdhocQuery("xdmp:sleep(10000)", new MarklogicInvokeOperationOptions() {});
+            fail("DataAccessResourceFailureException expected");
+        } catch (DataAccessResourceFailureException ex) {
+            // expected
+        } finally {
+            assertTrue(Thread.interrupted());
+        }
+
+        verify(session, never()).submitRequest(any(Request.class));
+    }
+
+    @Test
+    public void requestsWithinSnapshotShareOnePointInTime() throws Exception {
+        AdhocImpl timestampRequest = new AdhocImpl(null, null, new RequestOptions());
+        AdhocImpl firstRequest = new AdhocImpl(null, null, new RequestOptions());
+        AdhocImpl secondRequest = new AdhocImpl(null, null, new RequestOptions());
+        AdhocImpl outsideRequest = new AdhocImpl(null, null, new RequestOptions());
+        when(session.newAdhocQuery(anyString())).thenReturn(timestampRequest, firstRequest, secondRequest, outsideRequest);
+        when(resultSequence.hasNext()).thenReturn(true, false);
+        when(resultSequence.next()).thenReturn(new ResultItemImpl(new XsStringImpl("16043"), 0, null, null));
+        when(marklogicConverter.read(eq(String.class), any(MarklogicContentHolder.class))).thenReturn("16043");
+
+        MarklogicTemplate template = new MarklogicTemplate(contentSource, marklogicConverter);
+        template.executeInSnapshot(() -> ReadOnlySessionContextHolder.doInReadOnly(() -> {
+            template.invokeAdhocQuery("xdmp:estimate(fn:doc())", new MarklogicInvokeOperationOptions() {});
+            return template.executeInSnapshot(() -> {
+                template.invokeAdhocQuery("fn:doc()[1 to 10]", new MarklogicInvokeOperationOptions() {});
+                return null;
+            });
+        }));
+        template.invokeAdhocQuery("fn:doc()[11 to 20]", new MarklogicInvokeOperationOptions() {});
+
+        verify(session, times(4)).newAdhocQuery(queryArgumentCaptor.capture());
+        assertThat(queryArgumentCaptor.getAllValues().get(0), CoreMatchers.containsString("xdmp:request-timestamp()"));
+        assertThat(timestampRequest.getOptions().getEffectivePointInTime(), nullValue());
+        assertThat(firstRequest.getOptions().getEffectivePointInTime(), is(new BigInteger("16043")));
+        assertThat(secondRequest.getOptions().getEffectivePointInTime(), is(new BigInteger("16043")));
+        assertThat(outsideRequest.getOptions().getEffectivePointInTime(), nullValue());
+    }
+
+    @Test
+    public void updatesWithinSnapshotUseLatestState() throws Exception {
+        AdhocImpl timestampRequest = new AdhocImpl(null, null, new RequestOptions());
+        AdhocImpl updateRequest = new AdhocImpl(null, null, new RequestOptions());
+        when(session.newAdhocQuery(anyString())).thenReturn(timestampRequest, updateRequest);
+        when(resultSequence.hasNext()).thenReturn(true, false);
+        when(resultSequence.next()).thenReturn(new ResultItemImpl(new XsStringImpl("16043"), 0, null, null));
+        when(marklogicConverter.read(eq(String.class), any(MarklogicContentHolder.class))).thenReturn("16043");
+
+        MarklogicTemplate template = new MarklogicTemplate(contentSource, marklogicConverter);
+        template.executeInSnapshot(() -> {
+            template.invokeAdhocQuery("xdmp:document-delete('/person/1.xml')", new MarklogicInvokeOperationOptions() {});
+            return null;
+        });
+
+        assertThat(updateRequest.getOptions().getEffectivePointInTime(), nullValue());
+    }
+
+    @Test
+    public void recordOutermostOperationMetrics() throws Exception {
+        when(session.newAdhocQuery(anyString())).thenReturn(new AdhocImpl(null, null, new RequestOptions()));
+        when(resultSequence.hasNext()).thenReturn(true, false);
+        when(resultSequence.next()).thenReturn(new ResultItemImpl(new XsStringImpl("42"), 0, null, null));
+        when(marklogicConverter.read(eq(Long.TYPE), any(MarklogicContentHolder.class))).thenAnswer(invocation -> {
+            MarklogicContentHolder holder = invocation.getArgument(1);
+            return Long.valueOf(((ResultItem) holder.getContent()).asString());
+        });
+
+        List<String> operations = new ArrayList<>();
+        List<Integer> resultItems = new ArrayList<>();
+        AtomicLong payloadBytes = new AtomicLong();
+        AtomicInteger sessionAcquisitions = new AtomicInteger();
+
+        MarklogicTemplate template = new MarklogicTemplate(contentSource, marklogicConverter);
+        template.setMetricsRecorder(new MarklogicMetricsRecorder() {
+            @Override
+            public void recordOperation(String operation, @Nullable Class<?> entityClass, @Nullable Throwable failure, long durationNanos) {
+                operations.add(operation + (failure == null ? ":success" : ":failure"));
+            }
+
+            @Override
+            public void recordPayloadRead(String operation, long bytes) {
+                payloadBytes.addAndGet(bytes);
+            }
+
+            @Override
+            public void recordResultItems(String operation, int count) {
+                resultItems.add(count);
+            }
+
+            @Override
+            public void recordSessionAcquisition(long durationNanos) {
+                sessionAcquisitions.incrementAndGet();
+            }
+        });
+
+        assertThat(template.count(new Query()), is(42L));
+
+        assertThat(operations, CoreMatchers.hasItems("count:success"));
+        assertThat(operations.size(), is(1));
+        assertThat(resultItems.size(), is(1));
+        assertThat(resultItems.get(0), is(1));
+        assertThat(payloadBytes.get(), is(2L));
+        assertThat(sessionAcquisitions.get(), is(1));
+    }
+
+    @Test
+    public void tracedSearchStripsServerElapsedTime() throws Exception {
+        when(session.newAdhocQuery(anyString())).thenReturn(new AdhocImpl(null, null, new RequestOptions()));
+        when(resultSequence.hasNext()).thenReturn(true, true, false);
+        when(resultSequence.next()).thenReturn(
+                new ResultItemImpl(new XsStringImpl("42"), 0, null, null),
+                new ResultItemImpl(new XsDayTimeDurationImpl("PT0.0123S"), 1, null, null));
+        when(marklogicConverter.read(eq(Long.TYPE), any(MarklogicContentHolder.class))).thenReturn(42L);
+
+        SlowOperationLog slowOperationLog = new SlowOperationLog();
+        slowOperationLog.setThresholdMillis(0);
+
+        MarklogicTemplate template = new MarklogicTemplate(contentSource, marklogicConverter);
+        template.setSlowOperationLog(slowOperationLog);
+
+        assertThat(template.count(new Query()), is(42L));
+
+        verify(session).newAdhocQuery(queryArgumentCaptor.capture());
+        assertThat(queryArgumentCaptor.getValue(), CoreMatchers.endsWith(", xdmp:elapsed-time())"));
+        verify(marklogicConverter, times(1)).read(eq(Long.TYPE), any(MarklogicContentHolder.class));
+    }
+
+    @Test
+    public void tracedSearchKeepsDurationResults() throws Exception {
+        when(session.newAdhocQuery(anyString())).thenReturn(new AdhocImpl(null, null, new RequestOptions()));
+        when(resultSequence.hasNext()).thenReturn(true, true, true, false);
+        when(resultSequence.next()).thenReturn(
+                new ResultItemImpl(new XsDayTimeDurationImpl("PT1H"), 0, null, null),
+                new ResultItemImpl(new XsDayTimeDurationImpl("PT2H"), 1, null, null),
+                new ResultItemImpl(new XsDayTimeDurationImpl("PT0.0123S"), 2, null, null));
+        when(marklogicConverter.read(eq(String.class), any(MarklogicContentHolder.class)))
+                .thenAnswer(invocation -> ((ResultItem) invocation.<MarklogicContentHolder>getArgument(1).getContent()).asString());
+
+        SlowOperationLog slowOperationLog = new SlowOperationLog();
+        slowOperationLog.setThresholdMillis(0);
+
+        MarklogicTemplate template = new MarklogicTemplate(contentSource, marklogicConverter);
+        template.setSlowOperationLog(slowOperationLog);
+
+        assertThat(template.find(new Query(), String.class), contains("PT1H", "PT2H"));
+    }
+
+    @Test
+    public void profileReadsStructuredReport() throws Exception {
+        AdhocImpl request = new AdhocImpl(null, null, new RequestOptions());
+        when(session.newAdhocQuery(anyString())).thenReturn(request);
+        when(resultSequence.hasNext()).thenReturn(true, false);
+        when(resultSequence.next()).thenReturn(new ResultItemImpl(new ElementImpl("<queryProfileReport>" +
+                "<query>cts:search(fn:collection('c'), cts:true-query(), ())</query><elapsedTime>PT0.002S</elapsedTime><resultCount>3</resultCount>" +
+                "<expressions><expression><source>cts:search(fn:collection('c'), cts:true-query(), ())</source><location>1:0</location>" +
+                "<count>1</count><shallowTime>PT0.001S</shallowTime><deepTime>PT0.002S</deepTime></expression></expressions>" +
+                "</queryProfileReport>"), 0, null, null));
+
+        Query query = new Query();
+        query.setCollection("c");
+        QueryProfileReport report = new MarklogicTemplate(contentSource).profile(query);
+
+        verify(session).newAdhocQuery(queryArgumentCaptor.capture());
+        assertThat(queryArgumentCaptor.getValue(), CoreMatchers.containsString("prof:eval($query)"));
+        assertThat(request.getVariables()[0].getValue().asString(), CoreMatchers.startsWith("cts:search(fn:collection('c')"));
+        assertThat(report.getResultCount(), is(3L));
+        assertThat(report.getElapsedTime().getSeconds(), is(0));
+        assertThat(report.getExpressions().size(), is(1));
+        assertThat(report.getExpressions().get(0).getLocation(), is("1:0"));
+        assertThat(report.getExpressions().get(0).getCount(), is(1L));
+    }
+
+    @Test
+    public void staticQueriesAreInvokedAsInstalledModules() throws Exception {
+        when(session.newAdhocQuery(anyString())).thenAnswer(invocation -> new AdhocImpl(session, invocation.getArgument(0), new RequestOptions()));
+        when(session.newModuleInvoke(anyString())).thenAnswer(invocation -> new ModuleImpl(session, invocation.getArgument(0), new RequestOptions(), false));
+
+        MarklogicTemplate template = new MarklogicTemplate(contentSource, marklogicConverter);
+        template.setInstallStaticQueries(true);
+        template.setStaticQueryInstaller(Runnable::run);
+        MarklogicInvokeOperationOptions options = new MarklogicInvokeOperationOptions() {
+            @Override
+            public boolean staticQuery() {
+                return true;
+            }
+        };
+
+        template.invokeAdhocQuery("xdmp:log('static')", options);
+        template.invokeAdhocQuery("xdmp:log('static')", options);
+
+        ArgumentCaptor<String> moduleCaptor = ArgumentCaptor.forClass(String.class);
+        verify(session, times(2)).newAdhocQuery(queryArgumentCaptor.capture());
+        verify(session).newModuleInvoke(moduleCaptor.capture());
+        assertThat(queryArgumentCaptor.getAllValues().get(0), is("xdmp:log('static')"));
+        assertThat(queryArgumentCaptor.getAllValues().get(1), CoreMatchers.containsString("xdmp:document-insert($uri, text {$module})"));
+        assertThat(moduleCaptor.getValue(), CoreMatchers.startsWith("/spring-data-marklogic/queries/"));
+
+        when(session.submitRequest(any(ModuleInvoke.class))).thenThrow(new XQueryException(null, "XDMP-MODNOTFOUND", null, "1.0-ml",
+                "Module not found", null, null, false, new String[0], new QueryStackFrame[0]));
+        template.invokeAdhocQuery("xdmp:log('static')", options);
+
+        verify(session, times(4)).newAdhocQuery(queryArgumentCaptor.capture());
+        assertThat(queryArgumentCaptor.getAllValues().get(4), is("xdmp:log('static')"));
+        assertThat(queryArgumentCaptor.getAllValues().get(5), CoreMatchers.containsString("xdmp:document-insert"));
+    }
+
+    @Test
+    public void staticQueriesAreInstalledOutOfTheSubmittingRequest() throws Exception {
+        when(session.newAdhocQuery(anyString())).thenAnswer(invocation -> new AdhocImpl(session, invocation.getArgument(0), new RequestOptions()));
+        when(session.newModuleInvoke(anyString())).thenAnswer(invocation -> new ModuleImpl(session, invocation.getArgument(0), new RequestOptions(), false));
+
+        List<Runnable> installations = new ArrayList<>();
+        MarklogicTemplate template = new MarklogicTemplate(contentSource, marklogicConverter);
+        template.setInstallStaticQueries(true);
+        template.setStaticQueryInstaller(installations::add);
+        MarklogicInvokeOperationOptions options = new MarklogicInvokeOperationOptions() {
+            @Override
+            public boolean useCacheResult() {
+                return false;
+            }
+
+            @Override
+            public boolean staticQuery() {
+                return true;
+            }
+        };
+
+        template.invokeAdhocQuery("fn:doc()", options);
+
+        ArgumentCaptor<Request> requestCaptor = ArgumentCaptor.forClass(Request.class);
+        verify(session).submitRequest(requestCaptor.capture());
+        assertThat(requestCaptor.getValue().getOptions().getCacheResult(), is(false));
+        assertThat(installations.size(), is(1));
+
+        installations.get(0).run();
+        template.invokeAdhocQuery("fn:doc()", options);
+
+        verify(session, times(3)).submitRequest(requestCaptor.capture());
+        assertThat(requestCaptor.getAllValues().get(3), instanceOf(ModuleInvoke.class));
+        assertThat(requestCaptor.getAllValues().get(3).getOptions().getCacheResult(), is(false));
+    }
+
     static class SimpleEntity {
 
         @Nullable String id;
@@ -288,6 +683,26 @@ public class MarklogicTemplateTest {
         }
     }
 
+    @Cached
+    static class CachedEntity {
+
+        String id;
+
+        CachedEntity(String id) {
+            this.id = id;
+        }
+    }
+
+    @Cached(copyOnRead = false)
+    static class ImmutableCachedEntity {
+
+        final String id;
+
+        ImmutableCachedEntity(String id) {
+            this.id = id;
+        }
+    }
+
     static class NonAnnotatedEntity {
         String id;
         String name;
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com._4dconcept.springframework.data.marklogic.core;
+
+import com._4dconcept.springframework.data.marklogic.core.query.Query;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.data.util.CloseableIterator;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.mock;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.times;
+
+/**
+ * Unit test for {@link ReactiveMarklogicTemplate}.
+ *
+ * @author Stéphane Toussaint
+ */
+public class ReactiveMarklogicTemplateTest {
+
+    private MarklogicOperations marklogicOperations;
+    private ReactiveMarklogicTemplate reactiveTemplate;
+
+    @Before
+    public void setup() {
+        marklogicOperations = mock(MarklogicOperations.class);
+        reactiveTemplate = new ReactiveMarklogicTemplate(marklogicOperations, Schedulers.immediate());
+    }
+
+    @Test
+    public void pullResultsOnDemand() {
+        Query query = new Query();
+        CountingIterator iterator = new CountingIterator("1", "2", "3");
+        given(marklogicOperations.stream(query, String.class)).willReturn(iterator);
+
+        StepVerifier.create(reactiveTemplate.find(query, String.class), 1)
+                .expectNext("1")
+                .then(() -> assertThat(iterator.pulled, is(1)))
+                .thenRequest(1)
+                .expectNext("2")
+                .thenCancel()
+                .verify();
+
+        assertThat(iterator.pulled, is(2));
+        assertThat(iterator.closed, is(true));
+    }
+
+    @Test
+    public void closeIteratorOnCompletion() {
+        Query query = new Query();
+        CountingIterator iterator = new CountingIterator("1", "2");
+        given(marklogicOperations.stream(query, String.class)).willReturn(iterator);
+
+        StepVerifier.create(reactiveTemplate.find(query, String.class))
+                .expectNext("1", "2")
+                .verifyComplete();
+
+        assertThat(iterator.closed, is(true));
+    }
+
+    @Test
+    public void emptyWhenNotFound() {
+        StepVerifier.create(reactiveTemplate.findById("1", String.class)).verifyComplete();
+    }
+
+    @Test
+    public void insertInBatches() {
+        AtomicInteger tasks = new AtomicInteger();
+        reactiveTemplate = new ReactiveMarklogicTemplate(marklogicOperations, Schedulers.fromExecutor(task -> {
+            tasks.incrementAndGet();
+            task.run();
+        }));
+        reactiveTemplate.setBatchSize(2);
+
+        StepVerifier.create(reactiveTemplate.insertAll(Flux.just("1", "2", "3")))
+                .expectNext("1", "2", "3")
+                .verifyComplete();
+
+        then(marklogicOperations).should(times(3)).insert(anyString());
+        assertThat(tasks.get(), is(2));
+    }
+
+    private static class CountingIterator implements CloseableIterator<String> {
+
+        private final Iterator<String> delegate;
+        private int pulled;
+        private boolean closed;
+
+        CountingIterator(String... values) {
+            this.delegate = Arrays.asList(values).iterator();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return delegate.hasNext();
+        }
+
+        @Override
+        public String next() {
+            pulled++;
+            return delegate.next();
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
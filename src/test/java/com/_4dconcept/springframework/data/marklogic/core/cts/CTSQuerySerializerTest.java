@@ -15,11 +15,21 @@
  */
 package com._4dconcept.springframework.data.marklogic.core.cts;
 
+import com._4dconcept.springframework.data.marklogic.core.mapping.MarklogicMappingContext;
+import com._4dconcept.springframework.data.marklogic.core.mapping.MarklogicPersistentProperty;
 import com._4dconcept.springframework.data.marklogic.core.query.Criteria;
+import com._4dconcept.springframework.data.marklogic.core.query.GeospatialCriteria;
 import com._4dconcept.springframework.data.marklogic.core.query.Query;
 import com._4dconcept.springframework.data.marklogic.core.query.SortCriteria;
+import com._4dconcept.springframework.data.marklogic.repository.Person;
 import org.hamcrest.Matchers;
 import org.junit.Test;
+import org.springframework.data.geo.Box;
+import org.springframework.data.geo.Circle;
+import org.springframework.data.geo.Distance;
+import org.springframework.data.geo.Metrics;
+import org.springframework.data.geo.Point;
+import org.springframework.data.geo.Polygon;
 
 import javax.xml.namespace.QName;
 import java.util.Arrays;
@@ -74,6 +84,80 @@ public class CTSQuerySerializerTest {
         assertThat(ctsQuery, is("cts:search(fn:collection(), cts:and-query((cts:element-value-query(fn:QName('', 'name'), 'Me'), cts:element-value-query(fn:QName('', 'town'), 'Paris'))), ())"));
     }
 
+    @Test
+    public void parseQueryWithWordOperator() {
+        Criteria criteria = new Criteria(new QName("town"), "Par*");
+        criteria.setOptions(Arrays.asList("wildcarded", "case-insensitive"));
+
+        Query query = new Query();
+        query.setCriteria(new Criteria(Criteria.Operator.WORD, criteria));
+
+        String ctsQuery = new CTSQuerySerializer(query).asCtsQuery();
+
+        assertThat(ctsQuery, is("cts:search(fn:collection(), cts:element-word-query(fn:QName('', 'town'), 'Par*', ('wildcarded','case-insensitive')), ())"));
+    }
+
+    @Test
+    public void parseQueryWithDocumentWordOperator() {
+        Criteria criteria = new Criteria();
+        criteria.setCriteriaObject("Paris");
+        criteria.setOptions(Arrays.asList("stemmed", "case-insensitive"));
+
+        Query query = new Query();
+        query.setCriteria(new Criteria(Criteria.Operator.WORD, criteria));
+
+        String ctsQuery = new CTSQuerySerializer(query).asCtsQuery();
+
+        assertThat(ctsQuery, is("cts:search(fn:collection(), cts:word-query('Paris', ('stemmed','case-insensitive')), ())"));
+    }
+
+    @Test
+    public void parseQueryWithGeospatialCircle() {
+        Query query = new Query();
+        query.setCriteria(new GeospatialCriteria(new QName("location"), new Circle(new Point(2.35, 48.85), new Distance(10, Metrics.MILES))));
+
+        String ctsQuery = new CTSQuerySerializer(query).asCtsQuery();
+
+        assertThat(ctsQuery, is("cts:search(fn:collection(), cts:element-geospatial-query(fn:QName('', 'location'), cts:circle(10.0, cts:point(48.85, 2.35))), ())"));
+    }
+
+    @Test
+    public void parseQueryWithGeospatialPairBox() {
+        GeospatialCriteria criteria = new GeospatialCriteria(new QName("location"), new QName("lat"), new QName("lon"), new Box(new Point(3, 49), new Point(2, 48)));
+        criteria.setOptions(Arrays.asList("coordinate-system=wgs84"));
+
+        Query query = new Query();
+        query.setCriteria(criteria);
+
+        String ctsQuery = new CTSQuerySerializer(query).asCtsQuery();
+
+        assertThat(ctsQuery, is("cts:search(fn:collection(), cts:element-pair-geospatial-query(fn:QName('', 'location'), fn:QName('', 'lat'), fn:QName('', 'lon'), cts:box(48.0, 2.0, 49.0, 3.0), ('coordinate-system=wgs84')), ())"));
+    }
+
+    @Test
+    public void parseQueryWithGeospatialPolygon() {
+        Query query = new Query();
+        query.setCriteria(new GeospatialCriteria(new QName("location"), new Polygon(new Point(2, 48), new Point(3, 48), new Point(3, 49))));
+
+        String ctsQuery = new CTSQuerySerializer(query).asCtsQuery();
+
+        assertThat(ctsQuery, is("cts:search(fn:collection(), cts:element-geospatial-query(fn:QName('', 'location'), cts:polygon((cts:point(48.0, 2.0), cts:point(48.0, 3.0), cts:point(49.0, 3.0)))), ())"));
+    }
+
+    @Test
+    public void parseQueryWithPropertyCriteria() {
+        MarklogicPersistentProperty property = new MarklogicMappingContext().getRequiredPersistentEntity(Person.class).getRequiredPersistentProperty("lastname");
+        Criteria criteria = new Criteria(property, "Doe");
+        assertThat(criteria.getQnameFragment(), Matchers.sameInstance(property.getQNameFragment()));
+
+        Query query = new Query();
+        query.setCriteria(criteria);
+
+        String ctsQuery = new CTSQuerySerializer(query).asCtsQuery();
+
+        assertThat(ctsQuery, is("cts:search(fn:collection(), cts:element-value-query(fn:QName('http://spring.data.marklogic/test/contact', 'lastname'), 'Doe'), ())"));
+    }
+
     @Test
     public void parseQueryWithNotOperator() {
         Query query = new Query();
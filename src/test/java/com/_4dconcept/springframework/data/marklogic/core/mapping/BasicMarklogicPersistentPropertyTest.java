@@ -29,8 +29,11 @@ import javax.xml.bind.annotation.XmlTransient;
 import javax.xml.namespace.QName;
 import java.lang.reflect.Field;
 
+import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
 
 /**
  * Unit test for {@link BasicMarklogicPersistentProperty}.
@@ -55,6 +58,26 @@ public class BasicMarklogicPersistentPropertyTest {
         checkPropertyQName("surname", "/test/classtype");
     }
 
+    @Test
+    public void resolveQNameFragment() {
+        MarklogicPersistentProperty property = getPropertyFor(ImplType.class, "name");
+        assertThat(property.getQNameFragment(), is("fn:QName('/test/type', 'name')"));
+        assertThat(property.getQName(), sameInstance(property.getQName()));
+    }
+
+    @Test
+    public void resolveQNameOnlyWhenRequested() {
+        MarklogicPersistentProperty property = getPropertyFor(TransientType.class, "name");
+        assertThat(property.getName(), is("name"));
+
+        try {
+            property.getQName();
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException iae) {
+            assertThat(iae.getMessage(), containsString("XmlTransient"));
+        }
+    }
+
     class Person {
         @Id
         String id;
@@ -87,6 +110,11 @@ public class BasicMarklogicPersistentPropertyTest {
         String surname;
     }
 
+    @XmlTransient
+    class TransientType {
+        String name;
+    }
+
     private void checkPropertyId(Class<?> type, String uuid, boolean isExplicit) {
         MarklogicPersistentProperty property = getPropertyFor(type, uuid);
         assertThat(property.isIdProperty(), is(true));
@@ -15,16 +15,21 @@
  */
 package com._4dconcept.springframework.data.marklogic.core.query;
 
+import com._4dconcept.springframework.data.marklogic.MarklogicCollectionUtils;
 import com._4dconcept.springframework.data.marklogic.core.MarklogicOperationOptions;
 import com._4dconcept.springframework.data.marklogic.core.mapping.Collection;
 import com._4dconcept.springframework.data.marklogic.core.mapping.Document;
 import com._4dconcept.springframework.data.marklogic.core.mapping.MarklogicIdentifier;
+import com._4dconcept.springframework.data.marklogic.core.mapping.MarklogicMappingContext;
+import com._4dconcept.springframework.data.marklogic.core.mapping.MarklogicPersistentEntity;
 import com._4dconcept.springframework.data.marklogic.repository.Address;
 import com._4dconcept.springframework.data.marklogic.repository.Person;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
 import org.springframework.data.domain.Example;
+import org.springframework.data.domain.ExampleMatcher;
 import org.springframework.expression.spel.SpelEvaluationException;
 
 import javax.xml.namespace.QName;
@@ -184,6 +189,96 @@ public class QueryBuilderTest {
 
     }
 
+    @Test
+    public void buildQueryFromExampleWithMatcher() {
+        Person person = new Person();
+        person.setFirstname("Me");
+        person.setLastname("Test");
+        person.setAge(38);
+
+        ExampleMatcher matcher = ExampleMatcher.matchingAny()
+                .withIgnorePaths("age")
+                .withMatcher("lastname", ExampleMatcher.GenericPropertyMatcher::startsWith)
+                .withIgnoreCase("firstname");
+
+        Query query = new QueryBuilder().alike(Example.of(person, matcher)).build();
+
+        assertThat(query.getCriteria(), notNullValue());
+        assertThat(query.getCriteria().getOperator(), is(Criteria.Operator.OR));
+
+        @SuppressWarnings("unchecked")
+        List<Criteria> criteriaList = (List<Criteria>) query.getCriteria().getCriteriaObject();
+
+        assertThat(criteriaList, hasSize(2));
+        assertThat(criteriaList.get(0).getCriteriaObject(), is("Me"));
+        assertThat(criteriaList.get(0).getOptions(), contains("case-insensitive"));
+        assertThat(criteriaList.get(1).getOperator(), is(Criteria.Operator.WORD));
+
+        Criteria wordCriteria = (Criteria) criteriaList.get(1).getCriteriaObject();
+        assertThat(wordCriteria.getCriteriaObject(), is("Test*"));
+        assertThat(wordCriteria.getOptions(), contains("wildcarded"));
+    }
+
+    @Test
+    public void buildQueryFromExampleIncludingNullValues() {
+        Person person = new Person();
+        person.setFirstname("Me");
+
+        ExampleMatcher matcher = ExampleMatcher.matching()
+                .withIncludeNullValues()
+                .withIgnorePaths("id", "age", "skills", "active", "type", "extraCollections", "address", "location");
+
+        Query query = new QueryBuilder().alike(Example.of(person, matcher)).build();
+
+        assertThat(query.getCriteria(), notNullValue());
+        assertThat(query.getCriteria().getOperator(), is(Criteria.Operator.AND));
+
+        @SuppressWarnings("unchecked")
+        List<Criteria> criteriaList = (List<Criteria>) query.getCriteria().getCriteriaObject();
+
+        assertThat(criteriaList, hasSize(2));
+        assertThat(criteriaList.get(0).getCriteriaObject(), is("Me"));
+        assertThat(criteriaList.get(1).getOperator(), is(Criteria.Operator.EMPTY));
+        assertThat(((Criteria) criteriaList.get(1).getCriteriaObject()).getQname().getLocalPart(), is("lastname"));
+    }
+
+    @Test
+    public void rejectRegexStringMatcher() {
+        expectedException.expect(InvalidDataAccessApiUsageException.class);
+
+        Person person = new Person();
+        person.setFirstname("M.*");
+
+        new QueryBuilder().alike(Example.of(person, ExampleMatcher.matching().withStringMatcher(ExampleMatcher.StringMatcher.REGEX))).build();
+    }
+
+    @Test
+    public void acceptRegexStringMatcherWithoutValueToMatch() {
+        Query query = new QueryBuilder().alike(Example.of(new Person(), ExampleMatcher.matching().withStringMatcher(ExampleMatcher.StringMatcher.REGEX))).build();
+
+        assertThat(query.getCriteria(), nullValue());
+    }
+
+    @Test
+    public void rejectWildcardInStartingProbeValue() {
+        expectedException.expect(InvalidDataAccessApiUsageException.class);
+
+        Person person = new Person();
+        person.setLastname("a*b");
+
+        new QueryBuilder().alike(Example.of(person, ExampleMatcher.matching().withStringMatcher(ExampleMatcher.StringMatcher.STARTING))).build();
+    }
+
+    @Test
+    public void resolvePlanPerCollectionUtils() {
+        MarklogicPersistentEntity<?> entity = new MarklogicMappingContext().getRequiredPersistentEntity(Person.class);
+        ExampleMatcher matcher = ExampleMatcher.matching();
+        MarklogicCollectionUtils collectionUtils = new MarklogicCollectionUtils() {};
+
+        assertThat(ExampleCriteriaPlan.of(entity, matcher, collectionUtils), sameInstance(ExampleCriteriaPlan.of(entity, matcher, collectionUtils)));
+        assertThat(ExampleCriteriaPlan.of(entity, matcher, collectionUtils), not(sameInstance(ExampleCriteriaPlan.of(entity, matcher, new MarklogicCollectionUtils() {}))));
+    }
+
     @Test
     public void buildQueryWithExplicitCollection() {
         Person person = new Person();
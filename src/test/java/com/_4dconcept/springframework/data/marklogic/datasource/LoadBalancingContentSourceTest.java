@@ -0,0 +1,166 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com._4dconcept.springframework.data.marklogic.datasource;
+
+import com.marklogic.xcc.ContentSource;
+import com.marklogic.xcc.Request;
+import com.marklogic.xcc.ResultSequence;
+import com.marklogic.xcc.Session;
+import com.marklogic.xcc.exceptions.ServerConnectionException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.mock;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Unit test for {@link LoadBalancingContentSource}.
+ *
+ * @author Stéphane Toussaint
+ */
+public class LoadBalancingContentSourceTest {
+
+    private ContentSource contentSource1;
+    private ContentSource contentSource2;
+    private Session session1;
+    private Session session2;
+
+    @Before
+    public void setup() {
+        contentSource1 = mock(ContentSource.class);
+        contentSource2 = mock(ContentSource.class);
+        session1 = mock(Session.class);
+        session2 = mock(Session.class);
+        given(contentSource1.newSession()).willReturn(session1);
+        given(contentSource2.newSession()).willReturn(session2);
+    }
+
+    @After
+    public void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.getSynchronizations().forEach(s -> s.afterCompletion(0));
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    public void roundRobinSelection() {
+        LoadBalancingContentSource contentSource = new LoadBalancingContentSource(Arrays.asList(contentSource1, contentSource2));
+
+        assertSame(session1, target(contentSource.newSession()));
+        assertSame(session2, target(contentSource.newSession()));
+        assertSame(session1, target(contentSource.newSession()));
+    }
+
+    @Test
+    public void ejectFailingHost() throws Exception {
+        willThrow(new ServerConnectionException("Connection refused", null)).given(session1).submitRequest(any(Request.class));
+
+        LoadBalancingContentSource contentSource = new LoadBalancingContentSource(Arrays.asList(contentSource1, contentSource2));
+        contentSource.setFailureThreshold(1);
+
+        Session session = contentSource.newSession();
+        try {
+            session.submitRequest(mock(Request.class));
+            fail("ServerConnectionException expected");
+        } catch (ServerConnectionException ex) {
+            // expected
+        }
+
+        assertEquals(1, contentSource.getAvailableHostCount());
+        assertSame(session2, target(contentSource.newSession()));
+        assertSame(session2, target(contentSource.newSession()));
+    }
+
+    @Test
+    public void restoreEjectedHost() throws Exception {
+        willThrow(new ServerConnectionException("Connection refused", null)).given(session1).submitRequest(any(Request.class));
+
+        LoadBalancingContentSource contentSource = new LoadBalancingContentSource(Arrays.asList(contentSource1, contentSource2));
+        contentSource.setFailureThreshold(1);
+        contentSource.setEjectionDurationMillis(0);
+
+        try {
+            contentSource.newSession().submitRequest(mock(Request.class));
+        } catch (ServerConnectionException ex) {
+            // expected
+        }
+
+        assertEquals(2, contentSource.getAvailableHostCount());
+    }
+
+    @Test
+    public void pinHostWithinTransaction() {
+        LoadBalancingContentSource contentSource = new LoadBalancingContentSource(Arrays.asList(contentSource1, contentSource2));
+        TransactionSynchronizationManager.initSynchronization();
+
+        assertSame(session1, target(contentSource.newSession()));
+        assertSame(session1, target(contentSource.newSession()));
+    }
+
+    @Test
+    public void leastOutstandingSelection() {
+        LoadBalancingContentSource contentSource = new LoadBalancingContentSource(Arrays.asList(contentSource1, contentSource2));
+        contentSource.setStrategy(LoadBalancingContentSource.Strategy.LEAST_OUTSTANDING);
+
+        assertSame(session1, target(contentSource.newSession()));
+    }
+
+    @Test
+    public void keepStreamedRequestOutstandingUntilResultIsClosed() throws Exception {
+        ResultSequence resultSequence = mock(ResultSequence.class);
+        given(session1.submitRequest(any(Request.class))).willReturn(resultSequence);
+        LoadBalancingContentSource contentSource = new LoadBalancingContentSource(Arrays.asList(contentSource1, contentSource2));
+        contentSource.setStrategy(LoadBalancingContentSource.Strategy.LEAST_OUTSTANDING);
+
+        Session session = contentSource.newSession();
+        ResultSequence result = session.submitRequest(mock(Request.class));
+
+        // The first host is still streaming results : the second one is selected
+        assertSame(session2, target(contentSource.newSession()));
+
+        result.close();
+        verify(resultSequence).close();
+        assertSame(session1, target(contentSource.newSession()));
+    }
+
+    @Test
+    public void releaseStreamedRequestWhenSessionIsClosed() throws Exception {
+        given(session1.submitRequest(any(Request.class))).willReturn(mock(ResultSequence.class));
+        LoadBalancingContentSource contentSource = new LoadBalancingContentSource(Arrays.asList(contentSource1, contentSource2));
+        contentSource.setStrategy(LoadBalancingContentSource.Strategy.LEAST_OUTSTANDING);
+
+        Session session = contentSource.newSession();
+        session.submitRequest(mock(Request.class));
+        session.close();
+
+        assertSame(session1, target(contentSource.newSession()));
+    }
+
+    private Session target(Session session) {
+        return ((SessionProxy) session).getTargetSession();
+    }
+}
@@ -0,0 +1,231 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com._4dconcept.springframework.data.marklogic.datasource;
+
+import com.marklogic.xcc.ContentSource;
+import com.marklogic.xcc.Request;
+import com.marklogic.xcc.ResultSequence;
+import com.marklogic.xcc.Session;
+import com.marklogic.xcc.exceptions.ServerConnectionException;
+import com.marklogic.xcc.exceptions.StreamingResultException;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.mock;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Unit test for {@link SessionPoolingContentSourceProxy}.
+ *
+ * @author Stéphane Toussaint
+ */
+public class SessionPoolingContentSourceProxyTest {
+
+    private ContentSource contentSource;
+    private Session session;
+
+    @Before
+    public void setup() {
+        contentSource = mock(ContentSource.class);
+        session = mock(Session.class);
+        given(session.getTransactionMode()).willReturn(Session.TransactionMode.AUTO);
+        given(contentSource.newSession()).willReturn(session, mock(Session.class));
+    }
+
+    @Test
+    public void reuseReleasedSession() {
+        SessionPoolingContentSourceProxy proxy = new SessionPoolingContentSourceProxy(contentSource);
+
+        Session first = proxy.newSession();
+        ContentSourceUtils.releaseSession(first, proxy);
+        Session second = proxy.newSession();
+
+        assertSame(session, ((SessionProxy) second).getTargetSession());
+        assertEquals(1, proxy.getCreatedCount());
+        assertEquals(1, proxy.getReusedCount());
+        assertEquals(1, proxy.getActiveCount());
+        verify(session, never()).close();
+    }
+
+    @Test
+    public void resetTransactionModeOnRelease() {
+        SessionPoolingContentSourceProxy proxy = new SessionPoolingContentSourceProxy(contentSource);
+
+        Session pooled = proxy.newSession();
+        given(session.getTransactionMode()).willReturn(Session.TransactionMode.UPDATE);
+        pooled.close();
+
+        verify(session).setTransactionMode(Session.TransactionMode.AUTO);
+        assertEquals(1, proxy.getIdleCount());
+    }
+
+    @Test
+    public void rollbackOpenTransactionOnRelease() throws Exception {
+        SessionPoolingContentSourceProxy proxy = new SessionPoolingContentSourceProxy(contentSource);
+
+        Session pooled = proxy.newSession();
+        given(session.getTransactionMode()).willReturn(Session.TransactionMode.UPDATE);
+        pooled.close();
+
+        verify(session).rollback();
+        assertEquals(1, proxy.getIdleCount());
+    }
+
+    @Test
+    public void evictSessionWhenRollbackFails() throws Exception {
+        SessionPoolingContentSourceProxy proxy = new SessionPoolingContentSourceProxy(contentSource);
+
+        Session pooled = proxy.newSession();
+        given(session.getTransactionMode()).willReturn(Session.TransactionMode.UPDATE);
+        willThrow(new ServerConnectionException("Connection reset", null)).given(session).rollback();
+        pooled.close();
+
+        verify(session).close();
+        assertEquals(0, proxy.getIdleCount());
+        assertEquals(1, proxy.getEvictedCount());
+    }
+
+    @Test
+    public void evictSessionOnConnectionFailure() throws Exception {
+        willThrow(new ServerConnectionException("Connection refused", null)).given(session).submitRequest(any(Request.class));
+        SessionPoolingContentSourceProxy proxy = new SessionPoolingContentSourceProxy(contentSource);
+
+        Session pooled = proxy.newSession();
+        try {
+            pooled.submitRequest(mock(Request.class));
+            fail("ServerConnectionException expected");
+        } catch (ServerConnectionException ex) {
+            // expected
+        }
+        pooled.close();
+
+        verify(session, times(1)).close();
+        assertEquals(0, proxy.getIdleCount());
+        assertEquals(1, proxy.getEvictedCount());
+    }
+
+    @Test
+    public void closeSessionWhenPoolIsFull() {
+        SessionPoolingContentSourceProxy proxy = new SessionPoolingContentSourceProxy(contentSource);
+        proxy.setMaxIdle(1);
+
+        Session first = proxy.newSession();
+        Session second = proxy.newSession();
+        first.close();
+        second.close();
+
+        assertEquals(1, proxy.getIdleCount());
+        assertEquals(0, proxy.getEvictedCount());
+
+        proxy.destroy();
+        verify(session).close();
+        assertEquals(0, proxy.getIdleCount());
+    }
+
+    @Test
+    public void closeExceedingIdleSessionsWhenResized() {
+        Session other = mock(Session.class);
+        given(contentSource.newSession()).willReturn(session, other);
+        SessionPoolingContentSourceProxy proxy = new SessionPoolingContentSourceProxy(contentSource);
+
+        Session first = proxy.newSession();
+        Session second = proxy.newSession();
+        first.close();
+        second.close();
+        assertEquals(2, proxy.getIdleCount());
+
+        proxy.setMaxIdle(1);
+
+        // The most recently released Session is kept
+        assertEquals(1, proxy.getIdleCount());
+        verify(other, never()).close();
+        verify(session).close();
+        assertSame(other, ((SessionProxy) proxy.newSession()).getTargetSession());
+    }
+
+    @Test
+    public void rejectSessionBeyondMaxActive() {
+        SessionPoolingContentSourceProxy proxy = new SessionPoolingContentSourceProxy(contentSource);
+        proxy.setMaxActive(1);
+        proxy.setMaxWaitMillis(0);
+
+        Session first = proxy.newSession();
+        try {
+            proxy.newSession();
+            fail("DataAccessResourceFailureException expected");
+        } catch (DataAccessResourceFailureException ex) {
+            // expected
+        }
+
+        first.close();
+        assertSame(session, ((SessionProxy) proxy.newSession()).getTargetSession());
+        assertEquals(1, proxy.getActiveCount());
+    }
+
+    @Test
+    public void waitForSessionBeyondMaxActive() throws Exception {
+        SessionPoolingContentSourceProxy proxy = new SessionPoolingContentSourceProxy(contentSource);
+        proxy.setMaxActive(1);
+
+        Session first = proxy.newSession();
+        Thread releaser = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            first.close();
+        });
+        releaser.start();
+
+        assertSame(session, ((SessionProxy) proxy.newSession()).getTargetSession());
+        releaser.join();
+        assertEquals(1, proxy.getCreatedCount());
+    }
+
+    @Test
+    public void evictSessionOnConnectionFailureWhileReadingResults() throws Exception {
+        ResultSequence resultSequence = mock(ResultSequence.class);
+        given(resultSequence.hasNext()).willThrow(new StreamingResultException("Connection reset", resultSequence, new ServerConnectionException("Connection reset", null)));
+        given(session.submitRequest(any(Request.class))).willReturn(resultSequence);
+        SessionPoolingContentSourceProxy proxy = new SessionPoolingContentSourceProxy(contentSource);
+
+        Session pooled = proxy.newSession();
+        ResultSequence results = pooled.submitRequest(mock(Request.class));
+        try {
+            results.hasNext();
+            fail("StreamingResultException expected");
+        } catch (StreamingResultException ex) {
+            // expected
+        }
+        results.close();
+        pooled.close();
+
+        verify(resultSequence).close();
+        verify(session).close();
+        assertEquals(0, proxy.getIdleCount());
+        assertEquals(1, proxy.getEvictedCount());
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com._4dconcept.springframework.data.marklogic.datasource.inmemory;
+
+import com.marklogic.xcc.ContentSource;
+import com.marklogic.xcc.Request;
+import com.marklogic.xcc.Session;
+import com.marklogic.xcc.exceptions.QueryStackFrame;
+import com.marklogic.xcc.exceptions.RequestException;
+import com.marklogic.xcc.exceptions.XQueryException;
+import com.marklogic.xcc.spi.ConnectionProvider;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * {@link ContentSource} backed by an {@link InMemoryDocumentStore}, to exercise templates and repositories without
+ * a MarkLogic server.
+ *
+ * <p>Ad hoc queries are evaluated by an {@link InMemoryQueryEvaluator}, hence limited to the queries built by the
+ * template. Modules are XQuery main modules registered through {@link #registerModule(String, String)}. Sessions share
+ * the store without any isolation and requests are evaluated at the latest state whatever their point in time.
+ *
+ * <p>A {@link #setLatencyMillis latency} can be added to every round trip to the store, to reveal chatty code paths
+ * along with the {@link #getRoundTripCount() round trip count}.
+ *
+ * @author Stéphane Toussaint
+ */
+public class InMemoryContentSource implements ContentSource {
+
+    static final String MODULE_NOT_FOUND_CODE = "XDMP-MODNOTFOUND";
+
+    private final InMemoryDocumentStore documentStore;
+
+    private final Map<String, String> modules = new ConcurrentHashMap<>();
+
+    private final AtomicLong roundTripCount = new AtomicLong();
+
+    private long latencyMillis;
+
+    private Logger defaultLogger = Logger.getLogger(InMemoryContentSource.class.getName());
+
+    private boolean authenticationPreemptive;
+
+    public InMemoryContentSource() {
+        this(new InMemoryDocumentStore());
+    }
+
+    public InMemoryContentSource(InMemoryDocumentStore documentStore) {
+        Assert.notNull(documentStore, "DocumentStore must not be null");
+        this.documentStore = documentStore;
+    }
+
+    /**
+     * @param latencyMillis an artificial latency added to every round trip. Default is 0.
+     */
+    public void setLatencyMillis(long latencyMillis) {
+        Assert.isTrue(latencyMillis >= 0, "'latencyMillis' must not be negative");
+        this.latencyMillis = latencyMillis;
+    }
+
+    /**
+     * @return the number of requests, content insertions, commits and rollbacks submitted so far
+     */
+    public long getRoundTripCount() {
+        return roundTripCount.get();
+    }
+
+    public InMemoryDocumentStore getDocumentStore() {
+        return documentStore;
+    }
+
+    /**
+     * Register the given XQuery main module, to be evaluated on module invocation of the given uri.
+     * @param moduleUri the module uri
+     * @param xquery the module body
+     */
+    public void registerModule(String moduleUri, String xquery) {
+        modules.put(moduleUri, xquery);
+    }
+
+    String resolveModule(String moduleUri, Request request) throws RequestException {
+        String module = modules.get(moduleUri);
+        if (module == null) {
+            throw new XQueryException(request, MODULE_NOT_FOUND_CODE, null, "1.0-ml", "Module " + moduleUri + " not found",
+                    null, null, false, new String[] {moduleUri}, new QueryStackFrame[0]);
+        }
+        return module;
+    }
+
+    void roundTrip() {
+        roundTripCount.incrementAndGet();
+        if (latencyMillis > 0) {
+            try {
+                TimeUnit.MILLISECONDS.sleep(latencyMillis);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public Session newSession() {
+        return new InMemorySession(this, null);
+    }
+
+    @Override
+    public Session newSession(String contentbaseId) {
+        return newSession();
+    }
+
+    @Override
+    public Session newSession(String userName, String password) {
+        return new InMemorySession(this, userName);
+    }
+
+    @Override
+    public Session newSession(String userName, char[] password) {
+        return new InMemorySession(this, userName);
+    }
+
+    @Override
+    public Session newSession(String userName, char[] password, String contentbaseId) {
+        return new InMemorySession(this, userName);
+    }
+
+    @Override
+    public Session newSession(String userName, String password, String contentbaseId) {
+        return new InMemorySession(this, userName);
+    }
+
+    @Override
+    public Logger getDefaultLogger() {
+        return defaultLogger;
+    }
+
+    @Override
+    public void setDefaultLogger(Logger logger) {
+        this.defaultLogger = logger;
+    }
+
+    @Override
+    public boolean isAuthenticationPreemptive() {
+        return authenticationPreemptive;
+    }
+
+    @Override
+    public void setAuthenticationPreemptive(boolean authenticationPreemptive) {
+        this.authenticationPreemptive = authenticationPreemptive;
+    }
+
+    @Override
+    @Nullable
+    public ConnectionProvider getConnectionProvider() {
+        return null;
+    }
+}
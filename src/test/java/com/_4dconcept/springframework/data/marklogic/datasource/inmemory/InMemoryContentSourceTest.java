@@ -0,0 +1,117 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com._4dconcept.springframework.data.marklogic.datasource.inmemory;
+
+import com._4dconcept.springframework.data.marklogic.core.MarklogicInvokeOperationOptions;
+import com._4dconcept.springframework.data.marklogic.core.MarklogicTemplate;
+import com._4dconcept.springframework.data.marklogic.core.query.Criteria;
+import com._4dconcept.springframework.data.marklogic.core.query.Query;
+import com._4dconcept.springframework.data.marklogic.core.query.QueryBuilder;
+import com._4dconcept.springframework.data.marklogic.repository.Person;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+
+import javax.xml.namespace.QName;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Unit test for {@link InMemoryContentSource}.
+ *
+ * @author Stéphane Toussaint
+ */
+public class InMemoryContentSourceTest {
+
+    private static final String CONTACT_NAMESPACE = "http://spring.data.marklogic/test/contact";
+
+    private InMemoryContentSource contentSource;
+    private MarklogicTemplate template;
+
+    @Before
+    public void setup() {
+        contentSource = new InMemoryContentSource();
+        template = new MarklogicTemplate(contentSource);
+
+        template.insert(new Person("1", "John", "Doe", 38, "FR"));
+        template.insert(new Person("2", "Jane", "Doe", 32, "US"));
+        template.insert(new Person("3", "Bob", "Smith", 45, "FR"));
+    }
+
+    @Test
+    public void insertAndFindById() {
+        assertThat(contentSource.getDocumentStore().get("/contact/person/1.xml"), notNullValue());
+        assertThat(contentSource.getDocumentStore().get("/contact/person/1.xml").getCollections(), contains("Person"));
+
+        Person person = template.findById("2", Person.class);
+        assertThat(person, notNullValue());
+        assertThat(person.getFirstname(), is("Jane"));
+        assertThat(template.findById("4", Person.class), nullValue());
+    }
+
+    @Test
+    public void findSortedByCriteria() {
+        Query query = new QueryBuilder(template).ofType(Person.class)
+                .with(new Criteria(new QName(CONTACT_NAMESPACE, "country"), "fr"))
+                .with(Sort.by(Sort.Direction.DESC, "age"))
+                .build();
+
+        List<Person> persons = template.find(query, Person.class);
+
+        assertThat(persons.stream().map(Person::getFirstname).collect(Collectors.toList()), contains("Bob", "John"));
+        assertThat(template.count(query), is(2L));
+    }
+
+    @Test
+    public void removeDocuments() {
+        template.remove("1", Person.class);
+        assertThat(template.findAll(Person.class).size(), is(2));
+
+        template.removeAll(Person.class);
+        assertThat(contentSource.getDocumentStore().size(), is(0));
+    }
+
+    @Test(expected = DataAccessException.class)
+    public void failOnMissingModule() {
+        template.invokeModule("/missing.xqy", new MarklogicInvokeOperationOptions() {});
+    }
+
+    @Test
+    public void evaluateRegisteredModule() {
+        contentSource.registerModule("/count.xqy", "fn:count(fn:collection('Person'))");
+
+        assertThat(template.invokeModule("/count.xqy", String.class, new MarklogicInvokeOperationOptions() {}), is("3"));
+    }
+
+    @Test
+    public void applyLatencyOnEachRoundTrip() {
+        contentSource.setLatencyMillis(20);
+        long roundTrips = contentSource.getRoundTripCount();
+        long start = System.nanoTime();
+
+        template.findById("1", Person.class);
+
+        assertThat(contentSource.getRoundTripCount(), is(roundTrips + 1));
+        assertThat(System.nanoTime() - start >= 20_000_000, is(true));
+    }
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com._4dconcept.springframework.data.marklogic.datasource.inmemory;
+
+import org.springframework.lang.Nullable;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Documents of an {@link InMemoryContentSource}, keyed by uri, with their collections and property fragment.
+ *
+ * @author Stéphane Toussaint
+ */
+public class InMemoryDocumentStore {
+
+    static final String PROPERTY_NAMESPACE = "http://marklogic.com/xdmp/property";
+
+    private final ConcurrentNavigableMap<String, StoredDocument> documents = new ConcurrentSkipListMap<>();
+
+    private final AtomicLong timestamp = new AtomicLong(1);
+
+    /**
+     * Insert or replace the document stored at the given uri. Properties of a replaced document are kept.
+     * @param uri the document uri
+     * @param content the document content, parsed as XML when possible
+     * @param collections the document collections
+     */
+    public void insert(String uri, String content, String... collections) {
+        documents.compute(uri, (key, existing) -> new StoredDocument(uri, content, parse(content),
+                new LinkedHashSet<>(Arrays.asList(collections)),
+                existing == null ? Collections.emptyList() : existing.properties, timestamp.incrementAndGet()));
+    }
+
+    /**
+     * @return the document stored at the given uri, null if none
+     */
+    @Nullable
+    public StoredDocument get(String uri) {
+        return documents.get(uri);
+    }
+
+    /**
+     * @return the stored documents, ordered by uri
+     */
+    public Collection<StoredDocument> getDocuments() {
+        return Collections.unmodifiableCollection(documents.values());
+    }
+
+    /**
+     * @return the documents of the given collection, ordered by uri
+     */
+    public List<StoredDocument> getCollection(String collection) {
+        return documents.values().stream().filter(document -> document.collections.contains(collection)).collect(Collectors.toList());
+    }
+
+    /**
+     * @return the number of stored documents
+     */
+    public int size() {
+        return documents.size();
+    }
+
+    /**
+     * @return whether a document was removed
+     */
+    public boolean delete(String uri) {
+        boolean removed = documents.remove(uri) != null;
+        if (removed) {
+            timestamp.incrementAndGet();
+        }
+        return removed;
+    }
+
+    public void deleteCollection(String collection) {
+        documents.values().removeIf(document -> document.collections.contains(collection));
+        timestamp.incrementAndGet();
+    }
+
+    /**
+     * Replace the properties of the given document having the same name as one of the given ones.
+     * @return whether the document exists
+     */
+    public boolean setProperties(String uri, List<Element> newProperties) {
+        StoredDocument updated = documents.computeIfPresent(uri, (key, existing) -> {
+            List<Element> properties = new ArrayList<>();
+            for (Element property : existing.properties) {
+                if (newProperties.stream().noneMatch(newProperty -> sameName(property, newProperty))) {
+                    properties.add(property);
+                }
+            }
+            properties.addAll(newProperties);
+            return new StoredDocument(uri, existing.content, existing.root, existing.collections, properties, timestamp.incrementAndGet());
+        });
+        return updated != null;
+    }
+
+    /**
+     * Remove every document.
+     */
+    public void clear() {
+        documents.clear();
+        timestamp.incrementAndGet();
+    }
+
+    /**
+     * @return the timestamp of the last update
+     */
+    public long getTimestamp() {
+        return timestamp.get();
+    }
+
+    static DocumentBuilder newDocumentBuilder() {
+        try {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setNamespaceAware(true);
+            return factory.newDocumentBuilder();
+        } catch (ParserConfigurationException pce) {
+            throw new IllegalStateException("Unable to create a DocumentBuilder", pce);
+        }
+    }
+
+    @Nullable
+    static Element parse(String content) {
+        try {
+            return newDocumentBuilder().parse(new InputSource(new StringReader(content))).getDocumentElement();
+        } catch (SAXException | IOException ex) {
+            return null;
+        }
+    }
+
+    private static boolean sameName(Node node, Node other) {
+        return node.getLocalName().equals(other.getLocalName()) && String.valueOf(node.getNamespaceURI()).equals(String.valueOf(other.getNamespaceURI()));
+    }
+
+    /**
+     * Immutable state of a stored document.
+     */
+    public static final class StoredDocument {
+
+        private final String uri;
+        private final String content;
+        private final @Nullable Element root;
+        private final Set<String> collections;
+        private final List<Element> properties;
+        private final long timestamp;
+
+        StoredDocument(String uri, String content, @Nullable Element root, Set<String> collections, List<Element> properties, long timestamp) {
+            this.uri = uri;
+            this.content = content;
+            this.root = root;
+            this.collections = Collections.unmodifiableSet(collections);
+            this.properties = Collections.unmodifiableList(properties);
+            this.timestamp = timestamp;
+        }
+
+        public String getUri() {
+            return uri;
+        }
+
+        public String getContent() {
+            return content;
+        }
+
+        /**
+         * @return the document root element, null if the content is not XML
+         */
+        @Nullable
+        public Element getRoot() {
+            return root;
+        }
+
+        public Set<String> getCollections() {
+            return collections;
+        }
+
+        public List<Element> getProperties() {
+            return properties;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        /**
+         * @return the property fragment of this document, as a {@code prop:properties} element
+         */
+        Element getPropertiesRoot() {
+            Document document = newDocumentBuilder().newDocument();
+            Element propertiesRoot = document.createElementNS(PROPERTY_NAMESPACE, "prop:properties");
+            document.appendChild(propertiesRoot);
+            for (Element property : properties) {
+                propertiesRoot.appendChild(document.importNode(property, true));
+            }
+            return propertiesRoot;
+        }
+    }
+
+    static List<Element> childElements(Node node) {
+        List<Element> elements = new ArrayList<>();
+        NodeList children = node.getChildNodes();
+        for (int i = 0; i < children.getLength(); i++) {
+            if (children.item(i) instanceof Element) {
+                elements.add((Element) children.item(i));
+            }
+        }
+        return elements;
+    }
+}
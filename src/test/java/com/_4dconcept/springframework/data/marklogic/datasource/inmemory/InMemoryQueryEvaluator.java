@@ -0,0 +1,576 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com._4dconcept.springframework.data.marklogic.datasource.inmemory;
+
+import com._4dconcept.springframework.data.marklogic.datasource.inmemory.InMemoryDocumentStore.StoredDocument;
+import org.springframework.lang.Nullable;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import javax.xml.namespace.QName;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Eager evaluator of the XQuery subset emitted by {@code CTSQuerySerializer} and {@code MarklogicTemplate}.
+ *
+ * <p>Supported are variable and namespace declarations, sequences, string and integer literals, external variables,
+ * positional predicates, the {@code /*} step and the following functions :
+ * <ul>
+ *     <li>{@code fn:collection}, {@code fn:doc}, {@code fn:QName}, {@code fn:count}, {@code fn:string}, {@code fn:current-dateTime}</li>
+ *     <li>{@code cts:search}, {@code cts:uris}, {@code cts:and-query}, {@code cts:or-query}, {@code cts:not-query},
+ *     {@code cts:true-query}, {@code cts:element-value-query}, {@code cts:element-word-query}, {@code cts:element-query},
+ *     {@code cts:collection-query}, {@code cts:properties-fragment-query}, {@code cts:index-order}, {@code cts:element-reference}</li>
+ *     <li>{@code xdmp:estimate}, {@code xdmp:document-delete}, {@code xdmp:collection-delete},
+ *     {@code xdmp:document-set-property}, {@code xdmp:unquote}, {@code xdmp:elapsed-time}, {@code xdmp:request-timestamp},
+ *     {@code xdmp:wallclock-to-timestamp}</li>
+ * </ul>
+ * Anything else, such as FLWOR expressions, fails with an {@link IllegalArgumentException}.
+ *
+ * @author Stéphane Toussaint
+ */
+final class InMemoryQueryEvaluator {
+
+    private static final Pattern WHITESPACES = Pattern.compile("\\s+");
+
+    private final InMemoryDocumentStore store;
+    private final Map<String, String> variables;
+    private final long start = System.nanoTime();
+
+    private String query = "";
+    private int position;
+
+    InMemoryQueryEvaluator(InMemoryDocumentStore store, Map<String, String> variables) {
+        this.store = store;
+        this.variables = variables;
+    }
+
+    /**
+     * @return the items of the evaluated query : {@link StoredDocument}, DOM nodes, {@link String}, {@link Long} or
+     * {@link Duration}
+     */
+    List<Object> evaluate(String query) {
+        this.query = query;
+        this.position = 0;
+
+        parseProlog();
+        List<Object> result = parseExpr();
+        skipWhitespaces();
+        if (position < query.length()) {
+            throw error("Unexpected token");
+        }
+        return result;
+    }
+
+    private void parseProlog() {
+        while (lookAtKeyword("declare")) {
+            readName();
+            String kind = readName();
+            if (!"variable".equals(kind) && !"namespace".equals(kind)) {
+                throw error("Unsupported declaration " + kind);
+            }
+            if ("variable".equals(kind)) {
+                expect('$');
+                String name = readName();
+                if (!variables.containsKey(name)) {
+                    throw error("Undefined external variable $" + name);
+                }
+            }
+            while (position < query.length() && query.charAt(position) != ';') {
+                if (query.charAt(position) == '"' || query.charAt(position) == '\'') {
+                    readString();
+                } else {
+                    position++;
+                }
+            }
+            expect(';');
+        }
+    }
+
+    private List<Object> parseExpr() {
+        List<Object> result = new ArrayList<>(parseExprSingle());
+        while (lookAt(',')) {
+            position++;
+            result.addAll(parseExprSingle());
+        }
+        return result;
+    }
+
+    private List<Object> parseExprSingle() {
+        List<Object> left = parsePostfix();
+        if (lookAtKeyword("to")) {
+            readName();
+            long from = asLong(left);
+            long to = asLong(parsePostfix());
+            List<Object> range = new ArrayList<>();
+            for (long i = from; i <= to; i++) {
+                range.add(i);
+            }
+            return range;
+        }
+        return left;
+    }
+
+    private List<Object> parsePostfix() {
+        List<Object> items = parsePrimary();
+        while (true) {
+            if (lookAt('[')) {
+                position++;
+                items = applyPredicate(items, parseExpr());
+                expect(']');
+            } else if (lookAt('/')) {
+                position++;
+                expect('*');
+                List<Object> children = new ArrayList<>();
+                for (Object item : items) {
+                    children.addAll(InMemoryDocumentStore.childElements(asNode(item)));
+                }
+                items = children;
+            } else {
+                return items;
+            }
+        }
+    }
+
+    private List<Object> applyPredicate(List<Object> items, List<Object> positions) {
+        List<Object> selected = new ArrayList<>();
+        for (Object index : positions) {
+            if (!(index instanceof Long)) {
+                throw error("Only positional predicates are supported");
+            }
+            long i = (Long) index;
+            if (i >= 1 && i <= items.size()) {
+                selected.add(items.get((int) i - 1));
+            }
+        }
+        return selected;
+    }
+
+    private List<Object> parsePrimary() {
+        skipWhitespaces();
+        if (position >= query.length()) {
+            throw error("Unexpected end of query");
+        }
+
+        char c = query.charAt(position);
+        if (c == '(') {
+            position++;
+            if (lookAt(')')) {
+                position++;
+                return new ArrayList<>();
+            }
+            List<Object> items = parseExpr();
+            expect(')');
+            return items;
+        } else if (c == '\'' || c == '"') {
+            return single(readString());
+        } else if (Character.isDigit(c)) {
+            int begin = position;
+            while (position < query.length() && Character.isDigit(query.charAt(position))) {
+                position++;
+            }
+            return single(Long.valueOf(query.substring(begin, position)));
+        } else if (c == '$') {
+            position++;
+            String name = readName();
+            String value = variables.get(name);
+            if (value == null) {
+                throw error("Undefined variable $" + name);
+            }
+            return single(value);
+        }
+
+        String name = readName();
+        expect('(');
+        List<List<Object>> arguments = new ArrayList<>();
+        if (lookAt(')')) {
+            position++;
+        } else {
+            arguments.add(parseExprSingle());
+            while (lookAt(',')) {
+                position++;
+                arguments.add(parseExprSingle());
+            }
+            expect(')');
+        }
+        return call(name, arguments);
+    }
+
+    private List<Object> call(String name, List<List<Object>> args) {
+        switch (name) {
+            case "fn:collection":
+                return new ArrayList<>(args.isEmpty() || args.get(0).isEmpty() ? store.getDocuments() : store.getCollection(asString(args.get(0))));
+            case "fn:doc":
+                StoredDocument document = store.get(asString(args.get(0)));
+                return document == null ? new ArrayList<>() : single(document);
+            case "fn:QName":
+                return single(new QName(asString(args.get(0)), asString(args.get(1))));
+            case "fn:count":
+            case "xdmp:estimate":
+                return single((long) args.get(0).size());
+            case "fn:string":
+                return single(args.get(0).isEmpty() ? "" : stringValue(args.get(0).get(0)));
+            case "fn:current-dateTime":
+                return single(java.time.OffsetDateTime.now().toString());
+            case "xdmp:request-timestamp":
+            case "xdmp:wallclock-to-timestamp":
+                return single(store.getTimestamp());
+            case "xdmp:elapsed-time":
+                return single(Duration.ofNanos(System.nanoTime() - start));
+            case "xdmp:unquote":
+                Element root = InMemoryDocumentStore.parse(asString(args.get(0)));
+                if (root == null) {
+                    throw error("Invalid XML given to xdmp:unquote");
+                }
+                return single(root.getOwnerDocument());
+            case "xdmp:document-delete":
+                String uri = asString(args.get(0));
+                if (!store.delete(uri)) {
+                    throw error("Document not found " + uri);
+                }
+                return new ArrayList<>();
+            case "xdmp:collection-delete":
+                store.deleteCollection(asString(args.get(0)));
+                return new ArrayList<>();
+            case "xdmp:document-set-property":
+                List<Element> properties = args.get(1).stream().map(item -> (Element) asNode(item)).collect(Collectors.toList());
+                if (!store.setProperties(asString(args.get(0)), properties)) {
+                    throw error("Document not found " + asString(args.get(0)));
+                }
+                return new ArrayList<>();
+            case "cts:search":
+                return search(args);
+            case "cts:uris":
+                CtsQuery urisQuery = args.size() > 2 ? asQuery(args.get(2)) : CtsQuery.TRUE;
+                return store.getDocuments().stream().filter(urisQuery::matches).map(StoredDocument::getUri).collect(Collectors.toList());
+            case "cts:true-query":
+                return single(CtsQuery.TRUE);
+            case "cts:and-query":
+                List<CtsQuery> andQueries = asQueries(args.get(0));
+                return single((CtsQuery) (doc, scope) -> andQueries.stream().allMatch(q -> q.matches(doc, scope)));
+            case "cts:or-query":
+                List<CtsQuery> orQueries = asQueries(args.get(0));
+                return single((CtsQuery) (doc, scope) -> orQueries.stream().anyMatch(q -> q.matches(doc, scope)));
+            case "cts:not-query":
+                CtsQuery negated = asQuery(args.get(0));
+                return single((CtsQuery) (doc, scope) -> !negated.matches(doc, scope));
+            case "cts:collection-query":
+                List<String> collections = args.get(0).stream().map(this::stringValue).collect(Collectors.toList());
+                return single((CtsQuery) (doc, scope) -> collections.stream().anyMatch(doc.getCollections()::contains));
+            case "cts:properties-fragment-query":
+                CtsQuery propertiesQuery = asQuery(args.get(0));
+                return single((CtsQuery) (doc, scope) -> propertiesQuery.matches(doc, doc.getPropertiesRoot()));
+            case "cts:element-query":
+                QName elementName = asQName(args.get(0));
+                CtsQuery elementQuery = asQuery(args.get(1));
+                return single((CtsQuery) (doc, scope) -> elements(scope, elementName).stream().anyMatch(e -> elementQuery.matches(doc, e)));
+            case "cts:element-value-query":
+                return single(valueQuery(asQName(args.get(0)), args.get(1), options(args, 2), false));
+            case "cts:element-word-query":
+                return single(valueQuery(asQName(args.get(0)), args.get(1), options(args, 2), true));
+            case "cts:element-reference":
+                return single(asQName(args.get(0)));
+            case "cts:index-order":
+                return single(new IndexOrder(asQName(args.get(0)), options(args, 1).contains("descending")));
+            default:
+                throw error("Unsupported function " + name);
+        }
+    }
+
+    private List<Object> search(List<List<Object>> args) {
+        CtsQuery ctsQuery = args.size() > 1 ? asQuery(args.get(1)) : CtsQuery.TRUE;
+        List<Object> documents = args.get(0).stream().filter(item -> ctsQuery.matches((StoredDocument) item)).collect(Collectors.toList());
+
+        List<IndexOrder> orders = args.size() > 2 ? args.get(2).stream()
+                .filter(IndexOrder.class::isInstance).map(IndexOrder.class::cast).collect(Collectors.toList()) : Collections.emptyList();
+        for (int i = orders.size() - 1; i >= 0; i--) {
+            documents.sort(orders.get(i).comparator());
+        }
+        return documents;
+    }
+
+    private CtsQuery valueQuery(QName qname, List<Object> values, List<String> options, boolean words) {
+        List<String> texts = values.stream().map(this::stringValue).collect(Collectors.toList());
+        return (doc, scope) -> elements(scope, qname).stream().anyMatch(element -> {
+            String elementText = element.getTextContent();
+            return texts.stream().anyMatch(text -> {
+                boolean caseSensitive = options.contains("exact") || options.contains("case-sensitive")
+                        || (!options.contains("case-insensitive") && !text.equals(text.toLowerCase(Locale.ROOT)));
+                String actual = caseSensitive ? elementText : elementText.toLowerCase(Locale.ROOT);
+                String expected = caseSensitive ? text : text.toLowerCase(Locale.ROOT);
+                if (words) {
+                    return toWordPattern(expected).matcher(actual).find();
+                } else if (options.contains("exact")) {
+                    return actual.equals(expected);
+                }
+                return normalize(actual).equals(normalize(expected)) || wildcardPattern(normalize(expected)).matcher(normalize(actual)).matches();
+            });
+        });
+    }
+
+    private static Pattern toWordPattern(String phrase) {
+        String words = WHITESPACES.splitAsStream(phrase.trim()).map(word -> wildcardPattern(word).pattern())
+                .collect(Collectors.joining("\\W+"));
+        return Pattern.compile("(?<![\\w])" + words + "(?![\\w])");
+    }
+
+    private static Pattern wildcardPattern(String text) {
+        StringBuilder pattern = new StringBuilder();
+        for (char c : text.toCharArray()) {
+            if (c == '*') {
+                pattern.append("\\w*");
+            } else if (c == '?') {
+                pattern.append("\\w");
+            } else {
+                pattern.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        return Pattern.compile(pattern.toString());
+    }
+
+    private static String normalize(String text) {
+        return WHITESPACES.matcher(text.trim()).replaceAll(" ");
+    }
+
+    private static List<Element> elements(@Nullable Node scope, QName qname) {
+        List<Element> elements = new ArrayList<>();
+        if (scope instanceof Element) {
+            Element element = (Element) scope;
+            if (matches(element, qname)) {
+                elements.add(element);
+            }
+            NodeList descendants = element.getElementsByTagNameNS(qname.getNamespaceURI().isEmpty() ? "*" : qname.getNamespaceURI(), qname.getLocalPart());
+            for (int i = 0; i < descendants.getLength(); i++) {
+                Element descendant = (Element) descendants.item(i);
+                if (matches(descendant, qname)) {
+                    elements.add(descendant);
+                }
+            }
+        }
+        return elements;
+    }
+
+    private static boolean matches(Element element, QName qname) {
+        String namespace = element.getNamespaceURI() == null ? "" : element.getNamespaceURI();
+        return qname.getLocalPart().equals(element.getLocalName()) && qname.getNamespaceURI().equals(namespace);
+    }
+
+    private List<String> options(List<List<Object>> args, int index) {
+        return args.size() > index ? args.get(index).stream().map(this::stringValue).collect(Collectors.toList()) : Collections.emptyList();
+    }
+
+    private List<CtsQuery> asQueries(List<Object> items) {
+        return items.stream().map(item -> {
+            if (!(item instanceof CtsQuery)) {
+                throw error("A cts:query is expected");
+            }
+            return (CtsQuery) item;
+        }).collect(Collectors.toList());
+    }
+
+    private CtsQuery asQuery(List<Object> items) {
+        if (items.isEmpty()) {
+            return CtsQuery.TRUE;
+        }
+        List<CtsQuery> queries = asQueries(items);
+        return queries.size() == 1 ? queries.get(0) : (doc, scope) -> queries.stream().allMatch(q -> q.matches(doc, scope));
+    }
+
+    private QName asQName(List<Object> items) {
+        if (items.size() != 1 || !(items.get(0) instanceof QName)) {
+            throw error("A single xs:QName is expected");
+        }
+        return (QName) items.get(0);
+    }
+
+    private Node asNode(Object item) {
+        if (item instanceof StoredDocument) {
+            Element root = ((StoredDocument) item).getRoot();
+            if (root == null) {
+                throw error("Document " + ((StoredDocument) item).getUri() + " is not XML");
+            }
+            return root.getOwnerDocument();
+        } else if (item instanceof Node) {
+            return (Node) item;
+        }
+        throw error("A node is expected");
+    }
+
+    private String asString(List<Object> items) {
+        if (items.size() != 1) {
+            throw error("A single item is expected");
+        }
+        return stringValue(items.get(0));
+    }
+
+    private long asLong(List<Object> items) {
+        if (items.size() != 1 || !(items.get(0) instanceof Long)) {
+            throw error("A single xs:integer is expected");
+        }
+        return (Long) items.get(0);
+    }
+
+    private String stringValue(Object item) {
+        if (item instanceof StoredDocument) {
+            return ((StoredDocument) item).getContent();
+        } else if (item instanceof Document) {
+            return ((Document) item).getDocumentElement().getTextContent();
+        } else if (item instanceof Node) {
+            return ((Node) item).getTextContent();
+        }
+        return String.valueOf(item);
+    }
+
+    private static List<Object> single(Object item) {
+        List<Object> items = new ArrayList<>();
+        items.add(item);
+        return items;
+    }
+
+    private String readString() {
+        char quote = query.charAt(position++);
+        StringBuilder value = new StringBuilder();
+        while (true) {
+            if (position >= query.length()) {
+                throw error("Unterminated string literal");
+            }
+            char c = query.charAt(position++);
+            if (c == quote) {
+                if (position < query.length() && query.charAt(position) == quote) {
+                    value.append(quote);
+                    position++;
+                } else {
+                    return unescape(value.toString());
+                }
+            } else {
+                value.append(c);
+            }
+        }
+    }
+
+    private static String unescape(String value) {
+        return value.replace("&lt;", "<").replace("&gt;", ">").replace("&quot;", "\"").replace("&apos;", "'").replace("&amp;", "&");
+    }
+
+    private String readName() {
+        skipWhitespaces();
+        int begin = position;
+        while (position < query.length()) {
+            char c = query.charAt(position);
+            boolean prefixSeparator = c == ':' && position + 1 < query.length() && Character.isLetter(query.charAt(position + 1));
+            if (!Character.isLetterOrDigit(c) && c != '-' && c != '_' && c != '.' && !prefixSeparator) {
+                break;
+            }
+            position++;
+        }
+        if (begin == position) {
+            throw error("A name is expected");
+        }
+        return query.substring(begin, position);
+    }
+
+    private boolean lookAtKeyword(String keyword) {
+        skipWhitespaces();
+        int end = position + keyword.length();
+        return query.startsWith(keyword, position) && end < query.length() && Character.isWhitespace(query.charAt(end));
+    }
+
+    private boolean lookAt(char c) {
+        skipWhitespaces();
+        return position < query.length() && query.charAt(position) == c;
+    }
+
+    private void expect(char c) {
+        if (!lookAt(c)) {
+            throw error("'" + c + "' is expected");
+        }
+        position++;
+    }
+
+    private void skipWhitespaces() {
+        while (position < query.length()) {
+            if (Character.isWhitespace(query.charAt(position))) {
+                position++;
+            } else if (query.startsWith("(:", position)) {
+                int end = query.indexOf(":)", position);
+                position = end < 0 ? query.length() : end + 2;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(String.format("%s at position %d of query %s", message, position, query));
+    }
+
+    /**
+     * A cts query, matched against a document and a node of this document or of its property fragment.
+     */
+    @FunctionalInterface
+    interface CtsQuery {
+
+        CtsQuery TRUE = (doc, scope) -> true;
+
+        boolean matches(StoredDocument document, @Nullable Node scope);
+
+        default boolean matches(StoredDocument document) {
+            return matches(document, document.getRoot());
+        }
+    }
+
+    private static final class IndexOrder {
+
+        private final QName qname;
+        private final boolean descending;
+
+        IndexOrder(QName qname, boolean descending) {
+            this.qname = qname;
+            this.descending = descending;
+        }
+
+        Comparator<Object> comparator() {
+            Map<Object, String> keys = new HashMap<>();
+            Comparator<String> ascending = IndexOrder::compareValues;
+            Comparator<String> values = descending ? ascending.reversed() : ascending;
+            return Comparator.comparing(item -> keys.computeIfAbsent(item, this::key), Comparator.nullsLast(values));
+        }
+
+        @Nullable
+        private String key(Object item) {
+            List<Element> elements = elements(((StoredDocument) item).getRoot(), qname);
+            return elements.isEmpty() ? null : elements.get(0).getTextContent().trim();
+        }
+
+        private static int compareValues(String value, String other) {
+            try {
+                return Double.compare(Double.parseDouble(value), Double.parseDouble(other));
+            } catch (NumberFormatException nfe) {
+                return value.compareTo(other);
+            }
+        }
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com._4dconcept.springframework.data.marklogic.datasource.inmemory;
+
+import com._4dconcept.springframework.data.marklogic.datasource.inmemory.InMemoryDocumentStore.StoredDocument;
+import com.marklogic.xcc.ResultChannelName;
+import com.marklogic.xcc.ResultItem;
+import com.marklogic.xcc.ResultSequence;
+import com.marklogic.xcc.impl.ResultItemImpl;
+import com.marklogic.xcc.types.ValueType;
+import com.marklogic.xcc.types.XdmItem;
+import com.marklogic.xcc.types.impl.DocumentImpl;
+import com.marklogic.xcc.types.impl.ElementImpl;
+import com.marklogic.xcc.types.impl.XsDayTimeDurationImpl;
+import com.marklogic.xcc.types.impl.XsIntegerImpl;
+import com.marklogic.xcc.types.impl.XsStringImpl;
+import org.springframework.lang.Nullable;
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import java.io.StringWriter;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Cached {@link ResultSequence} of the items evaluated by an {@link InMemorySession}.
+ *
+ * @author Stéphane Toussaint
+ */
+final class InMemoryResultSequence implements ResultSequence {
+
+    private final List<ResultItem> items = new ArrayList<>();
+
+    private int cursor = -1;
+    private boolean closed;
+
+    InMemoryResultSequence(List<Object> values) {
+        for (Object value : values) {
+            int index = items.size();
+            if (value instanceof StoredDocument) {
+                StoredDocument document = (StoredDocument) value;
+                items.add(new ResultItemImpl(new DocumentImpl(document.getContent()), index, document.getUri(), null));
+            } else {
+                items.add(new ResultItemImpl(toItem(value), index, null, null));
+            }
+        }
+    }
+
+    private static XdmItem toItem(Object value) {
+        if (value instanceof Document) {
+            return new DocumentImpl(serialize((Node) value));
+        } else if (value instanceof Node) {
+            return new ElementImpl(serialize((Node) value));
+        } else if (value instanceof Long) {
+            return new XsIntegerImpl(value.toString());
+        } else if (value instanceof Duration) {
+            return new XsDayTimeDurationImpl(value.toString());
+        }
+        return new XsStringImpl(String.valueOf(value));
+    }
+
+    private static String serialize(Node node) {
+        try {
+            Transformer transformer = TransformerFactory.newInstance().newTransformer();
+            transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
+            StringWriter writer = new StringWriter();
+            transformer.transform(new DOMSource(node), new StreamResult(writer));
+            return writer.toString();
+        } catch (TransformerException te) {
+            throw new IllegalStateException("Unable to serialize node", te);
+        }
+    }
+
+    @Override
+    public int size() {
+        return items.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return items.isEmpty();
+    }
+
+    @Override
+    public boolean isCached() {
+        return true;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return !closed && cursor + 1 < items.size();
+    }
+
+    @Override
+    public ResultItem next() {
+        if (!hasNext()) {
+            throw new IllegalStateException("No more items in this sequence");
+        }
+        return items.get(++cursor);
+    }
+
+    @Override
+    @Nullable
+    public ResultItem current() {
+        return cursor < 0 ? null : items.get(cursor);
+    }
+
+    @Override
+    public ResultItem resultItemAt(int index) {
+        return items.get(index);
+    }
+
+    @Override
+    public XdmItem itemAt(int index) {
+        return items.get(index).getItem();
+    }
+
+    @Override
+    public void rewind() {
+        cursor = -1;
+    }
+
+    @Override
+    public Iterator<ResultItem> iterator() {
+        return items.iterator();
+    }
+
+    @Override
+    public ResultSequence toCached() {
+        return this;
+    }
+
+    @Override
+    public ResultItem[] toResultItemArray() {
+        return items.toArray(new ResultItem[0]);
+    }
+
+    @Override
+    public XdmItem[] toArray() {
+        return items.stream().map(ResultItem::getItem).toArray(XdmItem[]::new);
+    }
+
+    @Override
+    @Nullable
+    public ResultSequence getChannel(ResultChannelName channel) {
+        return null;
+    }
+
+    @Override
+    public String asString(String separator) {
+        return items.stream().map(ResultItem::asString).collect(Collectors.joining(separator));
+    }
+
+    @Override
+    public String asString() {
+        return asString("\n");
+    }
+
+    @Override
+    public String[] asStrings() {
+        return items.stream().map(ResultItem::asString).toArray(String[]::new);
+    }
+
+    @Override
+    public ValueType getValueType() {
+        return ValueType.SEQUENCE;
+    }
+
+    @Override
+    public String toString() {
+        return "InMemoryResultSequence [size=" + items.size() + ", closed=" + closed + "]";
+    }
+}
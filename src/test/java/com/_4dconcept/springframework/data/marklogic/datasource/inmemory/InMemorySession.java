@@ -0,0 +1,311 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com._4dconcept.springframework.data.marklogic.datasource.inmemory;
+
+import com.marklogic.xcc.AdhocQuery;
+import com.marklogic.xcc.Content;
+import com.marklogic.xcc.ContentCreateOptions;
+import com.marklogic.xcc.ContentSource;
+import com.marklogic.xcc.ContentbaseMetaData;
+import com.marklogic.xcc.ModuleInvoke;
+import com.marklogic.xcc.ModuleSpawn;
+import com.marklogic.xcc.Request;
+import com.marklogic.xcc.RequestOptions;
+import com.marklogic.xcc.ResultSequence;
+import com.marklogic.xcc.Session;
+import com.marklogic.xcc.UserCredentials;
+import com.marklogic.xcc.exceptions.RequestException;
+import com.marklogic.xcc.impl.AdhocImpl;
+import com.marklogic.xcc.impl.ModuleImpl;
+import com.marklogic.xcc.types.XdmVariable;
+import org.springframework.lang.Nullable;
+import org.springframework.util.StreamUtils;
+
+import javax.transaction.xa.XAResource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * {@link Session} of an {@link InMemoryContentSource}, evaluating requests against its {@link InMemoryDocumentStore}.
+ *
+ * <p>Updates are applied as soon as submitted : {@link #commit()} and {@link #rollback()} only account for a round trip.
+ *
+ * @author Stéphane Toussaint
+ */
+class InMemorySession implements Session {
+
+    private final InMemoryContentSource contentSource;
+    private final @Nullable String user;
+
+    private TransactionMode transactionMode = TransactionMode.AUTO;
+    private Update update = Update.AUTO;
+    private boolean autoCommit = true;
+    private int transactionTimeout;
+    private RequestOptions defaultRequestOptions = new RequestOptions();
+    private Logger logger;
+    private @Nullable Object userObject;
+    private boolean closed;
+
+    InMemorySession(InMemoryContentSource contentSource, @Nullable String user) {
+        this.contentSource = contentSource;
+        this.user = user;
+        this.logger = contentSource.getDefaultLogger();
+    }
+
+    @Override
+    public ResultSequence submitRequest(Request request) throws RequestException {
+        assertOpen(request);
+        contentSource.roundTrip();
+
+        Map<String, String> variables = new HashMap<>();
+        for (XdmVariable variable : request.getVariables()) {
+            variables.put(variable.getName().getLocalname(), variable.getValue().asString());
+        }
+
+        String query = request instanceof AdhocQuery ? ((AdhocQuery) request).getQuery() : contentSource.resolveModule(((ModuleInvoke) request).getModuleUri(), request);
+        try {
+            return new InMemoryResultSequence(new InMemoryQueryEvaluator(contentSource.getDocumentStore(), variables).evaluate(query));
+        } catch (RuntimeException ex) {
+            throw new RequestException(ex.getMessage(), request, ex);
+        }
+    }
+
+    @Override
+    public void insertContent(Content content) throws RequestException {
+        insertContent(new Content[] {content});
+    }
+
+    @Override
+    public void insertContent(Content[] contents) throws RequestException {
+        assertOpen(null);
+        contentSource.roundTrip();
+        for (Content content : contents) {
+            doInsertContent(content);
+        }
+    }
+
+    @Override
+    public List<RequestException> insertContentCollectErrors(Content[] contents) throws RequestException {
+        assertOpen(null);
+        contentSource.roundTrip();
+        List<RequestException> errors = new ArrayList<>();
+        for (Content content : contents) {
+            try {
+                doInsertContent(content);
+            } catch (RequestException re) {
+                errors.add(re);
+            }
+        }
+        return errors;
+    }
+
+    private void doInsertContent(Content content) throws RequestException {
+        try (InputStream inputStream = content.openDataStream()) {
+            ContentCreateOptions createOptions = content.getCreateOptions();
+            String[] collections = createOptions == null || createOptions.getCollections() == null ? new String[0] : createOptions.getCollections();
+            contentSource.getDocumentStore().insert(content.getUri(), StreamUtils.copyToString(inputStream, StandardCharsets.UTF_8), collections);
+        } catch (IOException ioe) {
+            throw new RequestException("Unable to read content " + content.getUri(), null, ioe);
+        }
+    }
+
+    @Override
+    public boolean commit() throws RequestException {
+        assertOpen(null);
+        contentSource.roundTrip();
+        return true;
+    }
+
+    @Override
+    public void rollback() throws RequestException {
+        assertOpen(null);
+        contentSource.roundTrip();
+    }
+
+    @Override
+    public AdhocQuery newAdhocQuery(String query, @Nullable RequestOptions options) {
+        return new AdhocImpl(this, query, options);
+    }
+
+    @Override
+    public AdhocQuery newAdhocQuery(String query) {
+        return newAdhocQuery(query, null);
+    }
+
+    @Override
+    public ModuleInvoke newModuleInvoke(String moduleUri, @Nullable RequestOptions options) {
+        return new ModuleImpl(this, moduleUri, options, false);
+    }
+
+    @Override
+    public ModuleInvoke newModuleInvoke(String moduleUri) {
+        return newModuleInvoke(moduleUri, null);
+    }
+
+    @Override
+    public ModuleSpawn newModuleSpawn(String moduleUri, @Nullable RequestOptions options) {
+        return new ModuleImpl(this, moduleUri, options, false);
+    }
+
+    @Override
+    public ModuleSpawn newModuleSpawn(String moduleUri) {
+        return newModuleSpawn(moduleUri, null);
+    }
+
+    private void assertOpen(@Nullable Request request) throws RequestException {
+        if (closed) {
+            throw new RequestException("Session is closed", request);
+        }
+    }
+
+    @Override
+    public ContentSource getContentSource() {
+        return contentSource;
+    }
+
+    @Override
+    @Nullable
+    public UserCredentials getUserCredentials() {
+        return null;
+    }
+
+    @Override
+    @Nullable
+    public String getContentBaseName() {
+        return null;
+    }
+
+    @Override
+    @Nullable
+    public XAResource getXAResource() {
+        return null;
+    }
+
+    @Override
+    public void setTransactionMode(TransactionMode transactionMode) {
+        this.transactionMode = transactionMode;
+    }
+
+    @Override
+    public TransactionMode getTransactionMode() {
+        return transactionMode;
+    }
+
+    @Override
+    public boolean isAutoCommit() {
+        return autoCommit;
+    }
+
+    @Override
+    public void setAutoCommit(boolean autoCommit) {
+        this.autoCommit = autoCommit;
+    }
+
+    @Override
+    public Update getUpdate() {
+        return update;
+    }
+
+    @Override
+    public void setUpdate(Update update) {
+        this.update = update;
+    }
+
+    @Override
+    public void setTransactionTimeout(int transactionTimeout) {
+        this.transactionTimeout = transactionTimeout;
+    }
+
+    @Override
+    public int getTransactionTimeout() {
+        return transactionTimeout;
+    }
+
+    @Override
+    public int getCachedTxnTimeout() {
+        return transactionTimeout;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    @Nullable
+    public ContentbaseMetaData getContentbaseMetaData() {
+        return null;
+    }
+
+    @Override
+    public void setDefaultRequestOptions(@Nullable RequestOptions defaultRequestOptions) {
+        this.defaultRequestOptions = defaultRequestOptions == null ? new RequestOptions() : defaultRequestOptions;
+    }
+
+    @Override
+    public RequestOptions getDefaultRequestOptions() {
+        return defaultRequestOptions;
+    }
+
+    @Override
+    public RequestOptions getEffectiveRequestOptions() {
+        return defaultRequestOptions;
+    }
+
+    @Override
+    public BigInteger getCurrentServerPointInTime() {
+        return BigInteger.valueOf(contentSource.getDocumentStore().getTimestamp());
+    }
+
+    @Override
+    public Logger getLogger() {
+        return logger;
+    }
+
+    @Override
+    public void setLogger(Logger logger) {
+        this.logger = logger;
+    }
+
+    @Override
+    public void setUserObject(@Nullable Object userObject) {
+        this.userObject = userObject;
+    }
+
+    @Override
+    @Nullable
+    public Object getUserObject() {
+        return userObject;
+    }
+
+    @Override
+    public URI getConnectionUri() {
+        return URI.create("xcc://" + (user == null ? "" : user + "@") + "in-memory");
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com._4dconcept.springframework.data.marklogic.datasource.lookup;
+
+import com._4dconcept.springframework.data.marklogic.datasource.ReadOnlySessionContextHolder;
+import com.marklogic.xcc.ContentSource;
+import com.marklogic.xcc.Session;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.junit.Assert.assertSame;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Unit test for {@link ReadWriteContentSourceRouter}.
+ *
+ * @author Stéphane Toussaint
+ */
+public class ReadWriteContentSourceRouterTest {
+
+    private Session writeSession;
+    private Session readSession;
+    private ReadWriteContentSourceRouter router;
+
+    @Before
+    public void setup() {
+        ContentSource writeContentSource = mock(ContentSource.class);
+        ContentSource readContentSource = mock(ContentSource.class);
+        writeSession = mock(Session.class);
+        readSession = mock(Session.class);
+        given(writeContentSource.newSession()).willReturn(writeSession);
+        given(readContentSource.newSession()).willReturn(readSession);
+
+        router = new ReadWriteContentSourceRouter(writeContentSource, readContentSource);
+        router.afterPropertiesSet();
+    }
+
+    @After
+    public void clear() {
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    @Test
+    public void routeToPrimaryByDefault() {
+        assertSame(writeSession, router.newSession());
+        verify(writeSession, never()).setTransactionMode(Session.TransactionMode.QUERY);
+    }
+
+    @Test
+    public void routeReadOnlyOperationToReadTarget() {
+        assertSame(readSession, ReadOnlySessionContextHolder.doInReadOnly(router::newSession));
+        verify(readSession).setTransactionMode(Session.TransactionMode.QUERY);
+    }
+
+    @Test
+    public void routeReadOnlyTransactionToReadTarget() {
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertSame(readSession, router.newSession());
+    }
+
+    @Test
+    public void routeReadWriteTransactionToPrimary() {
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+
+        assertSame(writeSession, ReadOnlySessionContextHolder.doInReadOnly(router::newSession));
+    }
+}
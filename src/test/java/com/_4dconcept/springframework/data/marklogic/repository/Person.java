@@ -17,6 +17,7 @@ package com._4dconcept.springframework.data.marklogic.repository;
 
 import com._4dconcept.springframework.data.marklogic.core.mapping.Collection;
 import com._4dconcept.springframework.data.marklogic.core.mapping.Document;
+import com._4dconcept.springframework.data.marklogic.core.mapping.GeospatialIndexed;
 import org.springframework.lang.Nullable;
 
 import javax.xml.bind.annotation.XmlElement;
@@ -48,6 +49,9 @@ public class Person {
 
     private Address address;
 
+    @GeospatialIndexed
+    private String location;
+
     public Person() {}
 
     public Person(@Nullable String id, String firstname, String lastname, Integer age, String country) {
@@ -94,6 +98,14 @@ public class Person {
         this.age = age;
     }
 
+    public String getLocation() {
+        return location;
+    }
+
+    public void setLocation(String location) {
+        this.location = location;
+    }
+
     public Address getAddress() {
         return address;
     }
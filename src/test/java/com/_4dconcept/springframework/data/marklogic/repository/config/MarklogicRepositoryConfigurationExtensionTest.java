@@ -17,6 +17,7 @@ package com._4dconcept.springframework.data.marklogic.repository.config;
 
 import com._4dconcept.springframework.data.marklogic.core.mapping.Document;
 import com._4dconcept.springframework.data.marklogic.repository.MarklogicRepository;
+import com._4dconcept.springframework.data.marklogic.repository.ReactiveMarklogicRepository;
 import org.junit.Test;
 import org.springframework.beans.factory.support.BeanDefinitionRegistry;
 import org.springframework.beans.factory.support.DefaultBeanNameGenerator;
@@ -71,6 +72,28 @@ public class MarklogicRepositoryConfigurationExtensionTest {
                 extension.getRepositoryConfigurations(configurationSource, loader, true));
     }
 
+    @Test
+    public void skipsReactiveRepositories() {
+
+        MarklogicRepositoryConfigurationExtension extension = new MarklogicRepositoryConfigurationExtension();
+        assertDoesNotHaveRepo(ReactiveStoreRepository.class,
+                extension.getRepositoryConfigurations(configurationSource, loader, true));
+    }
+
+    @Test
+    public void reactiveExtensionOnlyMatchesReactiveRepositories() {
+
+        RepositoryConfigurationSource reactiveConfigurationSource = new AnnotationRepositoryConfigurationSource(
+                AnnotationMetadata.introspect(ReactiveConfig.class), EnableReactiveMarklogicRepositories.class, loader,
+                environment, registry, new DefaultBeanNameGenerator());
+
+        ReactiveMarklogicRepositoryConfigurationExtension extension = new ReactiveMarklogicRepositoryConfigurationExtension();
+        Collection<RepositoryConfiguration<RepositoryConfigurationSource>> configs =
+                extension.getRepositoryConfigurations(reactiveConfigurationSource, loader, true);
+        assertHasRepo(ReactiveStoreRepository.class, configs);
+        assertDoesNotHaveRepo(StoreRepository.class, configs);
+    }
+
     private static void assertHasRepo(Class<?> repositoryInterface,
                                       Collection<RepositoryConfiguration<RepositoryConfigurationSource>> configs) {
 
@@ -99,6 +122,11 @@ public class MarklogicRepositoryConfigurationExtensionTest {
 
     }
 
+    @EnableReactiveMarklogicRepositories(considerNestedRepositories = true)
+    static class ReactiveConfig {
+
+    }
+
     @Document
     static class Sample {}
 
@@ -108,4 +136,6 @@ public class MarklogicRepositoryConfigurationExtensionTest {
 
     interface StoreRepository extends MarklogicRepository<Object, Long> {}
 
+    interface ReactiveStoreRepository extends ReactiveMarklogicRepository<Object, Long> {}
+
 }
\ No newline at end of file
@@ -2,10 +2,16 @@ package com._4dconcept.springframework.data.marklogic.repository.query;
 
 import com._4dconcept.springframework.data.marklogic.core.mapping.MarklogicMappingContext;
 import com._4dconcept.springframework.data.marklogic.core.query.Criteria;
+import com._4dconcept.springframework.data.marklogic.core.query.GeospatialCriteria;
 import com._4dconcept.springframework.data.marklogic.core.query.Query;
 import com._4dconcept.springframework.data.marklogic.repository.MarklogicRepository;
 import com._4dconcept.springframework.data.marklogic.repository.Person;
 import org.junit.Test;
+import org.springframework.data.geo.Box;
+import org.springframework.data.geo.Circle;
+import org.springframework.data.geo.Distance;
+import org.springframework.data.geo.Metrics;
+import org.springframework.data.geo.Point;
 import org.springframework.data.projection.ProjectionFactory;
 import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
 import org.springframework.data.repository.core.support.DefaultRepositoryMetadata;
@@ -97,6 +103,102 @@ public class MarklogicQueryCreatorTest {
         assertThat(innerCriteria.getCriteriaObject(), nullValue());
     }
 
+    @Test
+    public void createQueryWithStartingWithParameter() throws Exception {
+        final MarklogicQueryMethod method = buildMethod("findByLastnameStartingWith", String.class);
+        MarklogicQueryCreator creator = new MarklogicQueryCreator(buildTree(method), buildAccessor(method, "Tou"), mappingContext, Person.class);
+        Query query = creator.createQuery();
+
+        assertThat(query.getCriteria().getOperator(), is(Criteria.Operator.WORD));
+        Criteria innerCriteria = (Criteria) query.getCriteria().getCriteriaObject();
+        assertThat(innerCriteria.getQname().getLocalPart(), is("lastname"));
+        assertThat(innerCriteria.getCriteriaObject(), is("Tou*"));
+        assertThat(innerCriteria.getOptions(), contains("wildcarded"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectWildcardInStartingWithParameter() throws Exception {
+        final MarklogicQueryMethod method = buildMethod("findByLastnameStartingWith", String.class);
+        new MarklogicQueryCreator(buildTree(method), buildAccessor(method, "*"), mappingContext, Person.class).createQuery();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectWildcardInContainingParameter() throws Exception {
+        final MarklogicQueryMethod method = buildMethod("findByLastnameContainingIgnoreCase", String.class);
+        new MarklogicQueryCreator(buildTree(method), buildAccessor(method, "T?u"), mappingContext, Person.class).createQuery();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectWildcardInLikeParameter() throws Exception {
+        final MarklogicQueryMethod method = buildMethod("findByLastnameNotLike", String.class);
+        new MarklogicQueryCreator(buildTree(method), buildAccessor(method, "T%*"), mappingContext, Person.class).createQuery();
+    }
+
+    @Test
+    public void createQueryWithContainingIgnoreCaseParameter() throws Exception {
+        final MarklogicQueryMethod method = buildMethod("findByLastnameContainingIgnoreCase", String.class);
+        MarklogicQueryCreator creator = new MarklogicQueryCreator(buildTree(method), buildAccessor(method, "ous"), mappingContext, Person.class);
+        Query query = creator.createQuery();
+
+        assertThat(query.getCriteria().getOperator(), is(Criteria.Operator.WORD));
+        Criteria innerCriteria = (Criteria) query.getCriteria().getCriteriaObject();
+        assertThat(innerCriteria.getCriteriaObject(), is("*ous*"));
+        assertThat(innerCriteria.getOptions(), contains("wildcarded", "case-insensitive"));
+    }
+
+    @Test
+    public void createQueryWithNotLikeParameter() throws Exception {
+        final MarklogicQueryMethod method = buildMethod("findByLastnameNotLike", String.class);
+        MarklogicQueryCreator creator = new MarklogicQueryCreator(buildTree(method), buildAccessor(method, "T_u%"), mappingContext, Person.class);
+        Query query = creator.createQuery();
+
+        assertThat(query.getCriteria().getOperator(), is(Criteria.Operator.NOT));
+        Criteria wordCriteria = (Criteria) query.getCriteria().getCriteriaObject();
+        assertThat(wordCriteria.getOperator(), is(Criteria.Operator.WORD));
+        assertThat(((Criteria) wordCriteria.getCriteriaObject()).getCriteriaObject(), is("T?u*"));
+    }
+
+    @Test
+    public void translateRegexToWildcardPattern() {
+        assertThat(MarklogicQueryCreator.regexToWildcardPattern("^Tou.*"), is("Tou*"));
+        assertThat(MarklogicQueryCreator.regexToWildcardPattern("a.c$"), is("*a?c"));
+        assertThat(MarklogicQueryCreator.regexToWildcardPattern(".*sa\\.b.+"), is("*sa.b?*"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectRegexWithoutWildcardCounterpart() {
+        MarklogicQueryCreator.regexToWildcardPattern("^[A-Z]+$");
+    }
+
+    @Test
+    public void createQueryWithNearParameters() throws Exception {
+        final MarklogicQueryMethod method = buildMethod("findByLocationNear", Point.class, Distance.class);
+        MarklogicQueryCreator creator = new MarklogicQueryCreator(buildTree(method), buildAccessor(method, new Point(2.35, 48.85), new Distance(10, Metrics.KILOMETERS)), mappingContext, Person.class);
+        Query query = creator.createQuery();
+
+        assertThat(query.getCriteria(), instanceOf(GeospatialCriteria.class));
+        GeospatialCriteria criteria = (GeospatialCriteria) query.getCriteria();
+        assertThat(criteria.getQname().getLocalPart(), is("location"));
+        assertThat(criteria.isPair(), is(false));
+        assertThat(criteria.getRegion(), is(new Circle(new Point(2.35, 48.85), new Distance(10, Metrics.KILOMETERS))));
+    }
+
+    @Test
+    public void createQueryWithWithinParameter() throws Exception {
+        final MarklogicQueryMethod method = buildMethod("findByLocationWithin", Box.class);
+        Box box = new Box(new Point(2, 48), new Point(3, 49));
+        MarklogicQueryCreator creator = new MarklogicQueryCreator(buildTree(method), buildAccessor(method, box), mappingContext, Person.class);
+        Query query = creator.createQuery();
+
+        assertThat(((GeospatialCriteria) query.getCriteria()).getRegion(), is(box));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectGeospatialKeywordOnNotIndexedProperty() throws Exception {
+        final MarklogicQueryMethod method = buildMethod("findByLastnameWithin", Box.class);
+        new MarklogicQueryCreator(buildTree(method), buildAccessor(method, new Box(new Point(2, 48), new Point(3, 49))), mappingContext, Person.class).createQuery();
+    }
+
     private ParameterAccessor buildAccessor(MarklogicQueryMethod method, Object... parameters) {
         return new ParametersParameterAccessor(method.getParameters(), parameters);
     }
@@ -138,5 +240,17 @@ public class MarklogicQueryCreatorTest {
 
         Person findByAddressEmpty();
 
+        List<Person> findByLastnameStartingWith(String prefix);
+
+        List<Person> findByLastnameContainingIgnoreCase(String part);
+
+        List<Person> findByLastnameNotLike(String pattern);
+
+        List<Person> findByLocationNear(Point point, Distance distance);
+
+        List<Person> findByLocationWithin(Box box);
+
+        List<Person> findByLastnameWithin(Box box);
+
     }
 }
\ No newline at end of file
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com._4dconcept.springframework.data.marklogic.repository.query;
+
+import com._4dconcept.springframework.data.marklogic.core.MarklogicInvokeOperationOptions;
+import com._4dconcept.springframework.data.marklogic.core.MarklogicOperations;
+import com._4dconcept.springframework.data.marklogic.core.convert.MappingMarklogicConverter;
+import com._4dconcept.springframework.data.marklogic.core.mapping.MarklogicMappingContext;
+import com._4dconcept.springframework.data.marklogic.repository.MarklogicRepository;
+import com._4dconcept.springframework.data.marklogic.repository.Person;
+import com._4dconcept.springframework.data.marklogic.repository.Query;
+import com.marklogic.xcc.types.XName;
+import com.marklogic.xcc.types.XdmValue;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.data.repository.core.support.DefaultRepositoryMetadata;
+import org.springframework.data.repository.query.Param;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link StringBasedMarklogicQuery}.
+ *
+ * @author Stéphane Toussaint
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class StringBasedMarklogicQueryTest {
+
+    @Mock
+    private MarklogicOperations marklogicOperationsMock;
+
+    @Before
+    public void setUp() {
+        MappingMarklogicConverter converter = new MappingMarklogicConverter(new MarklogicMappingContext());
+        converter.afterPropertiesSet();
+
+        when(marklogicOperationsMock.getConverter()).thenReturn(converter);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void searchCtsQuerySortedAndPaged() throws Exception {
+        when(marklogicOperationsMock.invokeAdhocQueryAsList(anyString(), eq(Person.class), any(MarklogicInvokeOperationOptions.class)))
+                .thenReturn(Collections.singletonList(new Person()));
+        when(marklogicOperationsMock.invokeAdhocQuery(anyString(), eq(Long.TYPE), any(MarklogicInvokeOperationOptions.class))).thenReturn(11L);
+
+        StringBasedMarklogicQuery query = createQuery("findByCtsLastname", String.class, Pageable.class);
+        Page<Person> page = (Page<Person>) query.execute(new Object[] {"Doe", PageRequest.of(1, 10, Sort.by("age"))});
+
+        ArgumentCaptor<String> queryCaptor = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<MarklogicInvokeOperationOptions> optionsCaptor = ArgumentCaptor.forClass(MarklogicInvokeOperationOptions.class);
+        verify(marklogicOperationsMock).invokeAdhocQueryAsList(queryCaptor.capture(), eq(Person.class), optionsCaptor.capture());
+        assertThat(queryCaptor.getValue(), is("declare variable $lastname external;\n" +
+                "declare variable $__start as xs:integer external;\n" +
+                "declare variable $__end as xs:integer external;\n" +
+                "cts:search(fn:collection('Person'), cts:element-value-query(fn:QName('http://spring.data.marklogic/test/contact', 'lastname'), $lastname), " +
+                "(cts:index-order(cts:element-reference(fn:QName('http://spring.data.marklogic/test/contact', 'age')), ('ascending'))))[$__start to $__end]"));
+
+        Map<Object, Object> params = optionsCaptor.getValue().params();
+        assertThat(((XdmValue) params.get(new XName("lastname"))).asString(), is("Doe"));
+        assertThat(((XdmValue) params.get(new XName("__start"))).asString(), is("11"));
+        assertThat(((XdmValue) params.get(new XName("__end"))).asString(), is("20"));
+        assertThat(optionsCaptor.getValue().staticQuery(), is(true));
+
+        verify(marklogicOperationsMock).invokeAdhocQuery(queryCaptor.capture(), eq(Long.TYPE), any(MarklogicInvokeOperationOptions.class));
+        assertThat(queryCaptor.getValue(), containsString("xdmp:estimate(cts:search(fn:collection('Person'), cts:element-value-query("));
+        assertThat(page.getTotalElements(), is(11L));
+    }
+
+    @Test
+    public void invokeXQueryMainModule() throws Exception {
+        StringBasedMarklogicQuery query = createQuery("findByXQueryAge", int.class);
+        query.execute(new Object[] {38});
+
+        verify(marklogicOperationsMock).invokeAdhocQueryAsList(eq("declare variable $age as xs:integer external;\n" +
+                "(fn:collection('Person')[.//*:age = $age])"), eq(Person.class), any(MarklogicInvokeOperationOptions.class));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void rejectUndeclaredParameter() throws Exception {
+        createQuery("findByUndeclaredVariable", String.class);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void rejectUnknownCtsVariable() throws Exception {
+        createQuery("findByUnknownCtsVariable", String.class);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void rejectUnbalancedQuery() throws Exception {
+        createQuery("findByUnbalancedQuery", String.class);
+    }
+
+    private StringBasedMarklogicQuery createQuery(String methodName, Class<?>... parameterTypes) throws Exception {
+        Method method = AnnotatedPersonRepository.class.getMethod(methodName, parameterTypes);
+        MarklogicQueryMethod queryMethod = new MarklogicQueryMethod(method, new DefaultRepositoryMetadata(AnnotatedPersonRepository.class),
+                new SpelAwareProxyProjectionFactory());
+        return new StringBasedMarklogicQuery(queryMethod, marklogicOperationsMock);
+    }
+
+    interface AnnotatedPersonRepository extends MarklogicRepository<Person, String> {
+
+        @Query(value = "cts:element-value-query(fn:QName('http://spring.data.marklogic/test/contact', 'lastname'), $lastname)", cts = true)
+        Page<Person> findByCtsLastname(@Param("lastname") String lastname, Pageable pageable);
+
+        @Query("declare variable $age as xs:integer external;\nfn:collection('Person')[.//*:age = $age]")
+        List<Person> findByXQueryAge(@Param("age") int age);
+
+        @Query("fn:collection('Person')[.//*:lastname = $lastname]")
+        List<Person> findByUndeclaredVariable(@Param("lastname") String lastname);
+
+        @Query(value = "cts:element-value-query(fn:QName('', 'lastname'), $name)", cts = true)
+        List<Person> findByUnknownCtsVariable(@Param("lastname") String lastname);
+
+        @Query(value = "cts:and-query((cts:element-value-query(fn:QName('', 'lastname'), $lastname)", cts = true)
+        List<Person> findByUnbalancedQuery(@Param("lastname") String lastname);
+    }
+}
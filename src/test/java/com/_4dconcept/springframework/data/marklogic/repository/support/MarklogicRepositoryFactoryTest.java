@@ -15,25 +15,37 @@
  */
 package com._4dconcept.springframework.data.marklogic.repository.support;
 
+import com._4dconcept.springframework.data.marklogic.core.MarklogicInvokeOperationOptions;
 import com._4dconcept.springframework.data.marklogic.core.MarklogicTemplate;
 import com._4dconcept.springframework.data.marklogic.core.convert.MarklogicConverter;
 import com._4dconcept.springframework.data.marklogic.core.mapping.MarklogicPersistentEntity;
 import com._4dconcept.springframework.data.marklogic.repository.Person;
 import com._4dconcept.springframework.data.marklogic.repository.query.MarklogicEntityInformation;
+import com.marklogic.xcc.types.ValueType;
+import com.marklogic.xcc.types.XName;
+import com.marklogic.xcc.types.XdmValue;
 import org.hamcrest.core.IsInstanceOf;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.springframework.data.mapping.context.MappingContext;
 import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.core.support.PropertiesBasedNamedQueries;
+import org.springframework.data.repository.query.Param;
 
 import java.io.Serializable;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -83,7 +95,32 @@ public class MarklogicRepositoryFactoryTest {
         assertThat(repository, is(notNullValue()));
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    public void bindsNamedQueryParametersAsXdmVariables() {
+        when(mappingContext.getPersistentEntity(Person.class)).thenReturn(entity);
+        Properties namedQueries = new Properties();
+        namedQueries.setProperty("Person.findByLastnameAndAge", "/person/find.xqy");
+
+        MarklogicRepositoryFactory factory = new MarklogicRepositoryFactory(template);
+        factory.setNamedQueries(new PropertiesBasedNamedQueries(namedQueries));
+        NamedQueryPersonRepository repository = factory.getRepository(NamedQueryPersonRepository.class);
+        repository.findByLastnameAndAge("Doe", 38);
+
+        ArgumentCaptor<MarklogicInvokeOperationOptions> optionsCaptor = ArgumentCaptor.forClass(MarklogicInvokeOperationOptions.class);
+        verify(template).invokeModuleAsList(eq("/person/find.xqy"), eq(Person.class), optionsCaptor.capture());
+        Map<Object, Object> params = optionsCaptor.getValue().params();
+        assertThat(params.size(), is(2));
+        assertThat(((XdmValue) params.get(new XName("lastname"))).asString(), is("Doe"));
+        assertThat(((XdmValue) params.get(new XName("age"))).getValueType(), is(ValueType.XS_INTEGER));
+    }
+
     interface MyPersonRepository extends Repository<Person, Long> {
 
     }
+
+    interface NamedQueryPersonRepository extends Repository<Person, String> {
+
+        List<Person> findByLastnameAndAge(@Param("lastname") String lastname, @Param("age") int age);
+    }
 }
\ No newline at end of file
@@ -17,4 +17,5 @@ interface PersonRepository extends MarklogicRepository<Person, String> {
 
     List<Person> findAllByOrderByLastname();
     List<Person> findAllByOrderByLastnameDesc();
+    List<Person> findByLastnameStartingWith(String prefix);
 }
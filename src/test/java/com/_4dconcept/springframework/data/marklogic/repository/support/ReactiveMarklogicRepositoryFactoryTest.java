@@ -0,0 +1,133 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com._4dconcept.springframework.data.marklogic.repository.support;
+
+import com._4dconcept.springframework.data.marklogic.core.MarklogicInvokeOperationOptions;
+import com._4dconcept.springframework.data.marklogic.core.MarklogicTemplate;
+import com._4dconcept.springframework.data.marklogic.core.ReactiveMarklogicTemplate;
+import com._4dconcept.springframework.data.marklogic.core.convert.MarklogicConverter;
+import com._4dconcept.springframework.data.marklogic.core.mapping.MarklogicPersistentEntity;
+import com._4dconcept.springframework.data.marklogic.repository.Person;
+import com._4dconcept.springframework.data.marklogic.repository.ReactiveMarklogicRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.data.mapping.context.MappingContext;
+import org.springframework.data.repository.core.support.PropertiesBasedNamedQueries;
+import org.springframework.data.repository.query.Param;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.util.Arrays;
+import java.util.Properties;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit test for {@link ReactiveMarklogicRepositoryFactory}.
+ *
+ * @author Stéphane Toussaint
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class ReactiveMarklogicRepositoryFactoryTest {
+
+    @Mock
+    MarklogicTemplate template;
+
+    @Mock
+    MarklogicConverter converter;
+
+    @Mock
+    MappingContext mappingContext;
+
+    @Mock
+    MarklogicPersistentEntity entity;
+
+    private ReactiveMarklogicRepositoryFactory factory;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() throws Exception {
+        when(template.getConverter()).thenReturn(converter);
+        when(converter.getMappingContext()).thenReturn(mappingContext);
+        when(mappingContext.getPersistentEntity(Person.class)).thenReturn(entity);
+
+        Properties namedQueries = new Properties();
+        namedQueries.setProperty("Person.findByLastname", "/person/find-by-lastname.xqy");
+        namedQueries.setProperty("Person.findByFirstname", "/person/find-by-firstname.xqy");
+
+        factory = new ReactiveMarklogicRepositoryFactory(new ReactiveMarklogicTemplate(template, Schedulers.immediate()));
+        factory.setNamedQueries(new PropertiesBasedNamedQueries(namedQueries));
+    }
+
+    @Test
+    public void emitMultipleResultsAsFlux() {
+        Person john = new Person();
+        Person jane = new Person();
+        when(template.invokeModuleAsList(eq("/person/find-by-lastname.xqy"), eq(Person.class), any(MarklogicInvokeOperationOptions.class)))
+                .thenReturn(Arrays.asList(john, jane));
+
+        Flux<Person> result = factory.getRepository(ReactivePersonRepository.class).findByLastname("Doe");
+
+        verify(template, never()).invokeModuleAsList(any(), any(), any());
+        StepVerifier.create(result).expectNext(john, jane).verifyComplete();
+    }
+
+    @Test
+    public void emitSingleResultAsMono() {
+        Person john = new Person();
+        when(template.invokeModule(eq("/person/find-by-firstname.xqy"), eq(Person.class), any(MarklogicInvokeOperationOptions.class)))
+                .thenReturn(john);
+
+        StepVerifier.create(factory.getRepository(ReactivePersonRepository.class).findByFirstname("John"))
+                .expectNext(john)
+                .verifyComplete();
+        verify(template).invokeModule(eq("/person/find-by-firstname.xqy"), eq(Person.class), any(MarklogicInvokeOperationOptions.class));
+    }
+
+    @Test
+    public void rejectReactiveParameters() {
+        try {
+            factory.getRepository(ReactiveParameterPersonRepository.class);
+            fail("IllegalStateException expected");
+        } catch (IllegalStateException ex) {
+            assertThat(ex.getMessage(), containsString("reactive parameters"));
+        }
+    }
+
+    interface ReactivePersonRepository extends ReactiveMarklogicRepository<Person, String> {
+
+        Flux<Person> findByLastname(@Param("lastname") String lastname);
+
+        Mono<Person> findByFirstname(@Param("firstname") String firstname);
+    }
+
+    interface ReactiveParameterPersonRepository extends ReactiveMarklogicRepository<Person, String> {
+
+        Flux<Person> findByLastname(@Param("lastname") Mono<String> lastname);
+    }
+}
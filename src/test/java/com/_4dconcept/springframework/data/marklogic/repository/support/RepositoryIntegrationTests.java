@@ -193,6 +193,24 @@ public class RepositoryIntegrationTests {
         assertThat(pageResult.getContent(), hasSize(2));
     }
 
+    @Test
+    public void searchPersonsByText() {
+        List<Person> persons = repository.search("toussaint");
+        assertThat(persons, hasSize(1));
+        assertThat(persons.get(0).getId(), is(stephId));
+
+        Page<Person> pageResult = repository.search("france", PageRequest.of(0, 1));
+        assertThat(pageResult.getTotalElements(), is(2L));
+        assertThat(pageResult.getContent(), hasSize(1));
+    }
+
+    @Test
+    public void findPersonsByLastnameStartingWith() {
+        List<Person> persons = repository.findByLastnameStartingWith("Tous");
+        assertThat(persons, hasSize(1));
+        assertThat(persons.get(0).getId(), is(stephId));
+    }
+
     @Test
     public void insertPersonWithNoId() {
         Person person = new Person(null,"James", "Bond", 38, "France");